@@ -12,19 +12,35 @@ package org.intermine.biovalidator;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.intermine.biovalidator.api.ArchiveValidationReport;
+import org.intermine.biovalidator.api.ArchiveValidator;
 import org.intermine.biovalidator.api.ErrorMessage;
 import org.intermine.biovalidator.api.Message;
 import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.api.Validator;
 import org.intermine.biovalidator.api.ValidatorBuilder;
 import org.intermine.biovalidator.utils.BioValidatorUtils;
 import org.intermine.biovalidator.validator.ValidatorType;
+import org.intermine.biovalidator.validator.fasta.FastaStatistics;
+import org.intermine.biovalidator.validator.fasta.FastaStatisticsCollector;
+import org.intermine.biovalidator.validator.fasta.GapBedWriter;
+import org.intermine.biovalidator.validator.fasta.HeaderSchema;
+import org.intermine.biovalidator.validator.fasta.SequenceDigestCollector;
+import org.intermine.biovalidator.validator.fasta.sequencevalidator.SequenceAlphabet;
+import org.intermine.biovalidator.validator.fastq.QualityEncoding;
 import picocli.CommandLine;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -46,6 +62,7 @@ final class CommandLineRunner
     private static final String GFF = "gff";
     private static final String GFF3 = "gff3";
     private static final String CSV = "csv";
+    private static final String STDIN = "-";
 
     static {
         WRITER = new PrintWriter(System.out, true);
@@ -93,38 +110,71 @@ final class CommandLineRunner
             String file = command.getFilename();
             String validatorType = command.getValidatorType();
 
-            WRITER.println("Validating " + getValidatorTypeName(file, validatorType) + " file...");
+            ValidationSource source = STDIN.equals(file)
+                    ? ValidationSource.ofStdin() : ValidationSource.of(new File(file));
 
-            ValidatorBuilder builder = ValidatorBuilder
-                    .withFile(file, validatorType); //strict validation by-default
-
-            if (command.isContinueOnError()) {
-                builder.disableStopAtFirstError();
+            if (command.isArchive()) {
+                Optional<String> outputOption = getRecordOutputOption(command);
+                if (outputOption.isPresent()) {
+                    WRITER.println(outputOption.get() + " cannot be used with --archive");
+                    WRITER.close();
+                    return;
+                }
+                validateArchive(source, command);
+                WRITER.close();
+                return;
             }
-            if (command.isDisableErrors()) {
-                builder.disableErrors();
+
+            // type is guessed from content and name once, source is not sniffed again
+            Optional<ValidatorType> type =
+                    BioValidatorUtils.getOrGuessValidatorType(source, validatorType);
+            Optional<String> optionError = checkRecordOption(command, type);
+            if (optionError.isPresent()) {
+                WRITER.println(optionError.get());
+                WRITER.close();
+                return;
             }
-            if (command.isEnableWarning()) { //enable warning
-                builder.enableWarnings();
+            WRITER.println("Validating " + getValidatorTypeName(type, validatorType)
+                    + " file...");
+
+            ValidatorBuilder builder = type.isPresent()
+                    ? ValidatorBuilder.withSource(source, type.get())
+                    : ValidatorBuilder.withSource(source, validatorType); //reports invalid type
+            applyOptions(command, builder);
+            FastaStatisticsCollector statistics = null;
+            if (command.getStats() != null) {
+                statistics = new FastaStatisticsCollector();
+                builder.withRecordListener(statistics);
             }
-            if (command.isStrict()) {
-                builder.enableStrictValidation();
+            SequenceDigestCollector digests = null;
+            if (command.getDigests() != null) {
+                digests = new SequenceDigestCollector();
+                builder.withRecordListener(digests);
             }
-            if (command.isPermissive()) { //allow permissive validation
-                builder.disableStrictValidation();
+
+            Writer gaps = null;
+            if (command.getGaps() != null) {
+                gaps = openGapsFile(command.getGaps());
+                if (gaps == null) {
+                    return;
+                }
+                builder.withRecordListener(new GapBedWriter(gaps, command.getMinGap()));
             }
 
-            ValidationResult result = builder.build().validate();
+            Validator validator = builder.build();
+            ValidationResult result;
+            try {
+                result = validator.validate();
+            } finally {
+                closeQuietly(gaps);
+            }
             WRITER.print("Result : ");
-            if (result.isValid()) {
-                WRITER.println("Valid File!!");
-                displayMessages("Warning", result.getWarningMessages());
-            } else {
-                WRITER.println("Invalid File!!");
-                displayMessages("Error", result.getErrorMessages());
-                if (!result.getWarningMessages().isEmpty()) {
-                    displayMessages("Warning", result.getWarningMessages());
-                }
+            displayResult(result);
+            if (statistics != null) {
+                writeStatistics(statistics.getStatistics(), command.getStats());
+            }
+            if (digests != null) {
+                writeDigests(digests, command.getDigests());
             }
         } catch (RuntimeException e) {
             WRITER.println(e.getMessage());
@@ -132,23 +182,210 @@ final class CommandLineRunner
         WRITER.close();
     }
 
+    private static void applyOptions(BioValidatorCommand command, ValidatorBuilder builder) {
+        if (command.isContinueOnError()) {
+            builder.disableStopAtFirstError();
+        }
+        if (command.isDisableErrors()) {
+            builder.disableErrors();
+        }
+        if (command.isEnableWarning()) { //enable warning
+            builder.enableWarnings();
+        }
+        if (command.isStrict()) {
+            builder.enableStrictValidation();
+        }
+        if (command.isPermissive()) { //allow permissive validation
+            builder.disableStrictValidation();
+        }
+        if (command.isPipelined()) {
+            builder.enablePipelinedReading();
+        }
+        if (command.getAlphabet() != null) {
+            SequenceAlphabet alphabet = SequenceAlphabet.parse(command.getAlphabet());
+            builder.withSequenceAlphabet(command.isAlignment() ? alphabet.withGaps() : alphabet);
+        } else if (command.isAlignment()) { // letters of the sequence type
+            builder.enableAlignmentGaps();
+        }
+        if (command.getThreads() > 1) {
+            builder.enableParallelValidation(command.getThreads());
+        }
+        if (command.isFai()) {
+            builder.withFaiIndex();
+        }
+        if (command.getRegions() != null) {
+            builder.withRegions(command.getRegions().toArray(new String[0]));
+        }
+        if (command.isQuickCheck()) {
+            builder.enableQuickCheck();
+        }
+        if (command.isDetectType()) {
+            builder.enableSequenceTypeDetection();
+        }
+        if (command.isDuplicateSequences()) {
+            builder.enableDuplicateSequenceCheck();
+        }
+        if (command.getHeaderSchema() != null) {
+            builder.withHeaderSchema(HeaderSchema.of(command.getHeaderSchema()));
+        }
+        if (command.getQualityEncoding() != null) {
+            builder.withQualityEncoding(QualityEncoding.of(command.getQualityEncoding()));
+        }
+    }
+
+    /**
+     * Checks that an option needing the records of the file is used when records are read in
+     * order, i.e. when a whole FASTA file is validated, otherwise its output would be silently
+     * left empty
+     * @param command parsed command line
+     * @param type validator type, empty if not known
+     * @return error message, empty if options can be used together
+     */
+    private static Optional<String> checkRecordOption(BioValidatorCommand command,
+                                                      Optional<ValidatorType> type) {
+        Optional<String> option = getRecordOption(command);
+        if (!option.isPresent() || !type.isPresent()) { // invalid type is reported by validation
+            return Optional.empty();
+        }
+        if (!isFasta(type.get())) {
+            return Optional.of(option.get() + " can only be used with fasta files");
+        }
+        if (command.getRegions() != null) {
+            return Optional.of(option.get() + " cannot be used with --regions");
+        }
+        if (command.isQuickCheck()) {
+            return Optional.of(option.get() + " cannot be used with --quick-check");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the first option given which needs every record of a FASTA file
+     * @param command parsed command line
+     * @return option name, empty if none is given
+     */
+    private static Optional<String> getRecordOption(BioValidatorCommand command) {
+        Optional<String> outputOption = getRecordOutputOption(command);
+        if (outputOption.isPresent()) {
+            return outputOption;
+        }
+        if (command.isDuplicateSequences()) {
+            return Optional.of("--duplicate-sequences");
+        }
+        if (command.isFai()) {
+            return Optional.of("--fai");
+        }
+        return Optional.empty();
+    }
+
     /**
-     * returns validator verbose name form validator type, or guess from filename
+     * Gets the first option given which writes a file from the records of a FASTA file
+     * @param command parsed command line
+     * @return option name, empty if none is given
+     */
+    private static Optional<String> getRecordOutputOption(BioValidatorCommand command) {
+        if (command.getStats() != null) {
+            return Optional.of("--stats");
+        }
+        if (command.getDigests() != null) {
+            return Optional.of("--digests");
+        }
+        if (command.getGaps() != null) {
+            return Optional.of("--gaps");
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isFasta(ValidatorType type) {
+        return type == ValidatorType.FASTA || type == ValidatorType.FASTA_DNA
+                || type == ValidatorType.FASTA_RNA || type == ValidatorType.FASTA_PROTEIN;
+    }
+
+    private static void writeStatistics(FastaStatistics statistics, String file) {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            if (StringUtils.endsWithIgnoreCase(file, ".json")) {
+                statistics.writeJson(writer);
+            } else {
+                statistics.writeTsv(writer);
+            }
+        } catch (IOException e) {
+            WRITER.println("Unable to write statistics: " + e.getMessage());
+        }
+    }
+
+    private static Writer openGapsFile(String file) {
+        try {
+            return Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            WRITER.println("Unable to write gaps: " + e.getMessage());
+            WRITER.close();
+            return null;
+        }
+    }
+
+    private static void closeQuietly(Writer writer) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            WRITER.println("Unable to write gaps: " + e.getMessage());
+        }
+    }
+
+    private static void writeDigests(SequenceDigestCollector digests, String file) {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            digests.writeTsv(writer);
+        } catch (IOException e) {
+            WRITER.println("Unable to write digests: " + e.getMessage());
+        }
+    }
+
+    private static void displayResult(ValidationResult result) {
+        if (result.isValid()) {
+            WRITER.println("Valid File!!");
+            displayMessages("Warning", result.getWarningMessages());
+        } else {
+            WRITER.println("Invalid File!!");
+            displayMessages("Error", result.getErrorMessages());
+            if (!result.getWarningMessages().isEmpty()) {
+                displayMessages("Warning", result.getWarningMessages());
+            }
+        }
+        displayMessages("Info", result.getInfoMessages());
+    }
+
+    private static void validateArchive(ValidationSource source, BioValidatorCommand command) {
+        WRITER.println("Validating archive " + source.getName() + "...");
+        ArchiveValidationReport report = new ArchiveValidator(source)
+                .withValidatorOptions(builder -> applyOptions(command, builder))
+                .validate();
+        for (ArchiveValidationReport.EntryReport entry : report.getEntries()) {
+            if (entry.isSkipped()) {
+                WRITER.println(entry.getName() + " : Skipped, format not recognized");
+                continue;
+            }
+            WRITER.print(entry.getName() + entry.getValidatorType()
+                    .map(type -> " (" + type.getName() + ")").orElse("") + " : ");
+            displayResult(entry.getResult());
+        }
+        WRITER.println("Result : " + (report.isValid() ? "Valid Archive!!" : "Invalid Archive!!"));
+    }
+
+    /**
+     * returns validator verbose name form validator type, as given by the user or as guessed
      * @return validator name
      */
-    private static String getValidatorTypeName(String filename, String validatorType) {
-        Optional<ValidatorType> opt = BioValidatorUtils.getOrGuessValidatorType(
-                filename, validatorType);
+    private static String getValidatorTypeName(Optional<ValidatorType> type,
+                                               String validatorType) {
         // find verbose name for validator type currently being used by validator
-        if (opt.isPresent()) {
-            ValidatorType foundValidatorType = opt.get();
+        if (type.isPresent()) {
+            ValidatorType foundValidatorType = type.get();
             if (foundValidatorType.getName().equalsIgnoreCase(validatorType)) {
                 return validatorType; //if validator type was provided by user explicitly
-            } else {
-                //else returns fileExtension from which validator type was guessed
-                Optional<String> fileExtension = BioValidatorUtils.getFileExtension(filename);
-                return fileExtension.orElse(StringUtils.EMPTY);
             }
+            return foundValidatorType.getName(); // guessed from content or file extension
         }
         return StringUtils.EMPTY; // if validator type not-found or guessed
     }
@@ -172,7 +409,7 @@ final class CommandLineRunner
 
     private static void printInputStreamToConsole(InputStream inputStream) {
         try (BufferedReader bufferedReader = new BufferedReader(
-                new InputStreamReader(inputStream))) {
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
             bufferedReader.lines()
                     .forEach(System.out::println);
         } catch (IOException e) {
@@ -210,7 +447,8 @@ final class CommandLineRunner
             /** create possible Validator
              */
             ValidatorTypes() {
-                super(Arrays.asList("", "fasta", "fasta-dna", "fasta-rna", "fasta-protein"));
+                super(Arrays.asList("", "fasta", "fasta-dna", "fasta-rna", "fasta-protein",
+                        "fastq"));
             }
         }
 
@@ -218,13 +456,13 @@ final class CommandLineRunner
                 names = {"-t", "--type"},
                 description = "ValidatorType, "
                         + "possible values:\n fasta,\n fasta-dna,\n fasta-rna,\n fasta-protein,\n"
-                        + " gff3,\n csv,\n tsv,\n tab",
+                        + " fastq,\n gff3,\n csv,\n tsv,\n tab",
                 defaultValue = "",
                 completionCandidates = ValidatorTypes.class)
         private String validatorType;
 
         @CommandLine.Option(names = {"-f", "--file"},
-            description = "file to be validated",
+            description = "file to be validated, use '-' to read from stdin",
             required = false)
         private String filename;
 
@@ -244,6 +482,78 @@ final class CommandLineRunner
             description = "continue validation if error encountered")
         private boolean continueOnError;
 
+        @CommandLine.Option(names = {"--pipelined"},
+            description = "read and validate on separate threads, for big files on slow storage")
+        private boolean pipelined;
+
+        @CommandLine.Option(names = {"--alphabet"},
+            description = "allowed fasta sequence letters: acgtn, iupac, rna, protein"
+                    + " or a list of letters, ex: --alphabet ACGT")
+        private String alphabet;
+
+        @CommandLine.Option(names = {"--alignment"},
+            description = "allow gaps '-' and '.' in fasta sequences, in the letters of"
+                + " the sequence type or of --alphabet")
+        private boolean alignment;
+
+        @CommandLine.Option(names = {"--threads"},
+            description = "number of threads validating chunks of an uncompressed fasta or"
+                    + " fastq file")
+        private int threads;
+
+        @CommandLine.Option(names = {"--fai"},
+            description = "write a samtools index <file>.fai of a valid fasta file")
+        private boolean fai;
+
+        @CommandLine.Option(names = {"--regions"}, split = ",",
+            description = "validate only these records or regions of a fasta file indexed by"
+                    + " <file>.fai, ex: --regions chr2,chrM:1-1000")
+        private List<String> regions;
+
+        @CommandLine.Option(names = {"--quick-check"},
+            description = "validate only the first, last and randomly sampled records of a"
+                    + " fasta file, reporting an estimate of the share of invalid records")
+        private boolean quickCheck;
+
+        @CommandLine.Option(names = {"--detect-type"},
+            description = "detect whether fasta sequences are dna, rna or protein and validate"
+                    + " them with the letters of that type")
+        private boolean detectType;
+
+        @CommandLine.Option(names = {"--duplicate-sequences"},
+            description = "report fasta records having the same sequence under different ids")
+        private boolean duplicateSequences;
+
+        @CommandLine.Option(names = {"--header-schema"},
+            description = "validate fasta headers against a convention: ncbi, uniprot or"
+                    + " ensembl")
+        private String headerSchema;
+
+        @CommandLine.Option(names = {"--quality-encoding"},
+            description = "encoding of fastq quality scores: phred33, phred64 or auto (default)")
+        private String qualityEncoding;
+
+        @CommandLine.Option(names = {"--stats"},
+            description = "write fasta sequence statistics to a tsv file, or json if the file"
+                    + " name ends with .json")
+        private String stats;
+
+        @CommandLine.Option(names = {"--digests"},
+            description = "write MD5 and refget digests of each fasta record to a tsv file")
+        private String digests;
+
+        @CommandLine.Option(names = {"--gaps"},
+            description = "write runs of N of each fasta record to a bed file")
+        private String gaps;
+
+        @CommandLine.Option(names = {"--min-gap"}, defaultValue = "1",
+            description = "shortest run of N written with --gaps, default 1")
+        private long minGap;
+
+        @CommandLine.Option(names = {"--archive"},
+            description = "validate each file of a tar/zip archive, without extracting it")
+        private boolean archive;
+
         @CommandLine.Option(names = {"-m", "--docs"},
                 description = "documentation, ex: --docs fasta")
         private String docs;
@@ -255,6 +565,141 @@ final class CommandLineRunner
         @Override public void run() {
 
         }
+        /**
+         * Gets alphabet.
+         *
+         * @return Value of alphabet.
+         */
+        String getAlphabet() {
+            return alphabet;
+        }
+
+        /**
+         * Gets alignment.
+         *
+         * @return Value of alignment.
+         */
+        boolean isAlignment() {
+            return alignment;
+        }
+
+        /**
+         * Gets threads.
+         *
+         * @return Value of threads.
+         */
+        int getThreads() {
+            return threads;
+        }
+
+        /**
+         * Gets fai.
+         *
+         * @return Value of fai.
+         */
+        boolean isFai() {
+            return fai;
+        }
+
+        /**
+         * Gets regions.
+         *
+         * @return Value of regions.
+         */
+        List<String> getRegions() {
+            return regions;
+        }
+
+        /**
+         * Gets quickCheck.
+         *
+         * @return Value of quickCheck.
+         */
+        boolean isQuickCheck() {
+            return quickCheck;
+        }
+
+        /**
+         * Gets detectType.
+         *
+         * @return Value of detectType.
+         */
+        boolean isDetectType() {
+            return detectType;
+        }
+
+        /**
+         * Gets duplicateSequences.
+         *
+         * @return Value of duplicateSequences.
+         */
+        boolean isDuplicateSequences() {
+            return duplicateSequences;
+        }
+
+        /**
+         * Gets headerSchema.
+         *
+         * @return Value of headerSchema.
+         */
+        String getHeaderSchema() {
+            return headerSchema;
+        }
+
+        /**
+         * Gets qualityEncoding.
+         *
+         * @return Value of qualityEncoding.
+         */
+        String getQualityEncoding() {
+            return qualityEncoding;
+        }
+
+        /**
+         * Gets stats.
+         *
+         * @return Value of stats.
+         */
+        String getStats() {
+            return stats;
+        }
+
+        /**
+         * Gets digests.
+         *
+         * @return Value of digests.
+         */
+        String getDigests() {
+            return digests;
+        }
+
+        /**
+         * Gets gaps.
+         *
+         * @return Value of gaps.
+         */
+        String getGaps() {
+            return gaps;
+        }
+
+        /**
+         * Gets minGap.
+         *
+         * @return Value of minGap.
+         */
+        long getMinGap() {
+            return minGap;
+        }
+
+        /**
+         * Gets archive.
+         *
+         * @return Value of archive.
+         */
+        boolean isArchive() {
+            return archive;
+        }
+
         /**
          * Gets disableErrors.
          *
@@ -334,5 +779,14 @@ final class CommandLineRunner
         public boolean isStrict() {
             return strict;
         }
+
+        /**
+         * Gets pipelined.
+         *
+         * @return Value of pipelined.
+         */
+        public boolean isPipelined() {
+            return pipelined;
+        }
     }
 }
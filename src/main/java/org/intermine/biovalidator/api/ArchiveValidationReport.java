@@ -0,0 +1,119 @@
+package org.intermine.biovalidator.api;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.validator.ValidatorType;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Result of validating all the files of an archive, one entry per file in archive order
+ *
+ * @author deepak
+ */
+public final class ArchiveValidationReport
+{
+    private final String archiveName;
+    private final List<EntryReport> entries;
+
+    /**
+     * Construct a report
+     * @param archiveName name of the archive
+     * @param entries reports of the entries in archive order
+     */
+    ArchiveValidationReport(String archiveName, List<EntryReport> entries) {
+        this.archiveName = archiveName;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Gets name of the archive
+     * @return archive name
+     */
+    public String getArchiveName() {
+        return archiveName;
+    }
+
+    /**
+     * Gets reports of all the entries, including skipped ones
+     * @return entry reports in archive order
+     */
+    public List<EntryReport> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Test whether all the validated entries are valid
+     * @return true if no entry has errors
+     */
+    public boolean isValid() {
+        return entries.stream().allMatch(entry -> entry.getResult().isValid());
+    }
+
+    /**
+     * Validation report of a single file of an archive
+     */
+    public static final class EntryReport
+    {
+        private final String name;
+        private final ValidatorType validatorType;
+        private final ValidationResult result;
+
+        /**
+         * Construct an entry report
+         * @param name path of the entry inside the archive
+         * @param validatorType type used to validate the entry, null if entry was skipped
+         * @param result validation result
+         */
+        EntryReport(String name, ValidatorType validatorType, ValidationResult result) {
+            this.name = name;
+            this.validatorType = validatorType;
+            this.result = result;
+        }
+
+        /**
+         * Gets path of the entry inside the archive
+         * @return entry name
+         */
+        @Nonnull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets validator type used for the entry, guessed from its name or content
+         * @return validator type, empty if format was not recognized and entry was skipped
+         */
+        public Optional<ValidatorType> getValidatorType() {
+            return Optional.ofNullable(validatorType);
+        }
+
+        /**
+         * Test whether entry was skipped because its format was not recognized
+         * @return true if skipped
+         */
+        public boolean isSkipped() {
+            return validatorType == null && result.isValid();
+        }
+
+        /**
+         * Gets validation result of the entry
+         * @return validation result
+         */
+        @Nonnull
+        public ValidationResult getResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.intermine.biovalidator.api;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.source.ArchiveEntry;
+import org.intermine.biovalidator.source.ArchiveReader;
+import org.intermine.biovalidator.utils.BioValidatorUtils;
+import org.intermine.biovalidator.utils.FormatSniffer;
+import org.intermine.biovalidator.validator.ValidatorType;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Validates every FASTA, FASTQ, GFF3 and CSV file of a tar or zip archive (optionally compressed)
+ * without extracting it. The archive is streamed once, the validator type of each entry is
+ * guessed from its content and its name. Entries up to a size limit are read into memory and
+ * validated concurrently on a bounded pool, bigger entries are validated while streaming.
+ * Example:
+ * <code>
+ *     ArchiveValidationReport report = new ArchiveValidator(ValidationSource.of(file))
+ *             .withValidatorOptions(builder -&gt; builder.disableStopAtFirstError())
+ *             .validate();
+ * </code>
+ *
+ * @author deepak
+ */
+public class ArchiveValidator
+{
+    private static final int DEFAULT_IN_MEMORY_ENTRY_SIZE = 4 * 1024 * 1024;
+    private static final int PENDING_ENTRIES_PER_THREAD = 2;
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final ValidationSource archive;
+    private int threadCount;
+    private int inMemoryEntrySize;
+    private Consumer<ValidatorBuilder> validatorOptions;
+
+    /**
+     * Construct an archive validator
+     * @param archive tar or zip archive, may be gzip compressed
+     */
+    public ArchiveValidator(@Nonnull ValidationSource archive) {
+        this.archive = archive;
+        this.threadCount = Runtime.getRuntime().availableProcessors();
+        this.inMemoryEntrySize = DEFAULT_IN_MEMORY_ENTRY_SIZE;
+        this.validatorOptions = builder -> { };
+    }
+
+    /**
+     * Sets number of threads validating in-memory entries
+     * @param count number of threads
+     * @return this validator
+     */
+    public ArchiveValidator withThreadCount(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("thread count must be positive");
+        }
+        this.threadCount = count;
+        return this;
+    }
+
+    /**
+     * Sets size up to which entries are read into memory and validated concurrently
+     * @param size size in bytes
+     * @return this validator
+     */
+    public ArchiveValidator withInMemoryEntrySize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("entry size must be positive");
+        }
+        this.inMemoryEntrySize = size;
+        return this;
+    }
+
+    /**
+     * Sets options applied to the validator of each entry, e.g. strict validation
+     * @param options function configuring the builder of each entry
+     * @return this validator
+     */
+    public ArchiveValidator withValidatorOptions(@Nonnull Consumer<ValidatorBuilder> options) {
+        this.validatorOptions = options;
+        return this;
+    }
+
+    /**
+     * Validates all the entries of the archive, never throws, a failure to read the archive is
+     * reported as an error of an entry named after the archive
+     * @return one report per file of the archive
+     */
+    @Nonnull
+    public ArchiveValidationReport validate() {
+        String poolName = "biovalidator-archive-" + POOL_COUNT.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, poolName + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // bounds memory used by entries read but not validated yet
+        Semaphore pendingEntries = new Semaphore(threadCount * PENDING_ENTRIES_PER_THREAD);
+        List<Future<ArchiveValidationReport.EntryReport>> reports = new ArrayList<>();
+        try (ArchiveReader reader = ArchiveReader.open(archive)) {
+            ArchiveEntry entry;
+            while ((entry = reader.next()) != null) {
+                if (entry.getSize() >= 0 && entry.getSize() <= inMemoryEntrySize) {
+                    pendingEntries.acquire();
+                    ValidationSource source = ValidationSource.of(
+                            entry.readFully(inMemoryEntrySize), entry.getName());
+                    reports.add(pool.submit(() -> {
+                        try {
+                            return validateSource(source);
+                        } finally {
+                            pendingEntries.release();
+                        }
+                    }));
+                } else {
+                    reports.add(CompletableFuture.completedFuture(validateStreaming(entry)));
+                }
+            }
+        } catch (IOException e) {
+            reports.add(CompletableFuture.completedFuture(errorReport(archive.getName(),
+                    e.getMessage())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reports.add(CompletableFuture.completedFuture(errorReport(archive.getName(),
+                    "interrupted while reading archive")));
+        }
+        ArchiveValidationReport report = new ArchiveValidationReport(archive.getName(),
+                collect(reports));
+        pool.shutdown();
+        return report;
+    }
+
+    private ArchiveValidationReport.EntryReport validateSource(ValidationSource source) {
+        Optional<ValidatorType> type = BioValidatorUtils.getOrGuessValidatorType(source, null);
+        return validate(source, type);
+    }
+
+    private ArchiveValidationReport.EntryReport validateStreaming(ArchiveEntry entry)
+        throws IOException {
+        ByteBuffer sample = entry.peek(FormatSniffer.SAMPLE_SIZE);
+        Optional<ValidatorType> type = BioValidatorUtils.guessValidatorType(entry.getName(),
+                sample, sample.remaining() < FormatSniffer.SAMPLE_SIZE);
+        return validate(ValidationSource.of(entry.getChannel(), entry.getName()), type);
+    }
+
+    private ArchiveValidationReport.EntryReport validate(ValidationSource source,
+                                                         Optional<ValidatorType> type) {
+        if (!type.isPresent()) {
+            ValidationResult skipped = new DefaultValidationResult(
+                    new DefaultValidationResultStrategy());
+            return new ArchiveValidationReport.EntryReport(source.getName(), null, skipped);
+        }
+        ValidationResult result;
+        try {
+            ValidatorBuilder builder = ValidatorBuilder.withSource(source, type.get());
+            validatorOptions.accept(builder);
+            result = builder.build().validate();
+        } catch (RuntimeException e) {
+            return errorReport(source.getName(), e.getMessage());
+        }
+        return new ArchiveValidationReport.EntryReport(source.getName(), type.get(), result);
+    }
+
+    private static ArchiveValidationReport.EntryReport errorReport(String name, String message) {
+        ValidationResult result = new DefaultValidationResult(
+                new DefaultValidationResultStrategy());
+        result.addError(message);
+        return new ArchiveValidationReport.EntryReport(name, null, result);
+    }
+
+    private static List<ArchiveValidationReport.EntryReport> collect(
+            List<Future<ArchiveValidationReport.EntryReport>> reports) {
+        List<ArchiveValidationReport.EntryReport> entries = new ArrayList<>(reports.size());
+        for (Future<ArchiveValidationReport.EntryReport> report : reports) {
+            try {
+                entries.add(report.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                entries.add(errorReport("unknown entry", String.valueOf(e.getCause())));
+            }
+        }
+        return entries;
+    }
+}
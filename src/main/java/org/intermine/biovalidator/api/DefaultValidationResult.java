@@ -30,6 +30,7 @@ public class DefaultValidationResult implements ValidationResult
      */
     private List<Message> errorMessages;
     private List<Message> warningMessages;
+    private final List<Message> infoMessages;
     private boolean isValid;
     private ValidationResultStrategy resultStrategy;
     private int maxWarningMessageAllowed;
@@ -42,6 +43,7 @@ public class DefaultValidationResult implements ValidationResult
         this.resultStrategy = resultStrategy;
         this.errorMessages = new ArrayList<>();
         this.warningMessages = new ArrayList<>();
+        this.infoMessages = new ArrayList<>();
         this.isValid = true;
         this.maxWarningMessageAllowed = 50;
     }
@@ -79,6 +81,11 @@ public class DefaultValidationResult implements ValidationResult
         return Collections.unmodifiableList(warningMessages);
     }
 
+    @Override
+    public List<Message> getInfoMessages() {
+        return Collections.unmodifiableList(infoMessages);
+    }
+
     @Override
     public boolean isValid() {
         return isValid;
@@ -105,6 +112,11 @@ public class DefaultValidationResult implements ValidationResult
         }
     }
 
+    @Override
+    public void addInfo(@Nonnull InfoMessage infoMessage) {
+        this.infoMessages.add(infoMessage);
+    }
+
     @Override
     public void addError(String errorMessage) {
         addError(ErrorMessage.of(errorMessage));
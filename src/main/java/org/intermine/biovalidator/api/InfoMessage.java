@@ -0,0 +1,38 @@
+package org.intermine.biovalidator.api;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+/**
+ * Represents an immutable informational message, describing how the input was validated
+ * rather than a problem in it
+ *
+ * @author deepak
+ */
+public class InfoMessage extends Message
+{
+    /**
+     * Construct a message with given string
+     *
+     * @param message message string
+     */
+    public InfoMessage(String message) {
+        super(message);
+    }
+
+    /**
+     * creates an info message from string
+     * @param msg info message
+     * @return instance of info message
+     */
+    public static InfoMessage of(String msg) {
+        return new InfoMessage(msg);
+    }
+}
@@ -22,6 +22,9 @@ import java.io.IOException;
  * Each validator can define its own strategy for reading file data. Some implementation can read
  * the file line by line while some can read more than one line in one step.
  *
+ * Records can also be pulled in batches with parseBatch(), which avoids a call per record and
+ * lets parsers recycle record instances.
+ *
  * @param <T> type of result returned by the parse's parseNext() method
  *
  * @author deepak
@@ -35,6 +38,35 @@ public interface Parser<T> extends AutoCloseable
      */
     T parseNext() throws ParsingException;
 
+    /**
+     * Parse the next records into a caller owned batch, replacing its previous content. The
+     * default implementation adds the records returned by parseNext(), parsers returning
+     * recycled instances from parseNext() must override it.
+     * @param batch batch to be filled, see createBatch()
+     * @return number of records in the batch, 0 at end of input
+     * @throws ParsingException if parser is not able to parse data from the file
+     */
+    default int parseBatch(RecordBatch<T> batch) throws ParsingException {
+        batch.clear();
+        while (!batch.isFull()) {
+            T record = parseNext();
+            if (record == null) {
+                break;
+            }
+            batch.add(record);
+        }
+        return batch.size();
+    }
+
+    /**
+     * Create a batch suitable for parseBatch() of this parser
+     * @param capacity maximum number of records in the batch
+     * @return empty batch
+     */
+    default RecordBatch<T> createBatch(int capacity) {
+        return new RecordBatch<>(capacity);
+    }
+
     /**
      * Close the resources associated with Parser
      * @throws IOException if closing resource fails
@@ -0,0 +1,174 @@
+package org.intermine.biovalidator.api;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.util.function.Supplier;
+
+/**
+ * A caller owned, reusable batch of parsed records with the line number of each record, filled
+ * by Parser.parseBatch(). Records are either added by the parser (immutable records) or are
+ * recycled instances updated in place by the parser (see getFreeSlot()), in which case they
+ * are only valid until the batch is filled again.
+ *
+ * @param <T> type of records
+ *
+ * @author deepak
+ */
+public final class RecordBatch<T>
+{
+    /**
+     * default number of records in a batch
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Object[] records;
+    private final long[] lineNumbers;
+    private final Supplier<? extends T> slotFactory;
+    private int size;
+    private long lastLineNumber;
+
+    /**
+     * Construct a batch for records added with add()
+     * @param capacity maximum number of records
+     */
+    public RecordBatch(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Construct a batch with recycled record instances
+     * @param capacity maximum number of records
+     * @param slotFactory creates a record instance for a slot used for the first time
+     */
+    public RecordBatch(int capacity, Supplier<? extends T> slotFactory) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.records = new Object[capacity];
+        this.lineNumbers = new long[capacity];
+        this.slotFactory = slotFactory;
+    }
+
+    /**
+     * Add a record, numbered after the previous record
+     * @param record record to be added
+     */
+    public void add(T record) {
+        add(record, lastLineNumber + 1);
+    }
+
+    /**
+     * Add a record
+     * @param record record to be added
+     * @param lineNumber line number of the record in the source
+     */
+    public void add(T record, long lineNumber) {
+        checkNotFull();
+        records[size] = record;
+        commit(lineNumber);
+    }
+
+    /**
+     * Gets the recycled instance of the next free position, to be updated by the parser and
+     * then made part of the batch with commit()
+     * @return record instance
+     */
+    @SuppressWarnings("unchecked")
+    public T getFreeSlot() {
+        checkNotFull();
+        if (records[size] == null) {
+            if (slotFactory == null) {
+                throw new IllegalStateException("batch has no factory for recycled records");
+            }
+            records[size] = slotFactory.get();
+        }
+        return (T) records[size];
+    }
+
+    /**
+     * Add the record returned by getFreeSlot() to the batch
+     * @param lineNumber line number of the record in the source
+     */
+    public void commit(long lineNumber) {
+        checkNotFull();
+        lineNumbers[size++] = lineNumber;
+        lastLineNumber = lineNumber;
+    }
+
+    private void checkNotFull() {
+        if (size == records.length) {
+            throw new IllegalStateException("batch is full");
+        }
+    }
+
+    /**
+     * Gets record at index
+     * @param index index of the record in the batch
+     * @return record
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index);
+        return (T) records[index];
+    }
+
+    /**
+     * Gets line number of record at index
+     * @param index index of the record in the batch
+     * @return line number in the source
+     */
+    public long getLineNumber(int index) {
+        checkIndex(index);
+        return lineNumbers[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+
+    /**
+     * Empty the batch, recycled record instances are kept for reuse
+     */
+    public void clear() {
+        if (slotFactory == null) {
+            for (int i = 0; i < size; i++) {
+                records[i] = null; // allow added records to be garbage collected
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Gets number of records in the batch
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets maximum number of records in the batch
+     * @return capacity
+     */
+    public int capacity() {
+        return records.length;
+    }
+
+    /**
+     * Test whether batch has reached its capacity
+     * @return true if full
+     */
+    public boolean isFull() {
+        return size == records.length;
+    }
+}
@@ -12,6 +12,7 @@ package org.intermine.biovalidator.api;
 
 import org.intermine.biovalidator.api.strategy.ValidationResultStrategy;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -56,6 +57,16 @@ public interface ValidationResult
      */
     List<Message> getWarningMessages();
 
+    /**
+     * Return list of info messages, e.g. how the input was validated. Info messages are kept
+     * whatever the validation result strategy. Empty unless the implementation stores them.
+     *
+     * @return Value of info messages.
+     */
+    default List<Message> getInfoMessages() {
+        return Collections.emptyList();
+    }
+
     /**
      * Test whether validator has valid result or not
      * @return true if result is valid
@@ -80,6 +91,15 @@ public interface ValidationResult
      */
     void addWarning(WarningMessage warningMessage);
 
+    /**
+     * Add an info message, kept even if warnings are disabled. Ignored unless the
+     * implementation stores info messages.
+     * @param infoMessage message
+     */
+    default void addInfo(InfoMessage infoMessage) {
+        // info messages are optional
+    }
+
     /**
      * Add a error with string as the message
      * @param errorMessage error
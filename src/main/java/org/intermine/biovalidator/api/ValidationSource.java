@@ -0,0 +1,135 @@
+package org.intermine.biovalidator.api;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.source.ByteBufferValidationSource;
+import org.intermine.biovalidator.source.ChannelValidationSource;
+import org.intermine.biovalidator.source.FileValidationSource;
+import org.intermine.biovalidator.source.MappedFileValidationSource;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Represents the data to be validated, independent of where the data comes from.
+ *
+ * There are two kind of sources:
+ *  1. Seekable sources (files, memory-mapped files and in-memory buffers) which can be opened
+ *     any number of times, so a validator can make more than one pass over the data.
+ *  2. One-shot sources (input streams, channels and stdin) which can only be opened once,
+ *     validators must read these in a single pass.
+ *
+ * @author deepak
+ */
+public interface ValidationSource
+{
+    /**
+     * Opens a new channel to read the data from the beginning, caller is responsible for
+     * closing the returned channel
+     * @return channel to read data
+     * @throws IOException if source cannot be opened
+     * @throws IllegalStateException if a one-shot source is opened more than once
+     */
+    ReadableByteChannel openChannel() throws IOException;
+
+    /**
+     * Test whether source can be opened more than once, each time reading from the beginning.
+     * Random access to the bytes is only possible for sources backed by a file, see getPath()
+     * @return true if source is seekable
+     */
+    boolean isSeekable();
+
+    /**
+     * Gets name of the source, for file based source it is the file path
+     * @return name of the source
+     */
+    @Nonnull String getName();
+
+    /**
+     * Gets path of the file backing this source, if any, positions in the file are the same as
+     * positions in the data returned by openChannel()
+     * @return optional of file path
+     */
+    Optional<Path> getPath();
+
+    /**
+     * Creates a seekable source reading a file
+     * @param path file path
+     * @return source
+     */
+    static ValidationSource of(@Nonnull Path path) {
+        return new FileValidationSource(path);
+    }
+
+    /**
+     * Creates a seekable source reading a file
+     * @param file file
+     * @return source
+     */
+    static ValidationSource of(@Nonnull File file) {
+        return new FileValidationSource(file.toPath());
+    }
+
+    /**
+     * Creates a seekable source reading a file through memory-mapped buffers
+     * @param path file path
+     * @return source
+     */
+    static ValidationSource ofMappedFile(@Nonnull Path path) {
+        return new MappedFileValidationSource(path);
+    }
+
+    /**
+     * Creates a seekable source from an in-memory buffer, the content between buffer's
+     * position and limit will be validated
+     * @param buffer data buffer
+     * @param name name of the source used in messages
+     * @return source
+     */
+    static ValidationSource of(@Nonnull ByteBuffer buffer, @Nonnull String name) {
+        return new ByteBufferValidationSource(buffer, name);
+    }
+
+    /**
+     * Creates a one-shot source from an input stream
+     * @param inputStream data stream
+     * @param name name of the source used in messages
+     * @return source
+     */
+    static ValidationSource of(@Nonnull InputStream inputStream, @Nonnull String name) {
+        return new ChannelValidationSource(Channels.newChannel(inputStream), name);
+    }
+
+    /**
+     * Creates a one-shot source from a channel
+     * @param channel data channel
+     * @param name name of the source used in messages
+     * @return source
+     */
+    static ValidationSource of(@Nonnull ReadableByteChannel channel, @Nonnull String name) {
+        return new ChannelValidationSource(channel, name);
+    }
+
+    /**
+     * Creates a one-shot source reading from standard input
+     * @return source
+     */
+    static ValidationSource ofStdin() {
+        return of(System.in, "stdin");
+    }
+}
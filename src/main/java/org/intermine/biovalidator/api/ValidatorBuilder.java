@@ -11,18 +11,25 @@ package org.intermine.biovalidator.api;
  */
 
 import org.intermine.biovalidator.api.strategy.ValidationResultStrategy;
+import org.intermine.biovalidator.source.DecompressingValidationSource;
 import org.intermine.biovalidator.utils.BioValidatorUtils;
+import org.intermine.biovalidator.validator.AbstractValidator;
 import org.intermine.biovalidator.validator.ValidatorType;
 import org.intermine.biovalidator.validator.csv.CsvValidator;
+import org.intermine.biovalidator.validator.fasta.FastaRecordListener;
 import org.intermine.biovalidator.validator.fasta.FastaValidator;
+import org.intermine.biovalidator.validator.fasta.HeaderSchema;
 import org.intermine.biovalidator.validator.fasta.SequenceType;
+import org.intermine.biovalidator.validator.fasta.sequencevalidator.SequenceAlphabet;
+import org.intermine.biovalidator.validator.fastq.FastqValidator;
+import org.intermine.biovalidator.validator.fastq.QualityEncoding;
 import org.intermine.biovalidator.validator.gff3.Gff3Validator;
 
 import javax.annotation.Nonnull;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -68,31 +75,68 @@ public final class ValidatorBuilder
     public static ValidatorBuilder withFile(@Nonnull File filename,
                                             @Nonnull ValidatorType type)
                                                 throws IllegalArgumentException {
-        FileReader reader;
-        try {
-            reader = new FileReader(filename);
-        } catch (FileNotFoundException e) {
-            throw new IllegalArgumentException(e.getMessage());
+        return withSource(ValidationSource.of(filename), type);
+    }
+
+    /**
+     * A factory method to construct validator with a validation source based on the type
+     * argument. Source can be a file, a memory-mapped file, a buffer, a stream, a channel or
+     * stdin, see {@link ValidationSource}. Gzip compressed data is detected from its magic
+     * bytes and decompressed while validating.
+     * @param source data to be validated
+     * @param type used to identify validator instance
+     * @return ValidatorBuilder
+     * @throws IllegalArgumentException if type not found
+     */
+    public static ValidatorBuilder withSource(@Nonnull ValidationSource source,
+                                              @Nonnull ValidatorType type)
+                                                throws IllegalArgumentException {
+        if (!(source instanceof DecompressingValidationSource)) {
+            source = new DecompressingValidationSource(source);
         }
         switch (type) {
             case FASTA:
-                return ofType(new FastaValidator(reader, SequenceType.ALL));
+                return ofType(new FastaValidator(source, SequenceType.ALL));
             case FASTA_DNA:
-                return ofType(new FastaValidator(reader, SequenceType.DNA));
+                return ofType(new FastaValidator(source, SequenceType.DNA));
             case FASTA_RNA:
-                return ofType(new FastaValidator(reader, SequenceType.RNA));
+                return ofType(new FastaValidator(source, SequenceType.RNA));
             case FASTA_PROTEIN:
-                return ofType(new FastaValidator(reader, SequenceType.PROTEIN));
+                return ofType(new FastaValidator(source, SequenceType.PROTEIN));
+            case FASTQ:
+                return ofType(new FastqValidator(source));
             case GFF:
             case GFF3:
-                return ofType(new Gff3Validator(reader)); // GFF3 validator for both GFF and GFF3
+                return ofType(new Gff3Validator(source)); // GFF3 validator for both GFF and GFF3
             case CSV:
-                return ofType(new CsvValidator(filename));
+                return ofType(new CsvValidator(source, true, ""));
             default:
                 throw new IllegalArgumentException("invalid validator type " + type.getName());
         }
     }
 
+    /**
+     * A factory method to construct validator with a validation source based on the
+     * validator-type argument as string, if type is not valid then it is guessed from the
+     * content and the name of the source
+     * @param source data to be validated
+     * @param validatorType string representation of ValidatorType
+     * @return ValidatorBuilder
+     * @throws IllegalArgumentException if type not found
+     */
+    public static ValidatorBuilder withSource(@Nonnull ValidationSource source,
+                                              @Nonnull String validatorType)
+            throws IllegalArgumentException {
+        Optional<ValidatorType> validatorTypeOpt =
+                BioValidatorUtils.getOrGuessValidatorType(source, validatorType);
+        if (!validatorTypeOpt.isPresent()) {
+            String errMsg = "Missing or Invalid Validator type! It must be one of ("
+                    + Arrays.toString(ValidatorType.values()) + "), case-insensitive.";
+            throw new IllegalArgumentException(errMsg);
+        }
+        return withSource(source, validatorTypeOpt.get());
+    }
+
     /**
      * A factory method to construct validator with a file based on the type argument
      * @param file file to be validated
@@ -115,14 +159,7 @@ public final class ValidatorBuilder
      */
     public static ValidatorBuilder withFile(@Nonnull String file, @Nonnull String validatorType)
             throws IllegalArgumentException {
-        Optional<ValidatorType> validatorTypeOpt =
-                BioValidatorUtils.getOrGuessValidatorType(file, validatorType);
-        if (!validatorTypeOpt.isPresent()) {
-            String errMsg = "Missing or Invalid Validator type! It must be one of ("
-                    + Arrays.toString(ValidatorType.values()) + "), case-insensitive.";
-            throw new IllegalArgumentException(errMsg);
-        }
-        return withFile(new File(file), validatorTypeOpt.get());
+        return withSource(ValidationSource.of(new File(file)), validatorType);
     }
 
     /**
@@ -252,4 +289,212 @@ public final class ValidatorBuilder
         }
         return this;
     }
+
+    /**
+     * Enable pipelined reading, input is read and split into lines on separate threads while
+     * rules are validated on the calling thread, see
+     * {@link AbstractValidator#enablePipelinedReading()}
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder enablePipelinedReading() {
+        if (validator instanceof AbstractValidator) {
+            ((AbstractValidator) validator).enablePipelinedReading();
+        }
+        return this;
+    }
+
+    /**
+     * Validate FASTA or FASTQ sequences against a strict alphabet, see
+     * {@link FastaValidator#setSequenceAlphabet(SequenceAlphabet)}. Has no effect on other
+     * validators.
+     * @param alphabet allowed letters
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder withSequenceAlphabet(@Nonnull SequenceAlphabet alphabet) {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).setSequenceAlphabet(alphabet);
+        } else if (validator instanceof FastqValidator) {
+            ((FastqValidator) validator).setSequenceAlphabet(alphabet);
+        }
+        return this;
+    }
+
+    /**
+     * Allow alignment gaps '-' and '.' in the letters of the FASTA sequence type, see
+     * {@link FastaValidator#enableAlignmentGaps()}, or in IUPAC nucleotide codes for FASTQ.
+     * Has no effect on other validators.
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder enableAlignmentGaps() {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).enableAlignmentGaps();
+        } else if (validator instanceof FastqValidator) {
+            ((FastqValidator) validator).setSequenceAlphabet(
+                    SequenceAlphabet.IUPAC_NUCLEOTIDE.withGaps());
+        }
+        return this;
+    }
+
+    /**
+     * Sets the encoding of FASTQ quality scores, detected by default, see
+     * {@link FastqValidator#setQualityEncoding(QualityEncoding)}. Has no effect on other
+     * validators.
+     * @param encoding quality encoding
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder withQualityEncoding(@Nonnull QualityEncoding encoding) {
+        if (validator instanceof FastqValidator) {
+            ((FastqValidator) validator).setQualityEncoding(encoding);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the maximum memory used by FASTA validation to detect duplicate sequence ids, see
+     * {@link FastaValidator#setDuplicateIdMemoryBudget(long)}. Has no effect on other
+     * validators.
+     * @param bytes memory budget in bytes
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder withDuplicateIdMemoryBudget(long bytes) {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).setDuplicateIdMemoryBudget(bytes);
+        }
+        return this;
+    }
+
+    /**
+     * Write a samtools compatible index next to a valid FASTA file, see
+     * {@link FastaValidator#enableFaiIndex()}. Has no effect on other validators.
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder withFaiIndex() {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).enableFaiIndex();
+        }
+        return this;
+    }
+
+    /**
+     * Write a samtools compatible index of a FASTA file to a stream, see
+     * {@link FastaValidator#writeFaiIndex(OutputStream)}. Has no effect on other validators.
+     * @param out destination of the index, not closed
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder withFaiIndex(@Nonnull OutputStream out) {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).writeFaiIndex(out);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a listener receiving the records of a FASTA file while it is validated, e.g. to
+     * collect statistics, see {@link FastaValidator#addRecordListener(FastaRecordListener)}.
+     * Has no effect on other validators.
+     * @param listener record listener
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder withRecordListener(@Nonnull FastaRecordListener listener) {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).addRecordListener(listener);
+        }
+        return this;
+    }
+
+    /**
+     * Validate only some records or regions of an indexed FASTA file, see
+     * {@link FastaValidator#setRegions(List)}. Has no effect on other validators.
+     * @param regions sequence names or regions, e.g. 'chr2' or 'chr2:1000-2000'
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder withRegions(@Nonnull String... regions) {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).setRegions(Arrays.asList(regions));
+        }
+        return this;
+    }
+
+    /**
+     * Validate FASTA headers against a convention, e.g. {@link HeaderSchema#UNIPROT}, see
+     * {@link FastaValidator#setHeaderSchema(HeaderSchema)}. Has no effect on other validators.
+     * @param schema header schema
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder withHeaderSchema(@Nonnull HeaderSchema schema) {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).setHeaderSchema(schema);
+        }
+        return this;
+    }
+
+    /**
+     * Report FASTA records having the same sequence under different ids, see
+     * {@link FastaValidator#enableDuplicateSequenceCheck()}. Has no effect on other validators.
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder enableDuplicateSequenceCheck() {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).enableDuplicateSequenceCheck();
+        }
+        return this;
+    }
+
+    /**
+     * Detect whether FASTA sequences are DNA, RNA or protein from their first residues and
+     * validate them with the letters of the detected type, see
+     * {@link FastaValidator#enableSequenceTypeDetection()}. Has no effect on other validators.
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder enableSequenceTypeDetection() {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).enableSequenceTypeDetection();
+        }
+        return this;
+    }
+
+    /**
+     * Validate only samples of a FASTA file for a quick verdict on huge files, see
+     * {@link FastaValidator#enableQuickCheck()}. Has no effect on other validators.
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder enableQuickCheck() {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).enableQuickCheck();
+        }
+        return this;
+    }
+
+    /**
+     * Validate only samples of a FASTA file, see
+     * {@link FastaValidator#enableQuickCheck(int, int, int)}. Has no effect on other validators.
+     * @param firstRecords number of records validated at the beginning of the file
+     * @param lastRecords number of records validated at the end of the file
+     * @param randomRecords number of records validated at random offsets
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder enableQuickCheck(int firstRecords, int lastRecords,
+                                             int randomRecords) {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).enableQuickCheck(firstRecords, lastRecords,
+                    randomRecords);
+        }
+        return this;
+    }
+
+    /**
+     * Enable parallel validation of FASTA and FASTQ files, chunks of an uncompressed file are
+     * validated on a pool of threads, see {@link FastaValidator#enableParallelValidation(int)}.
+     * Has no effect on other validators.
+     * @param threads number of validation threads
+     * @return ValidatorBuilder
+     */
+    public ValidatorBuilder enableParallelValidation(int threads) {
+        if (validator instanceof FastaValidator) {
+            ((FastaValidator) validator).enableParallelValidation(threads);
+        } else if (validator instanceof FastqValidator) {
+            ((FastqValidator) validator).enableParallelValidation(threads);
+        }
+        return this;
+    }
 }
@@ -14,6 +14,7 @@ import org.intermine.biovalidator.utils.BioValidatorUtils;
 import org.intermine.biovalidator.validator.ValidatorType;
 
 import javax.annotation.Nonnull;
+import java.io.File;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -61,6 +62,41 @@ public final class ValidatorHelper
         }
     }
 
+    /**
+     * validates a source(file, stream, channel, buffer, etc) and always returns a
+     * ValidationResult, in case of any runtime exception it will catch and return
+     * ValidationResult with error message of the exception
+     * @param source data to be validated
+     * @param validatorType type of validator
+     * @param isStrict validate strictly or not
+     * @return validation result
+     */
+    public static ValidationResult validate(@Nonnull ValidationSource source,
+                                            @Nonnull ValidatorType validatorType,
+                                            boolean isStrict) {
+        try {
+            ValidatorBuilder builder = ValidatorBuilder.withSource(source, validatorType)
+                    .withStrictValidation(isStrict);
+            return builder.build().validate();
+        } catch (RuntimeException e) {
+            return createValidationResultWithError(e.getMessage());
+        }
+    }
+
+    /**
+     * validates every file of a tar or zip archive without extracting it, validator type of
+     * each file is guessed from its content and name
+     * @param archive archive file, may be gzip compressed
+     * @param isStrict validate strictly or not
+     * @return one validation result per file of the archive
+     */
+    public static ArchiveValidationReport validateArchive(@Nonnull String archive,
+                                                          boolean isStrict) {
+        return new ArchiveValidator(ValidationSource.of(new File(archive)))
+                .withValidatorOptions(builder -> builder.withStrictValidation(isStrict))
+                .validate();
+    }
+
     /**
      * validates a file
      * @param file filename with full path to be validated
@@ -72,7 +108,8 @@ public final class ValidatorHelper
                                             @Nonnull String validatorType,
                                             boolean isStrict) {
         Optional<ValidatorType> validatorTypeOpt =
-                BioValidatorUtils.getOrGuessValidatorType(file, validatorType);
+                BioValidatorUtils.getOrGuessValidatorType(
+                        ValidationSource.of(new File(file)), validatorType);
         if (validatorTypeOpt.isPresent()) {
             return validate(file, validatorTypeOpt.get(), isStrict);
         } else {
@@ -0,0 +1,165 @@
+package org.intermine.biovalidator.parser;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable, zero-copy view over a single line of raw bytes. The view is only valid until the
+ * parser that produced it is asked for the next line, as the underlying buffer is reused.
+ *
+ * As a CharSequence each byte is exposed as one char (ISO-8859-1 view), which is exact for
+ * ASCII formats like FASTA and GFF3. toString() decodes the line as UTF-8, lines that are
+ * pure ASCII are copied without going through a charset decoder.
+ *
+ * @author deepak
+ */
+public final class ByteLine implements CharSequence
+{
+    private byte[] buffer;
+    private int offset;
+    private int length;
+    private long lineNumber;
+    private long byteOffset;
+
+    /**
+     * Construct an empty line view
+     */
+    public ByteLine() {
+        this.buffer = new byte[0];
+    }
+
+    /**
+     * Point this view to a new range of bytes
+     * @param buffer backing buffer
+     * @param offset index of the first byte of the line in buffer
+     * @param length number of bytes in the line, excluding line terminator
+     * @param lineNumber line number (starting from 1) of this line in the source
+     * @param byteOffset offset of the first byte of the line in the source
+     */
+    void set(byte[] buffer, int offset, int length, long lineNumber, long byteOffset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.lineNumber = lineNumber;
+        this.byteOffset = byteOffset;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer[offset + index] & 0xFF);
+    }
+
+    /**
+     * Returns the raw byte at the given index of the line
+     * @param index index inside the line
+     * @return byte at index
+     */
+    public byte byteAt(int index) {
+        return buffer[offset + index];
+    }
+
+    /**
+     * Returns a view sharing the same bytes, no bytes are copied
+     * @param start start index, inclusive
+     * @param end end index, exclusive
+     * @return sub-line view
+     */
+    @Override
+    public ByteLine subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end
+                    + ", length " + length);
+        }
+        ByteLine subLine = new ByteLine();
+        subLine.set(buffer, offset + start, end - start, lineNumber, byteOffset + start);
+        return subLine;
+    }
+
+    /**
+     * Gets the backing buffer, bytes of this line are in range [getOffset(), getOffset() +
+     * length())
+     * @return backing buffer
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Gets offset of the first byte of the line inside the backing buffer
+     * @return offset inside buffer
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets line number of this line in the source, starting from 1
+     * @return line number
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Gets offset of the first byte of this line in the source
+     * @return byte offset
+     */
+    public long getByteOffset() {
+        return byteOffset;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return substring(0, length);
+    }
+
+    /**
+     * Decodes a range of the line as UTF-8 without creating an intermediate view
+     * @param start start index, inclusive
+     * @param end end index, exclusive
+     * @return decoded string
+     */
+    public String substring(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end
+                    + ", length " + length);
+        }
+        if (isAscii(offset + start, offset + end)) {
+            return new String(buffer, offset + start, end - start, StandardCharsets.ISO_8859_1);
+        }
+        return new String(buffer, offset + start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test whether the line contains only ASCII bytes
+     * @return true if only ASCII
+     */
+    public boolean isAscii() {
+        return isAscii(offset, offset + length);
+    }
+
+    private boolean isAscii(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
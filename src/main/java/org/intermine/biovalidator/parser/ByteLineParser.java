@@ -0,0 +1,221 @@
+package org.intermine.biovalidator.parser;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.Parser;
+import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.RecordBatch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Line parser reading raw bytes from a channel into a reusable buffer, each call to parseNext()
+ * returns the same ByteLine instance pointing to the next line, so no String or char[] is
+ * created per line. Lines can be terminated by LF, CRLF or CR, terminators are not part of
+ * the returned line.
+ *
+ * @author deepak
+ */
+public class ByteLineParser implements Parser<ByteLine>
+{
+    /**
+     * default size of the read buffer
+     */
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private ReadableByteChannel channel;
+    private final ByteLine line;
+    private byte[] array;
+    private ByteBuffer buffer;
+    private int position;
+    private int limit;
+    private long bufferOffset;
+    private long lineNumber;
+    private boolean eof;
+    private boolean skipLineFeed;
+
+    /**
+     * Construct a line parser with a input channel
+     * @param channel input source
+     */
+    public ByteLineParser(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Construct a line parser with a input channel and initial buffer size, the buffer grows
+     * if a single line does not fit in it
+     * @param channel input source
+     * @param bufferSize initial size of the read buffer in bytes
+     */
+    public ByteLineParser(ReadableByteChannel channel, int bufferSize) {
+        this(channel, bufferSize, 0);
+    }
+
+    /**
+     * Construct a line parser with a input channel whose first byte is not the first byte of
+     * the source, e.g. after a skipped byte order mark
+     * @param channel input source
+     * @param bufferSize initial size of the read buffer in bytes
+     * @param startOffset offset in the source of the first byte of the channel
+     */
+    public ByteLineParser(ReadableByteChannel channel, int bufferSize, long startOffset) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("buffer size must be positive");
+        }
+        this.channel = channel;
+        this.line = new ByteLine();
+        this.array = new byte[bufferSize];
+        this.buffer = ByteBuffer.wrap(array);
+        this.bufferOffset = startOffset;
+    }
+
+    /**
+     * Returns the next line as a view which is valid until the next call to this method
+     * @return next line or null if end of input is reached
+     * @throws ParsingException if reading from the channel fails
+     */
+    @Override
+    public ByteLine parseNext() throws ParsingException {
+        return nextLine(line, true) ? line : null;
+    }
+
+    /**
+     * Fills the batch with the next lines, all lines of a batch are views of the same read
+     * buffer, only the first one may cause reading from the channel. Lines are valid until the
+     * next call to parseNext() or parseBatch().
+     * @param batch batch created with createBatch()
+     * @return number of lines in the batch, 0 at end of input
+     * @throws ParsingException if reading from the channel fails
+     */
+    @Override
+    public int parseBatch(RecordBatch<ByteLine> batch) throws ParsingException {
+        batch.clear();
+        boolean mayRead = true;
+        while (!batch.isFull()) {
+            ByteLine slot = batch.getFreeSlot();
+            if (!nextLine(slot, mayRead)) {
+                break;
+            }
+            batch.commit(slot.getLineNumber());
+            mayRead = false;
+        }
+        return batch.size();
+    }
+
+    @Override
+    public RecordBatch<ByteLine> createBatch(int capacity) {
+        return new RecordBatch<>(capacity, ByteLine::new);
+    }
+
+    /**
+     * Point target to the next line
+     * @param target view to be updated
+     * @param mayRead whether more bytes can be read from the channel, which invalidates
+     *                previously returned views
+     * @return false if end of input is reached, or if no complete line is buffered and
+     *         reading is not allowed
+     */
+    private boolean nextLine(ByteLine target, boolean mayRead) throws ParsingException {
+        int scanFrom = position;
+        while (true) {
+            if (skipLineFeed && position < limit) {
+                // previous line ended with CR, swallow LF of a CRLF pair
+                skipLineFeed = false;
+                if (array[position] == LF) {
+                    position++;
+                }
+                scanFrom = position;
+            }
+            int i = DelimiterScanner.LINE_TERMINATORS.indexOf(array, scanFrom, limit);
+            if (i >= 0) {
+                setLine(target, position, i);
+                position = i + 1;
+                skipLineFeed = (array[i] == CR);
+                return true;
+            }
+            if (eof) {
+                if (position < limit) { // last line without a terminator
+                    setLine(target, position, limit);
+                    position = limit;
+                    return true;
+                }
+                return false;
+            }
+            if (!mayRead) {
+                return false;
+            }
+            int scanned = limit - position;
+            fill();
+            scanFrom = position + scanned;
+        }
+    }
+
+    /**
+     * Gets the offset in the source of the next byte that is not consumed yet
+     * @return byte offset
+     */
+    public long getBytePosition() {
+        return bufferOffset + position;
+    }
+
+    private void setLine(ByteLine target, int start, int end) {
+        target.set(array, start, end - start, ++lineNumber, bufferOffset + start);
+    }
+
+    /**
+     * Move unconsumed bytes to the beginning of the buffer, grow buffer if it is full with a
+     * single line and read more bytes from the channel
+     */
+    private void fill() throws ParsingException {
+        if (position > 0) {
+            System.arraycopy(array, position, array, 0, limit - position);
+            bufferOffset += position;
+            limit -= position;
+            position = 0;
+        }
+        if (limit == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+            buffer = ByteBuffer.wrap(array);
+        }
+        buffer.limit(array.length).position(limit);
+        try {
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        } catch (IOException e) {
+            throw new ParsingException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } finally {
+            channel = null;
+        }
+    }
+}
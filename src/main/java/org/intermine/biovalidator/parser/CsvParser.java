@@ -16,6 +16,7 @@ import com.univocity.parsers.csv.CsvParserSettings;
 import org.apache.commons.lang3.StringUtils;
 import org.intermine.biovalidator.api.Parser;
 import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.RecordBatch;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -85,6 +86,30 @@ public class CsvParser implements Parser<String[]>
         return csvParserLineIterator.next();
     }
 
+    /**
+     * Parse the next rows into the batch, each row with the line number it ends at
+     * @param batch batch to be filled
+     * @return number of rows in the batch, 0 at end of input
+     * @throws ParsingException if rows cannot be parsed
+     */
+    @Override
+    public int parseBatch(RecordBatch<String[]> batch) throws ParsingException {
+        batch.clear();
+        while (!batch.isFull() && csvParserLineIterator.hasNext()) {
+            String[] row = csvParserLineIterator.next();
+            batch.add(row, getCurrentLineNumber());
+        }
+        return batch.size();
+    }
+
+    /**
+     * Gets line number of the last line of the row returned last
+     * @return line number
+     */
+    public long getCurrentLineNumber() {
+        return csvParserLineIterator.getContext().currentLine();
+    }
+
     /**
      * Test whether next line available or not
      * @return boolean available or not
@@ -0,0 +1,197 @@
+package org.intermine.biovalidator.parser;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds delimiter bytes (e.g. newline, tab, ';', '=') in a byte array 8 bytes at a time
+ * (SWAR, SIMD within a register), instead of comparing each byte with each delimiter.
+ *
+ * For every word, bytes equal to a delimiter are found without branches: XOR with the
+ * delimiter repeated in all 8 bytes turns matching bytes into zero bytes, which are then
+ * detected exactly, without carries between bytes. Matches are returned either as the first
+ * position or as a bitmap with one bit per scanned byte.
+ *
+ * @author deepak
+ */
+public final class DelimiterScanner
+{
+    /**
+     * scanner for line terminators LF and CR
+     */
+    public static final DelimiterScanner LINE_TERMINATORS = new DelimiterScanner('\n', '\r');
+
+    private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long GATHER_HIGH_BITS = 0x0102040810204080L;
+    private static final int BITS_PER_BYTE_SHIFT = 3;
+    private static final int WORD_SHIFT = 6;
+
+    private final byte[] delimiters;
+    private final long[] patterns;
+
+    /**
+     * Construct a scanner for a set of delimiters
+     * @param delimiters ASCII delimiter characters
+     */
+    public DelimiterScanner(char... delimiters) {
+        if (delimiters.length == 0) {
+            throw new IllegalArgumentException("at least one delimiter is required");
+        }
+        this.delimiters = new byte[delimiters.length];
+        this.patterns = new long[delimiters.length];
+        for (int i = 0; i < delimiters.length; i++) {
+            if (delimiters[i] > 0x7F) {
+                throw new IllegalArgumentException("delimiters must be ASCII");
+            }
+            this.delimiters[i] = (byte) delimiters[i];
+            this.patterns[i] = ONES * delimiters[i];
+        }
+    }
+
+    /**
+     * Finds the first delimiter in a range
+     * @param data bytes to scan
+     * @param from index of the first byte, inclusive
+     * @param to index after the last byte, exclusive
+     * @return index of the first delimiter or -1 if none
+     */
+    public int indexOf(byte[] data, int from, int to) {
+        ByteBuffer words = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long matches = matches(words.getLong(i));
+            if (matches != 0) {
+                return i + (Long.numberOfTrailingZeros(matches) >>> BITS_PER_BYTE_SHIFT);
+            }
+        }
+        for (; i < to; i++) {
+            if (isDelimiter(data[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Marks delimiters of a range in a bitmap, bit (i - from) is set if data[i] is a delimiter
+     * @param data bytes to scan
+     * @param from index of the first byte, inclusive
+     * @param to index after the last byte, exclusive
+     * @param bitmap bitmap of at least bitmapLength(to - from) words, overwritten
+     * @return number of delimiters found
+     */
+    public int scan(byte[] data, int from, int to, long[] bitmap) {
+        int length = to - from;
+        int bitmapWords = bitmapLength(length);
+        if (bitmap.length < bitmapWords) {
+            throw new IllegalArgumentException("bitmap is too small");
+        }
+        ByteBuffer words = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int count = 0;
+        int offset = 0;
+        for (int w = 0; w < bitmapWords; w++) {
+            long bits = 0;
+            // 8 bytes per SWAR word, 8 words per bitmap word
+            for (int shift = 0; shift < Long.SIZE && offset < length; shift += Long.BYTES) {
+                long byteBits;
+                if (offset + Long.BYTES <= length) {
+                    byteBits = gather(matches(words.getLong(from + offset)));
+                } else {
+                    byteBits = scanTail(data, from + offset, to);
+                }
+                bits |= byteBits << shift;
+                offset += Long.BYTES;
+            }
+            bitmap[w] = bits;
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    /**
+     * Gets number of bitmap words needed for a range of bytes
+     * @param length number of bytes
+     * @return number of longs
+     */
+    public static int bitmapLength(int length) {
+        return (length + Long.SIZE - 1) >>> WORD_SHIFT;
+    }
+
+    /**
+     * Finds the next set bit of a bitmap
+     * @param bitmap bitmap filled by scan()
+     * @param fromBit first bit to test
+     * @param length number of valid bits
+     * @return index of the next set bit, or length if none
+     */
+    public static int nextSetBit(long[] bitmap, int fromBit, int length) {
+        if (fromBit >= length) {
+            return length;
+        }
+        int w = fromBit >>> WORD_SHIFT;
+        long word = bitmap[w] & (-1L << fromBit);
+        while (word == 0) {
+            w++;
+            if ((w << WORD_SHIFT) >= length) {
+                return length;
+            }
+            word = bitmap[w];
+        }
+        return Math.min(length, (w << WORD_SHIFT) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Test whether a byte is one of the delimiters
+     * @param b byte
+     * @return true if delimiter
+     */
+    public boolean isDelimiter(byte b) {
+        for (byte delimiter : delimiters) {
+            if (b == delimiter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a word with the high bit set in each byte equal to one of the delimiters
+     */
+    private long matches(long word) {
+        long result = 0;
+        for (long pattern : patterns) {
+            long x = word ^ pattern; // zero bytes where word matches delimiter
+            long t = ((x & LOW_7_BITS) + LOW_7_BITS) | x; // high bit set for non-zero bytes
+            result |= ~(t | LOW_7_BITS);
+        }
+        return result;
+    }
+
+    /**
+     * Gather the high bit of each byte into the low 8 bits, byte k to bit k
+     */
+    private static long gather(long highBits) {
+        return ((highBits >>> 7) * GATHER_HIGH_BITS) >>> 56;
+    }
+
+    private long scanTail(byte[] data, int from, int to) {
+        long bits = 0;
+        for (int i = from; i < to; i++) {
+            if (isDelimiter(data[i])) {
+                bits |= 1L << (i - from);
+            }
+        }
+        return bits;
+    }
+}
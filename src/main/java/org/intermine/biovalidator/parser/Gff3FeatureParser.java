@@ -13,23 +13,34 @@ package org.intermine.biovalidator.parser;
 import org.apache.commons.lang3.StringUtils;
 import org.intermine.biovalidator.api.Parser;
 import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.RecordBatch;
 import org.intermine.biovalidator.validator.gff3.FeatureLine;
 import org.intermine.biovalidator.validator.gff3.Gff3DirectiveLine;
 import org.intermine.biovalidator.validator.gff3.Gff3Line;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.channels.ReadableByteChannel;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * @author deepak
  */
-public class Gff3FeatureParser implements Parser<Optional<Gff3Line>>
+public class Gff3FeatureParser implements Parser<Gff3Line>
 {
-    private GenericLineByLineParser lineParser;
+    private static final int FEATURE_COLUMNS = 9;
+    private static final DelimiterScanner TABS = new DelimiterScanner('\t');
+    private static final DelimiterScanner SEMICOLONS = new DelimiterScanner(';');
+    private static final DelimiterScanner EQUALS = new DelimiterScanner('=');
+
+    private Parser<? extends CharSequence> lineParser;
     private long totalLineCount;
+    private ParsingException pendingFailure;
+    private long[] tabBitmap = new long[4];
+    private final int[] columnStarts = new int[FEATURE_COLUMNS];
+    private final int[] columnEnds = new int[FEATURE_COLUMNS];
+
     /**
      * Construct Gff3 feature parse with an input source
      * @param inputStreamReader input source
@@ -37,22 +48,83 @@ public class Gff3FeatureParser implements Parser<Optional<Gff3Line>>
     public Gff3FeatureParser(InputStreamReader inputStreamReader) {
         this.lineParser = new GenericLineByLineParser(inputStreamReader);
     }
+
+    /**
+     * Construct Gff3 feature parse with a byte channel as input source, the channel is
+     * closed when this parser is closed
+     * @param channel input source
+     */
+    public Gff3FeatureParser(ReadableByteChannel channel) {
+        this(new ByteLineParser(channel));
+    }
+
+    /**
+     * Construct Gff3 feature parse reading lines from another parser, the line parser is
+     * closed when this parser is closed
+     * @param lineParser parser providing lines
+     */
+    public Gff3FeatureParser(Parser<? extends CharSequence> lineParser) {
+        this.lineParser = lineParser;
+    }
+
+    /**
+     * Parse the next line
+     * @return next directive or feature line, null at end of input
+     * @throws ParsingException if line cannot be parsed
+     */
     @Override
-    public Optional<Gff3Line> parseNext() throws ParsingException {
-        String line = lineParser.parseNext();
+    public Gff3Line parseNext() throws ParsingException {
+        if (pendingFailure != null) {
+            ParsingException failure = pendingFailure;
+            pendingFailure = null;
+            throw failure;
+        }
+        CharSequence nextLine = lineParser.parseNext();
         totalLineCount++;
-        if (line != null) {
-            if (line.startsWith("#")) {
-                return Optional.of(Gff3DirectiveLine.of(line));
+        if (nextLine != null) {
+            if (nextLine.length() > 0 && nextLine.charAt(0) == '#') {
+                return Gff3DirectiveLine.of(nextLine.toString());
             } else {
                 if (totalLineCount <= 1) {
                     throw new ParsingException(
                             "Invalid gff3 file! first line must be a header line");
                 }
-                return Optional.of(parseFeature(line, totalLineCount));
+                if (nextLine instanceof ByteLine) {
+                    return parseFeature((ByteLine) nextLine, totalLineCount);
+                }
+                return parseFeature(nextLine.toString(), totalLineCount);
             }
         }
-        return Optional.empty();
+        return null;
+    }
+
+    /**
+     * Parse the next lines into the batch, if a line cannot be parsed the lines before it are
+     * returned first and the error is thrown by the next call. Unlike lines of ByteLineParser,
+     * lines are not recycled: each one is a new instance holding its own column Strings and
+     * attribute map, which cost far more than the line object itself.
+     * @param batch batch to be filled
+     * @return number of lines in the batch, 0 at end of input
+     * @throws ParsingException if first line of the batch cannot be parsed
+     */
+    @Override
+    public int parseBatch(RecordBatch<Gff3Line> batch) throws ParsingException {
+        batch.clear();
+        try {
+            while (!batch.isFull()) {
+                Gff3Line line = parseNext();
+                if (line == null) {
+                    break;
+                }
+                batch.add(line, totalLineCount);
+            }
+        } catch (ParsingException e) {
+            if (batch.size() == 0) {
+                throw e;
+            }
+            pendingFailure = e;
+        }
+        return batch.size();
     }
 
     @Override
@@ -60,6 +132,119 @@ public class Gff3FeatureParser implements Parser<Optional<Gff3Line>>
         lineParser.close();
     }
 
+    /**
+     * Parse a feature line directly from bytes, tabs of the whole line are located at once by
+     * the delimiter scanner and only the column values are decoded. Gives the same result as
+     * parseFeature(String, long).
+     */
+    private FeatureLine parseFeature(ByteLine line, long totalLineCount)
+            throws ParsingException {
+        int length = line.length();
+        int bitmapLength = DelimiterScanner.bitmapLength(length);
+        if (tabBitmap.length < bitmapLength) {
+            tabBitmap = new long[Math.max(bitmapLength, tabBitmap.length * 2)];
+        }
+        int from = line.getOffset();
+        TABS.scan(line.getBuffer(), from, from + length, tabBitmap);
+
+        int column = 0;
+        int start = 0;
+        while (column < FEATURE_COLUMNS) {
+            int end = DelimiterScanner.nextSetBit(tabBitmap, start, length);
+            columnStarts[column] = start;
+            columnEnds[column] = end;
+            column++;
+            if (end == length) {
+                break;
+            }
+            start = end + 1;
+        }
+        // like String.split(), trailing empty columns are not counted
+        if (column < FEATURE_COLUMNS || !hasNonTab(line, columnStarts[FEATURE_COLUMNS - 1])) {
+            String msg = "Unable to parse! a feature must have 9 columns at line " + totalLineCount;
+            throw new ParsingException(msg);
+        }
+
+        String seqId = column(line, 0);
+        String source = column(line, 1);
+        String type = column(line, 2);
+
+        String startCord = column(line, 3).trim();
+        String endCord = column(line, 4).trim();
+
+        String score = column(line, 5).trim();
+
+        String strand = column(line, 6);
+        String phase = column(line, 7);
+        String attributes = column(line, 8);
+
+        Map<String, String> keyValAttributeMapping = parseAttributes(
+                line.subSequence(columnStarts[8], columnEnds[8]), totalLineCount);
+
+        return new FeatureLine(seqId, source, type, startCord, endCord, score, strand, phase,
+                attributes, keyValAttributeMapping);
+    }
+
+    private String column(ByteLine line, int column) {
+        return line.substring(columnStarts[column], columnEnds[column]);
+    }
+
+    private static boolean hasNonTab(ByteLine line, int from) {
+        for (int i = from; i < line.length(); i++) {
+            if (line.byteAt(i) != '\t') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse GFF3 attributes from bytes, same rules as parseAttributes(String, long)
+     */
+    private Map<String, String> parseAttributes(ByteLine attributes, long currentLineCount)
+            throws ParsingException {
+        Map<String, String> attributeMapping = new HashMap<>();
+        byte[] buffer = attributes.getBuffer();
+        int offset = attributes.getOffset();
+        int end = offset + attributes.length();
+        int segmentStart = offset;
+        while (segmentStart <= end) {
+            int segmentEnd = SEMICOLONS.indexOf(buffer, segmentStart, end);
+            if (segmentEnd < 0) {
+                segmentEnd = end;
+            }
+            int equals = EQUALS.indexOf(buffer, segmentStart, segmentEnd);
+            if (equals >= 0) {
+                int from = segmentStart;
+                int to = segmentEnd;
+                while (from < to && (buffer[from] & 0xFF) <= ' ') {
+                    from++;
+                }
+                while (to > from && (buffer[to - 1] & 0xFF) <= ' ') {
+                    to--;
+                }
+                int valueEnd = EQUALS.indexOf(buffer, equals + 1, to);
+                if (valueEnd < 0) {
+                    valueEnd = to;
+                }
+                String key = attributes.substring(from - offset, equals - offset);
+                String value = attributes.substring(equals + 1 - offset, valueEnd - offset);
+                boolean isAdded = (attributeMapping.put(key, value) == null);
+                if (!isAdded) {
+                    throw new ParsingException("Tag '" + key + "' is duplicated at line "
+                            + currentLineCount);
+                }
+            } else {
+                String attr = attributes.substring(segmentStart - offset, segmentEnd - offset);
+                if (StringUtils.isNotBlank(attr)) {
+                    attributeMapping.put(attr, StringUtils.EMPTY);
+                }
+            }
+            segmentStart = segmentEnd + 1;
+        }
+        return attributeMapping;
+    }
+
     private FeatureLine parseFeature(String featureStr, long totalLineCount)
             throws ParsingException {
         String[] columns = featureStr.split("\t"); //split only on tab not on space
@@ -0,0 +1,108 @@
+package org.intermine.biovalidator.parser;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.util.Arrays;
+
+/**
+ * A reusable batch of lines, bytes of all lines are copied back to back into a single array
+ *
+ * @author deepak
+ */
+final class LineBatch
+{
+    private byte[] data;
+    private int dataSize;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final long[] lineNumbers;
+    private final long[] byteOffsets;
+    private int size;
+    private boolean lastBatch;
+
+    /**
+     * Construct a batch
+     * @param maxLines maximum number of lines in a batch
+     * @param maxBytes number of bytes after which batch is considered full
+     */
+    LineBatch(int maxLines, int maxBytes) {
+        this.data = new byte[maxBytes];
+        this.offsets = new int[maxLines];
+        this.lengths = new int[maxLines];
+        this.lineNumbers = new long[maxLines];
+        this.byteOffsets = new long[maxLines];
+    }
+
+    /**
+     * Copy a line to this batch, a line longer than the batch capacity is accepted only by an
+     * empty batch
+     * @param line line to be added
+     * @return false if batch is full
+     */
+    boolean add(ByteLine line) {
+        int length = line.length();
+        if (size == offsets.length || (size > 0 && dataSize + length > data.length)) {
+            return false;
+        }
+        if (dataSize + length > data.length) {
+            data = Arrays.copyOf(data, length);
+        }
+        System.arraycopy(line.getBuffer(), line.getOffset(), data, dataSize, length);
+        offsets[size] = dataSize;
+        lengths[size] = length;
+        lineNumbers[size] = line.getLineNumber();
+        byteOffsets[size] = line.getByteOffset();
+        dataSize += length;
+        size++;
+        return true;
+    }
+
+    /**
+     * Point a line view to the line at index
+     * @param index index of the line in this batch
+     * @param line view to be updated
+     */
+    void get(int index, ByteLine line) {
+        line.set(data, offsets[index], lengths[index], lineNumbers[index], byteOffsets[index]);
+    }
+
+    /**
+     * Empty the batch so it can be reused
+     */
+    void clear() {
+        size = 0;
+        dataSize = 0;
+        lastBatch = false;
+    }
+
+    /**
+     * Gets number of lines in the batch
+     * @return number of lines
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Test whether this is the last batch of the input
+     * @return true if no batch will follow this one
+     */
+    boolean isLastBatch() {
+        return lastBatch;
+    }
+
+    /**
+     * Mark this batch as the last batch of the input
+     */
+    void markLastBatch() {
+        lastBatch = true;
+    }
+}
@@ -0,0 +1,223 @@
+package org.intermine.biovalidator.parser;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.Parser;
+import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.RecordBatch;
+import org.intermine.biovalidator.source.ReadAheadChannel;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A line parser that splits reading, tokenizing and consuming lines into three stages running
+ * concurrently:
+ *  1. an I/O thread filling large buffers from the channel (see ReadAheadChannel),
+ *  2. a tokenizer thread splitting buffers into batches of lines,
+ *  3. the caller of parseNext(), which runs the validation rules.
+ *
+ * Stages are connected with bounded queues of pre-allocated buffers/batches, which are recycled
+ * once consumed, so memory use stays constant. Lines are returned in the same order as in the
+ * input, with the same line numbers and byte offsets as ByteLineParser.
+ *
+ * @author deepak
+ */
+public class PipelinedLineParser implements Parser<ByteLine>
+{
+    private static final int BATCH_MAX_LINES = 8192;
+    private static final int BATCH_MAX_BYTES = 1 << 20;
+    private static final int BATCH_COUNT = 4;
+
+    private final ReadAheadChannel readAheadChannel;
+    private final long startOffset;
+    private final BlockingQueue<LineBatch> filledBatches;
+    private final BlockingQueue<LineBatch> freeBatches;
+    private final Thread tokenizerThread;
+    private final ByteLine line;
+    private volatile Throwable failure;
+    private volatile long endPosition = -1;
+    private LineBatch current;
+    private int currentIndex;
+    private boolean closed;
+
+    /**
+     * Construct a pipelined parser and start the reader and tokenizer threads
+     * @param channel input source, closed when this parser is closed
+     */
+    public PipelinedLineParser(ReadableByteChannel channel) {
+        this(channel, 0);
+    }
+
+    /**
+     * Construct a pipelined parser with a channel whose first byte is not the first byte of
+     * the source, e.g. after a skipped byte order mark
+     * @param channel input source, closed when this parser is closed
+     * @param startOffset offset in the source of the first byte of the channel
+     */
+    public PipelinedLineParser(ReadableByteChannel channel, long startOffset) {
+        this.startOffset = startOffset;
+        this.readAheadChannel = new ReadAheadChannel(channel);
+        this.filledBatches = new ArrayBlockingQueue<>(BATCH_COUNT);
+        this.freeBatches = new ArrayBlockingQueue<>(BATCH_COUNT);
+        for (int i = 0; i < BATCH_COUNT; i++) {
+            freeBatches.add(new LineBatch(BATCH_MAX_LINES, BATCH_MAX_BYTES));
+        }
+        this.line = new ByteLine();
+        this.tokenizerThread = new Thread(this::tokenize, "biovalidator-tokenizer");
+        this.tokenizerThread.setDaemon(true);
+        this.tokenizerThread.start();
+    }
+
+    private void tokenize() {
+        LineBatch batch = null;
+        boolean interrupted = false;
+        try {
+            ByteLineParser lineParser = new ByteLineParser(readAheadChannel,
+                    ByteLineParser.DEFAULT_BUFFER_SIZE, startOffset);
+            batch = nextFreeBatch();
+            ByteLine nextLine;
+            while ((nextLine = lineParser.parseNext()) != null) {
+                if (!batch.add(nextLine)) {
+                    filledBatches.put(batch);
+                    batch = nextFreeBatch();
+                    batch.add(nextLine);
+                }
+            }
+            endPosition = lineParser.getBytePosition();
+        } catch (InterruptedException e) {
+            interrupted = true; // parser is closed, nobody waits for more batches
+        } catch (Throwable e) { // also unchecked ones, the consumer must not wait forever
+            failure = e;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            } else {
+                putLastBatch(batch);
+            }
+        }
+    }
+
+    private void putLastBatch(LineBatch batch) {
+        try {
+            LineBatch lastBatch = batch == null ? nextFreeBatch() : batch;
+            lastBatch.markLastBatch();
+            filledBatches.put(lastBatch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private LineBatch nextFreeBatch() throws InterruptedException {
+        LineBatch batch = freeBatches.take();
+        batch.clear();
+        return batch;
+    }
+
+    @Override
+    public ByteLine parseNext() throws ParsingException {
+        if (!nextBatchAvailable()) {
+            return null;
+        }
+        current.get(currentIndex++, line);
+        return line;
+    }
+
+    /**
+     * Fills the batch with the next lines of the current tokenized batch, without copying
+     * them. Lines are valid until the next call to parseNext() or parseBatch().
+     * @param batch batch created with createBatch()
+     * @return number of lines in the batch, 0 at end of input
+     * @throws ParsingException if reading fails
+     */
+    @Override
+    public int parseBatch(RecordBatch<ByteLine> batch) throws ParsingException {
+        batch.clear();
+        if (!nextBatchAvailable()) {
+            return 0;
+        }
+        while (!batch.isFull() && currentIndex < current.size()) {
+            ByteLine slot = batch.getFreeSlot();
+            current.get(currentIndex++, slot);
+            batch.commit(slot.getLineNumber());
+        }
+        return batch.size();
+    }
+
+    /**
+     * Gets the offset in the source after the last byte of the input, once all lines were
+     * returned
+     * @return byte offset, or -1 if end of input was not reached yet
+     */
+    public long getBytePosition() {
+        return endPosition;
+    }
+
+    @Override
+    public RecordBatch<ByteLine> createBatch(int capacity) {
+        return new RecordBatch<>(capacity, ByteLine::new);
+    }
+
+    /**
+     * Make sure current batch has unconsumed lines, recycling consumed batches
+     * @return false at end of input
+     */
+    private boolean nextBatchAvailable() throws ParsingException {
+        if (closed) {
+            return false;
+        }
+        while (current == null || currentIndex >= current.size()) {
+            if (current != null) {
+                if (current.isLastBatch()) {
+                    if (failure != null) {
+                        throwFailure();
+                    }
+                    return false;
+                }
+                freeBatches.offer(current); // give batch back to the tokenizer
+            }
+            try {
+                current = filledBatches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ParsingException("interrupted while waiting for data");
+            }
+            currentIndex = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Rethrows the failure of the tokenizer on the calling thread, as the sequential parser
+     * would have thrown it
+     */
+    private void throwFailure() throws ParsingException {
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new ParsingException(failure.getMessage());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        tokenizerThread.interrupt();
+        readAheadChannel.close();
+    }
+}
@@ -0,0 +1,110 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A file inside an archive, its data can only be read until the next entry of the archive is
+ * requested. Closing the channel of an entry does not close the archive.
+ *
+ * @author deepak
+ */
+public final class ArchiveEntry
+{
+    private final String name;
+    private final long size;
+    private ReadableByteChannel channel;
+
+    /**
+     * Construct an entry
+     * @param name path of the entry inside the archive
+     * @param size size in bytes, -1 if not known in advance
+     * @param channel channel returning the data of the entry
+     */
+    ArchiveEntry(String name, long size, ReadableByteChannel channel) {
+        this.name = name;
+        this.size = size;
+        this.channel = channel;
+    }
+
+    /**
+     * Gets path of the entry inside the archive
+     * @return name
+     */
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets size of the entry
+     * @return size in bytes, -1 if not known in advance
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets channel returning the data of the entry
+     * @return channel
+     */
+    public ReadableByteChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Read up to count bytes without consuming them, the channel returns them again
+     * @param count maximum number of bytes to read
+     * @return bytes read, fewer than count if the entry is shorter
+     * @throws IOException if reading fails
+     */
+    public ByteBuffer peek(int count) throws IOException {
+        PrefixedChannel prefixed = PrefixedChannel.peek(channel, count);
+        channel = prefixed;
+        return prefixed.getPrefix();
+    }
+
+    /**
+     * Read all the remaining data of the entry
+     * @param maxSize maximum number of bytes
+     * @return data of the entry
+     * @throws IOException if reading fails or entry is bigger than maxSize
+     */
+    public ByteBuffer readFully(int maxSize) throws IOException {
+        int capacity = size >= 0 ? (int) Math.min(size, maxSize) : Math.min(maxSize, 8192);
+        ByteBuffer buffer = ByteBuffer.allocate(capacity);
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                if (buffer.capacity() >= maxSize) {
+                    ByteBuffer extra = ByteBuffer.allocate(1);
+                    if (channel.read(extra) < 0) {
+                        break;
+                    }
+                    throw new IOException("Entry " + name + " is bigger than " + maxSize
+                            + " bytes");
+                }
+                ByteBuffer bigger = ByteBuffer.allocate(
+                        (int) Math.min((long) buffer.capacity() * 2, maxSize));
+                buffer.flip();
+                buffer = bigger.put(buffer);
+            }
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
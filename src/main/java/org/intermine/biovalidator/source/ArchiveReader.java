@@ -0,0 +1,85 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationSource;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the entries of a tar or zip archive one after another while streaming it, without
+ * extracting it. Compressed archives (e.g. .tar.gz) are decompressed on the fly. Directories
+ * and links are skipped.
+ *
+ * @author deepak
+ */
+public abstract class ArchiveReader implements Closeable
+{
+    private static final int ZIP_MAGIC_LENGTH = 4;
+
+    /**
+     * Opens an archive, its format is detected from its content
+     * @param source archive
+     * @return reader positioned before the first entry
+     * @throws IOException if source cannot be read or is not a tar/zip archive
+     */
+    public static ArchiveReader open(@Nonnull ValidationSource source) throws IOException {
+        PrefixedChannel channel = PrefixedChannel.peek(
+                new DecompressingValidationSource(source).openChannel(),
+                TarArchiveReader.BLOCK_SIZE);
+        ByteBuffer header = channel.getPrefix();
+        if (isZipHeader(header)) {
+            return new ZipArchiveReader(channel);
+        }
+        if (TarArchiveReader.isTarHeader(header)) {
+            return new TarArchiveReader(channel);
+        }
+        channel.close();
+        throw new IOException(source.getName() + " is not a tar or zip archive");
+    }
+
+    /**
+     * Test whether data starts like a tar or zip archive, after decompression
+     * @param source source to be tested, must be re-readable
+     * @return true if source is an archive
+     */
+    public static boolean isArchive(@Nonnull ValidationSource source) {
+        if (!source.isSeekable()) {
+            return false;
+        }
+        try (PrefixedChannel channel = PrefixedChannel.peek(
+                new DecompressingValidationSource(source).openChannel(),
+                TarArchiveReader.BLOCK_SIZE)) {
+            ByteBuffer header = channel.getPrefix();
+            return isZipHeader(header) || TarArchiveReader.isTarHeader(header);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isZipHeader(ByteBuffer header) {
+        return header.remaining() >= ZIP_MAGIC_LENGTH
+                && header.get(0) == 'P' && header.get(1) == 'K'
+                && ((header.get(2) == 3 && header.get(3) == 4) // local file header
+                    || (header.get(2) == 5 && header.get(3) == 6)); // empty archive
+    }
+
+    /**
+     * Moves to the next file of the archive, data of the previous entry is not available
+     * anymore
+     * @return next entry or null at the end of the archive
+     * @throws IOException if archive cannot be read
+     */
+    public abstract ArchiveEntry next() throws IOException;
+}
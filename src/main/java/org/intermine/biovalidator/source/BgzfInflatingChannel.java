@@ -0,0 +1,315 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A channel decompressing BGZF(blocked gzip, as written by bgzip/samtools) data.
+ *
+ * BGZF data is a series of independent gzip members of at most 64KB each, whose compressed
+ * size is stored in the gzip header. A reader thread splits the input into blocks and submits
+ * each block to a pool of workers inflating it with the JDK Inflater, the inflated blocks are
+ * then returned to the consumer in the original order. Number of blocks in flight is bounded,
+ * so memory use does not depend on the size of the file.
+ *
+ * Workers are shared by all channels, one per available processor. Inflaters are owned by the
+ * channel and reused by its blocks, their native memory is released when the channel is closed.
+ *
+ * @author deepak
+ */
+public class BgzfInflatingChannel implements ReadableByteChannel
+{
+    /**
+     * number of header bytes needed to recognise a BGZF block, see isBgzfHeader()
+     */
+    public static final int HEADER_LENGTH = 18;
+
+    private static final int MAX_BLOCK_SIZE = 1 << 16;
+    private static final int GZIP_FIXED_HEADER_LENGTH = 12;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int FLAG_EXTRA = 4;
+    private static final int BLOCKS_IN_FLIGHT_PER_WORKER = 4;
+    private static final int WORKER_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final AtomicInteger CHANNEL_COUNT = new AtomicInteger();
+
+    private final ReadableByteChannel channel;
+    private final BlockingQueue<Future<ByteBuffer>> inflatedBlocks;
+    private final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private final Thread readerThread;
+    private volatile Throwable readFailure;
+    private volatile boolean closed;
+    private ByteBuffer current;
+    private boolean endOfInput;
+
+    /**
+     * Construct a channel inflating BGZF data with as many blocks in flight as the shared
+     * workers can inflate
+     * @param channel channel providing BGZF data, positioned at the start of a block
+     */
+    public BgzfInflatingChannel(ReadableByteChannel channel) {
+        this(channel, WORKER_COUNT * BLOCKS_IN_FLIGHT_PER_WORKER);
+    }
+
+    /**
+     * Construct a channel inflating BGZF data
+     * @param channel channel providing BGZF data, positioned at the start of a block
+     * @param blocksInFlight maximum number of blocks read ahead of the consumer
+     */
+    public BgzfInflatingChannel(ReadableByteChannel channel, int blocksInFlight) {
+        if (blocksInFlight <= 0) {
+            throw new IllegalArgumentException("number of blocks in flight must be positive");
+        }
+        this.channel = channel;
+        this.inflatedBlocks = new ArrayBlockingQueue<>(blocksInFlight);
+        this.readerThread = new Thread(this::readBlocks,
+                "biovalidator-bgzf-reader-" + CHANNEL_COUNT.incrementAndGet());
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    /**
+     * Test whether data starts with a BGZF block header, i.e. a gzip header with an extra
+     * field containing the 'BC' subfield
+     * @param header first bytes of the data, at least HEADER_LENGTH bytes
+     * @return true if data is BGZF compressed
+     */
+    public static boolean isBgzfHeader(ByteBuffer header) {
+        if (header.remaining() < HEADER_LENGTH
+                || !DecompressingValidationSource.isGzipMagic(header)) {
+            return false;
+        }
+        int start = header.position();
+        return (header.get(start + 3) & FLAG_EXTRA) != 0
+                && header.get(start + 12) == 'B' && header.get(start + 13) == 'C'
+                && header.get(start + 14) == 2 && header.get(start + 15) == 0;
+    }
+
+    private void readBlocks() {
+        long blockOffset = 0;
+        boolean interrupted = false;
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            while (!closed) {
+                header.clear();
+                if (!readFully(header, true)) {
+                    break; // end of input at block boundary
+                }
+                header.flip();
+                if (!isBgzfHeader(header)) {
+                    throw new IOException("Invalid BGZF block header at offset " + blockOffset);
+                }
+                int blockSize = (header.getShort(16) & 0xFFFF) + 1;
+                if (blockSize < HEADER_LENGTH) {
+                    throw new IOException("Invalid BGZF block header at offset " + blockOffset);
+                }
+                int extraLength = header.getShort(10) & 0xFFFF;
+                ByteBuffer block = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+                header.rewind();
+                block.put(header);
+                readFully(block, false);
+                block.flip();
+                final long offset = blockOffset;
+                inflatedBlocks.put(Workers.POOL.submit(() -> inflate(block, extraLength, offset)));
+                blockOffset += blockSize;
+            }
+        } catch (InterruptedException e) {
+            interrupted = true; // channel is closed, nobody waits for more blocks
+        } catch (Throwable e) { // also unchecked ones, the consumer must not wait forever
+            readFailure = e;
+        } finally {
+            if (!interrupted) {
+                interrupted = !putEndOfInput();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Queues the end of input marker once the consumer took enough blocks
+     * @return false if interrupted, i.e. the channel is closed
+     */
+    private boolean putEndOfInput() {
+        try {
+            inflatedBlocks.put(CompletableFuture.completedFuture((ByteBuffer) null));
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private boolean readFully(ByteBuffer buffer, boolean allowEndOfInput) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (allowEndOfInput && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Unexpected end of BGZF data");
+            }
+        }
+        return true;
+    }
+
+    private ByteBuffer inflate(ByteBuffer block, int extraLength, long blockOffset)
+        throws IOException {
+        int blockSize = block.limit();
+        int dataStart = GZIP_FIXED_HEADER_LENGTH + extraLength;
+        int dataLength = blockSize - dataStart - GZIP_TRAILER_LENGTH;
+        int expectedCrc = block.getInt(blockSize - GZIP_TRAILER_LENGTH);
+        int uncompressedSize = block.getInt(blockSize - 4);
+        if (dataLength < 0 || uncompressedSize < 0 || uncompressedSize > MAX_BLOCK_SIZE) {
+            throw new IOException("Invalid BGZF block at offset " + blockOffset);
+        }
+        byte[] inflated = new byte[uncompressedSize];
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        inflater.setInput(block.array(), dataStart, dataLength);
+        try {
+            int total = 0;
+            while (total < uncompressedSize && !inflater.finished()) {
+                int count = inflater.inflate(inflated, total, uncompressedSize - total);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += count;
+            }
+            if (total != uncompressedSize) {
+                throw new IOException("Corrupted BGZF block at offset " + blockOffset);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted BGZF block at offset " + blockOffset + ": "
+                    + e.getMessage());
+        } finally {
+            inflater.reset();
+            inflaters.offer(inflater);
+            if (closed) { // closed while inflating, nobody else releases it
+                releaseInflaters();
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(inflated, 0, uncompressedSize);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("CRC mismatch in BGZF block at offset " + blockOffset);
+        }
+        return ByteBuffer.wrap(inflated);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        while (current == null || !current.hasRemaining()) {
+            if (endOfInput) {
+                return -1;
+            }
+            current = nextBlock();
+            if (current == null) {
+                endOfInput = true;
+                if (readFailure instanceof IOException) {
+                    throw (IOException) readFailure;
+                }
+                if (readFailure instanceof RuntimeException) {
+                    throw (RuntimeException) readFailure;
+                }
+                if (readFailure instanceof Error) {
+                    throw (Error) readFailure;
+                }
+                return -1;
+            }
+        }
+        int count = Math.min(dst.remaining(), current.remaining());
+        ByteBuffer slice = current.duplicate();
+        slice.limit(slice.position() + count);
+        dst.put(slice);
+        current.position(current.position() + count);
+        return count;
+    }
+
+    private ByteBuffer nextBlock() throws IOException {
+        try {
+            return inflatedBlocks.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for data");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        readerThread.interrupt();
+        for (Future<ByteBuffer> block : inflatedBlocks) {
+            block.cancel(false); // workers are shared, blocks waiting for one are dropped
+        }
+        releaseInflaters();
+        channel.close();
+    }
+
+    private void releaseInflaters() {
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Workers shared by all channels, created on first use
+     */
+    private static final class Workers
+    {
+        private static final AtomicInteger WORKER_NUMBER = new AtomicInteger();
+        private static final ExecutorService POOL = Executors.newFixedThreadPool(WORKER_COUNT,
+            runnable -> {
+                Thread thread = new Thread(runnable,
+                        "biovalidator-bgzf-" + WORKER_NUMBER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        private Workers() { }
+    }
+}
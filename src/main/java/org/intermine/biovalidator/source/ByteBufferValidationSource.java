@@ -0,0 +1,62 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationSource;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * A seekable source over an in-memory buffer, each opened channel reads an independent view
+ * of the buffer so the buffer itself is never modified
+ *
+ * @author deepak
+ */
+public class ByteBufferValidationSource implements ValidationSource
+{
+    private final ByteBuffer buffer;
+    private final String name;
+
+    /**
+     * Construct a source with a buffer, content between buffer's position and limit is used
+     * @param buffer data buffer
+     * @param name name of the source used in messages
+     */
+    public ByteBufferValidationSource(@Nonnull ByteBuffer buffer, @Nonnull String name) {
+        this.buffer = buffer.slice();
+        this.name = name;
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() {
+        return new ByteBufferChannel(buffer.duplicate());
+    }
+
+    @Override
+    public boolean isSeekable() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Optional<Path> getPath() {
+        return Optional.empty();
+    }
+}
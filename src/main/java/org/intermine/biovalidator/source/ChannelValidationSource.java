@@ -0,0 +1,65 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationSource;
+
+import javax.annotation.Nonnull;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * A one-shot source wrapping an already opened channel, used for streams, pipes and stdin
+ *
+ * @author deepak
+ */
+public class ChannelValidationSource implements ValidationSource
+{
+    private final String name;
+    private ReadableByteChannel channel;
+
+    /**
+     * Construct a source with a channel
+     * @param channel data channel
+     * @param name name of the source used in messages
+     */
+    public ChannelValidationSource(@Nonnull ReadableByteChannel channel, @Nonnull String name) {
+        this.channel = channel;
+        this.name = name;
+    }
+
+    @Override
+    public synchronized ReadableByteChannel openChannel() {
+        if (channel == null) {
+            throw new IllegalStateException("Source '" + name + "' can only be read once");
+        }
+        ReadableByteChannel result = channel;
+        channel = null;
+        return result;
+    }
+
+    @Override
+    public boolean isSeekable() {
+        return false;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Optional<Path> getPath() {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,128 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationSource;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A source that transparently decompresses gzip data of another source. Compression is
+ * detected from the gzip magic bytes (0x1f 0x8b) rather than from the file name, data that is
+ * not compressed is passed through unchanged.
+ *
+ * Decompression runs on its own thread with a large inflater buffer, ahead of the consumer.
+ * BGZF data is recognised from its block header and its blocks are decompressed in parallel,
+ * see BgzfInflatingChannel.
+ *
+ * @author deepak
+ */
+public class DecompressingValidationSource implements ValidationSource
+{
+    private static final int GZIP_MAGIC_FIRST_BYTE = 0x1f;
+    private static final int GZIP_MAGIC_SECOND_BYTE = 0x8b;
+    private static final int MAGIC_LENGTH = 2;
+    private static final int INFLATER_BUFFER_SIZE = 256 * 1024;
+
+    private final ValidationSource source;
+
+    /**
+     * Construct a decompressing source
+     * @param source source which may contain gzip compressed data
+     */
+    public DecompressingValidationSource(@Nonnull ValidationSource source) {
+        this.source = source;
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() throws IOException {
+        PrefixedChannel channel = PrefixedChannel.peek(source.openChannel(),
+                BgzfInflatingChannel.HEADER_LENGTH);
+        if (!isGzipMagic(channel.getPrefix())) {
+            return channel;
+        }
+        if (BgzfInflatingChannel.isBgzfHeader(channel.getPrefix())) {
+            return new BgzfInflatingChannel(channel);
+        }
+        GZIPInputStream gzipStream;
+        try {
+            gzipStream = new GZIPInputStream(Channels.newInputStream(channel),
+                    INFLATER_BUFFER_SIZE);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new ReadAheadChannel(Channels.newChannel(gzipStream),
+                ReadAheadChannel.DEFAULT_BUFFER_SIZE, ReadAheadChannel.DEFAULT_BUFFER_COUNT,
+                "biovalidator-inflater");
+    }
+
+    /**
+     * Test whether a buffer starts with gzip magic bytes
+     * @param header first bytes of the data
+     * @return true if gzip compressed
+     */
+    public static boolean isGzipMagic(ByteBuffer header) {
+        return header.remaining() >= MAGIC_LENGTH
+                && (header.get(header.position()) & 0xFF) == GZIP_MAGIC_FIRST_BYTE
+                && (header.get(header.position() + 1) & 0xFF) == GZIP_MAGIC_SECOND_BYTE;
+    }
+
+    /**
+     * Test whether a file is gzip compressed by reading its magic bytes
+     * @param path file path
+     * @return true if gzip compressed, false if not or file cannot be read
+     */
+    public static boolean isGzipFile(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC_LENGTH);
+            channel.read(header, 0);
+            header.flip();
+            return isGzipMagic(header);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isSeekable() {
+        return source.isSeekable();
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return source.getName();
+    }
+
+    /**
+     * Gets path of the file backing this source, only if it is not compressed, as positions in
+     * a compressed file do not match positions in the data
+     * @return optional of file path
+     */
+    @Override
+    public Optional<Path> getPath() {
+        return source.getPath().filter(path -> !isGzipFile(path));
+    }
+}
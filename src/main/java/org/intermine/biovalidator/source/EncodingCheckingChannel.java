@@ -0,0 +1,166 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ParsingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A channel checking that the bytes read from another channel are valid UTF-8 (ASCII being
+ * a subset of it), so that invalid input is reported with its byte offset instead of being
+ * silently replaced while decoding. A UTF-8 byte order mark is skipped, UTF-16 and UTF-32
+ * byte order marks are reported as unsupported.
+ *
+ * @author deepak
+ */
+public final class EncodingCheckingChannel implements ReadableByteChannel
+{
+    private static final int MAX_BOM_LENGTH = 4;
+    private static final int UTF8_BOM_LENGTH = 3;
+
+    private final ReadableByteChannel channel;
+    private final Utf8Validator validator;
+    private long position;
+    private ParsingException failure;
+
+    private EncodingCheckingChannel(ReadableByteChannel channel, long position) {
+        this.channel = channel;
+        this.validator = new Utf8Validator();
+        this.position = position;
+    }
+
+    /**
+     * Wraps a channel, checking its byte order mark if any
+     * @param channel channel to read from
+     * @return channel checking the encoding of data read through it
+     * @throws IOException if reading fails or data has an unsupported byte order mark
+     */
+    public static EncodingCheckingChannel open(ReadableByteChannel channel) throws IOException {
+        PrefixedChannel prefixed = PrefixedChannel.peek(channel, MAX_BOM_LENGTH);
+        ByteBuffer prefix = prefixed.getPrefix();
+        String unsupported = getUnsupportedEncoding(prefix);
+        if (unsupported != null) {
+            prefixed.close();
+            throw new ParsingException("Unsupported encoding " + unsupported
+                    + " (byte order mark found), only ASCII and UTF-8 input is supported");
+        }
+        if (startsWith(prefix, 0xEF, 0xBB, 0xBF)) {
+            prefixed.skip(UTF8_BOM_LENGTH);
+            return new EncodingCheckingChannel(prefixed, UTF8_BOM_LENGTH);
+        }
+        return new EncodingCheckingChannel(prefixed, 0);
+    }
+
+    /**
+     * Wraps a channel reading from the middle of a source, e.g. a chunk of a file starting
+     * at a line boundary, no byte order mark is expected
+     * @param channel channel to read from
+     * @param position offset of the first byte of the channel in the source, used in messages
+     * @return channel checking the encoding of data read through it
+     */
+    public static EncodingCheckingChannel openAt(ReadableByteChannel channel, long position) {
+        return new EncodingCheckingChannel(channel, position);
+    }
+
+    private static String getUnsupportedEncoding(ByteBuffer prefix) {
+        if (startsWith(prefix, 0x00, 0x00, 0xFE, 0xFF)) {
+            return "UTF-32BE";
+        } else if (startsWith(prefix, 0xFF, 0xFE, 0x00, 0x00)) {
+            return "UTF-32LE";
+        } else if (startsWith(prefix, 0xFE, 0xFF)) {
+            return "UTF-16BE";
+        } else if (startsWith(prefix, 0xFF, 0xFE)) {
+            return "UTF-16LE";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int... bytes) {
+        if (buffer.remaining() < bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if ((buffer.get(buffer.position() + i) & 0xFF) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets offset in the source of the next byte to be read, a skipped byte order mark is
+     * counted
+     * @return byte offset
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Test whether all data read so far was ASCII, in which case it can be used without any
+     * charset decoding
+     * @return true if only ASCII was read
+     */
+    public boolean isAscii() {
+        return validator.isAscii();
+    }
+
+    /**
+     * Reads bytes into dst, valid bytes preceding an invalid one are returned first and the
+     * error is thrown by the next call, so that the consumer sees data in the same order as
+     * it is in the source
+     * @param dst destination buffer
+     * @return number of bytes read or -1 at end of input
+     * @throws IOException if reading fails or an invalid byte is found
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        int start = dst.position();
+        int read = channel.read(dst);
+        if (read > 0) {
+            int invalid = validator.validate(dst, start, start + read);
+            if (invalid >= 0) {
+                // report the sequence the invalid byte belongs to, e.g. a latin-1 'é'(0xE9)
+                // followed by an ASCII letter is reported as 0xE9, not as the letter
+                int sequenceStart = invalid - validator.getBrokenSequenceLength();
+                failure = new ParsingException(String.format(
+                        "Invalid UTF-8 byte 0x%02X at byte offset %d",
+                        validator.getLeadByte(), position + sequenceStart - start));
+                if (sequenceStart <= start) {
+                    throw failure;
+                }
+                dst.position(sequenceStart);
+                read = sequenceStart - start;
+            }
+            position += read;
+        } else if (read < 0 && !validator.isComplete()) {
+            throw new ParsingException("Incomplete UTF-8 sequence at end of input, byte offset "
+                    + position);
+        }
+        return read;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
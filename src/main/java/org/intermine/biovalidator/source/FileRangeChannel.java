@@ -0,0 +1,68 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A readable channel over a range of a file channel using positional reads, so that many
+ * ranges can be read from the same file channel, also by different threads. Closing the range
+ * does not close the file channel.
+ *
+ * @author deepak
+ */
+public class FileRangeChannel implements ReadableByteChannel
+{
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+    /**
+     * Construct a channel reading bytes from start up to end of a file channel
+     * @param channel file channel, closed by the caller
+     * @param start offset of the first byte
+     * @param end offset after the last byte
+     */
+    public FileRangeChannel(FileChannel channel, long start, long end) {
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (position >= end) {
+            return -1;
+        }
+        ByteBuffer slice = dst.duplicate();
+        slice.limit(slice.position() + (int) Math.min(dst.remaining(), end - position));
+        int read = channel.read(slice, position);
+        if (read < 0) {
+            return -1;
+        }
+        dst.position(dst.position() + read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() {
+        // file channel is shared by all ranges and closed by the owner
+    }
+}
@@ -0,0 +1,60 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationSource;
+
+import javax.annotation.Nonnull;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * A seekable source reading a file through a FileChannel
+ *
+ * @author deepak
+ */
+public class FileValidationSource implements ValidationSource
+{
+    private final Path path;
+
+    /**
+     * Construct a source with a file path
+     * @param path file path
+     */
+    public FileValidationSource(@Nonnull Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() throws IOException {
+        // FileInputStream reports missing files as 'path (No such file or directory)'
+        return new FileInputStream(path.toFile()).getChannel();
+    }
+
+    @Override
+    public boolean isSeekable() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return path.toString();
+    }
+
+    @Override
+    public Optional<Path> getPath() {
+        return Optional.of(path);
+    }
+}
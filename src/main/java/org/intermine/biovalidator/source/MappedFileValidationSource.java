@@ -0,0 +1,115 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationSource;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * A seekable source reading a file through memory-mapped buffers. Files bigger than a single
+ * mapping (2GB) are mapped window by window while reading.
+ *
+ * @author deepak
+ */
+public class MappedFileValidationSource implements ValidationSource
+{
+    private static final long MAX_WINDOW_SIZE = 1L << 30;
+
+    private final Path path;
+
+    /**
+     * Construct a source with a file path
+     * @param path file path
+     */
+    public MappedFileValidationSource(@Nonnull Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() throws IOException {
+        try {
+            return new MappedChannel(FileChannel.open(path, StandardOpenOption.READ));
+        } catch (NoSuchFileException e) {
+            throw new IOException(path + " (No such file or directory)");
+        }
+    }
+
+    @Override
+    public boolean isSeekable() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return path.toString();
+    }
+
+    @Override
+    public Optional<Path> getPath() {
+        return Optional.of(path);
+    }
+
+    /**
+     * Channel copying from successive mapped windows of a file
+     */
+    private static final class MappedChannel implements ReadableByteChannel
+    {
+        private final FileChannel fileChannel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        private MappedChannel(FileChannel fileChannel) throws IOException {
+            this.fileChannel = fileChannel;
+            this.size = fileChannel.size();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                long nextStart = (window == null) ? 0 : windowStart + window.capacity();
+                if (nextStart >= size) {
+                    return -1;
+                }
+                long windowSize = Math.min(MAX_WINDOW_SIZE, size - nextStart);
+                window = fileChannel.map(FileChannel.MapMode.READ_ONLY, nextStart, windowSize);
+                windowStart = nextStart;
+            }
+            int count = Math.min(dst.remaining(), window.remaining());
+            ByteBuffer slice = window.duplicate();
+            slice.limit(slice.position() + count);
+            dst.put(slice);
+            window.position(window.position() + count);
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return fileChannel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            fileChannel.close();
+        }
+    }
+}
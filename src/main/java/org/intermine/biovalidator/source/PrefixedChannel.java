@@ -0,0 +1,97 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A channel that first returns bytes already read(peeked) from another channel and then
+ * continues reading from that channel
+ *
+ * @author deepak
+ */
+public final class PrefixedChannel implements ReadableByteChannel
+{
+    private final ByteBuffer prefix;
+    private final ReadableByteChannel channel;
+
+    /**
+     * Construct a prefixed channel
+     * @param prefix bytes to be returned first, between position and limit
+     * @param channel channel to continue with
+     */
+    public PrefixedChannel(ByteBuffer prefix, ReadableByteChannel channel) {
+        this.prefix = prefix;
+        this.channel = channel;
+    }
+
+    /**
+     * Read up to 'count' bytes from the channel without consuming them, returned channel
+     * reads the peeked bytes again before the rest of the channel
+     * @param channel channel to peek
+     * @param count number of bytes to peek
+     * @return prefixed channel, peeked bytes are available through {@link #getPrefix()}
+     * @throws IOException if reading fails
+     */
+    static PrefixedChannel peek(ReadableByteChannel channel, int count) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(count);
+        int read = 0;
+        while (prefix.hasRemaining() && read >= 0) {
+            read = channel.read(prefix);
+        }
+        prefix.flip();
+        return new PrefixedChannel(prefix, channel);
+    }
+
+    /**
+     * Gets a read-only view of the bytes not yet returned from the prefix
+     * @return prefix bytes
+     */
+    ByteBuffer getPrefix() {
+        return prefix.asReadOnlyBuffer();
+    }
+
+    /**
+     * Consume bytes of the prefix without returning them, e.g. a byte order mark
+     * @param count number of bytes to skip, at most the number of remaining prefix bytes
+     */
+    void skip(int count) {
+        prefix.position(prefix.position() + count);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (prefix.hasRemaining()) {
+            int count = Math.min(dst.remaining(), prefix.remaining());
+            ByteBuffer slice = prefix.duplicate();
+            slice.limit(slice.position() + count);
+            dst.put(slice);
+            prefix.position(prefix.position() + count);
+            // continue with the channel in the same call, so the prefix is never returned as
+            // a short read on its own (readers may sniff the format from the first read)
+            int read = dst.hasRemaining() ? channel.read(dst) : 0;
+            return read > 0 ? count + read : count;
+        }
+        return channel.read(dst);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,170 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A channel which reads its underlying channel ahead of the consumer on a separate thread, so
+ * that waiting for the disk (or a network file system, or a decompressor) overlaps with
+ * processing of the data already read.
+ *
+ * The reader thread fills a fixed set of pre-allocated buffers which are passed to the consumer
+ * through a bounded queue and returned to the reader once consumed, so memory use is bounded
+ * to bufferCount * bufferSize bytes and the order of the bytes is preserved.
+ *
+ * @author deepak
+ */
+public class ReadAheadChannel implements ReadableByteChannel
+{
+    /**
+     * default size of a single read-ahead buffer
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * default number of read-ahead buffers
+     */
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    private static final ByteBuffer END_OF_INPUT = ByteBuffer.allocate(0);
+
+    private final ReadableByteChannel source;
+    private final BlockingQueue<ByteBuffer> filledBuffers;
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+    private final Thread readerThread;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private ByteBuffer current;
+
+    /**
+     * Construct a read-ahead channel with default buffers
+     * @param source channel to be read ahead
+     */
+    public ReadAheadChannel(ReadableByteChannel source) {
+        this(source, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT, "biovalidator-reader");
+    }
+
+    /**
+     * Construct a read-ahead channel and start the reader thread
+     * @param source channel to be read ahead
+     * @param bufferSize size of each buffer
+     * @param bufferCount number of buffers
+     * @param threadName name of the reader thread
+     */
+    public ReadAheadChannel(ReadableByteChannel source, int bufferSize, int bufferCount,
+                            String threadName) {
+        if (bufferSize <= 0 || bufferCount <= 0) {
+            throw new IllegalArgumentException("buffer size and count must be positive");
+        }
+        this.source = source;
+        // one extra slot for the end-of-input marker
+        this.filledBuffers = new ArrayBlockingQueue<>(bufferCount + 1);
+        this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            freeBuffers.add(ByteBuffer.allocate(bufferSize));
+        }
+        this.readerThread = new Thread(this::readAhead, threadName);
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    private void readAhead() {
+        boolean interrupted = false;
+        try {
+            while (!closed) {
+                ByteBuffer buffer = freeBuffers.take();
+                buffer.clear();
+                int read = 0;
+                while (buffer.hasRemaining() && read >= 0) { // until buffer is full or input ends
+                    read = source.read(buffer);
+                }
+                buffer.flip();
+                if (buffer.hasRemaining()) {
+                    filledBuffers.put(buffer);
+                }
+                if (read < 0) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted = true; // channel is closed, nobody waits for more buffers
+        } catch (Throwable e) { // also unchecked ones, the consumer must not wait forever
+            failure = e;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            } else {
+                filledBuffers.offer(END_OF_INPUT);
+            }
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        if (current == END_OF_INPUT) {
+            return -1;
+        }
+        if (current == null || !current.hasRemaining()) {
+            if (current != null) {
+                freeBuffers.offer(current); // give buffer back to the reader
+            }
+            try {
+                current = filledBuffers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for data");
+            }
+            if (current == END_OF_INPUT) {
+                if (failure instanceof IOException) {
+                    throw (IOException) failure;
+                }
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                }
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                return -1;
+            }
+        }
+        int count = Math.min(dst.remaining(), current.remaining());
+        ByteBuffer slice = current.duplicate();
+        slice.limit(slice.position() + count);
+        dst.put(slice);
+        current.position(current.position() + count);
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        readerThread.interrupt();
+        source.close();
+    }
+}
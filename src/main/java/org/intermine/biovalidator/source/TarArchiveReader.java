@@ -0,0 +1,323 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streams the entries of a tar archive (v7, ustar, GNU and pax formats)
+ *
+ * @author deepak
+ */
+final class TarArchiveReader extends ArchiveReader
+{
+    /**
+     * size of tar headers and data blocks
+     */
+    static final int BLOCK_SIZE = 512;
+
+    private static final int NAME_OFFSET = 0;
+    private static final int NAME_LENGTH = 100;
+    private static final int SIZE_OFFSET = 124;
+    private static final int SIZE_LENGTH = 12;
+    private static final int CHECKSUM_OFFSET = 148;
+    private static final int CHECKSUM_LENGTH = 8;
+    private static final int TYPE_OFFSET = 156;
+    private static final int MAGIC_OFFSET = 257;
+    private static final int PREFIX_OFFSET = 345;
+    private static final int PREFIX_LENGTH = 155;
+    private static final int MAX_LONG_NAME_LENGTH = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer header;
+    private final ByteBuffer skipBuffer;
+    private long remainingInEntry;
+    private long paddingAfterEntry;
+    private long entryCount;
+
+    /**
+     * Construct a tar reader
+     * @param channel channel positioned at the beginning of the archive
+     */
+    TarArchiveReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.header = ByteBuffer.allocate(BLOCK_SIZE);
+        this.skipBuffer = ByteBuffer.allocate(BLOCK_SIZE * 16);
+    }
+
+    /**
+     * Test whether a block is a tar header, by verifying its checksum
+     * @param block first block of the data
+     * @return true if tar header
+     */
+    static boolean isTarHeader(ByteBuffer block) {
+        if (block.remaining() < BLOCK_SIZE) {
+            return false;
+        }
+        long expected = parseNumber(block, CHECKSUM_OFFSET, CHECKSUM_LENGTH);
+        return expected > 0 && expected == computeChecksum(block);
+    }
+
+    private static long computeChecksum(ByteBuffer block) {
+        long sum = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            boolean isChecksumField = i >= CHECKSUM_OFFSET
+                    && i < CHECKSUM_OFFSET + CHECKSUM_LENGTH;
+            sum += isChecksumField ? ' ' : (block.get(block.position() + i) & 0xFF);
+        }
+        return sum;
+    }
+
+    @Override
+    public ArchiveEntry next() throws IOException {
+        skip(remainingInEntry + paddingAfterEntry);
+        remainingInEntry = 0;
+        paddingAfterEntry = 0;
+        String longName = null;
+        long paxSize = -1;
+        while (true) {
+            header.clear();
+            if (!readBlock(header)) {
+                return null;
+            }
+            header.flip();
+            if (isZeroBlock(header)) {
+                return null; // end of archive marker
+            }
+            if (!isTarHeader(header)) {
+                throw new IOException("Invalid tar header");
+            }
+            long size = paxSize >= 0 ? paxSize : parseNumber(header, SIZE_OFFSET, SIZE_LENGTH);
+            long padding = (BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE;
+            char type = (char) header.get(TYPE_OFFSET);
+            String name = longName != null ? longName : readName();
+            longName = null;
+            paxSize = -1;
+
+            if (type == 'L') { // GNU long name of the next entry
+                longName = trimNul(readString(size));
+                skip(padding);
+            } else if (type == 'x') { // pax extended header of the next entry
+                Map<String, String> records = parsePaxRecords(readBytes(size));
+                longName = records.get("path");
+                paxSize = parsePaxSize(records.get("size"));
+                skip(padding);
+            } else if (type == '0' || type == '\0' || type == '7') { // regular file
+                remainingInEntry = size;
+                paddingAfterEntry = padding;
+                return new ArchiveEntry(name, size, new EntryChannel(++entryCount));
+            } else { // directory, link, global pax header, etc.
+                skip(size + padding);
+            }
+        }
+    }
+
+    private String readName() {
+        String name = readField(NAME_OFFSET, NAME_LENGTH);
+        boolean isUstar = header.get(MAGIC_OFFSET) == 'u' && header.get(MAGIC_OFFSET + 1) == 's';
+        if (isUstar) {
+            String prefix = readField(PREFIX_OFFSET, PREFIX_LENGTH);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    private String readField(int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = header.get(offset + i);
+        }
+        return trimNul(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static String trimNul(String value) {
+        int end = value.indexOf('\0');
+        return end >= 0 ? value.substring(0, end) : value;
+    }
+
+    /**
+     * Parse the records of a pax extended header, '<length> <key>=<value>\n' where length is
+     * the number of bytes of the whole record, so values may contain newlines
+     */
+    private static Map<String, String> parsePaxRecords(byte[] bytes) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        int offset = 0;
+        while (offset < bytes.length && bytes[offset] != 0) {
+            int space = offset;
+            long length = 0;
+            while (space < bytes.length && bytes[space] >= '0' && bytes[space] <= '9') {
+                length = length * 10 + bytes[space++] - '0';
+            }
+            int end = (int) Math.min(offset + length, bytes.length);
+            if (space == offset || space >= end || bytes[space] != ' '
+                    || bytes[end - 1] != '\n') {
+                throw new IOException("Invalid tar header, malformed pax record");
+            }
+            String record = new String(bytes, space + 1, end - space - 2, StandardCharsets.UTF_8);
+            int equals = record.indexOf('=');
+            if (equals > 0) {
+                values.put(record.substring(0, equals), record.substring(equals + 1));
+            }
+            offset = end;
+        }
+        return values;
+    }
+
+    private static long parsePaxSize(String size) throws IOException {
+        if (size == null) {
+            return -1;
+        }
+        try {
+            long value = Long.parseLong(size);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IOException("Invalid tar header, pax size '" + size + "'");
+    }
+
+    private String readString(long size) throws IOException {
+        return new String(readBytes(size), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(long size) throws IOException {
+        if (size > MAX_LONG_NAME_LENGTH) {
+            throw new IOException("Invalid tar header, extended header is too long");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of tar archive");
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Parse an octal number field, or a base-256 number used by GNU tar for big files
+     */
+    private static long parseNumber(ByteBuffer block, int offset, int length) {
+        int start = block.position() + offset;
+        if ((block.get(start) & 0x80) != 0) {
+            long value = block.get(start) & 0x7F;
+            for (int i = 1; i < length; i++) {
+                value = (value << 8) | (block.get(start + i) & 0xFF);
+            }
+            return value;
+        }
+        long value = 0;
+        int i = 0;
+        while (i < length && block.get(start + i) == ' ') { // leading spaces
+            i++;
+        }
+        for (; i < length; i++) {
+            byte b = block.get(start + i);
+            if (b >= '0' && b <= '7') {
+                value = (value << 3) + (b - '0');
+            } else if (b == 0 || b == ' ') {
+                break;
+            } else {
+                return -1;
+            }
+        }
+        return value;
+    }
+
+    private static boolean isZeroBlock(ByteBuffer block) {
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            if (block.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean readBlock(ByteBuffer block) throws IOException {
+        while (block.hasRemaining()) {
+            if (channel.read(block) < 0) {
+                if (block.position() == 0) {
+                    return false; // archive without end marker
+                }
+                throw new EOFException("Unexpected end of tar archive");
+            }
+        }
+        return true;
+    }
+
+    private void skip(long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            skipBuffer.clear();
+            skipBuffer.limit((int) Math.min(remaining, skipBuffer.capacity()));
+            int read = channel.read(skipBuffer);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of tar archive");
+            }
+            remaining -= read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Channel returning the data of the current entry
+     */
+    private final class EntryChannel implements ReadableByteChannel
+    {
+        private final long entryNumber;
+        private boolean open = true;
+
+        EntryChannel(long entryNumber) {
+            this.entryNumber = entryNumber;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (entryNumber != entryCount || remainingInEntry <= 0) { // entry not current
+                return -1;
+            }
+            ByteBuffer limited = dst.duplicate();
+            if (limited.remaining() > remainingInEntry) {
+                limited.limit(limited.position() + (int) remainingInEntry);
+            }
+            int read = channel.read(limited);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of tar archive");
+            }
+            dst.position(limited.position());
+            remainingInEntry -= read;
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false; // rest of the entry is skipped by next()
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental UTF-8 validator, data can be fed in chunks and multi-byte sequences may span
+ * chunk boundaries. Runs of ASCII are skipped 8 bytes at a time, only non-ASCII bytes go
+ * through the (RFC 3629) state machine, which rejects overlong forms, surrogates and code
+ * points above U+10FFFF.
+ *
+ * @author deepak
+ */
+public final class Utf8Validator
+{
+    private static final long NON_ASCII_MASK = 0x8080808080808080L;
+    private static final int CONTINUATION_LOW = 0x80;
+    private static final int CONTINUATION_HIGH = 0xBF;
+
+    private int pending;
+    private int sequenceLength;
+    private int leadByte;
+    private int low = CONTINUATION_LOW;
+    private int high = CONTINUATION_HIGH;
+    private boolean ascii = true;
+
+    /**
+     * Validates the next chunk of data
+     * @param buffer buffer containing the data
+     * @param from absolute index in buffer of the first byte to validate
+     * @param to absolute index in buffer after the last byte to validate
+     * @return absolute index of the first invalid byte or -1 if all bytes are valid so far
+     */
+    public int validate(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        while (i < to) {
+            if (pending == 0) {
+                while (i + Long.BYTES <= to && (buffer.getLong(i) & NON_ASCII_MASK) == 0) {
+                    i += Long.BYTES;
+                }
+                if (i == to) {
+                    break;
+                }
+                int b = buffer.get(i) & 0xFF;
+                sequenceLength = 0;
+                leadByte = b;
+                if (b >= CONTINUATION_LOW && !startSequence(b)) {
+                    return i;
+                }
+                sequenceLength = 1;
+            } else {
+                int b = buffer.get(i) & 0xFF;
+                if (b < low || b > high) {
+                    return i;
+                }
+                pending--;
+                sequenceLength++;
+                low = CONTINUATION_LOW;
+                high = CONTINUATION_HIGH;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private boolean startSequence(int b) {
+        ascii = false;
+        if (b >= 0xC2 && b <= 0xDF) {
+            pending = 1;
+        } else if (b == 0xE0) {
+            pending = 2;
+            low = 0xA0; // overlong
+        } else if (b == 0xED) {
+            pending = 2;
+            high = 0x9F; // surrogates
+        } else if (b >= 0xE1 && b <= 0xEF) {
+            pending = 2;
+        } else if (b == 0xF0) {
+            pending = 3;
+            low = 0x90; // overlong
+        } else if (b >= 0xF1 && b <= 0xF3) {
+            pending = 3;
+        } else if (b == 0xF4) {
+            pending = 3;
+            high = 0x8F; // above U+10FFFF
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets number of bytes of the multi-byte sequence that was broken by the invalid byte,
+     * these bytes precede the invalid byte and may be part of a previous chunk
+     * @return 0 if the invalid byte is not a continuation byte, otherwise 1 to 3
+     */
+    public int getBrokenSequenceLength() {
+        return pending == 0 ? 0 : sequenceLength;
+    }
+
+    /**
+     * Gets the first byte of the last multi-byte sequence or invalid byte
+     * @return lead byte as an unsigned value
+     */
+    public int getLeadByte() {
+        return leadByte;
+    }
+
+    /**
+     * Test whether data validated so far does not end in the middle of a multi-byte sequence
+     * @return true if complete
+     */
+    public boolean isComplete() {
+        return pending == 0;
+    }
+
+    /**
+     * Test whether data validated so far contains only ASCII bytes
+     * @return true if only ASCII
+     */
+    public boolean isAscii() {
+        return ascii;
+    }
+}
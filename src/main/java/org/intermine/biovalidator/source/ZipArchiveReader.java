@@ -0,0 +1,60 @@
+package org.intermine.biovalidator.source;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Streams the entries of a zip archive
+ *
+ * @author deepak
+ */
+final class ZipArchiveReader extends ArchiveReader
+{
+    private final ZipInputStream zipStream;
+
+    /**
+     * Construct a zip reader
+     * @param channel channel positioned at the beginning of the archive
+     */
+    ZipArchiveReader(ReadableByteChannel channel) {
+        this.zipStream = new ZipInputStream(Channels.newInputStream(channel));
+    }
+
+    @Override
+    public ArchiveEntry next() throws IOException {
+        ZipEntry entry;
+        do {
+            entry = zipStream.getNextEntry();
+        } while (entry != null && entry.isDirectory());
+        if (entry == null) {
+            return null;
+        }
+        // entry channel must not close the archive
+        InputStream entryStream = new FilterInputStream(zipStream) {
+            @Override
+            public void close() { }
+        };
+        return new ArchiveEntry(entry.getName(), entry.getSize(),
+                Channels.newChannel(entryStream));
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipStream.close();
+    }
+}
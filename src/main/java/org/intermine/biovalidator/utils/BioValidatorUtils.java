@@ -10,9 +10,16 @@ package org.intermine.biovalidator.utils;
  *
  */
 import org.apache.commons.lang3.math.NumberUtils;
+import org.intermine.biovalidator.api.ValidationSource;
 import org.intermine.biovalidator.validator.ValidatorType;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,6 +30,8 @@ public final class BioValidatorUtils
 {
     private static final String BOOLEAN_TRUE = "true";
     private static final String BOOLEAN_FALSE = "false";
+    private static final List<String> COMPRESSED_FILE_EXTENSIONS =
+            Arrays.asList("gz", "gzip", "bgz");
 
     private BioValidatorUtils() { }
 
@@ -45,13 +54,79 @@ public final class BioValidatorUtils
         }
     }
 
+    /**
+     * Get validator type from string or guess validator type from the content of the source
+     * and its name. A conclusive content match (e.g. a '##gff-version' header) wins over the
+     * file extension, the extension wins over weaker content matches.
+     * @param source data to be validated
+     * @param validatorType validator type
+     * @return optional of validator type
+     */
+    public static Optional<ValidatorType> getOrGuessValidatorType(ValidationSource source,
+                                                                  String validatorType) {
+        try {
+            if (validatorType != null) {
+                validatorType = validatorType.trim();
+            }
+            return Optional.of(ValidatorType.of(validatorType));
+        } catch (IllegalArgumentException e) {
+            return chooseValidatorType(source.getName(), sniffCandidates(source));
+        }
+    }
+
+    /**
+     * Guess validator type from the beginning of the data and its name, same as
+     * getOrGuessValidatorType() for data which cannot be read twice
+     * @param name name of the data, e.g. filename
+     * @param sample first bytes of the data
+     * @param isComplete whether sample contains all the data
+     * @return optional of validator type
+     */
+    public static Optional<ValidatorType> guessValidatorType(String name, ByteBuffer sample,
+                                                             boolean isComplete) {
+        return chooseValidatorType(name, FormatSniffer.sniff(sample, isComplete));
+    }
+
+    private static Optional<ValidatorType> chooseValidatorType(
+            String name, List<FormatSniffer.Candidate> candidates) {
+        if (!candidates.isEmpty() && candidates.get(0).isConclusive()) {
+            return Optional.of(candidates.get(0).getType());
+        }
+        Optional<ValidatorType> typeFromName = guessValidatorType(name);
+        if (typeFromName.isPresent() || candidates.isEmpty()) {
+            return typeFromName;
+        }
+        return Optional.of(candidates.get(0).getType());
+    }
+
+    /**
+     * Guess the possible validator types of a source from its content
+     * @param source data to be validated
+     * @return validator types, most likely first, empty if unknown or source is not re-readable
+     */
+    public static List<ValidatorType> sniffValidatorTypes(ValidationSource source) {
+        List<ValidatorType> types = new ArrayList<>();
+        for (FormatSniffer.Candidate candidate : sniffCandidates(source)) {
+            types.add(candidate.getType());
+        }
+        return types;
+    }
+
+    private static List<FormatSniffer.Candidate> sniffCandidates(ValidationSource source) {
+        try {
+            return FormatSniffer.sniff(source);
+        } catch (IOException e) {
+            return Collections.emptyList(); // reported later by the validator itself
+        }
+    }
+
     /**
      * Guess validator type from filename(i.e. filename's extension) if available
      * @param filename absolute file path
      * @return optional of validator type
      */
     private static Optional<ValidatorType> guessValidatorType(String filename) {
-        Optional<String> extensionOpt = getFileExtension(filename);
+        Optional<String> extensionOpt = getUncompressedFileExtension(filename);
         if (!extensionOpt.isPresent()) {
             return Optional.empty();
         }
@@ -79,6 +154,23 @@ public final class BioValidatorUtils
         return Optional.of(filename.substring(extensionIndex + 1));
     }
 
+    /**
+     * Gets extension of a file ignoring a compression extension, for example 'fa' for both
+     * 'genome.fa' and 'genome.fa.gz'
+     * @param filename filename
+     * @return optional of file extension
+     */
+    public static Optional<String> getUncompressedFileExtension(String filename) {
+        Optional<String> extension = getFileExtension(filename);
+        if (extension.isPresent()
+                && COMPRESSED_FILE_EXTENSIONS.contains(extension.get().toLowerCase())) {
+            String uncompressedFilename = filename.substring(0,
+                    filename.length() - extension.get().length() - 1);
+            return getFileExtension(uncompressedFilename);
+        }
+        return extension;
+    }
+
     /**
      * Tests whether a string is a float or not
      * @param s string value
@@ -0,0 +1,309 @@
+package org.intermine.biovalidator.utils;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.source.DecompressingValidationSource;
+import org.intermine.biovalidator.validator.ValidatorType;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Guesses the format of data from its first few KB, independently of the file name. Each
+ * candidate format is given a score from:
+ *  - FASTA: first line is a '>' header followed by sequence-like lines
+ *  - FASTQ: records of 4 lines, '@' header, sequence, '+' line and quality of the same length
+ *  - GFF3: '##gff-version' header, tab separated lines with 9 columns and numeric coordinates
+ *  - CSV: same number of a delimiter (',', tab, ';' or '|') on every line
+ *
+ * @author deepak
+ */
+public final class FormatSniffer
+{
+    /**
+     * number of bytes read from the beginning of a source
+     */
+    public static final int SAMPLE_SIZE = 8 * 1024;
+
+    /**
+     * minimum score of a candidate which is reliable enough to override the file extension
+     */
+    public static final int CONCLUSIVE_SCORE = 80;
+
+    private static final int MAX_SCORE = 100;
+    private static final int GFF3_COLUMNS = 9;
+    private static final int FASTQ_RECORD_LINES = 4;
+    private static final char[] CSV_DELIMITERS = {',', '\t', ';', '|'};
+
+    private FormatSniffer() { }
+
+    /**
+     * Sniffs the beginning of a source, compressed data is decompressed first. One-shot sources
+     * are not read, as the data would not be available anymore for validation.
+     * @param source source to be sniffed
+     * @return candidates ordered by decreasing score, empty if nothing matches
+     * @throws IOException if source cannot be read
+     */
+    public static List<Candidate> sniff(@Nonnull ValidationSource source) throws IOException {
+        if (!source.isSeekable()) {
+            return Collections.emptyList();
+        }
+        ByteBuffer sample = ByteBuffer.allocate(SAMPLE_SIZE);
+        boolean endOfInput = false;
+        try (ReadableByteChannel channel =
+                     new DecompressingValidationSource(source).openChannel()) {
+            while (sample.hasRemaining() && !endOfInput) {
+                endOfInput = channel.read(sample) < 0;
+            }
+        }
+        sample.flip();
+        return sniff(sample, endOfInput);
+    }
+
+    /**
+     * Sniffs a sample of data
+     * @param sample first bytes of the data
+     * @param isComplete whether sample contains all the data, otherwise its last line may be
+     *                   incomplete and is ignored
+     * @return candidates ordered by decreasing score, empty if nothing matches
+     */
+    public static List<Candidate> sniff(@Nonnull ByteBuffer sample, boolean isComplete) {
+        List<String> lines = splitLines(sample, isComplete);
+        List<Candidate> candidates = new ArrayList<>();
+        addIfMatched(candidates, ValidatorType.FASTA, scoreFasta(lines));
+        addIfMatched(candidates, ValidatorType.FASTQ, scoreFastq(lines));
+        addIfMatched(candidates, ValidatorType.GFF3, scoreGff3(lines));
+        addIfMatched(candidates, ValidatorType.CSV, scoreCsv(lines));
+        candidates.sort(Comparator.comparingInt(Candidate::getScore).reversed());
+        return candidates;
+    }
+
+    /**
+     * Test whether a source clearly does not contain data of a type, e.g. to tell binary data
+     * from a read failure when not even a first line could be read. Reads raw bytes, so that
+     * data which is not valid text can be sniffed.
+     * @param source source to be sniffed, only seekable sources are read
+     * @param type expected type, e.g. FASTA
+     * @return true if the beginning of the source was read and does not look like type, false
+     *         if it looks like type or cannot be read
+     */
+    public static boolean isNotOfType(@Nonnull ValidationSource source,
+                                      @Nonnull ValidatorType type) {
+        if (!source.isSeekable()) {
+            return false;
+        }
+        try {
+            return sniff(source).stream().noneMatch(candidate -> candidate.getType() == type);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void addIfMatched(List<Candidate> candidates, ValidatorType type, int score) {
+        if (score > 0) {
+            candidates.add(new Candidate(type, score));
+        }
+    }
+
+    private static List<String> splitLines(ByteBuffer sample, boolean isComplete) {
+        byte[] bytes = new byte[sample.remaining()];
+        sample.duplicate().get(bytes);
+        String text = new String(bytes, StandardCharsets.ISO_8859_1);
+        if (text.startsWith("\u00EF\u00BB\u00BF")) { // UTF-8 byte order mark
+            text = text.substring(3);
+        }
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                lines.add(text.substring(start, i));
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        if (isComplete && start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    private static int scoreFasta(List<String> lines) {
+        String firstLine = firstNonBlankLine(lines);
+        if (firstLine == null || !firstLine.startsWith(">")) {
+            return 0;
+        }
+        int sequenceLines = 0;
+        for (String line : lines) {
+            if (line.startsWith(">") || line.trim().isEmpty()) {
+                continue;
+            }
+            if (!isSequenceLike(line.trim())) {
+                return 50; // header but no sequence, still more likely FASTA than anything else
+            }
+            sequenceLines++;
+        }
+        return sequenceLines > 0 ? 95 : 70;
+    }
+
+    private static int scoreFastq(List<String> lines) {
+        if (lines.isEmpty() || !lines.get(0).startsWith("@")) {
+            return 0;
+        }
+        int records = 0;
+        for (int i = 0; i + FASTQ_RECORD_LINES <= lines.size(); i += FASTQ_RECORD_LINES) {
+            String sequence = lines.get(i + 1);
+            if (!lines.get(i).startsWith("@") || !lines.get(i + 2).startsWith("+")
+                    || sequence.length() != lines.get(i + 3).length()
+                    || !isSequenceLike(sequence)) {
+                return records > 0 ? 70 : 0;
+            }
+            records++;
+        }
+        return records > 0 ? 95 : 60; // a single record longer than the sample
+    }
+
+    private static boolean isSequenceLike(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (!Character.isLetter(c) && c != '*' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int scoreGff3(List<String> lines) {
+        String firstLine = firstNonBlankLine(lines);
+        if (firstLine != null && firstLine.startsWith("##gff-version")) {
+            return MAX_SCORE;
+        }
+        int featureLines = 0;
+        for (String line : lines) {
+            if (line.startsWith("#") || line.trim().isEmpty()) {
+                continue;
+            }
+            if (!isGff3FeatureLike(line)) {
+                return 0;
+            }
+            featureLines++;
+        }
+        return featureLines > 0 ? 75 : 0;
+    }
+
+    private static boolean isGff3FeatureLike(String line) {
+        String[] columns = line.split("\t", -1);
+        return columns.length == GFF3_COLUMNS && BioValidatorUtils.isInteger(columns[3].trim())
+                && BioValidatorUtils.isInteger(columns[4].trim());
+    }
+
+    private static int scoreCsv(List<String> lines) {
+        int bestScore = 0;
+        for (char delimiter : CSV_DELIMITERS) {
+            int expectedCount = -1;
+            int rows = 0;
+            for (String line : lines) {
+                if (line.startsWith("#") || line.trim().isEmpty()) {
+                    continue;
+                }
+                int count = countDelimiters(line, delimiter);
+                if (expectedCount < 0) {
+                    expectedCount = count;
+                } else if (count != expectedCount) {
+                    expectedCount = 0;
+                    break;
+                }
+                rows++;
+            }
+            if (expectedCount > 0) {
+                // more rows with the same number of columns makes it more reliable
+                bestScore = Math.max(bestScore, rows >= 3 ? 60 : 40);
+            }
+        }
+        return bestScore;
+    }
+
+    private static int countDelimiters(String line, char delimiter) {
+        int count = 0;
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (c == delimiter && !inQuotes) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String firstNonBlankLine(List<String> lines) {
+        for (String line : lines) {
+            if (!line.trim().isEmpty()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A candidate format with its score
+     */
+    public static final class Candidate
+    {
+        private final ValidatorType type;
+        private final int score;
+
+        private Candidate(ValidatorType type, int score) {
+            this.type = type;
+            this.score = score;
+        }
+
+        /**
+         * Gets validator type of this candidate
+         * @return validator type
+         */
+        public ValidatorType getType() {
+            return type;
+        }
+
+        /**
+         * Gets score of this candidate, from 1 to 100
+         * @return score
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Test whether this candidate is reliable enough to override the file extension
+         * @return true if conclusive
+         */
+        public boolean isConclusive() {
+            return score >= CONCLUSIVE_SCORE;
+        }
+
+        @Override
+        public String toString() {
+            return type.getName() + "(" + score + ")";
+        }
+    }
+}
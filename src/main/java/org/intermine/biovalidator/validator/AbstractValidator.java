@@ -12,10 +12,18 @@ package org.intermine.biovalidator.validator;
 
 import org.intermine.biovalidator.api.DefaultValidationResult;
 import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.Parser;
 import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
 import org.intermine.biovalidator.api.Validator;
 import org.intermine.biovalidator.api.strategy.ValidationResultStrategy;
+import org.intermine.biovalidator.parser.ByteLine;
+import org.intermine.biovalidator.parser.ByteLineParser;
+import org.intermine.biovalidator.parser.PipelinedLineParser;
+import org.intermine.biovalidator.source.EncodingCheckingChannel;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
 import java.util.function.Consumer;
 
 /**
@@ -25,9 +33,12 @@ import java.util.function.Consumer;
  */
 public abstract class AbstractValidator implements Validator
 {
+    private static final int LINE_BUFFER_SIZE = 64 * 1024;
+
     protected ValidationResult validationResult;
     protected ValidationResultStrategy validationResultStrategy;
     protected boolean isStrict;
+    protected boolean isPipelined;
 
     /**
      * Construct validator with implementation
@@ -58,6 +69,49 @@ public abstract class AbstractValidator implements Validator
         isStrict = false;
     }
 
+    /**
+     * Read, split into lines and validate on separate threads, useful for big files on slow
+     * storage where reading time would otherwise add up to the validation time
+     */
+    public void enablePipelinedReading() {
+        isPipelined = true;
+    }
+
+    /**
+     * Read, split into lines and validate on the calling thread (default)
+     */
+    public void disablePipelinedReading() {
+        isPipelined = false;
+    }
+
+    /**
+     * Opens the source and creates a line parser, either pipelined or not
+     * @param source data source
+     * @return line parser
+     * @throws IOException if source cannot be opened
+     */
+    protected Parser<ByteLine> createLineParser(ValidationSource source) throws IOException {
+        ReadableByteChannel channel = openTextChannel(source);
+        // byte offsets of lines are offsets in the source, including a skipped byte order mark
+        long startOffset = channel instanceof EncodingCheckingChannel
+                ? ((EncodingCheckingChannel) channel).getPosition() : 0;
+        if (isPipelined) {
+            return new PipelinedLineParser(channel, startOffset);
+        }
+        return new ByteLineParser(channel, LINE_BUFFER_SIZE, startOffset);
+    }
+
+    /**
+     * Opens the source for reading text, bytes are checked to be valid UTF-8 while being
+     * read and a UTF-8 byte order mark is skipped
+     * @param source data source
+     * @return channel
+     * @throws IOException if source cannot be opened
+     */
+    protected ReadableByteChannel openTextChannel(ValidationSource source) throws IOException {
+        return EncodingCheckingChannel.open(source.openChannel());
+    }
+
     /**
      * Gets isStrict.
      *
@@ -0,0 +1,416 @@
+package org.intermine.biovalidator.validator;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.DefaultValidationResult;
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.Message;
+import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.RecordBatch;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.parser.ByteLine;
+import org.intermine.biovalidator.parser.ByteLineParser;
+import org.intermine.biovalidator.source.ByteBufferChannel;
+import org.intermine.biovalidator.source.EncodingCheckingChannel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates a file in chunks on a fork/join pool. The file is memory-mapped and split into
+ * chunks at offsets found by the subclass, e.g. at line or record boundaries.
+ *
+ * Lines of each chunk are first counted so that every chunk knows its first line number, then
+ * chunks are validated in parallel, each with its own messages. Once a chunk stops at the first
+ * error, later chunks are skipped. Chunk messages are then stitched in file order, so that
+ * errors and warnings are the same and in the same order as in sequential validation.
+ *
+ * @param <C> type of chunks, holding what the subclass collects while validating
+ * @author deepak
+ */
+public abstract class ChunkedFileValidation<C extends ChunkedFileValidation.Chunk>
+{
+    /**
+     * chunks are never smaller than this, smaller files are validated sequentially
+     */
+    public static final long DEFAULT_MIN_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private static final long MAX_CHUNK_SIZE = 256L * 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ValidationResult validationResult;
+    private final boolean stopAtFirstError;
+    private final Path path;
+    private final int parallelism;
+    private final long minChunkSize;
+    private final AtomicInteger firstFailedChunk = new AtomicInteger(Integer.MAX_VALUE);
+
+    /**
+     * Construct a chunked validation
+     * @param validationResult result where errors and warnings are added in file order
+     * @param stopAtFirstError whether to stop at the first error of the file
+     * @param path uncompressed file
+     * @param parallelism number of threads
+     * @param minChunkSize minimum size of a chunk in bytes
+     */
+    protected ChunkedFileValidation(ValidationResult validationResult, boolean stopAtFirstError,
+                                    Path path, int parallelism, long minChunkSize) {
+        this.validationResult = validationResult;
+        this.stopAtFirstError = stopAtFirstError;
+        this.path = path;
+        this.parallelism = parallelism;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Validates the file
+     * @return false if the file was not validated because it cannot be split in chunks, e.g.
+     *         it is too small or chunks do not start where validation can start
+     * @throws IOException if file cannot be read
+     */
+    public boolean validate() throws IOException {
+        List<C> chunks;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkSize = Math.min(MAX_CHUNK_SIZE,
+                    Math.max(minChunkSize, size / ((long) parallelism * CHUNKS_PER_THREAD)));
+            if (size < 2 * chunkSize) {
+                return false;
+            }
+            chunks = split(channel, size, chunkSize);
+            if (chunks == null || chunks.size() < 2) {
+                return false;
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long totalLines = 0;
+        try {
+            // line numbers of a chunk depend on the number of lines of all previous chunks
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (C chunk : chunks) {
+                tasks.add(() -> countLines(chunk));
+            }
+            runAll(pool, tasks);
+            for (Chunk chunk : chunks) {
+                if (!isChunkStart(totalLines)) {
+                    return false;
+                }
+                chunk.firstLine = totalLines;
+                totalLines += chunk.lineCount;
+            }
+            tasks.clear();
+            for (int i = 0; i < chunks.size(); i++) {
+                C chunk = chunks.get(i);
+                boolean isLastChunk = i == chunks.size() - 1;
+                tasks.add(() -> validateChunk(chunk, isLastChunk));
+            }
+            runAll(pool, tasks);
+        } finally {
+            pool.shutdown();
+        }
+        stitch(chunks, totalLines);
+        return true;
+    }
+
+    /**
+     * Finds where the next chunk starts
+     * @param channel file
+     * @param from offset after which the chunk starts
+     * @param size size of the file
+     * @return offset of the next chunk, or size if there is none
+     * @throws IOException if file cannot be read
+     */
+    protected abstract long nextChunkStart(FileChannel channel, long from, long size)
+            throws IOException;
+
+    /**
+     * Creates a chunk
+     * @param index index of the chunk in the file
+     * @param start offset of the chunk in the file
+     * @param data mapped bytes of the chunk
+     * @return chunk
+     */
+    protected abstract C createChunk(int index, long start, MappedByteBuffer data);
+
+    /**
+     * Tests whether a chunk can start after a number of lines, chunks are found by looking at
+     * their first bytes only, which may be wrong in invalid files
+     * @param lineCount number of lines before the chunk
+     * @return false if the file must be validated sequentially instead
+     */
+    protected boolean isChunkStart(long lineCount) {
+        return true;
+    }
+
+    /**
+     * Gets the message explaining why the first line of the file cannot be read
+     * @param e failure of reading the first line
+     * @return error message
+     */
+    protected abstract String describeUnreadableStart(ParsingException e);
+
+    /**
+     * Validates a line of a chunk, errors and warnings are added to the messages of the chunk
+     * @param chunk chunk of the line
+     * @param line line, only used during the call
+     * @param lineNumber line number in the file
+     */
+    protected abstract void validateLine(C chunk, ByteLine line, long lineNumber);
+
+    /**
+     * Called once all lines of a chunk are validated, not called if validation of the chunk
+     * stopped
+     * @param chunk validated chunk
+     * @param isLastChunk whether it is the last chunk of the file
+     */
+    protected void endOfChunk(C chunk, boolean isLastChunk) {
+    }
+
+    /**
+     * Adds messages of the chunks to the validation result in file order
+     * @param chunks validated chunks
+     * @param totalLines number of lines of the file
+     */
+    protected void stitch(List<C> chunks, long totalLines) {
+        for (Chunk chunk : chunks) {
+            addErrors(chunk, 0, chunk.messages.totalError());
+            addWarnings(chunk, 0, chunk.messages.totalWarnings());
+            if (shouldStop() || addFailure(chunk)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds errors of a chunk to the validation result
+     * @param chunk chunk
+     * @param from index of the first error, inclusive
+     * @param to index of the last error, exclusive
+     * @return to
+     */
+    protected final int addErrors(Chunk chunk, int from, int to) {
+        List<Message> errors = chunk.messages.getErrorMessages();
+        for (int i = from; i < to; i++) {
+            validationResult.addError(errors.get(i).getMessage());
+        }
+        return to;
+    }
+
+    /**
+     * Adds warnings of a chunk to the validation result
+     * @param chunk chunk
+     * @param from index of the first warning, inclusive
+     * @param to index of the last warning, exclusive
+     * @return to
+     */
+    protected final int addWarnings(Chunk chunk, int from, int to) {
+        List<Message> warnings = chunk.messages.getWarningMessages();
+        for (int i = from; i < to; i++) {
+            validationResult.addWarning(warnings.get(i).getMessage());
+        }
+        return to;
+    }
+
+    /**
+     * Adds the failure of a chunk to the validation result, e.g. invalid UTF-8
+     * @param chunk chunk
+     * @return true if the chunk failed, its lines after the failure were not validated
+     */
+    protected final boolean addFailure(Chunk chunk) {
+        if (chunk.failure == null) {
+            return false;
+        }
+        validationResult.addError(chunk.failure);
+        return true;
+    }
+
+    /**
+     * Test whether stitching must stop, i.e. the validation result has an error and
+     * validation stops at the first error
+     * @return true if stitching must stop
+     */
+    protected final boolean shouldStop() {
+        return !validationResult.isValid() && stopAtFirstError;
+    }
+
+    /**
+     * Runs tasks on a pool and waits for all of them
+     * @param pool thread pool
+     * @param tasks tasks to be run
+     * @throws IOException if a task fails with an IOException or is interrupted
+     */
+    public static void runAll(ForkJoinPool pool, List<Callable<Void>> tasks)
+            throws IOException {
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("validation interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Splits the file in chunks
+     * @return chunks, or null if a chunk would be too big to be mapped
+     */
+    private List<C> split(FileChannel channel, long size, long chunkSize) throws IOException {
+        List<C> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = (size - start <= chunkSize)
+                    ? size : nextChunkStart(channel, start + chunkSize, size);
+            if (end - start > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    end - start);
+            chunks.add(createChunk(chunks.size(), start, data));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static Void countLines(Chunk chunk) throws IOException {
+        long count = 0;
+        try (ByteLineParser parser = new ByteLineParser(
+                new ByteBufferChannel(chunk.data.duplicate()))) {
+            while (parser.parseNext() != null) {
+                count++;
+            }
+        }
+        chunk.lineCount = count;
+        return null;
+    }
+
+    private Void validateChunk(C chunk, boolean isLastChunk) {
+        Chunk range = chunk;
+        if (range.index > firstFailedChunk.get()) {
+            return null; // an earlier chunk stops the validation
+        }
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.enableWarnings();
+        range.messages = new DefaultValidationResult(strategy);
+        ReadableByteChannel channel = new ByteBufferChannel(range.data.duplicate());
+        try (ByteLineParser parser = new ByteLineParser(range.index == 0
+                ? EncodingCheckingChannel.open(channel)
+                : EncodingCheckingChannel.openAt(channel, range.start))) {
+            if (validateLines(chunk, parser)) {
+                endOfChunk(chunk, isLastChunk);
+            }
+        } catch (IOException e) {
+            range.failure = e.getMessage();
+            firstFailedChunk.accumulateAndGet(range.index, Math::min);
+        }
+        return null;
+    }
+
+    /**
+     * Validates the lines of a chunk in batches
+     * @return false if validation stopped before the end of the chunk
+     */
+    private boolean validateLines(C chunk, ByteLineParser parser) throws IOException {
+        Chunk range = chunk;
+        RecordBatch<ByteLine> batch = parser.createBatch(RecordBatch.DEFAULT_CAPACITY);
+        int batchSize;
+        try {
+            batchSize = parser.parseBatch(batch);
+        } catch (ParsingException e) {
+            if (range.index > 0) {
+                throw e;
+            }
+            // not even a first line
+            throw new ParsingException(describeUnreadableStart(e));
+        }
+        while (batchSize > 0) {
+            if (range.index > firstFailedChunk.get()) {
+                return false;
+            }
+            for (int i = 0; i < batchSize; i++) {
+                validateLine(chunk, batch.get(i), range.firstLine + batch.getLineNumber(i));
+                if (!range.messages.isValid() && stopAtFirstError) {
+                    firstFailedChunk.accumulateAndGet(range.index, Math::min);
+                    return false;
+                }
+            }
+            batchSize = parser.parseBatch(batch);
+        }
+        return true;
+    }
+
+    /**
+     * A range of the file where validation can start, and the messages of its validation
+     */
+    public static class Chunk
+    {
+        private final int index;
+        private final long start;
+        private final MappedByteBuffer data;
+        private long firstLine;
+        private long lineCount;
+        private ValidationResult messages;
+        private String failure;
+
+        /**
+         * Construct a chunk
+         * @param index index of the chunk in the file
+         * @param start offset of the chunk in the file
+         * @param data mapped bytes of the chunk
+         */
+        protected Chunk(int index, long start, MappedByteBuffer data) {
+            this.index = index;
+            this.start = start;
+            this.data = data;
+        }
+
+        /**
+         * Gets number of lines of the chunk
+         * @return line count
+         */
+        public long getLineCount() {
+            return lineCount;
+        }
+
+        /**
+         * Gets number of lines of the file before the chunk
+         * @return line number of the last line of the previous chunk
+         */
+        public long getFirstLine() {
+            return firstLine;
+        }
+
+        /**
+         * Gets errors and warnings of the chunk, only available once it is validated
+         * @return messages
+         */
+        public ValidationResult getMessages() {
+            return messages;
+        }
+    }
+}
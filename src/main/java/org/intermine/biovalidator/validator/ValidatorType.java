@@ -28,6 +28,11 @@ public enum ValidatorType {
      */
     FASTA_DNA("fasta-dna"), FASTA_RNA("fasta-rna"), FASTA_PROTEIN("fasta-protein"),
 
+    /**
+     * Represents a validator of type FASTQ
+     */
+    FASTQ("fastq", Arrays.asList("fq", "fastq")),
+
     /**
      * Represents a validator of type GFF3
      */
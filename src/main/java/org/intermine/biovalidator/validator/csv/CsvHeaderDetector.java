@@ -15,8 +15,11 @@ import org.intermine.biovalidator.parser.CsvParser;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -30,7 +33,10 @@ import java.util.Set;
  */
 public class CsvHeaderDetector
 {
-    private static final int SAMPLE_ROW = 15;
+    /**
+     * number of rows, after the first row, used to detect header
+     */
+    public static final int SAMPLE_ROW = 15;
     private InputStreamReader inputStreamReader;
     private boolean allowComments;
     private String delimiter;
@@ -79,83 +85,106 @@ public class CsvHeaderDetector
           */
         try (CsvParser parser = new CsvParser(inputStreamReader, false, allowComments, delimiter)) {
             String[] header = parser.parseNext();
-            int totalColumns = header.length;
-
-            /*
-             This map stores entry for each column, for each column-mapping it stores column index
-             as key, and an object representing value, value can be one of two possible objects:
-             1. Boolean object:
-                If a value is of Boolean type, then it means up to now all rows are number for a
-                particular column.
-             2. Integer objects:
-                If a value is of Integer type, then it means that the column does not have all
-                value as number but rather string, so now it will store length of column-values.
-             */
-            Map<Integer, Object> columnTypes = new HashMap<>();
-
-            for (int i = 0; i < totalColumns; i++) {
-                columnTypes.put(i, null);
-            }
+            List<String[]> sampleRows = new ArrayList<>();
             int checked = 0;
             while (parser.hasNext() && checked < SAMPLE_ROW) {
                 String[] row = parser.parseNext();
-
-                if (row.length != totalColumns) {
-                    continue;
+                sampleRows.add(row);
+                if (row.length == header.length) {
+                    checked++;
                 }
-                //Copy keys to avoid Modification Exception
-                Set<Integer> columnTypesKeys = new HashSet<>(columnTypes.keySet());
-                columnTypesKeys.forEach(i -> {
-                    Object thisType;
-                    if (NumberUtils.isCreatable(row[i])) { //if column-value is a number
-                        thisType = Boolean.TRUE; // true indicating column-value is of number type
-                    } else {
-                        // if a column-value isn't a number, store it's length
-                        thisType = row[i] == null ? 0 : row[i].length();
-                    }
-                    if (thisType != columnTypes.get(i)) {
-                        if (columnTypes.get(i) == null) {
-                            columnTypes.put(i, thisType); // add new column type
-                        } else {
-                            // type is inconsistent, remove column from consideration
-                            columnTypes.remove(i);
-                        }
-                    }
-                });
-                checked++;
             }
+            return hasHeader(header, sampleRows);
+        }
+    }
+
+    /**
+     * Test whether first row of a csv data is a header or not, from the rows following it.
+     * Same as hasHeader() but works on rows already read by the caller, so data does not
+     * need to be read twice. Only the first SAMPLE_ROW rows having same number of columns
+     * as the first row are considered.
+     * @param header first row
+     * @param sampleRows rows following the first row
+     * @return boolean
+     */
+    public static boolean hasHeader(String[] header, List<String[]> sampleRows) {
+        int totalColumns = header.length;
 
-            /*
-             Now check whether there is a column which is either all number except first row, OR
-             there is a column whose length of all values are same except the first row,
+        /*
+         This map stores entry for each column, for each column-mapping it stores column index
+         as key, and an object representing value, value can be one of two possible objects:
+         1. Boolean object:
+            If a value is of Boolean type, then it means up to now all rows are number for a
+            particular column.
+         2. Integer objects:
+            If a value is of Integer type, then it means that the column does not have all
+            value as number but rather string, so now it will store length of column-values.
+         */
+        Map<Integer, Object> columnTypes = new HashMap<>();
 
-             Finally, compare results against first row and "vote" on whether it's a header.
-             */
-            int hasHeader = 0;
-            for (Map.Entry<Integer, Object> entry : columnTypes.entrySet()) {
-                int colKey = entry.getKey();
-                Object colVal = entry.getValue();
-                if (colVal instanceof Integer) { // Integer means, considering length of col-values
-                    int colValInt = (Integer) colVal;
-                    if (header[colKey] != null && header[colKey].length() == colValInt) {
-                        // If length of first row is same as all other rows,
-                        // then it might not be a header, decrement vote by 1
-                        hasHeader--;
-                    } else {
-                        hasHeader++; // else it might be a header, So increment vote by 1
-                    }
-                } else if (colVal instanceof Boolean) {
-                    // If column-value is a Booleans then, all rows(except first row) are numbers
-                    if (NumberUtils.isCreatable(header[colKey])) {
-                        // if first row is also a number then, it may not be a header
-                        hasHeader--;
+        for (int i = 0; i < totalColumns; i++) {
+            columnTypes.put(i, null);
+        }
+        int checked = 0;
+        Iterator<String[]> rows = sampleRows.iterator();
+        while (rows.hasNext() && checked < SAMPLE_ROW) {
+            String[] row = rows.next();
+
+            if (row.length != totalColumns) {
+                continue;
+            }
+            //Copy keys to avoid Modification Exception
+            Set<Integer> columnTypesKeys = new HashSet<>(columnTypes.keySet());
+            columnTypesKeys.forEach(i -> {
+                Object thisType;
+                if (NumberUtils.isCreatable(row[i])) { //if column-value is a number
+                    thisType = Boolean.TRUE; // true indicating column-value is of number type
+                } else {
+                    // if a column-value isn't a number, store it's length
+                    thisType = row[i] == null ? 0 : row[i].length();
+                }
+                if (thisType != columnTypes.get(i)) {
+                    if (columnTypes.get(i) == null) {
+                        columnTypes.put(i, thisType); // add new column type
                     } else {
-                        hasHeader++; // else it might be a header, So increment vote by 1
+                        // type is inconsistent, remove column from consideration
+                        columnTypes.remove(i);
                     }
                 }
+            });
+            checked++;
+        }
+
+        /*
+         Now check whether there is a column which is either all number except first row, OR
+         there is a column whose length of all values are same except the first row,
+
+         Finally, compare results against first row and "vote" on whether it's a header.
+         */
+        int hasHeader = 0;
+        for (Map.Entry<Integer, Object> entry : columnTypes.entrySet()) {
+            int colKey = entry.getKey();
+            Object colVal = entry.getValue();
+            if (colVal instanceof Integer) { // Integer means, considering length of col-values
+                int colValInt = (Integer) colVal;
+                if (header[colKey] != null && header[colKey].length() == colValInt) {
+                    // If length of first row is same as all other rows,
+                    // then it might not be a header, decrement vote by 1
+                    hasHeader--;
+                } else {
+                    hasHeader++; // else it might be a header, So increment vote by 1
+                }
+            } else if (colVal instanceof Boolean) {
+                // If column-value is a Booleans then, all rows(except first row) are numbers
+                if (NumberUtils.isCreatable(header[colKey])) {
+                    // if first row is also a number then, it may not be a header
+                    hasHeader--;
+                } else {
+                    hasHeader++; // else it might be a header, So increment vote by 1
+                }
             }
-            return hasHeader > 0;
         }
+        return hasHeader > 0;
     }
 }
 
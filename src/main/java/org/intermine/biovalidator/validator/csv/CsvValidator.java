@@ -12,17 +12,23 @@ package org.intermine.biovalidator.validator.csv;
 
 import com.univocity.parsers.common.TextParsingException;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.RecordBatch;
 import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
 import org.intermine.biovalidator.parser.CsvParser;
 import org.intermine.biovalidator.utils.BioValidatorUtils;
 import org.intermine.biovalidator.validator.AbstractValidator;
 
 import javax.annotation.Nonnull;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Validator for validating csv/tsv data
@@ -30,7 +36,12 @@ import java.io.InputStreamReader;
  */
 public class CsvValidator extends AbstractValidator
 {
-    private File file;
+    /**
+     * upper bound on rows kept in memory while looking for rows to detect header
+     */
+    private static final int MAX_HEADER_SAMPLE_ROWS = 1000;
+
+    private ValidationSource source;
     private boolean allowComments;
     private String delimiter;
 
@@ -62,7 +73,19 @@ public class CsvValidator extends AbstractValidator
      * @param delimiter delimiter for column separator
      */
     public CsvValidator(File file, boolean allowComments, String delimiter) {
-        this.file = file;
+        this(ValidationSource.of(file), allowComments, delimiter);
+    }
+
+    /**
+     * Construct CsvParser with a validation source, whether to allow comments or not
+     * and a delimiter. The source is read only once so it can be a one-shot source
+     * like a stream or stdin.
+     * @param source input source
+     * @param allowComments whether to allow '#' based comments or not
+     * @param delimiter delimiter for column separator, blank to auto-detect
+     */
+    public CsvValidator(ValidationSource source, boolean allowComments, String delimiter) {
+        this.source = source;
         this.allowComments = allowComments;
         if (StringUtils.isNotBlank(delimiter)) {
             this.delimiter = delimiter;
@@ -78,75 +101,66 @@ public class CsvValidator extends AbstractValidator
      *   2. If column's data does not have a single type value then it creates patterns from the,
      *      data and test whether data is evenly distributes among found patterns or not.
      * </p>
+     * <p>
+     *   Data is read in a single pass, first rows are kept in memory to detect whether the
+     *   first row is a header and then validated along with the rest of the rows.
+     * </p>
      * @return validation result
      */
     @Nonnull
     @Override
     public ValidationResult validate() {
-        try {
-            CsvSchema csvSchema = null; // stores type and pattern information of csv column data
-            boolean doesFileHasHeader = guessFileHasHeaderOrNot();
+        try (CsvParser csvParser = new CsvParser(
+                new InputStreamReader(Channels.newInputStream(openTextChannel(source)),
+                        StandardCharsets.UTF_8),
+                false, allowComments, delimiter)) {
 
-            try (CsvParser csvParser = new CsvParser(
-                    new FileReader(file), doesFileHasHeader, allowComments, delimiter)) {
+            RecordBatch<String[]> batch = csvParser.createBatch(RecordBatch.DEFAULT_CAPACITY);
+            readHeaderSampleRows(csvParser, batch);
+            int firstDataRow = 0;
+            if (batch.size() > 0 && CsvHeaderDetector.hasHeader(batch.get(0),
+                    sampleRowsAfterFirst(batch))) {
+                firstDataRow = 1; // skip header line
+            }
 
-                int columnsLength = 0;
-                long currentLineNum = 0;
+            CsvSchema csvSchema = null; // stores type and pattern information of csv column data
+            int columnsLength = 0;
+            long currentLineNum = 0;
 
-                while (csvParser.hasNext()) {
+            // first batch holds the rows read for header detection
+            do {
+                for (int i = firstDataRow; i < batch.size(); i++) {
+                    String[] currentRow = batch.get(i);
                     currentLineNum++;
-                    String[] currentRow = csvParser.parseNext();
-
                     if (currentLineNum <= 1) {
                         //init column information
                         columnsLength = currentRow.length;
                         csvSchema = new CsvSchema(columnsLength);
                     }
-                    //check number of column is same or not
-                    if (currentRow.length != columnsLength) {
-                        String warningMsg = "Wrong number of columns at line " + currentLineNum;
-                        validationResult.addError(warningMsg);
-                        if (validationResult.isNotValid()
-                                && validationResultStrategy.shouldStopAtFirstError()) {
-                            return validationResult;
-                        }
-                    }
-
-                    // check consistency of each column of current row with each column
-                    // of the first row
-                    for (int colIndx = 0; colIndx < columnsLength; colIndx++) {
-                        String currentColVal = currentRow[colIndx];
-                        if (StringUtils.isBlank(currentColVal)) {
-                            validationResult.addWarning("column " + colIndx + " at row "
-                                    + currentLineNum + " is blank");
-                        } else if (BioValidatorUtils.isBoolean(currentColVal)) {
-                            csvSchema.incrementBooleansCountAtColumn(colIndx);
-                        } else if (isStrict && BioValidatorUtils.isInteger(currentColVal)) {
-                            csvSchema.incrementIntegersCountAtColumn(colIndx);
-                        } else if (BioValidatorUtils.isFloat(currentColVal)) {
-                            csvSchema.incrementFloatsCountAtColumn(colIndx);
-                        } else {
-                            CsvColumnPattern pattern = CsvColumnPattern.valueOf(currentColVal);
-                            csvSchema.colAt(colIndx).addPattern(pattern);
-                        }
-                    }
-                    if (!validationResult.isValid()
-                            && validationResultStrategy.shouldStopAtFirstError()) {
+                    if (!validateRow(currentRow, currentLineNum, columnsLength, csvSchema)) {
                         return validationResult;
                     }
                 }
+                firstDataRow = 0;
+            } while (csvParser.parseBatch(batch) > 0);
 
-                // Do analysis on column data analysis(it total rows are more than one)
-                if (currentLineNum > 1 && csvSchema != null) {
-                    csvSchema.setTotalRows(currentLineNum);
-                    new CsvSchemaValidator(isStrict).validateAndAddError(
-                            csvSchema, validationResult, currentLineNum);
-                }
-                return validationResult;
+            // Do analysis on column data analysis(it total rows are more than one)
+            if (currentLineNum > 1 && csvSchema != null) {
+                csvSchema.setTotalRows(currentLineNum);
+                new CsvSchemaValidator(isStrict).validateAndAddError(
+                        csvSchema, validationResult, currentLineNum);
             }
+            return validationResult;
         } catch (TextParsingException ex) {
+            int encodingError = ExceptionUtils.indexOfType(ex, ParsingException.class);
+            if (encodingError >= 0) { // reported by the encoding check
+                validationResult.addError(
+                        ExceptionUtils.getThrowableList(ex).get(encodingError).getMessage());
+                return validationResult;
+            }
             String errMsg = StringUtils.substringBetween(ex.getMessage(), "Hint", ".");
-            validationResult.addError("Unable to parse given file: " + file + "; Hint" + errMsg);
+            validationResult.addError("Unable to parse given file: " + source.getName()
+                    + "; Hint" + errMsg);
         } catch (IOException ex) {
             validationResult.addError(ex.getMessage());
         }
@@ -154,15 +168,67 @@ public class CsvValidator extends AbstractValidator
     }
 
     /**
-     * Guess whether file has a header line or not
-     * @return boolean csv representing file has a header line or not
-     * @throws ParsingException if fails
+     * Validates a single row and updates schema of the columns
+     * @return false if validation should stop
      */
-    private boolean guessFileHasHeaderOrNot() throws IOException {
-        try (InputStreamReader inputStreamToFile = new FileReader(file)) {
-            CsvHeaderDetector csvHeaderDetector =
-                    new CsvHeaderDetector(inputStreamToFile, allowComments, delimiter);
-            return csvHeaderDetector.hasHeader();
+    private boolean validateRow(String[] currentRow, long currentLineNum, int columnsLength,
+                                CsvSchema csvSchema) {
+        //check number of column is same or not
+        if (currentRow.length != columnsLength) {
+            String warningMsg = "Wrong number of columns at line " + currentLineNum;
+            validationResult.addError(warningMsg);
+            if (validationResult.isNotValid()
+                    && validationResultStrategy.shouldStopAtFirstError()) {
+                return false;
+            }
+        }
+
+        // check consistency of each column of current row with each column
+        // of the first row
+        for (int colIndx = 0; colIndx < columnsLength; colIndx++) {
+            String currentColVal = currentRow[colIndx];
+            if (StringUtils.isBlank(currentColVal)) {
+                validationResult.addWarning("column " + colIndx + " at row "
+                        + currentLineNum + " is blank");
+            } else if (BioValidatorUtils.isBoolean(currentColVal)) {
+                csvSchema.incrementBooleansCountAtColumn(colIndx);
+            } else if (isStrict && BioValidatorUtils.isInteger(currentColVal)) {
+                csvSchema.incrementIntegersCountAtColumn(colIndx);
+            } else if (BioValidatorUtils.isFloat(currentColVal)) {
+                csvSchema.incrementFloatsCountAtColumn(colIndx);
+            } else {
+                CsvColumnPattern pattern = CsvColumnPattern.valueOf(currentColVal);
+                csvSchema.colAt(colIndx).addPattern(pattern);
+            }
+        }
+        return validationResult.isValid() || !validationResultStrategy.shouldStopAtFirstError();
+    }
+
+    /**
+     * Reads the first row and the rows following it until there are enough rows with the
+     * same number of columns to detect whether the first row is a header or not
+     * @param csvParser parser
+     * @param batch batch receiving the rows read
+     */
+    private void readHeaderSampleRows(CsvParser csvParser, RecordBatch<String[]> batch)
+        throws IOException {
+        batch.clear();
+        int matchingRows = 0;
+        while (csvParser.hasNext() && matchingRows < CsvHeaderDetector.SAMPLE_ROW
+                && batch.size() < MAX_HEADER_SAMPLE_ROWS) {
+            String[] row = csvParser.parseNext();
+            if (batch.size() > 0 && row.length == batch.get(0).length) {
+                matchingRows++;
+            }
+            batch.add(row, csvParser.getCurrentLineNumber());
+        }
+    }
+
+    private static List<String[]> sampleRowsAfterFirst(RecordBatch<String[]> batch) {
+        List<String[]> rows = new ArrayList<>(batch.size());
+        for (int i = 1; i < batch.size(); i++) {
+            rows.add(batch.get(i));
         }
+        return rows;
     }
 }
@@ -0,0 +1,221 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ErrorMessage;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.WarningMessage;
+import org.intermine.biovalidator.parser.ByteLine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Detects records having the same sequence under different ids while a FASTA file is
+ * validated. The normalized sequence of each record (uppercase, without whitespaces) is hashed
+ * with MurmurHash3 x64 128-bit as lines stream by, so sequences are never buffered. The 128-bit
+ * fingerprints are kept in a primitive open-addressing table, memory use depends on the number
+ * of records and not on the length of sequences. Empty sequences are ignored.
+ *
+ * At the end of input each group of records with the same sequence is reported, as a warning
+ * or as an error.
+ *
+ * @author deepak
+ */
+public final class DuplicateSequenceDetector implements FastaRecordListener
+{
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int LOAD_FACTOR_PERCENT = 50;
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private final boolean reportAsErrors;
+    private final List<String> names = new ArrayList<>();
+    private final Map<Integer, List<String>> duplicates = new LinkedHashMap<>();
+    private long[] highs;
+    private long[] lows;
+    private int[] records; // index of the first record with the fingerprint + 1, 0 if empty
+    private int mask;
+    private int size;
+
+    private String name;
+    private long h1;
+    private long h2;
+    private long k1;
+    private long k2;
+    private long length;
+
+    /**
+     * Construct a detector reporting duplicates as warnings
+     */
+    public DuplicateSequenceDetector() {
+        this(false);
+    }
+
+    /**
+     * Construct a detector
+     * @param reportAsErrors whether duplicates are reported as errors instead of warnings
+     */
+    public DuplicateSequenceDetector(boolean reportAsErrors) {
+        this.reportAsErrors = reportAsErrors;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void startRecord(String sequenceId, ByteLine header, ValidationResult result) {
+        name = sequenceId;
+        h1 = 0;
+        h2 = 0;
+        k1 = 0;
+        k2 = 0;
+        length = 0;
+    }
+
+    @Override
+    public void sequenceLine(ByteLine line, ValidationResult result) {
+        byte[] src = line.getBuffer();
+        int end = line.getOffset() + line.length();
+        for (int i = line.getOffset(); i < end; i++) {
+            byte b = SequenceHashing.normalize(src[i]);
+            if (b != SequenceHashing.SKIPPED) {
+                update(b);
+            }
+        }
+    }
+
+    /**
+     * Adds a byte to the current 16-byte block, the block is mixed into the hash when full
+     */
+    private void update(byte b) {
+        int position = (int) (length & 15);
+        if (position < 8) {
+            k1 |= (b & 0xFFL) << (position * 8);
+        } else {
+            k2 |= (b & 0xFFL) << ((position - 8) * 8);
+        }
+        length++;
+        if (position == 15) {
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52DCE729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495AB5;
+            k1 = 0;
+            k2 = 0;
+        }
+    }
+
+    @Override
+    public void endRecord(long endOffset, ValidationResult result) {
+        if (length == 0) {
+            return;
+        }
+        // tail of the last block and finalization
+        h1 ^= mixK1(k1) ^ length;
+        h2 ^= mixK2(k2) ^ length;
+        h1 += h2;
+        h2 += h1;
+        h1 = SequenceHashing.fmix(h1);
+        h2 = SequenceHashing.fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        add(h1, h2);
+    }
+
+    @Override
+    public void endOfInput(ValidationResult result) {
+        for (List<String> group : getDuplicateGroups()) {
+            String message = group.stream().map(id -> "'" + id + "'")
+                    .collect(Collectors.joining(", ", "Records ", " have the same sequence"));
+            if (reportAsErrors) {
+                result.addError(ErrorMessage.of(message));
+            } else {
+                result.addWarning(WarningMessage.of(message));
+            }
+        }
+    }
+
+    /**
+     * Gets the groups of records having the same sequence, in order of their first record
+     * @return ids of the records of each group
+     */
+    public List<List<String>> getDuplicateGroups() {
+        List<List<String>> groups = new ArrayList<>();
+        for (Map.Entry<Integer, List<String>> group : duplicates.entrySet()) {
+            List<String> ids = new ArrayList<>();
+            ids.add(names.get(group.getKey()));
+            ids.addAll(group.getValue());
+            groups.add(Collections.unmodifiableList(ids));
+        }
+        return groups;
+    }
+
+    private void add(long high, long low) {
+        for (int slot = (int) low & mask;; slot = (slot + 1) & mask) {
+            int record = records[slot];
+            if (record == 0) {
+                break;
+            }
+            if (highs[slot] == high && lows[slot] == low) {
+                duplicates.computeIfAbsent(record - 1, first -> new ArrayList<>()).add(name);
+                return;
+            }
+        }
+        names.add(name);
+        if ((size + 1) * 100L > (mask + 1L) * LOAD_FACTOR_PERCENT) {
+            grow();
+        }
+        insert(high, low, names.size());
+        size++;
+    }
+
+    private void grow() {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        int[] oldRecords = records;
+        allocate((mask + 1) * 2);
+        for (int i = 0; i < oldRecords.length; i++) {
+            if (oldRecords[i] != 0) {
+                insert(oldHighs[i], oldLows[i], oldRecords[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        records = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void insert(long high, long low, int record) {
+        int slot = (int) low & mask;
+        while (records[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        highs[slot] = high;
+        lows[slot] = low;
+        records[slot] = record;
+    }
+
+    private static long mixK1(long k) {
+        return Long.rotateLeft(k * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k) {
+        return Long.rotateLeft(k * C2, 33) * C1;
+    }
+}
@@ -0,0 +1,197 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Index of a FASTA file as written by 'samtools faidx' or {@link FastaIndexWriter} (.fai file),
+ * one entry per record in file order.
+ *
+ * Format: one tab separated line per record with name, number of letters, offset of the first
+ * letter, letters per line and bytes per line including the line terminator.
+ *
+ * @author deepak
+ */
+public final class FastaIndex
+{
+    private static final int COLUMNS = 5;
+
+    private final List<Entry> entries;
+    private final Map<String, Entry> entriesByName;
+
+    private FastaIndex(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.entriesByName = new HashMap<>();
+        for (Entry entry : entries) {
+            entriesByName.putIfAbsent(entry.name, entry);
+        }
+    }
+
+    /**
+     * Gets the path of the index of a FASTA file, i.e. file name + ".fai"
+     * @param fastaFile FASTA file
+     * @return index path
+     */
+    public static Path indexPathOf(Path fastaFile) {
+        return fastaFile.resolveSibling(fastaFile.getFileName() + ".fai");
+    }
+
+    /**
+     * Reads a .fai index file
+     * @param indexFile path of the index file
+     * @return index
+     * @throws IOException if file cannot be read or is not a valid index
+     */
+    public static FastaIndex read(Path indexFile) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry = parseEntry(line);
+                if (entry == null) {
+                    throw new IOException("Invalid fasta index " + indexFile + " at line "
+                            + (entries.size() + 1));
+                }
+                entries.add(entry);
+            }
+        }
+        return new FastaIndex(entries);
+    }
+
+    private static Entry parseEntry(String line) {
+        String[] columns = line.split("\t");
+        if (columns.length < COLUMNS || columns[0].isEmpty()) {
+            return null;
+        }
+        try {
+            long length = Long.parseLong(columns[1]);
+            long offset = Long.parseLong(columns[2]);
+            long lineBases = Long.parseLong(columns[3]);
+            long lineWidth = Long.parseLong(columns[4]);
+            if (length < 0 || offset < 0 || lineBases < 0 || lineWidth < lineBases
+                    || (length > 0 && (lineBases == 0 || lineWidth == lineBases))) {
+                return null;
+            }
+            return new Entry(columns[0], length, offset, lineBases, lineWidth);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets all entries in file order
+     * @return entries
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Finds the entry of a record
+     * @param name sequence name
+     * @return entry, or empty if the index has no such record
+     */
+    public Optional<Entry> getEntry(String name) {
+        return Optional.ofNullable(entriesByName.get(name));
+    }
+
+    /**
+     * Index row of a single record
+     */
+    public static final class Entry
+    {
+        private final String name;
+        private final long length;
+        private final long offset;
+        private final long lineBases;
+        private final long lineWidth;
+
+        private Entry(String name, long length, long offset, long lineBases, long lineWidth) {
+            this.name = name;
+            this.length = length;
+            this.offset = offset;
+            this.lineBases = lineBases;
+            this.lineWidth = lineWidth;
+        }
+
+        /**
+         * Gets sequence name
+         * @return name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets number of letters of the sequence
+         * @return length
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Gets offset in the file of the first letter
+         * @return byte offset
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Gets number of letters per line
+         * @return letters per line
+         */
+        public long getLineBases() {
+            return lineBases;
+        }
+
+        /**
+         * Gets number of bytes per line, including the line terminator
+         * @return bytes per line
+         */
+        public long getLineWidth() {
+            return lineWidth;
+        }
+
+        /**
+         * Gets number of sequence lines
+         * @return line count
+         */
+        public long getLineCount() {
+            return length == 0 ? 0 : (length + lineBases - 1) / lineBases;
+        }
+
+        /**
+         * Gets offset in the file after the terminator of the last sequence line
+         * @return byte offset
+         */
+        public long getEndOffset() {
+            long lines = getLineCount();
+            if (lines == 0) {
+                return offset;
+            }
+            long lastLineBases = length - (lines - 1) * lineBases;
+            return offset + (lines - 1) * lineWidth + lastLineBases + (lineWidth - lineBases);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.apache.commons.lang3.StringUtils;
+import org.intermine.biovalidator.api.ErrorMessage;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.parser.ByteLine;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a samtools compatible FASTA index (.fai) from the records of a validated file, one
+ * row per record: name, length, offset of the first letter, letters per line and bytes per
+ * line including the line terminator.
+ *
+ * An indexed file must have the same line length in all lines of a record except the last
+ * one, which may be shorter. Empty lines are only allowed at the end of a record. Records
+ * breaking these rules are reported as errors and get no row in the index.
+ *
+ * @author deepak
+ */
+public final class FastaIndexWriter implements FastaRecordListener
+{
+    private final Writer out;
+
+    private String name;
+    private boolean isRecordValid;
+    private long length;
+    private long offset;
+    private long lineBases;
+    private long lineWidth;
+    private boolean sawEmptyLine;
+
+    // last non-empty line, checked once it is known whether it is the last line of the record
+    private boolean hasHeldLine;
+    private long heldOffset;
+    private long heldBases;
+    private long heldLength;
+    private long heldWidth;
+    private long heldLineNumber;
+
+    /**
+     * Construct an index writer, rows are written as records end, writer is flushed at the
+     * end of input but not closed
+     * @param out destination of index rows
+     */
+    public FastaIndexWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void startRecord(String sequenceId, ByteLine header, ValidationResult result) {
+        name = sequenceId;
+        isRecordValid = StringUtils.isNotBlank(sequenceId);
+        length = 0;
+        offset = -1;
+        lineBases = -1;
+        lineWidth = -1;
+        sawEmptyLine = false;
+        hasHeldLine = false;
+    }
+
+    @Override
+    public void sequenceLine(ByteLine line, ValidationResult result) {
+        long lineOffset = line.getByteOffset();
+        if (offset < 0) {
+            offset = lineOffset;
+        }
+        if (hasHeldLine && heldWidth < 0) {
+            heldWidth = lineOffset - heldOffset;
+        }
+        int bases = countBases(line);
+        if (bases == 0) {
+            sawEmptyLine = true;
+            return;
+        }
+        if (sawEmptyLine) {
+            addError(result, "has an empty line inside the sequence", line.getLineNumber() - 1);
+        }
+        if (hasHeldLine) { // held line is not the last one, it sets or must have full length
+            if (lineBases < 0) {
+                lineBases = heldBases;
+                lineWidth = heldWidth;
+            } else if (heldBases != lineBases || heldWidth != lineWidth) {
+                addError(result, "has a line of different length", heldLineNumber);
+            }
+        }
+        hasHeldLine = true;
+        heldOffset = lineOffset;
+        heldBases = bases;
+        heldLength = line.length();
+        heldWidth = -1;
+        heldLineNumber = line.getLineNumber();
+        length += bases;
+    }
+
+    @Override
+    public void endRecord(long endOffset, ValidationResult result) throws IOException {
+        if (offset < 0) { // no sequence lines
+            offset = endOffset;
+        }
+        if (hasHeldLine) {
+            if (heldWidth < 0) {
+                heldWidth = endOffset - heldOffset;
+                if (heldWidth <= heldLength) { // last line of the file without terminator
+                    heldWidth = heldLength + 1;
+                }
+            }
+            if (lineBases < 0) {
+                lineBases = heldBases;
+                lineWidth = heldWidth;
+            } else if (heldBases > lineBases) {
+                addError(result, "has a last line longer than other lines", heldLineNumber);
+            }
+        }
+        if (isRecordValid) {
+            out.write(name + '\t' + length + '\t' + offset + '\t' + Math.max(lineBases, 0)
+                    + '\t' + Math.max(lineWidth, 0) + '\n');
+        }
+    }
+
+    @Override
+    public void endOfInput(ValidationResult result) throws IOException {
+        out.flush();
+    }
+
+    private void addError(ValidationResult result, String problem, long lineNumber) {
+        if (isRecordValid) { // one error per record
+            result.addError(ErrorMessage.of("Record '" + name + "' " + problem + " at line "
+                    + lineNumber + ", file cannot be indexed"));
+        }
+        isRecordValid = false;
+    }
+
+    /**
+     * Counts letters of a line, i.e. all bytes except whitespaces and control characters
+     * @param line line
+     * @return number of letters
+     */
+    static int countBases(ByteLine line) {
+        byte[] buffer = line.getBuffer();
+        int bases = 0;
+        for (int i = line.getOffset(), end = i + line.length(); i < end; i++) {
+            if ((buffer[i] & 0xFF) > ' ') {
+                bases++;
+            }
+        }
+        return bases;
+    }
+}
@@ -0,0 +1,61 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.parser.ByteLine;
+
+import java.io.IOException;
+
+/**
+ * Receives the records of a FASTA file while it is validated, so that data derived from the
+ * sequences (an index, statistics, ...) can be computed in the same pass over the file.
+ * Lines are views of the read buffer and are only valid during the call.
+ *
+ * @author deepak
+ */
+public interface FastaRecordListener
+{
+    /**
+     * Called for each header line, the previous record was ended before
+     * @param sequenceId sequence id of the record, blank if the header has no valid id
+     * @param header header line
+     * @param result result errors and warnings can be added to
+     * @throws IOException if writing derived data fails
+     */
+    void startRecord(String sequenceId, ByteLine header, ValidationResult result)
+        throws IOException;
+
+    /**
+     * Called for each line of the current record after the header, including empty lines
+     * @param line sequence line, not trimmed
+     * @param result result errors and warnings can be added to
+     * @throws IOException if writing derived data fails
+     */
+    void sequenceLine(ByteLine line, ValidationResult result) throws IOException;
+
+    /**
+     * Called at the end of each record
+     * @param endOffset offset in the file of the next header, or of the end of the file
+     * @param result result errors and warnings can be added to
+     * @throws IOException if writing derived data fails
+     */
+    void endRecord(long endOffset, ValidationResult result) throws IOException;
+
+    /**
+     * Called once after the last record if the whole file was read, not called if validation
+     * stopped at the first error
+     * @param result result errors and warnings can be added to
+     * @throws IOException if writing derived data fails
+     */
+    default void endOfInput(ValidationResult result) throws IOException {
+    }
+}
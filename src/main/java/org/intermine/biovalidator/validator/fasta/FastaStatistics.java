@@ -0,0 +1,387 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.apache.commons.text.StringEscapeUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sequence statistics of a FASTA file, per record and for the whole assembly, as collected by
+ * {@link FastaStatisticsCollector}. Letters are counted case-insensitively, GC fractions
+ * exclude N letters, ambiguous letters are the IUPAC ambiguity codes other than N.
+ *
+ * @author deepak
+ */
+public final class FastaStatistics
+{
+    private static final String AMBIGUOUS_LETTERS = "RYSWKMBDHV";
+    private static final int MAX_HISTOGRAM_BINS = 18;
+
+    private final List<RecordStatistics> records;
+    private final long totalLength;
+    private final long gcCount;
+    private final long nCount;
+    private final long lowerCaseCount;
+    private final long ambiguousCount;
+    private final long n50;
+    private final long l50;
+    private final long[] lengthHistogram;
+
+    /**
+     * Construct statistics of an assembly
+     * @param records statistics of each record in file order
+     */
+    FastaStatistics(List<RecordStatistics> records) {
+        this.records = Collections.unmodifiableList(new ArrayList<>(records));
+        long length = 0;
+        long gc = 0;
+        long n = 0;
+        long lowerCase = 0;
+        long ambiguous = 0;
+        long[] lengths = new long[records.size()];
+        long[] histogram = new long[MAX_HISTOGRAM_BINS];
+        int bins = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            RecordStatistics record = records.get(i);
+            length += record.length;
+            gc += record.gcCount;
+            n += record.nCount;
+            lowerCase += record.lowerCaseCount;
+            ambiguous += record.ambiguousCount;
+            lengths[i] = record.length;
+            int bin = histogramBin(record.length);
+            histogram[bin]++;
+            bins = Math.max(bins, bin + 1);
+        }
+        this.totalLength = length;
+        this.gcCount = gc;
+        this.nCount = n;
+        this.lowerCaseCount = lowerCase;
+        this.ambiguousCount = ambiguous;
+        this.lengthHistogram = Arrays.copyOf(histogram, bins);
+
+        // N50: length of the record at which sorted records reach half the assembly length
+        Arrays.sort(lengths);
+        long cumulative = 0;
+        long foundN50 = 0;
+        long foundL50 = 0;
+        for (int i = lengths.length - 1; i >= 0 && length > 0; i--) {
+            cumulative += lengths[i];
+            if (cumulative * 2 >= length) {
+                foundN50 = lengths[i];
+                foundL50 = lengths.length - i;
+                break;
+            }
+        }
+        this.n50 = foundN50;
+        this.l50 = foundL50;
+    }
+
+    /**
+     * Gets the bin of a length in the length histogram, bin i holds lengths from 10^i to
+     * 10^(i+1) - 1, bin 0 also holds length 0
+     */
+    private static int histogramBin(long length) {
+        int bin = 0;
+        for (long limit = 10; bin < MAX_HISTOGRAM_BINS - 1 && length >= limit; limit *= 10) {
+            bin++;
+        }
+        return bin;
+    }
+
+    /**
+     * Gets statistics of each record in file order
+     * @return record statistics
+     */
+    public List<RecordStatistics> getRecords() {
+        return records;
+    }
+
+    /**
+     * Gets total number of letters of all records
+     * @return assembly length
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * Gets total number of N letters
+     * @return N count
+     */
+    public long getNCount() {
+        return nCount;
+    }
+
+    /**
+     * Gets fraction of G and C letters of all records, excluding N letters
+     * @return GC fraction
+     */
+    public double getGcFraction() {
+        return fraction(gcCount, totalLength - nCount);
+    }
+
+    /**
+     * Gets fraction of lowercase (soft-masked) letters of all records
+     * @return soft-masked fraction
+     */
+    public double getSoftMaskedFraction() {
+        return fraction(lowerCaseCount, totalLength);
+    }
+
+    /**
+     * Gets total number of ambiguous letters, N excluded
+     * @return ambiguous letter count
+     */
+    public long getAmbiguousCount() {
+        return ambiguousCount;
+    }
+
+    /**
+     * Gets N50, i.e. the length of the shortest record of the longest records making up half
+     * of the assembly length
+     * @return N50, 0 if the assembly is empty
+     */
+    public long getN50() {
+        return n50;
+    }
+
+    /**
+     * Gets L50, i.e. the number of longest records making up half of the assembly length
+     * @return L50, 0 if the assembly is empty
+     */
+    public long getL50() {
+        return l50;
+    }
+
+    /**
+     * Gets number of records by order of magnitude of their length, element i is the number
+     * of records with 10^i to 10^(i+1) - 1 letters (0 to 9 for element 0)
+     * @return length histogram, up to the longest record
+     */
+    public long[] getLengthHistogram() {
+        return lengthHistogram.clone();
+    }
+
+    /**
+     * Writes the statistics as tab separated values, summary lines start with '#' and are
+     * followed by one line per record
+     * @param out destination, not closed
+     * @throws IOException if writing fails
+     */
+    public void writeTsv(Writer out) throws IOException {
+        out.write("#records\t" + records.size() + "\n");
+        out.write("#total_length\t" + totalLength + "\n");
+        out.write("#n50\t" + n50 + "\n");
+        out.write("#l50\t" + l50 + "\n");
+        out.write("#gc_fraction\t" + format(getGcFraction()) + "\n");
+        out.write("#n_count\t" + nCount + "\n");
+        out.write("#soft_masked_fraction\t" + format(getSoftMaskedFraction()) + "\n");
+        out.write("#ambiguous_count\t" + ambiguousCount + "\n");
+        for (int i = 0; i < lengthHistogram.length; i++) {
+            out.write("#length_histogram\t" + binMin(i) + "-" + (binMin(i + 1) - 1) + "\t"
+                    + lengthHistogram[i] + "\n");
+        }
+        out.write("name\tlength\tgc_fraction\tn_count\tlongest_n_run\tsoft_masked_fraction"
+                + "\tambiguous_count\n");
+        for (RecordStatistics record : records) {
+            out.write(record.name + "\t" + record.length + "\t" + format(record.getGcFraction())
+                    + "\t" + record.nCount + "\t" + record.longestNRun + "\t"
+                    + format(record.getSoftMaskedFraction()) + "\t" + record.ambiguousCount
+                    + "\n");
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the statistics as a JSON object with a "summary" object and a "records" array
+     * @param out destination, not closed
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Writer out) throws IOException {
+        out.write("{\"summary\":{\"records\":" + records.size()
+                + ",\"total_length\":" + totalLength
+                + ",\"n50\":" + n50
+                + ",\"l50\":" + l50
+                + ",\"gc_fraction\":" + format(getGcFraction())
+                + ",\"n_count\":" + nCount
+                + ",\"soft_masked_fraction\":" + format(getSoftMaskedFraction())
+                + ",\"ambiguous_count\":" + ambiguousCount
+                + ",\"length_histogram\":[");
+        for (int i = 0; i < lengthHistogram.length; i++) {
+            out.write((i > 0 ? "," : "") + "{\"min\":" + binMin(i) + ",\"max\":"
+                    + (binMin(i + 1) - 1) + ",\"count\":" + lengthHistogram[i] + "}");
+        }
+        out.write("]},\"records\":[");
+        for (int i = 0; i < records.size(); i++) {
+            RecordStatistics record = records.get(i);
+            out.write((i > 0 ? "," : "") + "\n{\"name\":\""
+                    + StringEscapeUtils.escapeJson(record.name) + "\""
+                    + ",\"length\":" + record.length
+                    + ",\"gc_fraction\":" + format(record.getGcFraction())
+                    + ",\"n_count\":" + record.nCount
+                    + ",\"longest_n_run\":" + record.longestNRun
+                    + ",\"soft_masked_fraction\":" + format(record.getSoftMaskedFraction())
+                    + ",\"ambiguous_count\":" + record.ambiguousCount + "}");
+        }
+        out.write("]}\n");
+        out.flush();
+    }
+
+    private static long binMin(int bin) {
+        long min = 1;
+        for (int i = 0; i < bin; i++) {
+            min *= 10;
+        }
+        return bin == 0 ? 0 : min;
+    }
+
+    private static String format(double fraction) {
+        return String.format(Locale.ROOT, "%.4f", fraction);
+    }
+
+    private static double fraction(long count, long total) {
+        return total > 0 ? (double) count / total : 0;
+    }
+
+    /**
+     * Sequence statistics of a single record
+     */
+    public static final class RecordStatistics
+    {
+        private final String name;
+        private final long length;
+        private final long gcCount;
+        private final long nCount;
+        private final long longestNRun;
+        private final long lowerCaseCount;
+        private final long ambiguousCount;
+
+        private RecordStatistics(String name, long length, long gcCount, long nCount,
+                                 long longestNRun, long lowerCaseCount, long ambiguousCount) {
+            this.name = name;
+            this.length = length;
+            this.gcCount = gcCount;
+            this.nCount = nCount;
+            this.longestNRun = longestNRun;
+            this.lowerCaseCount = lowerCaseCount;
+            this.ambiguousCount = ambiguousCount;
+        }
+
+        /**
+         * Creates record statistics from the number of occurrences of each byte value
+         * @param name sequence id
+         * @param byteCounts occurrences of each byte value in the sequence lines
+         * @param longestNRun longest run of N letters
+         * @return record statistics
+         */
+        static RecordStatistics of(String name, long[] byteCounts, long longestNRun) {
+            long length = 0;
+            long lowerCase = 0;
+            for (int b = '!'; b < byteCounts.length; b++) {
+                length += byteCounts[b];
+            }
+            for (int b = 'a'; b <= 'z'; b++) {
+                lowerCase += byteCounts[b];
+            }
+            long ambiguous = 0;
+            for (int i = 0; i < AMBIGUOUS_LETTERS.length(); i++) {
+                ambiguous += countIgnoreCase(byteCounts, AMBIGUOUS_LETTERS.charAt(i));
+            }
+            return new RecordStatistics(name, length,
+                    countIgnoreCase(byteCounts, 'G') + countIgnoreCase(byteCounts, 'C'),
+                    countIgnoreCase(byteCounts, 'N'), longestNRun, lowerCase, ambiguous);
+        }
+
+        private static long countIgnoreCase(long[] byteCounts, char upperCase) {
+            return byteCounts[upperCase] + byteCounts[upperCase | 0x20];
+        }
+
+        /**
+         * Gets sequence id
+         * @return name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets number of letters
+         * @return length
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Gets number of G and C letters
+         * @return GC count
+         */
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * Gets fraction of G and C letters, excluding N letters
+         * @return GC fraction
+         */
+        public double getGcFraction() {
+            return fraction(gcCount, length - nCount);
+        }
+
+        /**
+         * Gets number of N letters
+         * @return N count
+         */
+        public long getNCount() {
+            return nCount;
+        }
+
+        /**
+         * Gets longest run of consecutive N letters, runs can span lines
+         * @return longest N run
+         */
+        public long getLongestNRun() {
+            return longestNRun;
+        }
+
+        /**
+         * Gets number of lowercase (soft-masked) letters
+         * @return lowercase count
+         */
+        public long getLowerCaseCount() {
+            return lowerCaseCount;
+        }
+
+        /**
+         * Gets fraction of lowercase (soft-masked) letters
+         * @return soft-masked fraction
+         */
+        public double getSoftMaskedFraction() {
+            return fraction(lowerCaseCount, length);
+        }
+
+        /**
+         * Gets number of ambiguous letters, N excluded
+         * @return ambiguous letter count
+         */
+        public long getAmbiguousCount() {
+            return ambiguousCount;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.parser.ByteLine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects sequence statistics of each record while a FASTA file is validated, so no separate
+ * pass over the file is needed. Bytes of each record are counted in a 256-entry table, only
+ * runs of N are tracked per byte, letter classes are summed up when the record ends.
+ *
+ * @author deepak
+ */
+public final class FastaStatisticsCollector implements FastaRecordListener
+{
+    private final List<FastaStatistics.RecordStatistics> records = new ArrayList<>();
+    private final long[] byteCounts = new long[256];
+    private String name;
+    private long nRun;
+    private long longestNRun;
+
+    @Override
+    public void startRecord(String sequenceId, ByteLine header, ValidationResult result) {
+        name = sequenceId;
+        Arrays.fill(byteCounts, 0);
+        nRun = 0;
+        longestNRun = 0;
+    }
+
+    @Override
+    public void sequenceLine(ByteLine line, ValidationResult result) {
+        byte[] buffer = line.getBuffer();
+        long[] counts = byteCounts;
+        long run = nRun;
+        long longestRun = longestNRun;
+        for (int i = line.getOffset(), end = i + line.length(); i < end; i++) {
+            int b = buffer[i] & 0xFF;
+            counts[b]++;
+            if ((b | 0x20) == 'n') {
+                if (++run > longestRun) {
+                    longestRun = run;
+                }
+            } else if (b > ' ') { // whitespaces do not end a run
+                run = 0;
+            }
+        }
+        nRun = run;
+        longestNRun = longestRun;
+    }
+
+    @Override
+    public void endRecord(long endOffset, ValidationResult result) {
+        records.add(FastaStatistics.RecordStatistics.of(name, byteCounts, longestNRun));
+    }
+
+    /**
+     * Gets statistics of the records collected so far
+     * @return statistics report
+     */
+    public FastaStatistics getStatistics() {
+        return new FastaStatistics(records);
+    }
+}
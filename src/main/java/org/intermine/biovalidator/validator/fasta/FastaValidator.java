@@ -10,24 +10,49 @@ package org.intermine.biovalidator.validator.fasta;
  *
  */
 
-import org.apache.commons.lang3.StringUtils;
-import org.intermine.biovalidator.api.DefaultValidationResult;
 import org.intermine.biovalidator.api.ErrorMessage;
+import org.intermine.biovalidator.api.InfoMessage;
 import org.intermine.biovalidator.api.Parser;
+import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.RecordBatch;
 import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
 import org.intermine.biovalidator.api.WarningMessage;
+import org.intermine.biovalidator.parser.ByteLine;
+import org.intermine.biovalidator.parser.ByteLineParser;
 import org.intermine.biovalidator.parser.GenericLineByLineParser;
+import org.intermine.biovalidator.parser.PipelinedLineParser;
+import org.intermine.biovalidator.source.PrefixedChannel;
+import org.intermine.biovalidator.utils.FormatSniffer;
 import org.intermine.biovalidator.validator.AbstractValidator;
+import org.intermine.biovalidator.validator.ChunkedFileValidation;
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.intermine.biovalidator.validator.fasta.sequencevalidator.AlphabetSequenceValidator;
 import org.intermine.biovalidator.validator.fasta.sequencevalidator.GenericSequenceValidator;
 import org.intermine.biovalidator.validator.fasta.sequencevalidator.NucleicAcidSequenceValidatorWithArray;
 import org.intermine.biovalidator.validator.fasta.sequencevalidator.ProteinSequenceValidator;
+import org.intermine.biovalidator.validator.fasta.sequencevalidator.SequenceAlphabet;
 import org.intermine.biovalidator.validator.fasta.sequencevalidator.SequenceValidator;
 
 import javax.annotation.Nonnull;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.HashSet;
-import java.util.Set;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * A validator for validating Fasta file format.
@@ -52,8 +77,35 @@ import java.util.Set;
  */
 public class FastaValidator extends AbstractValidator
 {
+    static final String NOT_FASTA_MESSAGE = "File is not recognized as valid Fasta format";
+    private static final int QUICK_CHECK_FIRST_RECORDS = 100;
+    private static final int QUICK_CHECK_LAST_RECORDS = 100;
+    private static final int QUICK_CHECK_RANDOM_RECORDS = 500;
+    private static final int STREAM_SAMPLE_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_STREAM_SAMPLE_BYTES = 1024 * 1024;
+    private static final int[] UTF8_BOM = {0xEF, 0xBB, 0xBF};
+
     private SequenceValidator sequenceValidator;
     private InputStreamReader inputStreamReader;
+    private ValidationSource source;
+    private int parallelism = 1;
+    private long minChunkSize = ChunkedFileValidation.DEFAULT_MIN_CHUNK_SIZE;
+    private long idMemoryBudget = SequenceIdSet.DEFAULT_MEMORY_BUDGET;
+    private final List<FastaRecordListener> recordListeners = new ArrayList<>();
+    private boolean isFaiIndexFileEnabled;
+    private OutputStream faiIndexStream;
+    private List<String> regions = new ArrayList<>();
+    private boolean isQuickCheckEnabled;
+    private int quickCheckFirstRecords;
+    private int quickCheckLastRecords;
+    private int quickCheckRandomRecords;
+    private QuickCheckReport quickCheckReport;
+    private SequenceTypeDetector typeDetector;
+    private boolean isDuplicateSequenceCheckEnabled;
+    private HeaderSchema headerSchema;
+    private SequenceType sequenceType;
+    private SequenceType detectedSequenceType;
+    private boolean isAlignmentGapsEnabled;
 
     /**
      * Construct a Fasta validator with an input source and sequence type
@@ -62,7 +114,19 @@ public class FastaValidator extends AbstractValidator
      */
     public FastaValidator(InputStreamReader inputStreamReader, SequenceType sequenceType) {
         this.inputStreamReader = inputStreamReader;
-        this.sequenceValidator = getSequenceValidatorFromType(sequenceType);
+        setSequenceType(sequenceType);
+        enableStrictValidation(); //by-default use strict validation
+    }
+
+    /**
+     * Construct a Fasta validator with a validation source and sequence type,
+     * lines are read as raw bytes without decoding them into Strings
+     * @param source data source
+     * @param sequenceType type of sequence to be validated
+     */
+    public FastaValidator(ValidationSource source, SequenceType sequenceType) {
+        this.source = source;
+        setSequenceType(sequenceType);
         enableStrictValidation(); //by-default use strict validation
     }
 
@@ -74,91 +138,823 @@ public class FastaValidator extends AbstractValidator
         this(inputStreamReader, SequenceType.ALL);
     }
 
+    /**
+     * Validate sequences against a strict alphabet instead of the default letters of the
+     * sequence type, e.g. only ACGTN or the standard amino acids
+     * @param alphabet allowed letters
+     */
+    public void setSequenceAlphabet(@Nonnull SequenceAlphabet alphabet) {
+        this.sequenceValidator = new AlphabetSequenceValidator(alphabet);
+        this.typeDetector = null;
+    }
+
+    /**
+     * Allows alignment gaps '-' and '.' in sequences, validated with the IUPAC letters of the
+     * sequence type: nucleotides for DNA and sequences of unknown type, RNA codes for RNA and
+     * amino acids, ambiguity codes and '*' for protein. Gaps are added to the letters of the
+     * detected type when type detection is enabled. Use {@link SequenceAlphabet#withGaps()}
+     * for other letters.
+     */
+    public void enableAlignmentGaps() {
+        this.isAlignmentGapsEnabled = true;
+        if (typeDetector == null) {
+            this.sequenceValidator = new AlphabetSequenceValidator(
+                    getSequenceAlphabet(sequenceType).withGaps());
+        }
+    }
+
+    /**
+     * Detects whether sequences are DNA, RNA or protein from their first residues and validates
+     * them with the letters of the detected type: {@link SequenceAlphabet#IUPAC_NUCLEOTIDE},
+     * {@link SequenceAlphabet#IUPAC_RNA} or {@link SequenceAlphabet#IUPAC_PROTEIN}, which are
+     * stricter than the letters accepted when the type is not known. Files that can be read
+     * twice are sampled before validation. The beginning of other sources is kept in memory
+     * (at most 1MB) until enough residues are read, so all sequences are validated with the
+     * letters of the detected type whatever the source. The detected type is added as an info
+     * message, see also {@link #getDetectedSequenceType()}.
+     * Replaces the sequence type given to the constructor.
+     */
+    public void enableSequenceTypeDetection() {
+        this.sequenceValidator = new GenericSequenceValidator();
+        this.typeDetector = new SequenceTypeDetector();
+    }
+
+    /**
+     * Gets the sequence type detected by the last validation
+     * @return detected type, or empty if detection is not enabled or validation did not run
+     *         yet
+     */
+    public Optional<SequenceType> getDetectedSequenceType() {
+        return Optional.ofNullable(detectedSequenceType);
+    }
+
+    /**
+     * Sets the maximum memory used to detect duplicate sequence ids, each id takes 11 to 21
+     * bytes whatever its length. When the budget is exceeded an info message is added and
+     * remaining ids are not checked.
+     * @param bytes memory budget in bytes
+     */
+    public void setDuplicateIdMemoryBudget(long bytes) {
+        this.idMemoryBudget = bytes;
+    }
+
+    /**
+     * Validates headers against a convention, e.g. {@link HeaderSchema#NCBI}, in addition to the
+     * checks of sequence ids
+     * @param schema header schema, or null to not check header conventions
+     */
+    public void setHeaderSchema(HeaderSchema schema) {
+        this.headerSchema = schema;
+    }
+
+    /**
+     * Adds a listener receiving the records of the file while it is validated, files with
+     * listeners are not validated in parallel
+     * @param listener record listener
+     * @throws IllegalStateException if the validator reads decoded text instead of raw bytes
+     */
+    public void addRecordListener(@Nonnull FastaRecordListener listener) {
+        if (source == null) {
+            throw new IllegalStateException("Record listeners need a validator created with "
+                    + "a ValidationSource");
+        }
+        recordListeners.add(listener);
+    }
+
+    /**
+     * Reports records having the same sequence under different ids, as errors in strict mode
+     * and as warnings otherwise, see {@link DuplicateSequenceDetector}. The file is not
+     * validated in parallel.
+     * @throws IllegalStateException if the validator reads decoded text instead of raw bytes
+     */
+    public void enableDuplicateSequenceCheck() {
+        if (source == null) {
+            throw new IllegalStateException("Duplicate sequences can only be detected by a "
+                    + "validator created with a ValidationSource");
+        }
+        this.isDuplicateSequenceCheckEnabled = true;
+    }
+
+    /**
+     * Writes a samtools compatible index next to the validated file (file name + ".fai") and
+     * checks line lengths are consistent inside each record. The index is only written if
+     * the file is valid, and only for uncompressed files on disk.
+     */
+    public void enableFaiIndex() {
+        checkRawByteSource();
+        this.isFaiIndexFileEnabled = true;
+    }
+
+    /**
+     * Writes a samtools compatible index to a stream and checks line lengths are consistent
+     * inside each record. Rows are written while validating, so the stream may contain rows
+     * of an invalid file. The stream is flushed but not closed.
+     * @param out destination of the index
+     */
+    public void writeFaiIndex(@Nonnull OutputStream out) {
+        checkRawByteSource();
+        this.faiIndexStream = out;
+    }
+
+    private void checkRawByteSource() {
+        if (source == null) {
+            throw new IllegalStateException("Fasta index needs a validator created with a "
+                    + "ValidationSource");
+        }
+    }
+
+    /**
+     * Validates only some records or regions of the file, e.g. 'chr2' or 'chr2:1000-2000'
+     * (1-based, inclusive), seeking to them with the offsets of the existing fasta index
+     * (file name + ".fai"). Only for uncompressed files on disk, line numbers of messages are
+     * the same as when validating the whole file. The index is checked to match the file,
+     * records are not passed to record listeners.
+     * @param regions sequence names or regions, all records are validated if empty
+     */
+    public void setRegions(@Nonnull List<String> regions) {
+        this.regions = new ArrayList<>(regions);
+    }
+
+    /**
+     * Validates only samples of the file for a quick verdict on huge files: the first 100 and
+     * last 100 records and 500 records at random offsets, found by seeking to the offset and
+     * skipping to the next header. Messages of samples other than the first records give line
+     * numbers counted from the byte offset of the sample. All sampled records are validated, even
+     * when validation stops at the first error. A summary estimating the share of invalid records
+     * is added as an info message and is available from {@link #getQuickCheckReport()}.
+     * Sources that cannot be read at random offsets (e.g. compressed files) only have their
+     * first records validated.
+     */
+    public void enableQuickCheck() {
+        enableQuickCheck(QUICK_CHECK_FIRST_RECORDS, QUICK_CHECK_LAST_RECORDS,
+                QUICK_CHECK_RANDOM_RECORDS);
+    }
+
+    /**
+     * Validates only samples of the file, see {@link #enableQuickCheck()}
+     * @param firstRecords number of records validated at the beginning of the file
+     * @param lastRecords number of records validated at the end of the file
+     * @param randomRecords number of records validated at random offsets
+     */
+    public void enableQuickCheck(int firstRecords, int lastRecords, int randomRecords) {
+        if (firstRecords < 1 || lastRecords < 0 || randomRecords < 0) {
+            throw new IllegalArgumentException("invalid number of sampled records");
+        }
+        this.isQuickCheckEnabled = true;
+        this.quickCheckFirstRecords = firstRecords;
+        this.quickCheckLastRecords = lastRecords;
+        this.quickCheckRandomRecords = randomRecords;
+    }
+
+    /**
+     * Gets the summary of the last quick check
+     * @return report, or empty if quick check is not enabled or validation did not run yet
+     */
+    public Optional<QuickCheckReport> getQuickCheckReport() {
+        return Optional.ofNullable(quickCheckReport);
+    }
+
+    /**
+     * Validate chunks of the file on a pool of threads, only used for uncompressed files on
+     * disk, other sources are validated on the calling thread. Result is the same as the
+     * result of sequential validation.
+     * @param threads number of validation threads
+     */
+    public void enableParallelValidation(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("number of threads must be positive");
+        }
+        this.parallelism = threads;
+    }
+
+    /**
+     * Validate on the calling thread (default)
+     */
+    public void disableParallelValidation() {
+        this.parallelism = 1;
+    }
+
+    /**
+     * Sets the minimum chunk size of parallel validation
+     * @param minChunkSize size in bytes
+     */
+    void setMinChunkSize(long minChunkSize) {
+        this.minChunkSize = minChunkSize;
+    }
+
     @Nonnull
     @Override
     public ValidationResult validate() {
-        Set<String> uniqueSequenceIds = new HashSet<>();
-        DefaultValidationResult defaultValidationResult =
-                (DefaultValidationResult) validationResult;
-        try (Parser<String> parser = new GenericLineByLineParser(inputStreamReader)) {
-            String line;
-            String lastHeaderLine = "";
-            long seqLengthCount = 0;
-            long linesCount = 0;
-            do {
+        Optional<Path> path = source == null ? Optional.empty() : source.getPath();
+        if (typeDetector != null && source != null) {
+            if (source.isSeekable()) {
+                detectSequenceType();
+            } else {
+                try {
+                    detectStreamSequenceType();
+                } catch (IOException e) {
+                    validationResult.addError(e.getMessage());
+                    return validationResult;
+                }
+            }
+        }
+        if (!regions.isEmpty()) {
+            return validateRegions(path);
+        }
+        if (isQuickCheckEnabled) {
+            return validateSamples(path);
+        }
+        boolean hasListeners = !recordListeners.isEmpty() || isDuplicateSequenceCheckEnabled
+                || isFaiIndexFileEnabled
+                || faiIndexStream != null;
+        if (parallelism > 1 && path.isPresent() && !hasListeners) {
+            try {
+                ParallelFastaValidation validation = new ParallelFastaValidation(this,
+                        validationResult, validationResultStrategy.shouldStopAtFirstError(),
+                        path.get(), parallelism, minChunkSize);
+                if (validation.validate()) {
+                    return validationResult;
+                }
+            } catch (IOException e) {
+                validationResult.addError(e.getMessage());
+                return validationResult;
+            }
+        }
+        if (isFaiIndexFileEnabled) {
+            if (!path.isPresent()) {
+                validationResult.addError(
+                        "Fasta index can only be written for uncompressed files");
+                return validationResult;
+            }
+            return validateWithIndexFile(path.get());
+        }
+        List<FastaRecordListener> listeners = createRecordListeners();
+        if (faiIndexStream == null) {
+            validate(listeners);
+            return validationResult;
+        }
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(faiIndexStream, StandardCharsets.UTF_8));
+        listeners.add(new FastaIndexWriter(writer));
+        validate(listeners);
+        try {
+            writer.flush(); // rows written before validation stopped
+        } catch (IOException e) {
+            validationResult.addError("Unable to write fasta index: " + e.getMessage());
+        }
+        return validationResult;
+    }
+
+    /**
+     * Reads sequences from the beginning of the source until enough residues are counted,
+     * errors are ignored as they are reported by the validation that follows
+     */
+    private void detectSequenceType() {
+        try (Parser<ByteLine> parser = createLineParser(source)) {
+            ByteLine line = parser.parseNext();
+            while (line != null && !typeDetector.isSampled()) {
+                if (!isHeaderLine(line)) {
+                    typeDetector.add(line.getBuffer(), line.getOffset(),
+                            line.getOffset() + line.length());
+                }
                 line = parser.parseNext();
-                linesCount++;
-                if (line != null) {
-                    if (linesCount == 1 && !line.startsWith(">")) {
-                        String msg = "File is not recognized as valid Fasta format";
-                        validationResult.addError(ErrorMessage.of(msg));
+            }
+        } catch (IOException e) {
+            return; // validation reports it
+        }
+        applyDetectedSequenceType();
+    }
+
+    /**
+     * Reads the beginning of a source that cannot be read twice until enough residues are
+     * counted, or MAX_STREAM_SAMPLE_BYTES are read, and replaces the source by one reading the
+     * same bytes again before the rest of the input
+     * @throws IOException if the source cannot be read
+     */
+    private void detectStreamSequenceType() throws IOException {
+        ReadableByteChannel channel = source.openChannel();
+        ByteBuffer prefix = ByteBuffer.allocate(STREAM_SAMPLE_BUFFER_SIZE);
+        int lineStart = 0;
+        boolean isLineStart = true;
+        boolean isHeader = false;
+        while (!typeDetector.isSampled() && prefix.position() < MAX_STREAM_SAMPLE_BYTES) {
+            if (!prefix.hasRemaining()) {
+                int position = prefix.position();
+                byte[] grown = Arrays.copyOf(prefix.array(), prefix.capacity() * 2);
+                prefix = ByteBuffer.wrap(grown, position, grown.length - position);
+            }
+            int from = prefix.position();
+            if (channel.read(prefix) < 0) {
+                break;
+            }
+            byte[] bytes = prefix.array();
+            for (int i = from; i < prefix.position(); i++) {
+                if (isLineStart) {
+                    if (i < UTF8_BOM.length && (bytes[i] & 0xFF) == UTF8_BOM[i]) {
+                        lineStart = i + 1; // skipped as by EncodingCheckingChannel
+                        continue;
                     }
-                    else if (line.startsWith(">")) { //validate header
+                    isHeader = bytes[i] == '>';
+                    isLineStart = false;
+                }
+                if (bytes[i] == '\n') {
+                    if (!isHeader) {
+                        typeDetector.add(bytes, lineStart, i);
+                    }
+                    lineStart = i + 1;
+                    isLineStart = true;
+                }
+            }
+        }
+        if (!isLineStart && !isHeader) { // line continuing after the sample
+            typeDetector.add(prefix.array(), lineStart, prefix.position());
+        }
+        prefix.flip();
+        source = ValidationSource.of(new PrefixedChannel(prefix, channel), source.getName());
+        applyDetectedSequenceType();
+    }
 
-                        //check whether last record had empty sequence or not
-                        if (uniqueSequenceIds.size() >= 1 && seqLengthCount < 1) {
-                            String msg = "Record '" + lastHeaderLine + "' has empty sequence"
-                                         + " at line " + (linesCount - 1);
-                            validationResult.addError(ErrorMessage.of(msg));
-                        }
+    private void applyDetectedSequenceType() {
+        detectedSequenceType = typeDetector.detect();
+        typeDetector = null;
+        if (detectedSequenceType == SequenceType.ALL && !isAlignmentGapsEnabled) {
+            sequenceValidator = new GenericSequenceValidator(); // letters of no single type
+        } else {
+            SequenceAlphabet alphabet = getSequenceAlphabet(detectedSequenceType);
+            sequenceValidator = new AlphabetSequenceValidator(
+                    isAlignmentGapsEnabled ? alphabet.withGaps() : alphabet);
+        }
+        validationResult.addInfo(InfoMessage.of("Detected sequence type: "
+                + detectedSequenceType));
+    }
+
+    private ValidationResult validateRegions(Optional<Path> path) {
+        if (!path.isPresent()) {
+            validationResult.addError("Regions can only be validated in uncompressed files");
+            return validationResult;
+        }
+        // regions are read in parallel even if parallel validation is not enabled
+        int threads = parallelism > 1 ? parallelism : Runtime.getRuntime().availableProcessors();
+        try {
+            new RegionFastaValidation(this, validationResult,
+                    validationResultStrategy.shouldStopAtFirstError(), path.get(), regions,
+                    threads).validate();
+        } catch (IOException e) {
+            validationResult.addError(e.getMessage());
+        }
+        return validationResult;
+    }
+
+    private ValidationResult validateSamples(Optional<Path> path) {
+        SampledFastaValidation validation = new SampledFastaValidation(this, validationResult,
+                quickCheckFirstRecords, quickCheckLastRecords, quickCheckRandomRecords);
+        try {
+            if (path.isPresent()) {
+                quickCheckReport = validation.validate(path.get());
+            } else {
+                try (Parser<ByteLine> parser = createLineParser(source)) {
+                    quickCheckReport = validation.validateFirstRecords(parser);
+                }
+            }
+            validationResult.addInfo(InfoMessage.of(quickCheckReport.toString()));
+        } catch (IOException e) {
+            validationResult.addError(e.getMessage());
+        }
+        return validationResult;
+    }
+
+    /**
+     * Writes the index to a temporary file which replaces the index file only if the fasta
+     * file is valid
+     */
+    private ValidationResult validateWithIndexFile(Path path) {
+        Path indexFile = path.resolveSibling(path.getFileName() + ".fai");
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(indexFile.toAbsolutePath().getParent(),
+                    path.getFileName().toString(), ".fai.tmp");
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                List<FastaRecordListener> listeners = createRecordListeners();
+                listeners.add(new FastaIndexWriter(writer));
+                validate(listeners);
+            }
+            if (validationResult.isValid()) {
+                Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            validationResult.addError("Unable to write fasta index: " + e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    validationResult.addWarning("Unable to delete " + tempFile);
+                }
+            }
+        }
+        return validationResult;
+    }
+
+    private List<FastaRecordListener> createRecordListeners() {
+        List<FastaRecordListener> listeners = new ArrayList<>(recordListeners);
+        if (isDuplicateSequenceCheckEnabled) {
+            listeners.add(new DuplicateSequenceDetector(isStrict));
+        }
+        return listeners;
+    }
 
-                        validateHeader(uniqueSequenceIds, line, linesCount);
-                        seqLengthCount = 0;
-                        lastHeaderLine = line;
+    private void validate(List<FastaRecordListener> listeners) {
+        try (Parser<? extends CharSequence> parser = createSequenceLineParser()) {
+            validateLines(parser, listeners);
+        } catch (IOException e) {
+            validationResult.addError(e.getMessage());
+            //throw new ValidationFailureException(e.getMessage());
+        }
+    }
+
+    private <T extends CharSequence> void validateLines(Parser<T> parser,
+            List<FastaRecordListener> listeners) throws IOException {
+        boolean isRecordOpen = false;
+        RecordTracker records = new RecordTracker();
+        RecordBatch<T> batch = parser.createBatch(RecordBatch.DEFAULT_CAPACITY);
+        long linesCount = 0;
+        int batchSize;
+        try {
+            batchSize = parser.parseBatch(batch);
+        } catch (ParsingException e) { // not even a first line
+            validationResult.addError(ErrorMessage.of(describeUnreadableStart(e)));
+            return;
+        }
+        while (batchSize > 0) {
+            for (int i = 0; i < batchSize; i++) {
+                CharSequence line = batch.get(i);
+                linesCount = batch.getLineNumber(i);
+                boolean isHeader = isHeaderLine(line);
+                if (linesCount == 1 && !isHeader) {
+                    validationResult.addError(ErrorMessage.of(NOT_FASTA_MESSAGE));
+                }
+                else if (isHeader) { //validate header
+                    records.startRecord(line, linesCount);
+                    if (!listeners.isEmpty()) {
+                        ByteLine headerLine = (ByteLine) line;
+                        if (isRecordOpen) {
+                            endRecord(listeners, headerLine.getByteOffset());
+                        }
+                        String sequenceId = extractSequenceIdFromHeader(headerLine);
+                        for (FastaRecordListener listener : listeners) {
+                            listener.startRecord(sequenceId, headerLine, validationResult);
+                        }
+                        isRecordOpen = true;
                     }
-                    else { //validateFasta sequence
-                        line = line.trim();
-                        seqLengthCount +=  sequenceValidator.validate(
-                                line, linesCount, validationResult);
-
-                        if (!isStrict && line.length() > 80) {
-                            validationResult.addWarning(WarningMessage.of("number of sequence "
-                                    + "length exceed 80 at line " + linesCount));
+                }
+                else if (line instanceof ByteLine) { //validate raw bytes of the sequence
+                    ByteLine sequenceLine = (ByteLine) line;
+                    records.addSequenceLength(
+                            validateSequence(sequenceLine, linesCount, validationResult));
+                    if (isRecordOpen) {
+                        for (FastaRecordListener listener : listeners) {
+                            listener.sequenceLine(sequenceLine, validationResult);
                         }
                     }
-                    if (!validationResult.isValid()
-                            && validationResultStrategy.shouldStopAtFirstError()) {
-                        return validationResult;
+                }
+                else { //validateFasta sequence
+                    CharSequence sequence = trim(line);
+                    if (typeDetector != null) {
+                        typeDetector.add(sequence);
+                        if (typeDetector.isSampled()) {
+                            applyDetectedSequenceType();
+                        }
                     }
+                    records.addSequenceLength(sequenceValidator.validate(
+                            sequence, linesCount, validationResult));
+
+                    if (!isStrict && sequence.length() > 80) {
+                        validationResult.addWarning(WarningMessage.of("number of sequence "
+                                + "length exceed 80 at line " + linesCount));
+                    }
+                }
+                if (!validationResult.isValid()
+                        && validationResultStrategy.shouldStopAtFirstError()) {
+                    return;
                 }
-            } while (line != null);
+            }
+            batchSize = parser.parseBatch(batch);
+        }
+        if (typeDetector != null) { // input ended before the sample was complete
+            applyDetectedSequenceType();
+        }
+        records.finish(linesCount);
+        if (isRecordOpen) {
+            endRecord(listeners, getBytePosition(parser));
+        }
+        for (FastaRecordListener listener : listeners) {
+            listener.endOfInput(validationResult);
+        }
+    }
 
-            if (linesCount <= 1) {
-                defaultValidationResult.addError(ErrorMessage.of("File is empty"));
-                return validationResult;
+    private void endRecord(List<FastaRecordListener> listeners, long endOffset)
+        throws IOException {
+        for (FastaRecordListener listener : listeners) {
+            listener.endRecord(endOffset, validationResult);
+        }
+    }
+
+    /**
+     * Gets the offset of the end of input of a parser reading raw bytes
+     * @param parser line parser, at end of input
+     * @return byte offset
+     */
+    static long getBytePosition(Parser<?> parser) {
+        if (parser instanceof PipelinedLineParser) {
+            return ((PipelinedLineParser) parser).getBytePosition();
+        }
+        return ((ByteLineParser) parser).getBytePosition();
+    }
+
+    /**
+     * Keeps track of the record being validated, checks that records are not empty and that
+     * sequence ids are unique. Lines of a record can be validated separately (e.g. by chunks)
+     * as long as headers and sequence lengths are reported here in file order.
+     */
+    final class RecordTracker
+    {
+        private final SequenceIdChecker uniqueSequenceIds = new SequenceIdChecker();
+        private final ValidationResult result;
+        private final StringBuilder lastHeaderLine = new StringBuilder(); // reused, no copy
+        private long seqLengthCount = 0;
+
+        /**
+         * Construct a tracker adding errors to the validation result
+         */
+        RecordTracker() {
+            this(validationResult);
+        }
+
+        /**
+         * Construct a tracker adding errors to the given result
+         * @param result result errors and warnings are added to
+         */
+        RecordTracker(ValidationResult result) {
+            this.result = result;
+        }
+
+        /**
+         * Validates a header, which ends the previous record
+         * @param header header line, only used during the call
+         * @param linesCount line number of the header
+         */
+        void startRecord(CharSequence header, long linesCount) {
+            //check whether last record had empty sequence or not
+            if (uniqueSequenceIds.size() >= 1 && seqLengthCount < 1) {
+                String msg = "Record '" + lastHeaderLine + "' has empty sequence"
+                             + " at line " + (linesCount - 1);
+                result.addError(ErrorMessage.of(msg));
+            }
+
+            validateHeader(uniqueSequenceIds, header, linesCount, result);
+            seqLengthCount = 0;
+            lastHeaderLine.setLength(0);
+            if (header instanceof ByteLine && !((ByteLine) header).isAscii()) {
+                lastHeaderLine.append(header.toString()); // decoded for messages
+            } else {
+                lastHeaderLine.append(header);
+            }
+        }
+
+        /**
+         * Adds letters validated in the current record
+         * @param length number of letters
+         */
+        void addSequenceLength(long length) {
+            seqLengthCount += length;
+        }
+
+        /**
+         * Validates the end of the current record when the next record is not validated
+         * @param nextHeaderLine line number of the next header
+         */
+        void endRecord(long nextHeaderLine) {
+            if (seqLengthCount < 1) {
+                String msg = "Record '" + lastHeaderLine + "' has empty sequence"
+                             + " at line " + (nextHeaderLine - 1);
+                result.addError(ErrorMessage.of(msg));
+            }
+            uniqueSequenceIds.confirm(result);
+        }
+
+        /**
+         * Validates the end of the last record
+         * @param linesCount total number of lines
+         */
+        void finish(long linesCount) {
+            if (linesCount == 0) {
+                result.addError(ErrorMessage.of("File is empty"));
+                return;
             }
 
             // check whether last record has empty sequence or not
             if (seqLengthCount <= 0) {
                 String msg = "Record '" + lastHeaderLine + "' has empty sequence"
-                             + " at line " + linesCount;
-                validationResult.addError(ErrorMessage.of(msg));
+                             + " at line " + (linesCount + 1);
+                result.addError(ErrorMessage.of(msg));
             }
-        } catch (IOException e) {
-            validationResult.addError(e.getMessage());
-            //throw new ValidationFailureException(e.getMessage());
+            uniqueSequenceIds.confirm(result);
         }
-        return validationResult;
+    }
+
+    /**
+     * Checks that sequence ids are unique by their fingerprints, see SequenceIdSet. Matching
+     * fingerprints are confirmed by comparing the ids themselves: sources that can be read twice
+     * have their headers read again, keeping only the ids of the matches, right away when
+     * validation stops at the first error, otherwise once for all matches when validation ends.
+     * On other sources a matching fingerprint is reported as a duplicate.
+     */
+    final class SequenceIdChecker
+    {
+        private final SequenceIdSet fingerprints = new SequenceIdSet(idMemoryBudget);
+        private final boolean isConfirmed = source != null && source.isSeekable();
+        private final List<String> matchedIds = new ArrayList<>();
+        private final List<Long> matchedLines = new ArrayList<>();
+
+        /**
+         * Checks the sequence id of a header
+         * @param header header line
+         * @param idEnd index after the last char of the sequence id
+         * @param linesCount line number of the header
+         * @param result result errors and info messages are added to
+         */
+        void check(CharSequence header, int idEnd, long linesCount, ValidationResult result) {
+            boolean wasOverBudget = fingerprints.isOverBudget();
+            if (!fingerprints.add(header, 1, idEnd)) {
+                if (!isConfirmed) {
+                    result.addError(
+                            ErrorMessage.of("Duplicate sequence-id at line " + linesCount));
+                    return;
+                }
+                matchedIds.add(header instanceof ByteLine ? ((ByteLine) header).substring(1, idEnd)
+                        : header.subSequence(1, idEnd).toString());
+                matchedLines.add(linesCount);
+                if (validationResultStrategy.shouldStopAtFirstError()) {
+                    confirm(result);
+                }
+            } else if (!wasOverBudget && fingerprints.isOverBudget()) {
+                result.addInfo(InfoMessage.of("Duplicate sequence-id check stopped at line "
+                        + linesCount + ", memory budget of " + idMemoryBudget
+                        + " bytes exceeded"));
+            }
+        }
+
+        /**
+         * Gets number of distinct ids checked
+         * @return number of ids
+         */
+        int size() {
+            return fingerprints.size();
+        }
+
+        /**
+         * Reports the matched ids which are found in more than one header of the source. If the
+         * source cannot be read again, matches are reported as they are.
+         * @param result result errors are added to
+         */
+        void confirm(ValidationResult result) {
+            if (matchedIds.isEmpty()) {
+                return;
+            }
+            Map<String, Integer> occurrences = new HashMap<>();
+            for (String id : matchedIds) {
+                occurrences.put(id, 0);
+            }
+            try (Parser<ByteLine> parser = createLineParser(source)) {
+                for (ByteLine line = parser.parseNext(); line != null; line = parser.parseNext()) {
+                    if (isHeaderLine(line)) {
+                        occurrences.computeIfPresent(line.substring(1, getSequenceIdEnd(line)),
+                            (id, count) -> count + 1);
+                    }
+                }
+            } catch (IOException e) {
+                occurrences = null; // validation reports it
+            }
+            for (int i = 0; i < matchedIds.size(); i++) {
+                if (occurrences == null || occurrences.get(matchedIds.get(i)) > 1) {
+                    result.addError(ErrorMessage.of("Duplicate sequence-id at line "
+                            + matchedLines.get(i)));
+                }
+            }
+            matchedIds.clear();
+            matchedLines.clear();
+        }
+    }
+
+    private Parser<? extends CharSequence> createSequenceLineParser() throws IOException {
+        if (source != null) {
+            return createLineParser(source);
+        }
+        return new GenericLineByLineParser(inputStreamReader);
+    }
+
+    /**
+     * Describes why not even a first line could be read: not FASTA if the data does not look
+     * like FASTA (e.g. binary data), otherwise the cause, e.g. an invalid UTF-8 byte in a
+     * header or an I/O error
+     * @param e failure of the first read
+     * @return error message
+     */
+    String describeUnreadableStart(ParsingException e) {
+        if (source != null && FormatSniffer.isNotOfType(source, ValidatorType.FASTA)) {
+            return NOT_FASTA_MESSAGE;
+        }
+        return e.getMessage();
+    }
+
+    /**
+     * Test whether a line is a header line
+     * @param line line
+     * @return true if line starts with '>'
+     */
+    static boolean isHeaderLine(CharSequence line) {
+        return line.length() > 0 && line.charAt(0) == '>';
+    }
+
+    /**
+     * Validates a sequence line straight from the read buffer, leading and trailing
+     * whitespaces are skipped same as trim()
+     * @param line sequence line
+     * @param linesCount current line count
+     * @param result result errors and warnings are added to
+     * @return number of letters validated
+     */
+    long validateSequence(ByteLine line, long linesCount, ValidationResult result) {
+        byte[] buffer = line.getBuffer();
+        int start = line.getOffset();
+        int end = start + line.length();
+        while (start < end && (buffer[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        int validated = sequenceValidator.validate(buffer, start, end, linesCount, result);
+        if (!isStrict && end - start > 80) {
+            result.addWarning(WarningMessage.of("number of sequence "
+                    + "length exceed 80 at line " + linesCount));
+        }
+        return validated;
+    }
+
+    /**
+     * Removes leading and trailing whitespaces(same as String.trim()) without copying the
+     * sequence unless there is something to remove
+     * @param line line to be trimmed
+     * @return trimmed line
+     */
+    private static CharSequence trim(CharSequence line) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return (start > 0 || end < line.length()) ? line.subSequence(start, end) : line;
+    }
+
+    /**
+     * validates the header of a fasta file
+     * @param uniqueSequenceIds checker of unique sequence Ids
+     * @param line current line to be validated
+     * @param linesCount current line count
+     */
+    void validateHeader(SequenceIdChecker uniqueSequenceIds, CharSequence line,
+                        long linesCount) {
+        validateHeader(uniqueSequenceIds, line, linesCount, validationResult);
     }
 
     /**
      * validates the header of a fasta file
-     * @param uniqueSequenceIds set of unique sequence Ids
+     * @param uniqueSequenceIds checker of unique sequence Ids
      * @param line current line to be validated
      * @param linesCount current line count
+     * @param result result errors and warnings are added to
      */
-    private void validateHeader(Set<String> uniqueSequenceIds, String line, long linesCount) {
-        String sequenceId = extractSequenceIdFromHeader(line);
+    private void validateHeader(SequenceIdChecker uniqueSequenceIds, CharSequence line,
+                                long linesCount, ValidationResult result) {
+        int sequenceIdEnd = getSequenceIdEnd(line);
 
-        if (StringUtils.isBlank(sequenceId)) {
+        if (isBlank(line, 1, sequenceIdEnd)) {
             String msg = "Invalid sequence id at line " + linesCount;
-            validationResult.addError(ErrorMessage.of(msg));
+            result.addError(ErrorMessage.of(msg));
         }
-        else if (uniqueSequenceIds.contains(sequenceId)) {
-            validationResult.addError(
-                    ErrorMessage.of("Duplicate sequence-id at line " + linesCount));
-        } else {
-            uniqueSequenceIds.add(sequenceId);
+        else {
+            uniqueSequenceIds.check(line, sequenceIdEnd, linesCount, result);
+        }
+        if (headerSchema != null) {
+            int mismatch = headerSchema.indexOfMismatch(line);
+            if (mismatch >= 0) {
+                result.addError(ErrorMessage.of("Header does not match " + headerSchema.getName()
+                        + " schema at line " + linesCount + ", column " + (mismatch + 1)));
+            }
         }
     }
 
@@ -168,16 +964,51 @@ public class FastaValidator extends AbstractValidator
      * @param headerLine header line
      * @return sequenceId
      */
-    private String extractSequenceIdFromHeader(String headerLine) {
-        /* remove '>' from beginning of the header as this will not be part of the sequenceId,
+    static String extractSequenceIdFromHeader(CharSequence headerLine) {
+        return headerLine.subSequence(1, getSequenceIdEnd(headerLine)).toString();
+    }
+
+    /**
+     * Finds the end of the sequence id of a header without copying it
+     * @param headerLine header line
+     * @return index after the last char of the sequence id
+     */
+    private static int getSequenceIdEnd(CharSequence headerLine) {
+        /* skip '>' from beginning of the header as this will not be part of the sequenceId,
            and character '>' will always be present in the header as it is validated earlier.
          */
-        String headerText = headerLine.substring(1); //this removes '>' from beginning of the header
-        String[] headerTextWords = headerText.split("\\s+"); //split on any whitespace
-        if (headerTextWords.length >= 1) {
-            return headerTextWords[0];
+        int end = 1;
+        while (end < headerLine.length() && !isRegexWhitespace(headerLine.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Same as StringUtils.isBlank() for a range of chars
+     */
+    private static boolean isBlank(CharSequence chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(chars.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Test whether a char is matched by regex '\s', i.e. [ \t\n\x0B\f\r]
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    private void setSequenceType(SequenceType sequenceType) {
+        this.sequenceType = sequenceType;
+        if (sequenceType == SequenceType.AUTO) {
+            enableSequenceTypeDetection();
         } else {
-            return StringUtils.EMPTY;
+            this.sequenceValidator = getSequenceValidatorFromType(sequenceType);
         }
     }
 
@@ -193,4 +1024,15 @@ public class FastaValidator extends AbstractValidator
             default: throw new IllegalArgumentException("Invalid sequence type");
         }
     }
+
+    private static SequenceAlphabet getSequenceAlphabet(SequenceType sequenceType) {
+        switch (sequenceType) {
+            case RNA:
+                return SequenceAlphabet.IUPAC_RNA;
+            case PROTEIN:
+                return SequenceAlphabet.IUPAC_PROTEIN;
+            default:
+                return SequenceAlphabet.IUPAC_NUCLEOTIDE; // DNA or type not known
+        }
+    }
 }
@@ -0,0 +1,116 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.parser.ByteLine;
+import org.intermine.biovalidator.parser.DelimiterScanner;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the runs of N letters (gaps) of each record as BED intervals while a FASTA file is
+ * validated: sequence id, 0-based start, end (exclusive) and gap length as name column. Runs
+ * spanning line breaks are merged, rows are written as soon as a gap ends so memory use does
+ * not depend on the size of records.
+ *
+ * @author deepak
+ */
+public final class GapBedWriter implements FastaRecordListener
+{
+    private static final DelimiterScanner GAP_LETTERS = new DelimiterScanner('N', 'n');
+
+    private final Writer out;
+    private final long minGapLength;
+    private String name;
+    private long position;
+    private long gapStart = -1;
+
+    /**
+     * Construct a gap writer writing all runs of N
+     * @param out destination of BED rows, flushed at the end of input but not closed
+     */
+    public GapBedWriter(Writer out) {
+        this(out, 1);
+    }
+
+    /**
+     * Construct a gap writer writing runs of N of at least the given length
+     * @param out destination of BED rows, flushed at the end of input but not closed
+     * @param minGapLength shortest run of N written
+     */
+    public GapBedWriter(Writer out, long minGapLength) {
+        if (minGapLength < 1) {
+            throw new IllegalArgumentException("minimum gap length must be positive");
+        }
+        this.out = out;
+        this.minGapLength = minGapLength;
+    }
+
+    @Override
+    public void startRecord(String sequenceId, ByteLine header, ValidationResult result) {
+        name = sequenceId;
+        position = 0;
+        gapStart = -1;
+    }
+
+    @Override
+    public void sequenceLine(ByteLine line, ValidationResult result) throws IOException {
+        byte[] buffer = line.getBuffer();
+        int start = line.getOffset();
+        int end = start + line.length();
+        while (start < end && (buffer[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        int i = start;
+        while (i < end) {
+            if (gapStart >= 0) {
+                while (i < end && GAP_LETTERS.isDelimiter(buffer[i])) {
+                    i++;
+                }
+                if (i < end) {
+                    endGap(position + i - start);
+                }
+            } else {
+                i = GAP_LETTERS.indexOf(buffer, i, end);
+                if (i < 0) {
+                    break;
+                }
+                gapStart = position + i - start;
+            }
+        }
+        position += end - start;
+    }
+
+    @Override
+    public void endRecord(long endOffset, ValidationResult result) throws IOException {
+        if (gapStart >= 0) {
+            endGap(position);
+        }
+    }
+
+    @Override
+    public void endOfInput(ValidationResult result) throws IOException {
+        out.flush();
+    }
+
+    private void endGap(long gapEnd) throws IOException {
+        long length = gapEnd - gapStart;
+        if (length >= minGapLength) {
+            out.write(name + "\t" + gapStart + "\t" + gapEnd + "\t" + length + "\n");
+        }
+        gapStart = -1;
+    }
+}
@@ -0,0 +1,139 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Fields of a header located by {@link HeaderSchema#match(CharSequence, HeaderFields)}, as
+ * ranges of the header line. An instance is reused for each header, fields are only valid until
+ * the next match, same as the header line they refer to. A field spans from the first to the
+ * last byte matched by it.
+ *
+ * @author deepak
+ */
+public final class HeaderFields
+{
+    private final HeaderSchema schema;
+    private final int[] starts;
+    private final int[] ends;
+    private CharSequence header;
+    private int[] states = new int[256];
+
+    /**
+     * Construct empty fields of a schema
+     * @param schema header schema
+     */
+    public HeaderFields(@Nonnull HeaderSchema schema) {
+        this.schema = schema;
+        this.starts = new int[schema.getFieldNames().size()];
+        this.ends = new int[starts.length];
+        reset(null);
+    }
+
+    /**
+     * Gets the schema of the fields
+     * @return schema
+     */
+    public HeaderSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Test whether a field is in the header, e.g. optional fields
+     * @param field index of the field, see HeaderSchema.getFieldIndex()
+     * @return true if present
+     */
+    public boolean isPresent(int field) {
+        return starts[field] >= 0;
+    }
+
+    /**
+     * Gets start of a field
+     * @param field index of the field
+     * @return index in the header line of the first char, -1 if the field is not present
+     */
+    public int getStart(int field) {
+        return starts[field];
+    }
+
+    /**
+     * Gets end of a field
+     * @param field index of the field
+     * @return index in the header line after the last char, -1 if the field is not present
+     */
+    public int getEnd(int field) {
+        return ends[field];
+    }
+
+    /**
+     * Gets value of a field as a view of the header line
+     * @param field index of the field
+     * @return value, or null if the field is not present
+     */
+    public CharSequence get(int field) {
+        return isPresent(field) ? header.subSequence(starts[field], ends[field]) : null;
+    }
+
+    /**
+     * Gets value of a field as a String
+     * @param fieldName name of the field
+     * @return value, or null if the field is not present
+     * @throws IllegalArgumentException if the schema has no such field
+     */
+    public String getString(@Nonnull String fieldName) {
+        int field = schema.getFieldIndex(fieldName);
+        if (field < 0) {
+            throw new IllegalArgumentException("Header schema " + schema.getName()
+                    + " has no field " + fieldName);
+        }
+        CharSequence value = get(field);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Clears the fields before matching a header
+     * @param headerLine header the fields will refer to
+     */
+    void reset(CharSequence headerLine) {
+        this.header = headerLine;
+        Arrays.fill(starts, -1);
+        Arrays.fill(ends, -1);
+    }
+
+    /**
+     * Adds a char of the header to a field
+     * @param field index of the field, negative if the char is in no field
+     * @param index index of the char in the header
+     */
+    void add(int field, int index) {
+        if (field < 0) {
+            return;
+        }
+        if (starts[field] < 0 || index < starts[field]) {
+            starts[field] = index;
+        }
+        ends[field] = Math.max(ends[field], index + 1);
+    }
+
+    /**
+     * Gets the buffer of DFA states of a match, one per char of the header
+     * @param length length of the header
+     * @return buffer of at least length entries
+     */
+    int[] getStates(int length) {
+        if (states.length < length) {
+            states = new int[Math.max(length, states.length * 2)];
+        }
+        return states;
+    }
+}
@@ -0,0 +1,265 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A header convention, e.g. NCBI accession.version or UniProt sp|ACC|NAME, compiled once into a
+ * DFA over bytes. Headers are matched on the raw bytes after '>' without allocating, with one
+ * table lookup per byte. Named fields of the schema (accession, organism, ...) can be located in
+ * a header with match(CharSequence, HeaderFields), so that other checks can use them.
+ *
+ * Schemas are compiled from a pattern, see {@link #compile(String, String)}. When a header can
+ * be matched in several ways, one is chosen giving bytes to fields rather than to the rest of
+ * the pattern.
+ *
+ * @author deepak
+ */
+public final class HeaderSchema
+{
+    /**
+     * field of a DFA state whose positions are in different fields
+     */
+    static final int AMBIGUOUS_FIELD = -2;
+
+    /**
+     * NCBI accession.version followed by an optional description,
+     * e.g. NM_000546.6 Homo sapiens tumor protein p53 (TP53), mRNA
+     */
+    public static final HeaderSchema NCBI = compile("ncbi",
+            "{accession:[A-Z]+(_[A-Z]*)?[0-9]+}\\.{version:[0-9]+}( {description:.*})?");
+
+    /**
+     * UniProtKB, e.g. sp|P69905|HBA_HUMAN Hemoglobin subunit alpha OS=Homo sapiens OX=9606
+     * GN=HBA1 PE=1 SV=2
+     */
+    public static final HeaderSchema UNIPROT = compile("uniprot",
+            "{db:sp|tr}\\|{accession:[A-Z0-9]+(-[0-9]+)?}\\|{entry:[A-Z0-9]+_[A-Z0-9]+}"
+            + " {protein:[^=]+} OS={organism:[^=]+} OX={taxid:[0-9]+}( GN={gene:[^=]+})?"
+            + "( PE={evidence:[1-5]})?( SV={sequenceVersion:[0-9]+})?");
+
+    /**
+     * Ensembl cDNA, ncRNA and peptide files, e.g. ENST00000632684.1 cdna
+     * chromosome:GRCh38:7:142786213:142786224:1 gene:ENSG00000282431.1 gene_biotype:TR_D_gene
+     */
+    public static final HeaderSchema ENSEMBL = compile("ensembl",
+            "{id:[^ ]+} {type:[a-z_]+} {location:[a-z_]+:[^ ]+} gene:{gene:[^ ]+}"
+            + "( [a-z_]+:[^ ]*)*( description:{description:.*})?");
+
+    private final String name;
+    private final List<String> fieldNames;
+    private final int[] transitions;
+    private final boolean[] accepting;
+    private final int[] stateFields;
+    private final long[][] statePositions;
+    private final long[][] follow;
+    private final long[] last;
+    private final int[] positionFields;
+    private final boolean hasAmbiguousFields;
+
+    /**
+     * Construct a compiled schema, see HeaderSchemaCompiler
+     * @param name name of the schema
+     * @param fieldNames names of the fields
+     * @param transitions next state of each state and byte, -1 if the byte does not match
+     * @param accepting whether a header can end in each state
+     * @param stateFields field of each state, -1 if none
+     * @param statePositions positions of the pattern in each state, as bit words
+     * @param follow positions that can follow each position, as bit words
+     * @param last positions that can end the pattern, as bit words
+     * @param positionFields field of each position, -1 if none
+     */
+    HeaderSchema(String name, List<String> fieldNames, int[] transitions, boolean[] accepting,
+                 int[] stateFields, long[][] statePositions, long[][] follow, long[] last,
+                 int[] positionFields) {
+        this.name = name;
+        this.fieldNames = Collections.unmodifiableList(fieldNames);
+        this.transitions = transitions;
+        this.accepting = accepting;
+        this.stateFields = stateFields;
+        this.statePositions = statePositions;
+        this.follow = follow;
+        this.last = last;
+        this.positionFields = positionFields;
+        boolean ambiguous = false;
+        for (int field : stateFields) {
+            ambiguous |= field == AMBIGUOUS_FIELD;
+        }
+        this.hasAmbiguousFields = ambiguous;
+    }
+
+    /**
+     * Compiles a schema from a pattern matched by the whole header after '>'. Patterns are made
+     * of literal characters, '.' for any byte, classes like [A-Z0-9_] or [^ ], groups (...),
+     * alternatives a|b, repetitions *, + and ?, named fields {name:...}, and a backslash to
+     * escape a special character, e.g. "{accession:[A-Z]+[0-9]+}( .*)?"
+     * @param name name of the schema, used in messages
+     * @param pattern header pattern
+     * @return compiled schema
+     * @throws IllegalArgumentException if the pattern is invalid or too complex
+     */
+    public static HeaderSchema compile(@Nonnull String name, @Nonnull String pattern) {
+        return HeaderSchemaCompiler.compile(name, pattern);
+    }
+
+    /**
+     * Gets a predefined schema by name
+     * @param name ncbi, uniprot or ensembl, case insensitive
+     * @return schema
+     * @throws IllegalArgumentException if there is no schema with this name
+     */
+    public static HeaderSchema of(@Nonnull String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "ncbi":
+                return NCBI;
+            case "uniprot":
+                return UNIPROT;
+            case "ensembl":
+                return ENSEMBL;
+            default:
+                throw new IllegalArgumentException("Unknown header schema " + name
+                        + ", expected ncbi, uniprot or ensembl");
+        }
+    }
+
+    /**
+     * Gets name of the schema
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets names of the fields, in pattern order
+     * @return field names
+     */
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    /**
+     * Gets index of a field
+     * @param fieldName field name
+     * @return index, or -1 if the schema has no such field
+     */
+    public int getFieldIndex(@Nonnull String fieldName) {
+        return fieldNames.indexOf(fieldName);
+    }
+
+    /**
+     * Matches a header without allocating
+     * @param header header line including '>'
+     * @return -1 if the header matches, else the index in the line of the first char that does
+     *         not match, which is the length of the line if the header is incomplete
+     */
+    public int indexOfMismatch(@Nonnull CharSequence header) {
+        int state = 0;
+        for (int i = 1; i < header.length(); i++) {
+            char c = header.charAt(i);
+            int next = c > 0xFF ? -1 : transitions[state * 256 + c];
+            if (next < 0) {
+                return i;
+            }
+            state = next;
+        }
+        return accepting[state] ? -1 : header.length();
+    }
+
+    /**
+     * Matches a header and locates its fields, no allocation is done once the buffers of
+     * fields fit the longest header
+     * @param header header line including '>'
+     * @param fields fields of this schema, updated with the fields of the header
+     * @return true if the header matches, fields are not located otherwise
+     */
+    public boolean match(@Nonnull CharSequence header, @Nonnull HeaderFields fields) {
+        if (fields.getSchema() != this) {
+            throw new IllegalArgumentException("fields of schema " + fields.getSchema().getName()
+                    + " cannot be used with schema " + name);
+        }
+        fields.reset(header);
+        int[] states = fields.getStates(header.length());
+        int state = 0;
+        states[0] = state;
+        for (int i = 1; i < header.length(); i++) {
+            char c = header.charAt(i);
+            state = c > 0xFF ? -1 : transitions[state * 256 + c];
+            if (state < 0) {
+                return false;
+            }
+            states[i] = state;
+        }
+        if (!accepting[state]) {
+            return false;
+        }
+        if (hasAmbiguousFields) {
+            locateFieldsBackwards(states, header.length() - 1, fields);
+        } else {
+            for (int i = 1; i < header.length(); i++) {
+                fields.add(stateFields[states[i]], i);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the fields of bytes matched by ambiguous states by following a single way of
+     * matching the header backwards: from a position that can end the pattern, each byte is
+     * given the position of the previous one that can be followed by the position already
+     * chosen, preferring positions in fields
+     */
+    private void locateFieldsBackwards(int[] states, int lastIndex, HeaderFields fields) {
+        int position = choosePosition(statePositions[states[lastIndex]], last, -1);
+        for (int i = lastIndex; i >= 1; i--) {
+            fields.add(positionFields[position], i);
+            if (i > 1) {
+                position = choosePosition(statePositions[states[i - 1]], null, position);
+            }
+        }
+    }
+
+    /**
+     * Chooses a position of a state, a position in a field wins over others
+     * @param candidates positions of the state
+     * @param allowed positions allowed, or null for all
+     * @param next position that must follow the chosen one, or -1
+     */
+    private int choosePosition(long[] candidates, long[] allowed, int next) {
+        int chosen = -1;
+        for (int w = 0; w < candidates.length; w++) {
+            long word = allowed == null ? candidates[w] : candidates[w] & allowed[w];
+            while (word != 0) {
+                int position = w * 64 + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (next >= 0 && (follow[position][next >>> 6] & (1L << next)) == 0) {
+                    continue;
+                }
+                if (positionFields[position] >= 0) {
+                    return position;
+                }
+                if (chosen < 0) {
+                    chosen = position;
+                }
+            }
+        }
+        return chosen;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,363 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the pattern of a header schema into a DFA over bytes. The pattern is parsed into a
+ * position (Glushkov) automaton: each letter or class of the pattern is a position, with the
+ * positions that can follow it. DFA states are the sets of positions that can have matched the
+ * last byte, built by subset construction from the initial state.
+ *
+ * Pattern syntax: literal characters, '.' for any byte, classes like [A-Z0-9_] or [^ ],
+ * groups (...), alternatives a|b, repetitions *, + and ?, named fields {name:...} and a
+ * backslash to escape a special character.
+ *
+ * @author deepak
+ */
+final class HeaderSchemaCompiler
+{
+    private static final int MAX_STATES = 4096;
+    private static final String SPECIAL_CHARS = "(){}[]|*+?.\\";
+
+    private final String name;
+    private final String pattern;
+    private int index;
+    private int currentField = -1;
+    private final List<String> fieldNames = new ArrayList<>();
+    private final List<boolean[]> positionBytes = new ArrayList<>();
+    private final List<Integer> positionFields = new ArrayList<>();
+    private final List<BitSet> follow = new ArrayList<>();
+
+    private HeaderSchemaCompiler(String name, String pattern) {
+        this.name = name;
+        this.pattern = pattern;
+    }
+
+    /**
+     * Compiles a schema
+     * @param name name of the schema, used in messages
+     * @param pattern pattern matched by the whole header after '>'
+     * @return compiled schema
+     * @throws IllegalArgumentException if the pattern is invalid or too complex
+     */
+    static HeaderSchema compile(String name, String pattern) {
+        return new HeaderSchemaCompiler(name, pattern).compile();
+    }
+
+    private HeaderSchema compile() {
+        Node root = parseAlternatives();
+        if (index < pattern.length()) {
+            throw error("unexpected '" + pattern.charAt(index) + "'");
+        }
+        int positions = positionBytes.size();
+        Map<BitSet, Integer> stateIds = new HashMap<>();
+        List<BitSet> states = new ArrayList<>();
+        List<int[]> transitions = new ArrayList<>();
+        Deque<Integer> pending = new ArrayDeque<>();
+        states.add(new BitSet()); // initial state, no byte matched yet
+        pending.add(0);
+        while (!pending.isEmpty()) {
+            int state = pending.poll();
+            BitSet candidates = new BitSet();
+            if (state == 0) {
+                candidates.or(root.first);
+            } else {
+                BitSet matched = states.get(state);
+                for (int p = matched.nextSetBit(0); p >= 0; p = matched.nextSetBit(p + 1)) {
+                    candidates.or(follow.get(p));
+                }
+            }
+            int[] next = new int[256];
+            for (int b = 0; b < 256; b++) {
+                BitSet target = new BitSet();
+                for (int p = candidates.nextSetBit(0); p >= 0;
+                     p = candidates.nextSetBit(p + 1)) {
+                    if (positionBytes.get(p)[b]) {
+                        target.set(p);
+                    }
+                }
+                if (target.isEmpty()) {
+                    next[b] = -1;
+                    continue;
+                }
+                Integer id = stateIds.get(target);
+                if (id == null) {
+                    if (states.size() == MAX_STATES) {
+                        throw error("more than " + MAX_STATES + " states");
+                    }
+                    id = states.size();
+                    states.add(target);
+                    stateIds.put(target, id);
+                    pending.add(id);
+                }
+                next[b] = id;
+            }
+            transitions.add(next); // states are processed in the order of their ids
+        }
+
+        int[] table = new int[states.size() * 256];
+        boolean[] accepting = new boolean[states.size()];
+        int[] stateFields = new int[states.size()];
+        long[][] statePositions = new long[states.size()][];
+        for (int s = 0; s < states.size(); s++) {
+            System.arraycopy(transitions.get(s), 0, table, s * 256, 256);
+            BitSet matched = states.get(s);
+            accepting[s] = s == 0 ? root.nullable : matched.intersects(root.last);
+            stateFields[s] = fieldOf(matched);
+            statePositions[s] = toWords(matched, positions);
+        }
+        long[][] followWords = new long[positions][];
+        int[] fields = new int[positions];
+        for (int p = 0; p < positions; p++) {
+            followWords[p] = toWords(follow.get(p), positions);
+            fields[p] = positionFields.get(p);
+        }
+        return new HeaderSchema(name, fieldNames, table, accepting, stateFields, statePositions,
+                followWords, toWords(root.last, positions), fields);
+    }
+
+    /**
+     * Gets the field of all positions of a state, -1 if they are in no field,
+     * HeaderSchema.AMBIGUOUS_FIELD if they are in different fields
+     */
+    private int fieldOf(BitSet matched) {
+        int first = matched.nextSetBit(0);
+        int field = first < 0 ? -1 : positionFields.get(first);
+        for (int p = matched.nextSetBit(first + 1); p >= 0; p = matched.nextSetBit(p + 1)) {
+            if (positionFields.get(p) != field) {
+                return HeaderSchema.AMBIGUOUS_FIELD;
+            }
+        }
+        return field;
+    }
+
+    private static long[] toWords(BitSet set, int size) {
+        long[] words = new long[(size + 63) / 64];
+        long[] setWords = set.toLongArray();
+        System.arraycopy(setWords, 0, words, 0, setWords.length);
+        return words;
+    }
+
+    private Node parseAlternatives() {
+        Node node = parseSequence();
+        while (peek() == '|') {
+            index++;
+            node = Node.alternative(node, parseSequence());
+        }
+        return node;
+    }
+
+    private Node parseSequence() {
+        Node node = Node.empty();
+        while (index < pattern.length() && peek() != '|' && peek() != ')' && peek() != '}') {
+            node = concat(node, parseRepetition());
+        }
+        return node;
+    }
+
+    private Node parseRepetition() {
+        Node node = parseAtom();
+        while (peek() == '*' || peek() == '+' || peek() == '?') {
+            char operator = pattern.charAt(index++);
+            if (operator != '?') {
+                addFollow(node.last, node.first);
+            }
+            node = new Node(node.nullable || operator != '+', node.first, node.last);
+        }
+        return node;
+    }
+
+    private Node parseAtom() {
+        char c = pattern.charAt(index++);
+        switch (c) {
+            case '(':
+                Node group = parseAlternatives();
+                expect(')');
+                return group;
+            case '{':
+                return parseField();
+            case '[':
+                return position(parseClass());
+            case '.':
+                boolean[] any = new boolean[256];
+                Arrays.fill(any, true);
+                return position(any);
+            case '\\':
+                if (index == pattern.length()) {
+                    throw error("nothing to escape");
+                }
+                return position(single(pattern.charAt(index++)));
+            default:
+                if (SPECIAL_CHARS.indexOf(c) >= 0) {
+                    throw error("unexpected '" + c + "'");
+                }
+                return position(single(c));
+        }
+    }
+
+    private Node parseField() {
+        if (currentField >= 0) {
+            throw error("nested fields are not supported");
+        }
+        int colon = pattern.indexOf(':', index);
+        if (colon <= index) {
+            throw error("field name expected");
+        }
+        String fieldName = pattern.substring(index, colon);
+        if (fieldNames.contains(fieldName)) {
+            throw error("duplicate field " + fieldName);
+        }
+        index = colon + 1;
+        currentField = fieldNames.size();
+        fieldNames.add(fieldName);
+        Node node = parseAlternatives();
+        expect('}');
+        currentField = -1;
+        return node;
+    }
+
+    private boolean[] parseClass() {
+        boolean[] bytes = new boolean[256];
+        boolean negated = peek() == '^';
+        if (negated) {
+            index++;
+        }
+        boolean first = true;
+        while (first || peek() != ']') {
+            if (index >= pattern.length()) {
+                throw error("unterminated class");
+            }
+            first = false;
+            char from = classChar();
+            char to = from;
+            if (peek() == '-' && index + 1 < pattern.length()
+                    && pattern.charAt(index + 1) != ']') {
+                index++;
+                to = classChar();
+            }
+            if (to < from) {
+                throw error("invalid range " + from + "-" + to);
+            }
+            for (char b = from; b <= to; b++) {
+                bytes[b] = true;
+            }
+        }
+        index++;
+        if (negated) {
+            for (int b = 0; b < 256; b++) {
+                bytes[b] = !bytes[b];
+            }
+        }
+        return bytes;
+    }
+
+    private char classChar() {
+        char c = pattern.charAt(index++);
+        if (c == '\\' && index < pattern.length()) {
+            c = pattern.charAt(index++);
+        }
+        if (c > 0xFF) {
+            throw error("character " + c + " is not a byte");
+        }
+        return c;
+    }
+
+    private boolean[] single(char c) {
+        if (c > 0xFF) {
+            throw error("character " + c + " is not a byte");
+        }
+        boolean[] bytes = new boolean[256];
+        bytes[c] = true;
+        return bytes;
+    }
+
+    private Node position(boolean[] bytes) {
+        int p = positionBytes.size();
+        positionBytes.add(bytes);
+        positionFields.add(currentField);
+        follow.add(new BitSet());
+        BitSet set = new BitSet();
+        set.set(p);
+        return new Node(false, set, set);
+    }
+
+    private Node concat(Node left, Node right) {
+        addFollow(left.last, right.first);
+        BitSet first = (BitSet) left.first.clone();
+        if (left.nullable) {
+            first.or(right.first);
+        }
+        BitSet last = (BitSet) right.last.clone();
+        if (right.nullable) {
+            last.or(left.last);
+        }
+        return new Node(left.nullable && right.nullable, first, last);
+    }
+
+    private void addFollow(BitSet from, BitSet to) {
+        for (int p = from.nextSetBit(0); p >= 0; p = from.nextSetBit(p + 1)) {
+            follow.get(p).or(to);
+        }
+    }
+
+    private char peek() {
+        return index < pattern.length() ? pattern.charAt(index) : 0;
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("'" + c + "' expected");
+        }
+        index++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid header schema " + name + " at index "
+                + index + ": " + message);
+    }
+
+    /**
+     * Sub-pattern with the positions that can match its first and last bytes
+     */
+    private static final class Node
+    {
+        private final boolean nullable;
+        private final BitSet first;
+        private final BitSet last;
+
+        private Node(boolean nullable, BitSet first, BitSet last) {
+            this.nullable = nullable;
+            this.first = first;
+            this.last = last;
+        }
+
+        private static Node empty() {
+            return new Node(true, new BitSet(), new BitSet());
+        }
+
+        private static Node alternative(Node left, Node right) {
+            BitSet first = (BitSet) left.first.clone();
+            first.or(right.first);
+            BitSet last = (BitSet) left.last.clone();
+            last.or(right.last);
+            return new Node(left.nullable || right.nullable, first, last);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.parser.ByteLine;
+import org.intermine.biovalidator.parser.DelimiterScanner;
+import org.intermine.biovalidator.validator.ChunkedFileValidation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validates a FASTA file in chunks on a fork/join pool, see {@link ChunkedFileValidation}.
+ * Chunks start at line boundaries, a single record (e.g. a chromosome) can span many chunks.
+ *
+ * Sequence letters are validated by the chunks, headers are only collected together with the
+ * number of letters preceding them. When chunks are stitched, headers are checked for empty
+ * records and duplicate ids as in sequential validation.
+ *
+ * @author deepak
+ */
+final class ParallelFastaValidation extends ChunkedFileValidation<ParallelFastaValidation.Chunk>
+{
+    private static final int SEARCH_BUFFER_SIZE = 64 * 1024;
+    private static final DelimiterScanner LINE_FEED = new DelimiterScanner('\n');
+
+    private final FastaValidator validator;
+
+    /**
+     * Construct a parallel validation
+     * @param validator validator providing the sequence and record checks
+     * @param validationResult result where errors and warnings are added in file order
+     * @param stopAtFirstError whether to stop at the first error of the file
+     * @param path uncompressed FASTA file
+     * @param parallelism number of threads
+     * @param minChunkSize minimum size of a chunk in bytes
+     */
+    ParallelFastaValidation(FastaValidator validator, ValidationResult validationResult,
+                            boolean stopAtFirstError, Path path, int parallelism,
+                            long minChunkSize) {
+        super(validationResult, stopAtFirstError, path, parallelism, minChunkSize);
+        this.validator = validator;
+    }
+
+    @Override
+    protected long nextChunkStart(FileChannel channel, long from, long size)
+            throws IOException {
+        byte[] array = new byte[SEARCH_BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(array);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            int lineFeed = LINE_FEED.indexOf(array, 0, read);
+            if (lineFeed >= 0) {
+                return position + lineFeed + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    @Override
+    protected Chunk createChunk(int index, long start, MappedByteBuffer data) {
+        return new Chunk(index, start, data);
+    }
+
+    @Override
+    protected String describeUnreadableStart(ParsingException e) {
+        return validator.describeUnreadableStart(e);
+    }
+
+    /**
+     * Same as FastaValidator.validateLines(), except that headers are collected to be checked
+     * when chunks are stitched
+     */
+    @Override
+    protected void validateLine(Chunk chunk, ByteLine line, long lineNumber) {
+        ValidationResult messages = chunk.getMessages();
+        boolean isHeader = FastaValidator.isHeaderLine(line);
+        if (lineNumber == 1 && !isHeader) {
+            messages.addError(FastaValidator.NOT_FASTA_MESSAGE);
+        } else if (isHeader) {
+            chunk.headers.add(new Header(line.toString(), lineNumber, chunk.trailingLetters,
+                    messages.totalError(), messages.totalWarnings()));
+            chunk.trailingLetters = 0;
+        } else {
+            chunk.trailingLetters += validator.validateSequence(line, lineNumber, messages);
+        }
+    }
+
+    /**
+     * Adds messages of the chunks to the validation result in file order, checking headers
+     * in between
+     */
+    @Override
+    protected void stitch(List<Chunk> chunks, long totalLines) {
+        FastaValidator.RecordTracker records = validator.new RecordTracker();
+        for (Chunk chunk : chunks) {
+            int errorIndex = 0;
+            int warningIndex = 0;
+            for (Header header : chunk.headers) {
+                errorIndex = addErrors(chunk, errorIndex, header.errorsBefore);
+                warningIndex = addWarnings(chunk, warningIndex, header.warningsBefore);
+                if (shouldStop()) {
+                    return;
+                }
+                records.addSequenceLength(header.lettersBefore);
+                records.startRecord(header.line, header.lineNumber);
+                if (shouldStop()) {
+                    return;
+                }
+            }
+            addErrors(chunk, errorIndex, chunk.getMessages().totalError());
+            addWarnings(chunk, warningIndex, chunk.getMessages().totalWarnings());
+            if (shouldStop()) {
+                return;
+            }
+            records.addSequenceLength(chunk.trailingLetters);
+            if (addFailure(chunk)) {
+                return;
+            }
+        }
+        records.finish(totalLines);
+    }
+
+    /**
+     * A chunk with the headers found in it
+     */
+    static final class Chunk extends ChunkedFileValidation.Chunk
+    {
+        private final List<Header> headers = new ArrayList<>();
+        private long trailingLetters;
+
+        private Chunk(int index, long start, MappedByteBuffer data) {
+            super(index, start, data);
+        }
+    }
+
+    /**
+     * A header line with the position of the messages of the chunk that precede it
+     */
+    private static final class Header
+    {
+        private final String line;
+        private final long lineNumber;
+        private final long lettersBefore;
+        private final int errorsBefore;
+        private final int warningsBefore;
+
+        private Header(String line, long lineNumber, long lettersBefore, int errorsBefore,
+                       int warningsBefore) {
+            this.line = line;
+            this.lineNumber = lineNumber;
+            this.lettersBefore = lettersBefore;
+            this.errorsBefore = errorsBefore;
+            this.warningsBefore = warningsBefore;
+        }
+    }
+}
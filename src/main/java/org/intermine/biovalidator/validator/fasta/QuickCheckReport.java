@@ -0,0 +1,153 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.util.Locale;
+
+/**
+ * Summary of a sampled quick check of a FASTA file, see
+ * {@link FastaValidator#enableQuickCheck(int, int, int)}. The share of invalid records in the
+ * whole file is estimated from the records sampled at random offsets, with a 95% Wilson score
+ * interval.
+ *
+ * @author deepak
+ */
+public final class QuickCheckReport
+{
+    private static final double Z_95 = 1.96;
+
+    private final long fileSize;
+    private final long validatedBytes;
+    private final long validatedRecords;
+    private final long estimatedRecords;
+    private final long randomRecords;
+    private final long invalidRandomRecords;
+
+    /**
+     * Construct a report
+     * @param fileSize size of the file in bytes, -1 if unknown
+     * @param validatedBytes number of bytes validated
+     * @param validatedRecords number of records validated
+     * @param estimatedRecords estimated number of records of the file
+     * @param randomRecords number of records sampled at random offsets
+     * @param invalidRandomRecords number of invalid records sampled at random offsets
+     */
+    QuickCheckReport(long fileSize, long validatedBytes, long validatedRecords,
+                     long estimatedRecords, long randomRecords, long invalidRandomRecords) {
+        this.fileSize = fileSize;
+        this.validatedBytes = validatedBytes;
+        this.validatedRecords = validatedRecords;
+        this.estimatedRecords = estimatedRecords;
+        this.randomRecords = randomRecords;
+        this.invalidRandomRecords = invalidRandomRecords;
+    }
+
+    /**
+     * Test whether the whole file was validated, e.g. because it is small
+     * @return true if nothing was skipped
+     */
+    public boolean isComplete() {
+        return fileSize >= 0 && validatedBytes >= fileSize;
+    }
+
+    /**
+     * Gets size of the file
+     * @return size in bytes, -1 if the source is not a file
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Gets number of bytes validated
+     * @return validated bytes
+     */
+    public long getValidatedBytes() {
+        return validatedBytes;
+    }
+
+    /**
+     * Gets number of records validated, first, last and random ones
+     * @return validated records
+     */
+    public long getValidatedRecords() {
+        return validatedRecords;
+    }
+
+    /**
+     * Gets number of records of the file estimated from the size of the validated ones
+     * @return estimated record count, -1 if unknown
+     */
+    public long getEstimatedRecords() {
+        return estimatedRecords;
+    }
+
+    /**
+     * Gets number of records sampled at random offsets
+     * @return random records
+     */
+    public long getRandomRecords() {
+        return randomRecords;
+    }
+
+    /**
+     * Gets number of invalid records among the ones sampled at random offsets
+     * @return invalid random records
+     */
+    public long getInvalidRandomRecords() {
+        return invalidRandomRecords;
+    }
+
+    /**
+     * Gets upper bound of the share of invalid records in the file with 95% confidence,
+     * estimated from the random records
+     * @return fraction between 0 and 1, 1 if no random records were sampled, 0 if the whole
+     *         file was validated as the validation result is then exact
+     */
+    public double getMaxInvalidFraction() {
+        if (isComplete()) {
+            return 0;
+        }
+        if (randomRecords == 0) {
+            return 1;
+        }
+        double n = randomRecords;
+        double p = invalidRandomRecords / n;
+        double z2 = Z_95 * Z_95;
+        double upper = (p + z2 / (2 * n) + Z_95 * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)))
+                / (1 + z2 / n);
+        return Math.min(1, upper);
+    }
+
+    @Override
+    public String toString() {
+        if (isComplete()) {
+            return "Quick check: file is small, all " + validatedRecords
+                    + " records were validated";
+        }
+        StringBuilder summary = new StringBuilder(
+                "Quick check: result is sampled, not exhaustive, validated ")
+                .append(validatedRecords).append(" records");
+        if (estimatedRecords >= 0) {
+            summary.append(" of about ").append(estimatedRecords);
+        }
+        if (fileSize > 0) {
+            summary.append(String.format(Locale.ROOT, " (%.2f%% of the file)",
+                    100.0 * validatedBytes / fileSize));
+        }
+        if (randomRecords == 0) {
+            return summary.append(", no record sampled at random").toString();
+        }
+        return summary.append(String.format(Locale.ROOT, ", %d of %d random records invalid,"
+                + " with 95%% confidence at most %.2f%% of records are invalid",
+                invalidRandomRecords, randomRecords, 100 * getMaxInvalidFraction())).toString();
+    }
+}
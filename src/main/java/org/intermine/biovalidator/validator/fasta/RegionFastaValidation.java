@@ -0,0 +1,432 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.apache.commons.lang3.StringUtils;
+import org.intermine.biovalidator.api.DefaultValidationResult;
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.Message;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.parser.ByteLine;
+import org.intermine.biovalidator.parser.ByteLineParser;
+import org.intermine.biovalidator.source.ByteBufferChannel;
+import org.intermine.biovalidator.source.EncodingCheckingChannel;
+import org.intermine.biovalidator.source.FileRangeChannel;
+import org.intermine.biovalidator.validator.ChunkedFileValidation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Validates only some records or regions of a FASTA file, seeking to them using the offsets
+ * of the file's .fai index. Regions are given as in samtools, either a sequence name or
+ * 'name:start-end' with 1-based inclusive positions, a region covers the lines containing
+ * its letters.
+ *
+ * Header lines of all records are read (but not validated) to check that the index matches
+ * the file and to know the line number of every record, so messages have the same line
+ * numbers as when validating the whole file. Selected ranges are then validated in parallel,
+ * lines are checked to have the offsets and lengths given by the index.
+ *
+ * @author deepak
+ */
+final class RegionFastaValidation
+{
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+    private static final int MAX_HEADER_SIZE = 16 * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final FastaValidator validator;
+    private final ValidationResult validationResult;
+    private final boolean stopAtFirstError;
+    private final Path path;
+    private final List<String> regions;
+    private final int parallelism;
+
+    private List<FastaIndex.Entry> entries;
+    private final Map<FastaIndex.Entry, Integer> entryPositions = new HashMap<>();
+    private long[] headerOffsets;
+    private long[] headerLines;
+    private long[] lastLines;
+
+    /**
+     * Construct a region validation
+     * @param validator validator providing the sequence and header checks
+     * @param validationResult result where errors and warnings are added in file order
+     * @param stopAtFirstError whether to stop at the first error
+     * @param path uncompressed FASTA file, indexed
+     * @param regions sequence names or regions to be validated
+     * @param parallelism number of threads
+     */
+    RegionFastaValidation(FastaValidator validator, ValidationResult validationResult,
+                          boolean stopAtFirstError, Path path, List<String> regions,
+                          int parallelism) {
+        this.validator = validator;
+        this.validationResult = validationResult;
+        this.stopAtFirstError = stopAtFirstError;
+        this.path = path;
+        this.regions = regions;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Validates the regions
+     * @throws IOException if file or index cannot be read
+     */
+    void validate() throws IOException {
+        Path indexFile = FastaIndex.indexPathOf(path);
+        if (!Files.isRegularFile(indexFile)) {
+            validationResult.addError("Fasta index " + indexFile + " not found, regions cannot "
+                    + "be validated");
+            return;
+        }
+        FastaIndex index = FastaIndex.read(indexFile);
+        entries = index.getEntries();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (!locateRecords(channel)) {
+                return;
+            }
+            List<Range> ranges = new ArrayList<>();
+            for (String region : regions) {
+                Range range = resolve(index, region, channel.size());
+                if (range == null) {
+                    validationResult.addError("Region '" + region + "' not found in fasta "
+                            + "index");
+                    if (stopAtFirstError) {
+                        return;
+                    }
+                } else {
+                    ranges.add(range);
+                }
+            }
+            ranges = merge(ranges);
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1,
+                    Math.min(parallelism, ranges.size())));
+            try {
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (Range range : ranges) {
+                    tasks.add(() -> validateRange(channel, range));
+                }
+                ChunkedFileValidation.runAll(pool, tasks);
+            } finally {
+                pool.shutdown();
+            }
+            stitch(ranges);
+        }
+    }
+
+    /**
+     * Reads the lines between the sequences of consecutive records, i.e. headers and empty
+     * lines, to find the line number of each header and check headers match index entries
+     * @return false if the index does not match the file
+     */
+    private boolean locateRecords(FileChannel channel) throws IOException {
+        int count = entries.size();
+        headerOffsets = new long[count];
+        headerLines = new long[count];
+        lastLines = new long[count];
+        long size = channel.size();
+        long position = 0;
+        long lineNumber = 0;
+        for (int i = 0; i < count; i++) {
+            FastaIndex.Entry entry = entries.get(i);
+            entryPositions.put(entry, i);
+            long gap = entry.getOffset() - position;
+            if (gap <= 0 || gap > MAX_HEADER_SIZE || lastLetterOffset(entry) > size
+                    || !isLineEnd(channel, entry.getOffset())) {
+                return indexMismatch(entry);
+            }
+            ByteLine header = null;
+            long lines = 0;
+            try (ByteLineParser parser = openLines(channel, position, entry.getOffset())) {
+                ByteLine line;
+                while ((line = parser.parseNext()) != null) {
+                    if (header != null || !isBlank(line) && !FastaValidator.isHeaderLine(line)) {
+                        return indexMismatch(entry);
+                    }
+                    if (FastaValidator.isHeaderLine(line)) {
+                        header = line;
+                        headerOffsets[i] = line.getByteOffset();
+                        String sequenceId = FastaValidator.extractSequenceIdFromHeader(
+                                line.toString());
+                        if (!sequenceId.equals(entry.getName())) {
+                            return indexMismatch(entry);
+                        }
+                    }
+                    lines++;
+                }
+            }
+            if (header == null) {
+                return indexMismatch(entry);
+            }
+            if (i > 0) {
+                lastLines[i - 1] = lineNumber + lines - 1;
+            }
+            headerLines[i] = lineNumber + lines;
+            lineNumber = headerLines[i] + entry.getLineCount();
+            position = Math.min(entry.getEndOffset(), size);
+            if (position < size && !isLineEnd(channel, position)) {
+                return indexMismatch(entry);
+            }
+        }
+        // only empty lines may follow the last record
+        long lines = 0;
+        try (ByteLineParser parser = openLines(channel, position, size)) {
+            ByteLine line;
+            while ((line = parser.parseNext()) != null) {
+                if (!isBlank(line)) {
+                    validationResult.addError("Fasta index does not match file, data at line "
+                            + (lineNumber + lines + 1) + " is not indexed");
+                    return false;
+                }
+                lines++;
+            }
+        }
+        if (count > 0) {
+            lastLines[count - 1] = lineNumber + lines + 1; // same as sequential validation
+        }
+        return true;
+    }
+
+    /**
+     * Test whether the byte before an offset is a line terminator
+     */
+    private static boolean isLineEnd(FileChannel channel, long offset) throws IOException {
+        ByteBuffer lastByte = ByteBuffer.allocate(1);
+        if (channel.read(lastByte, offset - 1) != 1) {
+            return false;
+        }
+        byte terminator = lastByte.get(0);
+        return terminator == '\n' || terminator == '\r';
+    }
+
+    private static long lastLetterOffset(FastaIndex.Entry entry) {
+        long end = entry.getEndOffset();
+        return entry.getLength() == 0 ? end : end - (entry.getLineWidth() - entry.getLineBases());
+    }
+
+    private boolean indexMismatch(FastaIndex.Entry entry) {
+        validationResult.addError("Fasta index does not match file at record '"
+                + entry.getName() + "'");
+        return false;
+    }
+
+    /**
+     * Finds the range of the file of a region
+     * @return range, or null if region is not in the index or its positions are invalid
+     */
+    private Range resolve(FastaIndex index, String region, long size) {
+        Optional<FastaIndex.Entry> entry = index.getEntry(region);
+        if (entry.isPresent()) { // whole record, including header
+            int i = entryPositions.get(entry.get());
+            return new Range(i, headerOffsets[i], Math.min(entry.get().getEndOffset(), size),
+                    headerLines[i], 0, true);
+        }
+        int colon = region.lastIndexOf(':');
+        if (colon < 0) {
+            return null;
+        }
+        entry = index.getEntry(region.substring(0, colon));
+        if (!entry.isPresent()) {
+            return null;
+        }
+        String positions = StringUtils.remove(region.substring(colon + 1), ',');
+        int dash = positions.indexOf('-');
+        long start;
+        long end;
+        try {
+            start = Long.parseLong(dash < 0 ? positions : positions.substring(0, dash));
+            end = (dash < 0 || dash == positions.length() - 1) ? Long.MAX_VALUE
+                    : Long.parseLong(positions.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        FastaIndex.Entry record = entry.get();
+        end = Math.min(end, record.getLength());
+        if (start < 1 || start > end) {
+            return null;
+        }
+        int i = entryPositions.get(record);
+        long firstLine = (start - 1) / record.getLineBases();
+        long lastLine = (end - 1) / record.getLineBases();
+        long rangeEnd = lastLine == record.getLineCount() - 1
+                ? Math.min(record.getEndOffset(), size)
+                : record.getOffset() + (lastLine + 1) * record.getLineWidth();
+        return new Range(i, record.getOffset() + firstLine * record.getLineWidth(), rangeEnd,
+                headerLines[i] + 1 + firstLine, firstLine, false);
+    }
+
+    /**
+     * Sorts ranges in file order and merges overlapping ones, so that no line is validated
+     * twice
+     */
+    private static List<Range> merge(List<Range> ranges) {
+        ranges.sort(Comparator.comparingLong((Range range) -> range.start)
+                .thenComparing(range -> -range.end));
+        List<Range> merged = new ArrayList<>();
+        for (Range range : ranges) {
+            Range last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range.start < last.end) { // ranges of the same record
+                last.end = Math.max(last.end, range.end);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    private Void validateRange(FileChannel channel, Range range) {
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.enableWarnings();
+        range.messages = new DefaultValidationResult(strategy);
+        FastaIndex.Entry entry = entries.get(range.entry);
+        long lineIndex = range.firstLineIndex;
+        try (ByteLineParser parser = openLines(channel, range.start, range.end)) {
+            ByteLine line;
+            while ((line = parser.parseNext()) != null) {
+                long linesCount = range.firstLine + line.getLineNumber() - 1;
+                if (range.hasHeader && line.getLineNumber() == 1) {
+                    range.header = line.toString();
+                    continue;
+                }
+                if (!matchesIndex(entry, line, lineIndex++)) {
+                    range.messages.addError("Fasta index does not match file at line "
+                            + linesCount);
+                    return null;
+                }
+                range.letters += validator.validateSequence(line, linesCount, range.messages);
+                if (!range.messages.isValid() && stopAtFirstError) {
+                    return null;
+                }
+            }
+            if (range.hasHeader && lineIndex < entry.getLineCount()) {
+                range.messages.addError("Fasta index does not match file at record '"
+                        + entry.getName() + "'");
+            }
+        } catch (IOException e) {
+            range.failure = e.getMessage();
+        }
+        return null;
+    }
+
+    /**
+     * Test whether a sequence line has the offset and number of letters given by the index
+     */
+    private static boolean matchesIndex(FastaIndex.Entry entry, ByteLine line, long lineIndex) {
+        long lineCount = entry.getLineCount();
+        if (lineIndex >= lineCount) {
+            return false;
+        }
+        long bases = lineIndex < lineCount - 1 ? entry.getLineBases()
+                : entry.getLength() - (lineCount - 1) * entry.getLineBases();
+        return line.getByteOffset() == entry.getOffset() + lineIndex * entry.getLineWidth()
+                && FastaIndexWriter.countBases(line) == bases;
+    }
+
+    /**
+     * Adds messages of the ranges to the validation result in file order, checking headers
+     * of whole records in between
+     */
+    private void stitch(List<Range> ranges) {
+        FastaValidator.SequenceIdChecker uniqueSequenceIds = validator.new SequenceIdChecker();
+        for (Range range : ranges) {
+            if (range.header != null) {
+                validator.validateHeader(uniqueSequenceIds, range.header, range.firstLine);
+                if (shouldStop()) {
+                    return;
+                }
+            }
+            for (Message error : range.messages.getErrorMessages()) {
+                validationResult.addError(error.getMessage());
+            }
+            for (Message warning : range.messages.getWarningMessages()) {
+                validationResult.addWarning(warning.getMessage());
+            }
+            if (range.failure != null) {
+                validationResult.addError(range.failure);
+            }
+            if (range.hasHeader && range.letters < 1 && range.failure == null
+                    && range.messages.isValid()) {
+                validationResult.addError("Record '" + range.header + "' has empty sequence"
+                        + " at line " + lastLines[range.entry]);
+            }
+            if (shouldStop()) {
+                return;
+            }
+        }
+        uniqueSequenceIds.confirm(validationResult);
+    }
+
+    private boolean shouldStop() {
+        return !validationResult.isValid() && stopAtFirstError;
+    }
+
+    private static boolean isBlank(ByteLine line) {
+        return FastaIndexWriter.countBases(line) == 0;
+    }
+
+    /**
+     * Opens a line parser over a range of the file, ranges of at least MAP_THRESHOLD bytes
+     * are memory-mapped, other ones are read with positional reads
+     */
+    private static ByteLineParser openLines(FileChannel channel, long start, long end)
+            throws IOException {
+        ReadableByteChannel range;
+        if (end - start >= MAP_THRESHOLD && end - start <= Integer.MAX_VALUE) {
+            range = new ByteBufferChannel(channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    end - start));
+        } else {
+            range = new FileRangeChannel(channel, start, end);
+        }
+        return new ByteLineParser(start == 0 ? EncodingCheckingChannel.open(range)
+                : EncodingCheckingChannel.openAt(range, start), READ_BUFFER_SIZE, start);
+    }
+
+    /**
+     * A range of lines of the file to be validated, and what was found in it
+     */
+    private static final class Range
+    {
+        private final int entry;
+        private final long start;
+        private long end;
+        private final long firstLine;
+        private final long firstLineIndex;
+        private final boolean hasHeader;
+        private ValidationResult messages;
+        private String header;
+        private long letters;
+        private String failure;
+
+        private Range(int entry, long start, long end, long firstLine, long firstLineIndex,
+                      boolean hasHeader) {
+            this.entry = entry;
+            this.start = start;
+            this.end = end;
+            this.firstLine = firstLine;
+            this.firstLineIndex = firstLineIndex;
+            this.hasHeader = hasHeader;
+        }
+    }
+}
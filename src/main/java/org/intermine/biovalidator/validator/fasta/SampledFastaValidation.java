@@ -0,0 +1,316 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.DefaultValidationResult;
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.Message;
+import org.intermine.biovalidator.api.Parser;
+import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.parser.ByteLine;
+import org.intermine.biovalidator.parser.ByteLineParser;
+import org.intermine.biovalidator.source.EncodingCheckingChannel;
+import org.intermine.biovalidator.source.FileRangeChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Quick check of a FASTA file validating only samples of it: the first records, the last
+ * records and records found at random offsets, by seeking to the offset and skipping to the
+ * next line starting with '>'. At most DEFAULT_MAX_SAMPLE_SIZE bytes are read for each sample,
+ * so the time taken does not depend on the size of the file, smaller files are fully
+ * validated.
+ * Sequence ids are only checked to be unique inside each sample.
+ *
+ * Messages of the first records have the line numbers of the file. Line numbers of the other
+ * samples are unknown without reading the whole file, their messages are prefixed with the
+ * byte offset of the sample and their line numbers start from 1 at that offset.
+ *
+ * @author deepak
+ */
+final class SampledFastaValidation
+{
+    static final long DEFAULT_MAX_SAMPLE_SIZE = 16L * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final FastaValidator validator;
+    private final ValidationResult validationResult;
+    private final int firstRecords;
+    private final int lastRecords;
+    private final int randomRecords;
+    private long maxSampleSize = DEFAULT_MAX_SAMPLE_SIZE;
+
+    /**
+     * Construct a sampled validation
+     * @param validator validator providing the sequence and record checks
+     * @param validationResult result where errors and warnings are added, all samples are
+     *                         validated even if it stops at the first error
+     * @param firstRecords number of records validated at the beginning of the file
+     * @param lastRecords number of records validated at the end of the file
+     * @param randomRecords number of records validated at random offsets
+     */
+    SampledFastaValidation(FastaValidator validator, ValidationResult validationResult,
+                           int firstRecords, int lastRecords, int randomRecords) {
+        this.validator = validator;
+        this.validationResult = validationResult;
+        this.firstRecords = firstRecords;
+        this.lastRecords = lastRecords;
+        this.randomRecords = randomRecords;
+    }
+
+    /**
+     * Sets the maximum number of bytes read for each sample
+     * @param maxSampleSize size in bytes
+     */
+    void setMaxSampleSize(long maxSampleSize) {
+        this.maxSampleSize = maxSampleSize;
+    }
+
+    /**
+     * Validates the first records of a source that cannot be read at random offsets
+     * @param parser line parser of the source
+     * @return quick check report
+     * @throws IOException if reading fails
+     */
+    QuickCheckReport validateFirstRecords(Parser<ByteLine> parser) throws IOException {
+        Sample first = validateRecords(parser, firstRecords, true, true, validationResult);
+        return new QuickCheckReport(first.isEndOfInput ? first.end : -1, first.end,
+                first.records, first.isEndOfInput ? first.records : -1, 0, 0);
+    }
+
+    /**
+     * Validates samples of a file
+     * @param path uncompressed FASTA file
+     * @return quick check report
+     * @throws IOException if file cannot be read
+     */
+    QuickCheckReport validate(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Sample first;
+            boolean isSmall = size <= maxSampleSize; // validated completely
+            try (ByteLineParser parser = openLines(channel, 0, Math.min(size, maxSampleSize))) {
+                first = validateRecords(parser, isSmall ? Integer.MAX_VALUE : firstRecords, true,
+                        isSmall, validationResult);
+            }
+            if (first.end >= size) {
+                return new QuickCheckReport(size, first.end, first.records, first.records, 0,
+                        0);
+            }
+            long lastStart = Math.max(first.end, findLastRecords(channel, size));
+            long validatedBytes = first.end;
+            long validatedRecords = first.records;
+
+            // records at random offsets between the first and last records, in file order
+            long[] offsets = new Random(size).longs(randomRecords, first.end,
+                    Math.max(first.end + 1, lastStart)).sorted().toArray();
+            long sampledEnd = first.end;
+            long sampledRandom = 0;
+            long invalidRandom = 0;
+            for (long offset : offsets) {
+                long start = nextRecordStart(channel, Math.max(offset, sampledEnd), lastStart);
+                if (start < 0) {
+                    continue;
+                }
+                Sample sample = validateSample(channel, start, lastStart, 1);
+                sampledEnd = sample.end;
+                validatedBytes += sample.end - start;
+                validatedRecords += sample.records;
+                sampledRandom++;
+                if (!sample.isValid) {
+                    invalidRandom++;
+                }
+            }
+            if (lastStart < size) {
+                Sample last = validateSample(channel, lastStart, size, Integer.MAX_VALUE);
+                validatedBytes += last.end - lastStart;
+                validatedRecords += last.records;
+            }
+            long estimatedRecords = validatedBytes == 0 ? -1
+                    : Math.max(validatedRecords, Math.round((double) validatedRecords
+                            * size / validatedBytes));
+            return new QuickCheckReport(size, validatedBytes, validatedRecords,
+                    estimatedRecords, sampledRandom, invalidRandom);
+        }
+    }
+
+    /**
+     * Validates records from a record start, messages are prefixed with the offset
+     */
+    private Sample validateSample(FileChannel channel, long start, long end, int records)
+            throws IOException {
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.enableWarnings();
+        ValidationResult messages = new DefaultValidationResult(strategy);
+        Sample sample;
+        long rangeEnd = Math.min(end, start + maxSampleSize);
+        try (ByteLineParser parser = openLines(channel, start, rangeEnd)) {
+            sample = validateRecords(parser, records, false, rangeEnd == end, messages);
+        } catch (ParsingException e) { // e.g. invalid UTF-8
+            messages.addError(e.getMessage());
+            sample = new Sample(0, start, false);
+        }
+        String prefix = "Sampled record at byte offset " + start + ": ";
+        for (Message error : messages.getErrorMessages()) {
+            validationResult.addError(prefix + error.getMessage());
+        }
+        for (Message warning : messages.getWarningMessages()) {
+            validationResult.addWarning(prefix + warning.getMessage());
+        }
+        sample.isValid = messages.isValid();
+        return sample;
+    }
+
+    /**
+     * Validates lines until the given number of records is read or the parser ends
+     * @param isRecordEnd whether the parser ends at the end of a record, i.e. before a header
+     *                    or at the end of the file
+     */
+    private Sample validateRecords(Parser<ByteLine> parser, int maxRecords, boolean isFileStart,
+                                   boolean isRecordEnd, ValidationResult result)
+            throws IOException {
+        FastaValidator.RecordTracker records = validator.new RecordTracker(result);
+        int count = 0;
+        long lastLine = 0;
+        ByteLine line;
+        try {
+            line = parser.parseNext();
+        } catch (ParsingException e) { // not even a first line
+            if (!isFileStart) {
+                throw e;
+            }
+            result.addError(validator.describeUnreadableStart(e));
+            return new Sample(0, 0, false);
+        }
+        for (; line != null; line = parser.parseNext()) {
+            long lineNumber = line.getLineNumber();
+            boolean isHeader = FastaValidator.isHeaderLine(line);
+            if (isHeader && count == maxRecords) { // next record is not validated
+                records.endRecord(lineNumber);
+                return new Sample(count, line.getByteOffset(), false);
+            }
+            if (lineNumber == 1 && isFileStart && !isHeader) {
+                result.addError(FastaValidator.NOT_FASTA_MESSAGE);
+            } else if (isHeader) {
+                records.startRecord(line, lineNumber);
+                count++;
+            } else {
+                records.addSequenceLength(validator.validateSequence(line, lineNumber, result));
+            }
+            lastLine = lineNumber;
+        }
+        if (isRecordEnd) {
+            records.finish(lastLine);
+        }
+        return new Sample(count, FastaValidator.getBytePosition(parser), true);
+    }
+
+    /**
+     * Finds the start of the last records by reading the end of the file backwards
+     * @return offset of the first of the last records, or size if none was found
+     */
+    private long findLastRecords(FileChannel channel, long size) throws IOException {
+        byte[] array = new byte[READ_BUFFER_SIZE];
+        long limit = Math.max(0, size - maxSampleSize);
+        long blockEnd = size;
+        long found = size;
+        int count = 0;
+        while (blockEnd > limit && count < lastRecords) {
+            long blockStart = Math.max(limit, blockEnd - array.length);
+            int length = (int) (blockEnd - blockStart);
+            readFully(channel, array, blockStart, length);
+            for (int i = length - 1; i >= 0 && count < lastRecords; i--) {
+                if (array[i] == '>' && isLineStart(channel, array, blockStart, i)) {
+                    found = blockStart + i;
+                    count++;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return found;
+    }
+
+    /**
+     * Finds the first line starting with '>' at or after an offset
+     * @return offset of the line, or -1 if there is none before end
+     */
+    private long nextRecordStart(FileChannel channel, long from, long end)
+            throws IOException {
+        byte[] array = new byte[READ_BUFFER_SIZE];
+        long limit = Math.min(end, from + maxSampleSize);
+        for (long blockStart = from; blockStart < limit; blockStart += array.length) {
+            int length = (int) Math.min(array.length, limit - blockStart);
+            readFully(channel, array, blockStart, length);
+            for (int i = 0; i < length; i++) {
+                if (array[i] == '>' && isLineStart(channel, array, blockStart, i)) {
+                    return blockStart + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLineStart(FileChannel channel, byte[] block, long blockStart,
+                                       int index) throws IOException {
+        byte previous;
+        if (index > 0) {
+            previous = block[index - 1];
+        } else if (blockStart == 0) {
+            return true;
+        } else {
+            ByteBuffer previousByte = ByteBuffer.allocate(1);
+            channel.read(previousByte, blockStart - 1);
+            previous = previousByte.get(0);
+        }
+        return previous == '\n' || previous == '\r';
+    }
+
+    private static void readFully(FileChannel channel, byte[] array, long position, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(array, 0, length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at byte offset "
+                        + (position + buffer.position()));
+            }
+        }
+    }
+
+    private static ByteLineParser openLines(FileChannel channel, long start, long end)
+            throws IOException {
+        FileRangeChannel range = new FileRangeChannel(channel, start, end);
+        return new ByteLineParser(start == 0 ? EncodingCheckingChannel.open(range)
+                : EncodingCheckingChannel.openAt(range, start), READ_BUFFER_SIZE, start);
+    }
+
+    /**
+     * Records validated from an offset
+     */
+    private static final class Sample
+    {
+        private final long records;
+        private final long end;
+        private final boolean isEndOfInput;
+        private boolean isValid;
+
+        private Sample(long records, long end, boolean isEndOfInput) {
+            this.records = records;
+            this.end = end;
+            this.isEndOfInput = isEndOfInput;
+        }
+    }
+}
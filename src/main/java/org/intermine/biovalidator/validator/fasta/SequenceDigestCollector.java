@@ -0,0 +1,254 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.parser.ByteLine;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computes MD5 and GA4GH refget (sha512t24u) digests of each record while a FASTA file is
+ * validated. Sequences are normalized as required by refget: whitespaces are removed and
+ * letters are converted to uppercase.
+ *
+ * Normalized letters are copied to a small pool of buffers on the validating thread, full
+ * buffers are hashed on an executor, MD5 and SHA-512 of the same record in parallel. Updates
+ * of each digest are chained so that buffers are hashed in order. When all buffers are in use
+ * the validating thread waits for hashing to catch up.
+ *
+ * @author deepak
+ */
+public final class SequenceDigestCollector implements FastaRecordListener
+{
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int BUFFER_COUNT = 8;
+    private static final int REFGET_DIGEST_BYTES = 24;
+
+    private final Executor executor;
+    private final BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final List<CompletableFuture<RecordDigest>> digests = new ArrayList<>();
+
+    private String name;
+    private long length;
+    private byte[] buffer;
+    private int position;
+    private CompletableFuture<MessageDigest> md5;
+    private CompletableFuture<MessageDigest> sha512;
+
+    /**
+     * Construct a digest collector hashing on the common fork/join pool
+     */
+    public SequenceDigestCollector() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct a digest collector hashing on the given executor
+     * @param executor executor running digest updates
+     */
+    public SequenceDigestCollector(Executor executor) {
+        this.executor = executor;
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            freeBuffers.add(new byte[BUFFER_SIZE]);
+        }
+    }
+
+    @Override
+    public void startRecord(String sequenceId, ByteLine header, ValidationResult result)
+        throws IOException {
+        releaseBuffer(); // record left unfinished when the previous validation stopped
+        name = sequenceId;
+        length = 0;
+        md5 = CompletableFuture.completedFuture(newDigest("MD5"));
+        sha512 = CompletableFuture.completedFuture(newDigest("SHA-512"));
+        buffer = takeBuffer();
+        position = 0;
+    }
+
+    @Override
+    public void sequenceLine(ByteLine line, ValidationResult result) throws IOException {
+        byte[] src = line.getBuffer();
+        for (int i = line.getOffset(), end = i + line.length(); i < end; i++) {
+            byte b = SequenceHashing.normalize(src[i]);
+            if (b != SequenceHashing.SKIPPED) {
+                if (position == BUFFER_SIZE) {
+                    hashBuffer();
+                    buffer = takeBuffer();
+                    position = 0;
+                }
+                buffer[position++] = b;
+            }
+        }
+    }
+
+    @Override
+    public void endRecord(long endOffset, ValidationResult result) {
+        hashBuffer();
+        buffer = null;
+        String recordName = name;
+        long recordLength = length;
+        digests.add(md5.thenCombine(sha512, (md5Digest, sha512Digest) -> new RecordDigest(
+                recordName, recordLength, toHex(md5Digest.digest()),
+                Base64.getUrlEncoder().withoutPadding().encodeToString(
+                        Arrays.copyOf(sha512Digest.digest(), REFGET_DIGEST_BYTES)))));
+    }
+
+    @Override
+    public void endOfInput(ValidationResult result) {
+        releaseBuffer();
+    }
+
+    /**
+     * Puts the buffer of an unfinished record, which is not being hashed, back in the pool
+     */
+    private void releaseBuffer() {
+        if (buffer != null) {
+            freeBuffers.add(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Hands the current buffer over to the digests, it goes back to the pool once both
+     * digests are updated
+     */
+    private void hashBuffer() {
+        byte[] data = buffer;
+        int size = position;
+        length += size;
+        md5 = md5.thenApplyAsync(digest -> update(digest, data, size), executor);
+        sha512 = sha512.thenApplyAsync(digest -> update(digest, data, size), executor);
+        md5.runAfterBoth(sha512, () -> freeBuffers.add(data));
+    }
+
+    private static MessageDigest update(MessageDigest digest, byte[] data, int size) {
+        digest.update(data, 0, size);
+        return digest;
+    }
+
+    private byte[] takeBuffer() throws InterruptedIOException {
+        try {
+            return freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("digest computation interrupted");
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " not supported", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Gets digests of the records collected so far in file order, waits for pending hashing
+     * @return record digests
+     */
+    public List<RecordDigest> getDigests() {
+        List<RecordDigest> result = new ArrayList<>(digests.size());
+        for (CompletableFuture<RecordDigest> digest : digests) {
+            result.add(digest.join());
+        }
+        return result;
+    }
+
+    /**
+     * Writes digests as tab separated values, one line per record with name, length, MD5 and
+     * refget digest
+     * @param out destination, not closed
+     * @throws IOException if writing fails
+     */
+    public void writeTsv(Writer out) throws IOException {
+        out.write("name\tlength\tmd5\tsha512t24u\n");
+        for (RecordDigest digest : getDigests()) {
+            out.write(digest.name + "\t" + digest.length + "\t" + digest.md5 + "\t"
+                    + digest.sha512t24u + "\n");
+        }
+        out.flush();
+    }
+
+    /**
+     * Digests of the normalized sequence of a record
+     */
+    public static final class RecordDigest
+    {
+        private final String name;
+        private final long length;
+        private final String md5;
+        private final String sha512t24u;
+
+        private RecordDigest(String name, long length, String md5, String sha512t24u) {
+            this.name = name;
+            this.length = length;
+            this.md5 = md5;
+            this.sha512t24u = sha512t24u;
+        }
+
+        /**
+         * Gets sequence id
+         * @return name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets number of letters of the normalized sequence
+         * @return length
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Gets MD5 digest of the normalized sequence as lowercase hex
+         * @return MD5 digest
+         */
+        public String getMd5() {
+            return md5;
+        }
+
+        /**
+         * Gets refget digest, i.e. the first 24 bytes of the SHA-512 digest of the normalized
+         * sequence as base64url, identifiers of refget are this digest prefixed with 'SQ.'
+         * @return sha512t24u digest
+         */
+        public String getSha512t24u() {
+            return sha512t24u;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+/**
+ * Normalization and hashing shared by the classes fingerprinting sequences and sequence ids,
+ * so that they agree on which bytes of a sequence are letters
+ *
+ * @author deepak
+ */
+final class SequenceHashing
+{
+    /**
+     * normalized value of whitespaces and control bytes, which are not part of a sequence
+     */
+    static final byte SKIPPED = 0;
+
+    private static final byte[] NORMALIZED = new byte[256];
+
+    static {
+        for (int b = '!'; b < 256; b++) {
+            NORMALIZED[b] = (byte) (b >= 'a' && b <= 'z' ? b - ('a' - 'A') : b);
+        }
+    }
+
+    private SequenceHashing() {
+    }
+
+    /**
+     * Normalizes a sequence byte as required by refget: letters are converted to uppercase
+     * @param b byte of a sequence line
+     * @return uppercase byte, or {@link #SKIPPED} for whitespaces and control bytes
+     */
+    static byte normalize(byte b) {
+        return NORMALIZED[b & 0xFF];
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads all bits of the input over the output
+     * @param value value to mix
+     * @return mixed value
+     */
+    static long fmix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
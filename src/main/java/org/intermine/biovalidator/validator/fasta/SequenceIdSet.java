@@ -0,0 +1,179 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import javax.annotation.Nonnull;
+
+/**
+ * A set of sequence id fingerprints for detecting duplicate headers in files with hundreds of
+ * millions of records. Each id is reduced to a 64-bit fingerprint kept in a primitive
+ * open-addressing table, ids themselves are not stored. Memory use is 8 bytes per slot, 11 to
+ * 21 bytes per id depending on the load of the table, instead of 100+ bytes for a HashSet of
+ * Strings.
+ *
+ * A fingerprint which was already added means the id is most likely a duplicate, two different
+ * ids have the same fingerprint with a probability of about n^2 / 2^65 for n ids. Callers that
+ * need certainty confirm the (few) matches exactly, see FastaValidator.SequenceIdChecker.
+ *
+ * The table does not grow beyond a memory budget, once it is full ids are not checked anymore,
+ * see isOverBudget().
+ *
+ * @author deepak
+ */
+public final class SequenceIdSet
+{
+    /**
+     * default memory budget, a quarter of the maximum heap size
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int BYTES_PER_SLOT = Long.BYTES;
+    private static final int LOAD_FACTOR_PERCENT = 75;
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final long memoryBudget;
+    private long[] fingerprints;
+    private int mask;
+    private int size;
+    private boolean overBudget;
+
+    /**
+     * Construct a set with a memory budget
+     * @param memoryBudget maximum number of bytes used by the table
+     */
+    public SequenceIdSet(long memoryBudget) {
+        if (memoryBudget < (long) INITIAL_CAPACITY * BYTES_PER_SLOT) {
+            throw new IllegalArgumentException("memory budget must be at least "
+                    + INITIAL_CAPACITY * BYTES_PER_SLOT + " bytes");
+        }
+        this.memoryBudget = memoryBudget;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Construct a set with the default memory budget
+     */
+    public SequenceIdSet() {
+        this(DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Adds an id
+     * @param id sequence id
+     * @return false if the fingerprint of the id was already added, true if it is new or if the
+     *         set is over its memory budget
+     */
+    public boolean add(@Nonnull CharSequence id) {
+        return add(id, 0, id.length());
+    }
+
+    /**
+     * Adds an id which is a range of a char sequence, e.g. of a header line, without copying it
+     * @param chars chars containing the id
+     * @param start index of the first char of the id, inclusive
+     * @param end index after the last char of the id, exclusive
+     * @return false if the fingerprint of the id was already added, true if it is new or if the
+     *         set is over its memory budget
+     */
+    public boolean add(@Nonnull CharSequence chars, int start, int end) {
+        if (overBudget) {
+            return true;
+        }
+        long fingerprint = fingerprint(chars, start, end);
+        for (int slot = (int) fingerprint & mask;; slot = (slot + 1) & mask) {
+            long existing = fingerprints[slot];
+            if (existing == 0) {
+                break;
+            }
+            if (existing == fingerprint) {
+                return false;
+            }
+        }
+        if ((size + 1) * 100L > (mask + 1L) * LOAD_FACTOR_PERCENT && !grow()) {
+            overBudget = true;
+            return true;
+        }
+        insert(fingerprint);
+        size++;
+        return true;
+    }
+
+    /**
+     * Gets the fingerprint of an id, never 0
+     * @param chars chars containing the id
+     * @param start index of the first char of the id, inclusive
+     * @param end index after the last char of the id, exclusive
+     * @return 64-bit fingerprint
+     */
+    static long fingerprint(CharSequence chars, int start, int end) {
+        long fnv = FNV_OFFSET_BASIS;
+        for (int i = start; i < end; i++) {
+            fnv = (fnv ^ chars.charAt(i)) * FNV_PRIME;
+        }
+        long fingerprint = SequenceHashing.fmix(fnv ^ (end - start));
+        return fingerprint == 0 ? 1 : fingerprint; // 0 marks an empty slot
+    }
+
+    /**
+     * Gets number of ids added
+     * @return number of distinct fingerprints
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Test whether the set reached its memory budget, ids added afterwards are not checked
+     * @return true if over budget
+     */
+    public boolean isOverBudget() {
+        return overBudget;
+    }
+
+    /**
+     * Gets number of bytes used by the table
+     * @return memory use in bytes
+     */
+    public long getMemoryUsage() {
+        return (mask + 1L) * BYTES_PER_SLOT;
+    }
+
+    private boolean grow() {
+        long capacity = (mask + 1L) * 2;
+        if (capacity > MAX_CAPACITY || capacity * BYTES_PER_SLOT > memoryBudget) {
+            return false;
+        }
+        long[] oldFingerprints = fingerprints;
+        allocate((int) capacity);
+        for (long fingerprint : oldFingerprints) {
+            if (fingerprint != 0) {
+                insert(fingerprint);
+            }
+        }
+        return true;
+    }
+
+    private void allocate(int capacity) {
+        fingerprints = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private void insert(long fingerprint) {
+        int slot = (int) fingerprint & mask;
+        while (fingerprints[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        fingerprints[slot] = fingerprint;
+    }
+}
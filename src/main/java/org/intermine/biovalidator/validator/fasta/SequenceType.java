@@ -14,5 +14,11 @@ public enum SequenceType {
     /**
      * Represents file validator types supported by builder
      */
-    DNA, RNA, PROTEIN, ALL
+    DNA, RNA, PROTEIN, ALL,
+
+    /**
+     * Detect DNA, RNA or protein from the first residues of the file, see
+     * {@link FastaValidator#enableSequenceTypeDetection()}
+     */
+    AUTO
 }
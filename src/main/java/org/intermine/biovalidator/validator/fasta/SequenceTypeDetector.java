@@ -0,0 +1,106 @@
+package org.intermine.biovalidator.validator.fasta;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.validator.fasta.sequencevalidator.SequenceAlphabet;
+
+/**
+ * Detects whether sequences are DNA, RNA or protein from the composition of their first
+ * residues. Sequences are nucleic acids if all letters are IUPAC nucleotide codes and at least
+ * 90% of them are A, C, G, T, U or N, RNA if there are more U than T. Otherwise sequences made
+ * only of letters and '*' are protein. Gaps ('-' and '.') and whitespaces are not counted.
+ *
+ * @author deepak
+ */
+final class SequenceTypeDetector
+{
+    /**
+     * number of residues after which the type is detected
+     */
+    static final int SAMPLE_SIZE = 256 * 1024;
+    private static final double MIN_NUCLEOTIDE_FRACTION = 0.9;
+
+    private final long[] counts = new long[256];
+    private long residues;
+
+    /**
+     * Counts the residues of a range of raw bytes
+     * @param buffer bytes of the sequence
+     * @param from index of the first byte, inclusive
+     * @param to index after the last byte, exclusive
+     */
+    void add(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            counts[buffer[i] & 0xFF]++;
+        }
+        residues += to - from;
+    }
+
+    /**
+     * Counts the residues of a sequence, chars beyond the byte range are counted as one
+     * invalid residue
+     * @param sequence sequence line
+     */
+    void add(CharSequence sequence) {
+        for (int i = 0; i < sequence.length(); i++) {
+            counts[Math.min(sequence.charAt(i), 0xFF)]++;
+        }
+        residues += sequence.length();
+    }
+
+    /**
+     * Test whether enough residues were counted to detect the type
+     * @return true if at least SAMPLE_SIZE residues were counted
+     */
+    boolean isSampled() {
+        return residues >= SAMPLE_SIZE;
+    }
+
+    /**
+     * Gets the type of the counted residues
+     * @return DNA, RNA or PROTEIN, ALL if there are no residues or if they are not all letters
+     */
+    SequenceType detect() {
+        long letters = 0;
+        long nucleotides = 0;
+        long others = 0;
+        for (int c = 0; c < counts.length; c++) {
+            long count = counts[c];
+            if (count == 0 || c == '-' || c == '.' || c <= ' ') {
+                continue;
+            }
+            char letter = Character.toUpperCase((char) c);
+            if (letter >= 'A' && letter <= 'Z') {
+                letters += count;
+                if (SequenceAlphabet.IUPAC_NUCLEOTIDE_LETTERS.indexOf(letter) < 0) {
+                    others += count;
+                } else if ("ACGTUN".indexOf(letter) >= 0) {
+                    nucleotides += count;
+                }
+            } else if (c == '*') {
+                others += count;
+            } else {
+                return SequenceType.ALL;
+            }
+        }
+        if (letters == 0) {
+            return SequenceType.ALL;
+        }
+        if (others == 0 && nucleotides >= MIN_NUCLEOTIDE_FRACTION * letters) {
+            return count('U', 'u') > count('T', 't') ? SequenceType.RNA : SequenceType.DNA;
+        }
+        return SequenceType.PROTEIN;
+    }
+
+    private long count(char upperCase, char lowerCase) {
+        return counts[upperCase] + counts[lowerCase];
+    }
+}
@@ -14,6 +14,7 @@ import org.intermine.biovalidator.api.ErrorMessage;
 import org.intermine.biovalidator.api.ValidationResult;
 
 import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
 
 /**
  * This class provides a skeletal implementation of SequenceValidator
@@ -22,6 +23,8 @@ import javax.annotation.Nonnull;
  */
 public abstract class AbstractSequenceValidator implements SequenceValidator
 {
+    private ResidueTable residueTable;
+
     /**
      * Generic implementation of validate() methods that iterate over each
      * character of the string and checks whether a character is valid or not
@@ -30,26 +33,55 @@ public abstract class AbstractSequenceValidator implements SequenceValidator
      *  by @overriding only isValid() method, that will be called for each character]
      */
     @Override
-    public int validate(@Nonnull String sequence, long seqLineNo,
+    public int validate(@Nonnull CharSequence sequence, long seqLineNo,
                             @Nonnull ValidationResult validationResult) {
-        for (int i = 0; i < sequence.length(); i++) {
-            if (!isValidLetter(sequence.charAt(i))) {
-                String msg = "Invalid letter " + sequence.charAt(i)
-                        + " at line number " + seqLineNo + ", column " + (i + 1);
-                validationResult.addError(ErrorMessage.of(msg));
-                return (i + 1);
-            }
+        int i = indexOfInvalid(sequence, 0, sequence.length());
+        if (i >= 0) {
+            String msg = "Invalid letter " + sequence.charAt(i)
+                    + " at line number " + seqLineNo + ", column " + (i + 1);
+            validationResult.addError(ErrorMessage.of(msg));
+            return (i + 1);
         }
         return sequence.length();
     }
 
+    @Override
+    public int indexOfInvalid(@Nonnull byte[] buffer, int from, int to) {
+        return getResidueTable().indexOfInvalid(buffer, from, to);
+    }
+
+    @Override
+    public int indexOfInvalid(@Nonnull ByteBuffer buffer, int from, int to) {
+        return getResidueTable().indexOfInvalid(buffer, from, to);
+    }
+
+    @Override
+    public int indexOfInvalid(@Nonnull CharSequence sequence, int from, int to) {
+        ResidueTable table = getResidueTable();
+        int i = table.indexOfInvalid(sequence, from, to);
+        // chars beyond the table, e.g. unicode whitespaces, are checked by isValidLetter()
+        while (i >= 0 && isValidLetter(sequence.charAt(i))) {
+            i = table.indexOfInvalid(sequence, i + 1, to);
+        }
+        return i;
+    }
+
     @Override
     public boolean isValid(@Nonnull String seq) {
-        for (char c: seq.toCharArray()) {
-            if (!isValidLetter(c)) {
-                return false;
-            }
+        return indexOfInvalid(seq, 0, seq.length()) < 0;
+    }
+
+    /**
+     * Gets the lookup table of valid bytes, built from isValidLetter() on first use as
+     * subclasses may not be initialised yet when this constructor runs
+     * @return residue table
+     */
+    protected ResidueTable getResidueTable() {
+        ResidueTable table = residueTable;
+        if (table == null) {
+            table = ResidueTable.of(this);
+            residueTable = table;
         }
-        return true;
+        return table;
     }
 }
@@ -0,0 +1,49 @@
+package org.intermine.biovalidator.validator.fasta.sequencevalidator;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import javax.annotation.Nonnull;
+
+/**
+ * Sequence validator accepting only the letters of a SequenceAlphabet
+ *
+ * @author deepak
+ */
+public final class AlphabetSequenceValidator extends AbstractSequenceValidator
+{
+    private final SequenceAlphabet alphabet;
+
+    /**
+     * Construct a validator with an alphabet
+     * @param alphabet allowed letters
+     */
+    public AlphabetSequenceValidator(@Nonnull SequenceAlphabet alphabet) {
+        this.alphabet = alphabet;
+    }
+
+    @Override
+    public boolean isValidLetter(char c) {
+        return alphabet.contains(c);
+    }
+
+    @Override
+    protected ResidueTable getResidueTable() {
+        return alphabet.getResidueTable();
+    }
+
+    /**
+     * Gets the alphabet
+     * @return alphabet
+     */
+    public SequenceAlphabet getAlphabet() {
+        return alphabet;
+    }
+}
@@ -29,7 +29,7 @@ public final class NucleicAcidSequenceValidator extends AbstractSequenceValidato
      * from Java's Autoboxing-Unboxing while look-up.
      */
     public NucleicAcidSequenceValidator() {
-        String validLetters = "ACGTNUKSYMWRVBHD";
+        String validLetters = SequenceAlphabet.IUPAC_NUCLEOTIDE_LETTERS;
         Set<Character> seqSet = new HashSet<>();
         for (char c: validLetters.toCharArray()) {
             seqSet.add(Character.toUpperCase(c));
@@ -31,7 +31,7 @@ public final class NucleicAcidSequenceValidatorWithArray extends AbstractSequenc
      * </p>
      */
     public NucleicAcidSequenceValidatorWithArray() {
-        String validLetters = "ACGTNUKSYMWRVBHD";
+        String validLetters = SequenceAlphabet.IUPAC_NUCLEOTIDE_LETTERS;
         validSequenceLetters = new boolean[CONTAINER_SIZE];
         for (char c: validLetters.toCharArray()) {
             int alphabetIndex = getAlphabetIndex(c);
@@ -0,0 +1,220 @@
+package org.intermine.biovalidator.validator.fasta.sequencevalidator;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A 256-entry lookup table of valid sequence bytes, so that validating raw bytes is a single
+ * array load per residue instead of a virtual isValidLetter() call with case conversion and
+ * whitespace checks. Bytes are mapped to chars as ISO-8859-1, same as ByteLine does.
+ *
+ * Byte ranges are checked 8 bytes at a time (SWAR) when the table accepts all letters
+ * (protein and generic sequences) or at least ACGTN in both cases (nucleic acid sequences),
+ * a word made only of such letters is accepted with a few mask operations. Only words with
+ * other bytes (gaps, whitespaces, invalid letters) are checked byte by byte in the table.
+ *
+ * @author deepak
+ */
+public final class ResidueTable
+{
+    private static final int SIZE = 256;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long LOWER_CASE_BITS = 0x2020202020202020L;
+    private static final long AT_LEAST_A = ONES * (0x80 - 'a');
+    private static final long ABOVE_Z = ONES * (0x7F - 'z');
+    private static final long[] NUCLEOTIDES = {ONES * 'a', ONES * 'c', ONES * 'g', ONES * 't',
+        ONES * 'n'};
+
+    /**
+     * Words that can be accepted without table lookups
+     */
+    private enum FastPath
+    {
+        LETTERS, NUCLEOTIDES, NONE
+    }
+
+    private final boolean[] validBytes;
+    private final FastPath fastPath;
+
+    private ResidueTable(boolean[] validBytes) {
+        this.validBytes = validBytes;
+        if (acceptsAll(validBytes, "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ")) {
+            this.fastPath = FastPath.LETTERS;
+        } else if (acceptsAll(validBytes, "acgtnACGTN")) {
+            this.fastPath = FastPath.NUCLEOTIDES;
+        } else {
+            this.fastPath = FastPath.NONE;
+        }
+    }
+
+    private static boolean acceptsAll(boolean[] validBytes, String letters) {
+        for (int i = 0; i < letters.length(); i++) {
+            if (!validBytes[letters.charAt(i)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a table from an array of 256 flags, the array is not copied
+     * @param validBytes flags indexed by unsigned byte value
+     * @return lookup table
+     */
+    static ResidueTable of(boolean[] validBytes) {
+        return new ResidueTable(validBytes);
+    }
+
+    /**
+     * Creates a table from the letters accepted by a sequence validator
+     * @param sequenceValidator validator whose isValidLetter() is evaluated for every byte
+     * @return lookup table
+     */
+    public static ResidueTable of(SequenceValidator sequenceValidator) {
+        boolean[] validBytes = new boolean[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            validBytes[i] = sequenceValidator.isValidLetter((char) i);
+        }
+        return new ResidueTable(validBytes);
+    }
+
+    /**
+     * Test whether a byte is a valid letter
+     * @param b byte to be tested
+     * @return true if valid
+     */
+    public boolean isValid(byte b) {
+        return validBytes[b & 0xFF];
+    }
+
+    /**
+     * Test whether a char is a valid letter, chars outside of the table are invalid
+     * @param c char to be tested
+     * @return true if valid
+     */
+    public boolean isValid(char c) {
+        return c < SIZE && validBytes[c];
+    }
+
+    /**
+     * Finds the first invalid byte in a range
+     * @param buffer bytes to be validated
+     * @param from index of the first byte, inclusive
+     * @param to index after the last byte, exclusive
+     * @return index of the first invalid byte or -1 if all bytes are valid
+     */
+    public int indexOfInvalid(byte[] buffer, int from, int to) {
+        int i = from;
+        if (fastPath != FastPath.NONE) {
+            ByteBuffer words = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+            for (; i + Long.BYTES <= to; i += Long.BYTES) {
+                if (!isFastWord(words.getLong(i))) {
+                    int invalid = indexOfInvalidByte(buffer, i, i + Long.BYTES);
+                    if (invalid >= 0) {
+                        return invalid;
+                    }
+                }
+            }
+        }
+        return indexOfInvalidByte(buffer, i, to);
+    }
+
+    /**
+     * Finds the first invalid byte in a range of a buffer, position and limit of the buffer
+     * are ignored and not modified
+     * @param buffer bytes to be validated, heap or direct
+     * @param from index of the first byte, inclusive
+     * @param to index after the last byte, exclusive
+     * @return index of the first invalid byte or -1 if all bytes are valid
+     */
+    public int indexOfInvalid(ByteBuffer buffer, int from, int to) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            int invalid = indexOfInvalid(buffer.array(), offset + from, offset + to);
+            return invalid < 0 ? -1 : invalid - offset;
+        }
+        ByteBuffer words = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int i = from;
+        if (fastPath != FastPath.NONE) {
+            for (; i + Long.BYTES <= to; i += Long.BYTES) {
+                if (!isFastWord(words.getLong(i))) {
+                    int invalid = indexOfInvalidByte(words, i, i + Long.BYTES);
+                    if (invalid >= 0) {
+                        return invalid;
+                    }
+                }
+            }
+        }
+        return indexOfInvalidByte(words, i, to);
+    }
+
+    /**
+     * Finds the first invalid char in a range, chars outside of the table are invalid
+     * @param sequence chars to be validated
+     * @param from index of the first char, inclusive
+     * @param to index after the last char, exclusive
+     * @return index of the first invalid char or -1 if all chars are valid
+     */
+    public int indexOfInvalid(CharSequence sequence, int from, int to) {
+        boolean[] table = validBytes;
+        for (int i = from; i < to; i++) {
+            char c = sequence.charAt(i);
+            if (c >= SIZE || !table[c]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Test whether 8 bytes are all letters accepted by the fast path
+     */
+    private boolean isFastWord(long word) {
+        long folded = word | LOWER_CASE_BITS; // upper case letters to lower case
+        if (fastPath == FastPath.LETTERS) {
+            // all bytes ASCII and in 'a'..'z' after folding, per byte sums never carry
+            long low = folded & LOW_7_BITS;
+            long atLeastA = low + AT_LEAST_A;
+            long aboveZ = low + ABOVE_Z;
+            return ((atLeastA & ~aboveZ & ~word) & HIGH_BITS) == HIGH_BITS;
+        }
+        long matches = 0;
+        for (long nucleotide : NUCLEOTIDES) {
+            long x = folded ^ nucleotide; // zero bytes where the letter matches
+            matches |= ~((((x & LOW_7_BITS) + LOW_7_BITS) | x) | LOW_7_BITS);
+        }
+        return matches == HIGH_BITS;
+    }
+
+    private int indexOfInvalidByte(byte[] buffer, int from, int to) {
+        boolean[] table = validBytes;
+        for (int i = from; i < to; i++) {
+            if (!table[buffer[i] & 0xFF]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfInvalidByte(ByteBuffer buffer, int from, int to) {
+        boolean[] table = validBytes;
+        for (int i = from; i < to; i++) {
+            if (!table[buffer.get(i) & 0xFF]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
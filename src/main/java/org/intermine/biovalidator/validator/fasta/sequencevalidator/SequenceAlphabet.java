@@ -0,0 +1,196 @@
+package org.intermine.biovalidator.validator.fasta.sequencevalidator;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import javax.annotation.Nonnull;
+import java.util.Locale;
+
+/**
+ * An immutable set of letters allowed in sequences, e.g. only ACGTN, IUPAC nucleotide codes or
+ * the standard amino acids. Upper case letters are allowed as given, lower case letters only
+ * with soft-masking, and gap characters '-' and '.' only in alignment mode. Whitespaces are
+ * never part of an alphabet.
+ *
+ * An alphabet is compiled once into a ResidueTable which is shared by all validators using
+ * it, so checking a strict alphabet costs the same as the default validation.
+ *
+ * @author deepak
+ */
+public final class SequenceAlphabet
+{
+    /**
+     * IUPAC nucleotide codes, both for DNA and RNA
+     */
+    public static final String IUPAC_NUCLEOTIDE_LETTERS = "ACGTNUKSYMWRVBHD";
+
+    /**
+     * A, C, G, T and N in upper case only
+     */
+    public static final SequenceAlphabet ACGTN = new SequenceAlphabet("ACGTN", false, false);
+
+    /**
+     * IUPAC nucleotide codes, lower case letters (soft-masked regions) allowed
+     */
+    public static final SequenceAlphabet IUPAC_NUCLEOTIDE =
+            new SequenceAlphabet(IUPAC_NUCLEOTIDE_LETTERS, true, false);
+
+    /**
+     * IUPAC nucleotide codes without T, lower case letters allowed
+     */
+    public static final SequenceAlphabet IUPAC_RNA =
+            new SequenceAlphabet("ACGUNKSYMWRVBHD", true, false);
+
+    /**
+     * The 20 standard amino acids, selenocysteine (U), pyrrolysine (O) and unknown (X), lower
+     * case letters allowed
+     */
+    public static final SequenceAlphabet PROTEIN =
+            new SequenceAlphabet("ACDEFGHIKLMNPQRSTVWYUOX", true, false);
+
+    /**
+     * The protein letters with the ambiguity codes B, Z and J and the translation stop '*',
+     * lower case letters allowed
+     */
+    public static final SequenceAlphabet IUPAC_PROTEIN =
+            new SequenceAlphabet("ACDEFGHIKLMNPQRSTVWYUOXBZJ*", true, false);
+
+    private static final String GAPS = "-.";
+    private static final int TABLE_SIZE = 256;
+
+    private final String letters;
+    private final boolean softMasked;
+    private final boolean gapped;
+    private final ResidueTable residueTable;
+
+    private SequenceAlphabet(String letters, boolean softMasked, boolean gapped) {
+        this.letters = letters;
+        this.softMasked = softMasked;
+        this.gapped = gapped;
+        boolean[] validBytes = new boolean[TABLE_SIZE];
+        for (int i = 0; i < letters.length(); i++) {
+            char c = letters.charAt(i);
+            if (c <= ' ' || c >= 0x7F || c == '>') {
+                throw new IllegalArgumentException("Invalid alphabet letter '" + c
+                        + "', letters must be printable ASCII characters");
+            }
+            validBytes[c] = true;
+            if (softMasked) {
+                validBytes[Character.toLowerCase(c)] = true;
+            }
+        }
+        if (gapped) {
+            for (int i = 0; i < GAPS.length(); i++) {
+                validBytes[GAPS.charAt(i)] = true;
+            }
+        }
+        this.residueTable = ResidueTable.of(validBytes);
+    }
+
+    /**
+     * Creates an alphabet with the given letters, case-sensitive
+     * @param letters allowed letters
+     * @return alphabet
+     */
+    public static SequenceAlphabet of(@Nonnull String letters) {
+        if (letters.isEmpty()) {
+            throw new IllegalArgumentException("alphabet must have at least one letter");
+        }
+        return new SequenceAlphabet(letters, false, false);
+    }
+
+    /**
+     * Gets an alphabet by name (acgtn, iupac, rna, protein or iupac-protein,
+     * case-insensitive), any other
+     * value is used as the list of allowed letters, e.g. "ACGT"
+     * @param nameOrLetters name of a predefined alphabet or letters
+     * @return alphabet
+     */
+    public static SequenceAlphabet parse(@Nonnull String nameOrLetters) {
+        switch (nameOrLetters.toLowerCase(Locale.ENGLISH)) {
+            case "acgtn":
+                return ACGTN;
+            case "iupac":
+            case "dna":
+                return IUPAC_NUCLEOTIDE;
+            case "rna":
+                return IUPAC_RNA;
+            case "protein":
+                return PROTEIN;
+            case "iupac-protein":
+                return IUPAC_PROTEIN;
+            default:
+                return of(nameOrLetters);
+        }
+    }
+
+    /**
+     * Gets the same alphabet also allowing lower case letters, as used for soft-masked
+     * (e.g. repeat) regions
+     * @return alphabet
+     */
+    public SequenceAlphabet withSoftMasking() {
+        return softMasked ? this : new SequenceAlphabet(letters, true, gapped);
+    }
+
+    /**
+     * Gets the same alphabet also allowing gap characters '-' and '.', as used in alignments
+     * @return alphabet
+     */
+    public SequenceAlphabet withGaps() {
+        return gapped ? this : new SequenceAlphabet(letters, softMasked, true);
+    }
+
+    /**
+     * Test whether a letter is part of the alphabet
+     * @param c letter
+     * @return true if allowed
+     */
+    public boolean contains(char c) {
+        return residueTable.isValid(c);
+    }
+
+    /**
+     * Gets the compiled lookup table of this alphabet
+     * @return residue table
+     */
+    public ResidueTable getResidueTable() {
+        return residueTable;
+    }
+
+    /**
+     * Gets the allowed letters, as given
+     * @return letters
+     */
+    public String getLetters() {
+        return letters;
+    }
+
+    /**
+     * Test whether lower case letters are allowed
+     * @return true if soft-masking is allowed
+     */
+    public boolean isSoftMasked() {
+        return softMasked;
+    }
+
+    /**
+     * Test whether gap characters are allowed
+     * @return true in alignment mode
+     */
+    public boolean isGapped() {
+        return gapped;
+    }
+
+    @Override
+    public String toString() {
+        return letters + (softMasked ? " (soft-masked)" : "") + (gapped ? " (gapped)" : "");
+    }
+}
@@ -10,9 +10,12 @@ package org.intermine.biovalidator.validator.fasta.sequencevalidator;
  *
  */
 
+import org.intermine.biovalidator.api.ErrorMessage;
 import org.intermine.biovalidator.api.ValidationResult;
 
 import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * An immutable sequence validator
@@ -31,7 +34,91 @@ public interface SequenceValidator
      * @param result validation result where validation error can be added
      * @return return boolean indicating failure or success
      */
-    int validate(@Nonnull String sequence, long seqLineNo, @Nonnull ValidationResult result);
+    int validate(@Nonnull CharSequence sequence, long seqLineNo,
+                 @Nonnull ValidationResult result);
+
+    /**
+     * Same as validate(CharSequence, long, ValidationResult) for a range of raw bytes, each
+     * byte is treated as one letter
+     * @param buffer bytes of the sequence
+     * @param from index of the first byte of the sequence, inclusive
+     * @param to index after the last byte of the sequence, exclusive
+     * @param seqLineNo line number of the sequence inside the source data
+     * @param result validation result where validation error can be added
+     * @return number of letters validated, up to and including the first invalid letter
+     */
+    default int validate(@Nonnull byte[] buffer, int from, int to, long seqLineNo,
+                         @Nonnull ValidationResult result) {
+        int invalid = indexOfInvalid(buffer, from, to);
+        if (invalid < 0) {
+            return to - from;
+        }
+        // input is UTF-8, report the whole character and count columns in characters, as
+        // validate(CharSequence...) does for decoded lines
+        int leadByte = buffer[invalid] & 0xFF;
+        int letterLength = leadByte >= 0xF0 ? 4 : leadByte >= 0xE0 ? 3 : leadByte >= 0xC0 ? 2 : 1;
+        String letter = new String(buffer, invalid, Math.min(letterLength, to - invalid),
+                StandardCharsets.UTF_8);
+        int column = 1;
+        for (int i = from; i < invalid; i++) {
+            if ((buffer[i] & 0xC0) != 0x80) { // not a continuation byte
+                column++;
+            }
+        }
+        result.addError(ErrorMessage.of("Invalid letter " + letter + " at line number "
+                + seqLineNo + ", column " + column));
+        return invalid - from + 1;
+    }
+
+    /**
+     * Finds the first invalid letter in a range of raw bytes, each byte is treated as one
+     * letter
+     * @param buffer bytes of the sequence
+     * @param from index of the first byte, inclusive
+     * @param to index after the last byte, exclusive
+     * @return index of the first invalid byte or -1 if all bytes are valid
+     */
+    default int indexOfInvalid(@Nonnull byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isValidLetter((char) (buffer[i] & 0xFF))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first invalid letter in a range of a buffer, each byte is treated as one
+     * letter, position and limit of the buffer are ignored and not modified
+     * @param buffer bytes of the sequence, heap or direct
+     * @param from index of the first byte, inclusive
+     * @param to index after the last byte, exclusive
+     * @return index of the first invalid byte or -1 if all bytes are valid
+     */
+    default int indexOfInvalid(@Nonnull ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isValidLetter((char) (buffer.get(i) & 0xFF))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first invalid letter in a range of chars
+     * @param sequence sequence to be validated
+     * @param from index of the first char, inclusive
+     * @param to index after the last char, exclusive
+     * @return index of the first invalid char or -1 if all chars are valid
+     */
+    default int indexOfInvalid(@Nonnull CharSequence sequence, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isValidLetter(sequence.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
     /**
      * Test whether a sequence is valid or not
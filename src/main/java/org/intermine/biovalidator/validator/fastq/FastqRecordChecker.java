@@ -0,0 +1,218 @@
+package org.intermine.biovalidator.validator.fastq;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ErrorMessage;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.WarningMessage;
+import org.intermine.biovalidator.parser.ByteLine;
+import org.intermine.biovalidator.validator.fasta.sequencevalidator.SequenceValidator;
+
+import java.util.Arrays;
+
+/**
+ * Checks the lines of FASTQ records, each record being exactly 4 lines: '@' and read id,
+ * sequence, '+' optionally followed by the same read id, and quality with one character per
+ * sequence letter. The position of a line in its record only depends on its line number, so
+ * a checker can start at any record of a file, e.g. in a chunk of it.
+ *
+ * @author deepak
+ */
+final class FastqRecordChecker
+{
+    private static final int LINES_PER_RECORD = 4;
+    private static final int INITIAL_TITLE_SIZE = 256;
+
+    private final SequenceValidator sequenceValidator;
+    private final boolean isStrict;
+    private QualityEncoding encoding;
+    private final QualityEncodingDetector detector;
+    private int minQualityChar;
+    private byte[] title = new byte[INITIAL_TITLE_SIZE];
+    private int titleLength;
+    private long headerLineNumber;
+    private int sequenceLength;
+
+    /**
+     * Construct a checker
+     * @param sequenceValidator validator of the sequence letters
+     * @param encoding encoding of quality scores, AUTO to detect it from the first records
+     * @param isStrict whether a read id after '+' not matching the header is an error, or
+     *                 only a warning
+     */
+    FastqRecordChecker(SequenceValidator sequenceValidator, QualityEncoding encoding,
+                       boolean isStrict) {
+        this.sequenceValidator = sequenceValidator;
+        this.isStrict = isStrict;
+        this.encoding = encoding;
+        // scores of undecided records are only checked against the range of all encodings
+        this.detector = encoding == QualityEncoding.AUTO ? new QualityEncodingDetector() : null;
+        this.minQualityChar = encoding.getMinQualityChar();
+    }
+
+    /**
+     * Checks the next line of the file
+     * @param line line to be checked
+     * @param lineNumber line number in the file, starting from 1
+     * @param result validation result where errors and warnings are added
+     */
+    void checkLine(ByteLine line, long lineNumber, ValidationResult result) {
+        byte[] buffer = line.getBuffer();
+        int from = line.getOffset();
+        int to = from + line.length();
+        switch ((int) ((lineNumber - 1) % LINES_PER_RECORD)) {
+            case 0:
+                checkHeader(buffer, from, to, lineNumber, result);
+                break;
+            case 1:
+                sequenceLength = to - from;
+                sequenceValidator.validate(buffer, from, to, lineNumber, result);
+                break;
+            case 2:
+                checkSeparator(buffer, from, to, lineNumber, result);
+                break;
+            default:
+                checkQuality(buffer, from, to, lineNumber, result);
+                break;
+        }
+    }
+
+    private void checkHeader(byte[] buffer, int from, int to, long lineNumber,
+                             ValidationResult result) {
+        headerLineNumber = lineNumber;
+        titleLength = 0;
+        if (from == to || buffer[from] != '@') {
+            result.addError(ErrorMessage.of(lineNumber == 1 ? FastqValidator.NOT_FASTQ_MESSAGE
+                    : "Record header does not start with '@' at line " + lineNumber));
+            return;
+        }
+        if (from + 1 == to || isWhitespace(buffer[from + 1])) {
+            result.addError(ErrorMessage.of("Missing read id at line " + lineNumber));
+        }
+        // kept to be compared to the optional read id after '+'
+        titleLength = to - from - 1;
+        if (titleLength > title.length) {
+            title = Arrays.copyOf(title, Math.max(titleLength, title.length * 2));
+        }
+        System.arraycopy(buffer, from + 1, title, 0, titleLength);
+    }
+
+    private void checkSeparator(byte[] buffer, int from, int to, long lineNumber,
+                                ValidationResult result) {
+        if (from == to || buffer[from] != '+') {
+            result.addError(ErrorMessage.of("Missing '+' separator line at line " + lineNumber));
+            return;
+        }
+        int length = to - from - 1;
+        if (length == 0 || isTitle(buffer, from + 1, to)) {
+            return;
+        }
+        String message = "Read id after '+' at line " + lineNumber
+                + " does not match the header at line " + headerLineNumber;
+        if (isStrict) {
+            result.addError(ErrorMessage.of(message));
+        } else {
+            result.addWarning(WarningMessage.of(message));
+        }
+    }
+
+    private void checkQuality(byte[] buffer, int from, int to, long lineNumber,
+                              ValidationResult result) {
+        if (to - from != sequenceLength) {
+            result.addError(ErrorMessage.of("Quality length " + (to - from)
+                    + " does not match sequence length " + sequenceLength + " at line "
+                    + lineNumber));
+            return;
+        }
+        int invalid = indexOfInvalidQuality(buffer, from, to, minQualityChar);
+        if (invalid >= 0) {
+            int c = buffer[invalid] & 0xFF;
+            // characters of no encoding are invalid whether the encoding is detected yet or not
+            String forEncoding = c < QualityEncoding.PHRED33.getMinQualityChar()
+                    || c > QualityEncoding.MAX_QUALITY_CHAR
+                    ? "" : " for " + encoding + " encoding";
+            result.addError(ErrorMessage.of("Invalid quality score '" + (char) c + "'"
+                    + forEncoding + " at line " + lineNumber + ", column "
+                    + (invalid - from + 1)));
+            return;
+        }
+        if (encoding == QualityEncoding.AUTO) {
+            detector.add(buffer, from, to);
+            if (detector.isSampled()) {
+                decideEncoding();
+            }
+        }
+    }
+
+    /**
+     * Checks that the file does not end in the middle of a record
+     * @param lineCount number of lines of the file
+     * @param result validation result where errors are added
+     */
+    void finish(long lineCount, ValidationResult result) {
+        if (lineCount == 0) {
+            result.addError(ErrorMessage.of(FastqValidator.NOT_FASTQ_MESSAGE));
+        } else if (lineCount % LINES_PER_RECORD != 0) {
+            result.addError(ErrorMessage.of("Incomplete record at line " + headerLineNumber
+                    + ", a record must have 4 lines"));
+        }
+        if (encoding == QualityEncoding.AUTO && detector.hasSamples()) {
+            decideEncoding();
+        }
+    }
+
+    /**
+     * Finds the first quality character out of the range of an encoding
+     * @param buffer bytes of the quality line
+     * @param from index of the first quality character, inclusive
+     * @param to index after the last quality character, exclusive
+     * @param minQualityChar character of the lowest score of the encoding
+     * @return index of the first invalid character or -1 if all characters are valid
+     */
+    static int indexOfInvalidQuality(byte[] buffer, int from, int to, int minQualityChar) {
+        for (int i = from; i < to; i++) {
+            int c = buffer[i] & 0xFF;
+            if (c < minQualityChar || c > QualityEncoding.MAX_QUALITY_CHAR) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void decideEncoding() {
+        encoding = detector.detect();
+        minQualityChar = encoding.getMinQualityChar();
+    }
+
+    /**
+     * Gets the encoding of quality scores, detected or as given
+     * @return encoding, AUTO if it is not detected yet
+     */
+    QualityEncoding getQualityEncoding() {
+        return encoding;
+    }
+
+    private boolean isTitle(byte[] buffer, int from, int to) {
+        if (to - from != titleLength) {
+            return false;
+        }
+        for (int i = 0; i < titleLength; i++) {
+            if (buffer[from + i] != title[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
@@ -0,0 +1,269 @@
+package org.intermine.biovalidator.validator.fastq;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ErrorMessage;
+import org.intermine.biovalidator.api.InfoMessage;
+import org.intermine.biovalidator.api.Parser;
+import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.RecordBatch;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.parser.ByteLine;
+import org.intermine.biovalidator.utils.FormatSniffer;
+import org.intermine.biovalidator.validator.AbstractValidator;
+import org.intermine.biovalidator.validator.ChunkedFileValidation;
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.intermine.biovalidator.validator.fasta.sequencevalidator.AlphabetSequenceValidator;
+import org.intermine.biovalidator.validator.fasta.sequencevalidator.SequenceAlphabet;
+import org.intermine.biovalidator.validator.fasta.sequencevalidator.SequenceValidator;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Validator to validate FASTQ files (sequencing reads with quality scores), following rules:
+ * 1. Each record has exactly 4 lines, no line wrapping
+ * 2. First line starts with '@' immediately followed by the read id
+ * 3. Second line is the sequence, letters are validated with the table of a SequenceAlphabet,
+ *    by default IUPAC nucleotide codes
+ * 4. Third line starts with '+', optionally followed by the same read id and description as
+ *    the header, a different one is an error in strict mode and a warning otherwise
+ * 5. Fourth line has one quality character per sequence letter, within the range of the
+ *    quality encoding (Phred+33 '!' to '~', Phred+64 '@' to '~'), which can be detected
+ * 6. Empty files will be considered invalid
+ *
+ * Gzip compressed input is decompressed while validating, uncompressed files can be validated
+ * in chunks on several threads.
+ *
+ * @author deepak
+ */
+public class FastqValidator extends AbstractValidator
+{
+    static final String NOT_FASTQ_MESSAGE = "File is not recognized as valid Fastq format";
+
+    private final ValidationSource source;
+    private SequenceValidator sequenceValidator =
+            new AlphabetSequenceValidator(SequenceAlphabet.IUPAC_NUCLEOTIDE);
+    private QualityEncoding qualityEncoding;
+    private QualityEncoding detectedQualityEncoding;
+    private int parallelism = 1;
+    private long minChunkSize = ChunkedFileValidation.DEFAULT_MIN_CHUNK_SIZE;
+
+    /**
+     * Construct a Fastq validator detecting the quality encoding
+     * @param source data source
+     */
+    public FastqValidator(ValidationSource source) {
+        this(source, QualityEncoding.AUTO);
+    }
+
+    /**
+     * Construct a Fastq validator with a quality encoding
+     * @param source data source
+     * @param qualityEncoding encoding of quality scores, AUTO to detect it
+     */
+    public FastqValidator(ValidationSource source, QualityEncoding qualityEncoding) {
+        this.source = source;
+        this.qualityEncoding = qualityEncoding;
+        enableStrictValidation(); //by-default use strict validation
+    }
+
+    /**
+     * Validate sequences against another alphabet than IUPAC nucleotide codes, e.g. only ACGTN
+     * @param alphabet allowed letters
+     */
+    public void setSequenceAlphabet(@Nonnull SequenceAlphabet alphabet) {
+        this.sequenceValidator = new AlphabetSequenceValidator(alphabet);
+    }
+
+    /**
+     * Sets the encoding of quality scores
+     * @param qualityEncoding encoding, AUTO to detect it from the first 10000 records
+     */
+    public void setQualityEncoding(@Nonnull QualityEncoding qualityEncoding) {
+        this.qualityEncoding = qualityEncoding;
+    }
+
+    /**
+     * Gets the quality encoding detected by the last validation, which is also added to the
+     * result as an info message, kept even if warnings are disabled
+     * @return detected encoding, or empty if the encoding was given or no record was read
+     */
+    public Optional<QualityEncoding> getDetectedQualityEncoding() {
+        return Optional.ofNullable(detectedQualityEncoding);
+    }
+
+    /**
+     * Validate chunks of the file on a pool of threads, only used for uncompressed files on
+     * disk, other sources are validated on the calling thread. Result is the same as the
+     * result of sequential validation.
+     * @param threads number of validation threads
+     */
+    public void enableParallelValidation(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("number of threads must be positive");
+        }
+        this.parallelism = threads;
+    }
+
+    /**
+     * Validate on the calling thread (default)
+     */
+    public void disableParallelValidation() {
+        this.parallelism = 1;
+    }
+
+    /**
+     * Sets the minimum chunk size of parallel validation
+     * @param minChunkSize size in bytes
+     */
+    void setMinChunkSize(long minChunkSize) {
+        this.minChunkSize = minChunkSize;
+    }
+
+    @Nonnull
+    @Override
+    public ValidationResult validate() {
+        Optional<Path> path = source.getPath();
+        if (parallelism > 1 && path.isPresent()) {
+            QualityEncoding encoding = qualityEncoding == QualityEncoding.AUTO
+                    ? detectQualityEncoding() : qualityEncoding;
+            try {
+                ParallelFastqValidation validation = new ParallelFastqValidation(this, encoding,
+                        validationResult, validationResultStrategy.shouldStopAtFirstError(),
+                        path.get(), parallelism, minChunkSize);
+                if (validation.validate()) {
+                    addDetectedQualityEncodingInfo();
+                    return validationResult;
+                }
+                detectedQualityEncoding = null; // detected again by sequential validation
+            } catch (IOException e) {
+                validationResult.addError(e.getMessage());
+                return validationResult;
+            }
+        }
+        try (Parser<ByteLine> parser = createLineParser(source)) {
+            validateLines(parser);
+        } catch (IOException e) {
+            validationResult.addError(e.getMessage());
+        }
+        addDetectedQualityEncodingInfo();
+        return validationResult;
+    }
+
+    private void validateLines(Parser<ByteLine> parser) throws IOException {
+        FastqRecordChecker checker = createRecordChecker(qualityEncoding);
+        try {
+            validateLines(parser, checker);
+        } finally {
+            if (qualityEncoding == QualityEncoding.AUTO
+                    && checker.getQualityEncoding() != QualityEncoding.AUTO) {
+                detectedQualityEncoding = checker.getQualityEncoding();
+            }
+        }
+    }
+
+    private void validateLines(Parser<ByteLine> parser, FastqRecordChecker checker)
+            throws IOException {
+        RecordBatch<ByteLine> batch = parser.createBatch(RecordBatch.DEFAULT_CAPACITY);
+        boolean stopAtFirstError = validationResultStrategy.shouldStopAtFirstError();
+        long linesCount = 0;
+        int batchSize;
+        try {
+            batchSize = parser.parseBatch(batch);
+        } catch (ParsingException e) { // not even a first line
+            validationResult.addError(ErrorMessage.of(describeUnreadableStart(e)));
+            return;
+        }
+        while (batchSize > 0) {
+            for (int i = 0; i < batchSize; i++) {
+                linesCount = batch.getLineNumber(i);
+                checker.checkLine(batch.get(i), linesCount, validationResult);
+                if (!validationResult.isValid() && stopAtFirstError) {
+                    return;
+                }
+            }
+            batchSize = parser.parseBatch(batch);
+        }
+        checker.finish(linesCount, validationResult);
+    }
+
+    /**
+     * Reads quality lines from the beginning of the file until the encoding is known, errors
+     * are reported by the validation that follows. As when detecting while validating, only
+     * quality lines which are valid for any encoding are sampled.
+     */
+    private QualityEncoding detectQualityEncoding() {
+        QualityEncodingDetector detector = new QualityEncodingDetector();
+        try (Parser<ByteLine> parser = createLineParser(source)) {
+            int sequenceLength = 0;
+            ByteLine line = parser.parseNext();
+            while (line != null && !detector.isSampled()) {
+                int from = line.getOffset();
+                int to = from + line.length();
+                if (line.getLineNumber() % 4 == 2) {
+                    sequenceLength = line.length();
+                } else if (line.getLineNumber() % 4 == 0 && line.length() == sequenceLength
+                        && FastqRecordChecker.indexOfInvalidQuality(line.getBuffer(), from, to,
+                                QualityEncoding.AUTO.getMinQualityChar()) < 0) {
+                    detector.add(line.getBuffer(), from, to);
+                }
+                line = parser.parseNext();
+            }
+        } catch (IOException e) {
+            return QualityEncoding.PHRED33; // validation reports it
+        }
+        QualityEncoding detected = detector.detect();
+        if (detector.hasSamples()) {
+            detectedQualityEncoding = detected;
+        }
+        return detected;
+    }
+
+    /**
+     * Adds the detected encoding at the end of the result, unless validation stopped before
+     * the end of the file, so that parallel and sequential results are the same
+     */
+    private void addDetectedQualityEncodingInfo() {
+        boolean isStopped = !validationResult.isValid()
+                && validationResultStrategy.shouldStopAtFirstError();
+        if (detectedQualityEncoding != null && !isStopped) {
+            validationResult.addInfo(InfoMessage.of("Detected quality encoding: "
+                    + detectedQualityEncoding));
+        }
+    }
+
+    /**
+     * Describes why not even a first line could be read: not FASTQ if the data does not look
+     * like FASTQ (e.g. binary data), otherwise the cause, e.g. an invalid UTF-8 byte or an
+     * I/O error
+     * @param e failure of the first read
+     * @return error message
+     */
+    String describeUnreadableStart(ParsingException e) {
+        if (FormatSniffer.isNotOfType(source, ValidatorType.FASTQ)) {
+            return NOT_FASTQ_MESSAGE;
+        }
+        return e.getMessage();
+    }
+
+    /**
+     * Creates a checker of records with the options of this validator
+     * @param encoding encoding of quality scores, AUTO to detect it
+     * @return record checker
+     */
+    FastqRecordChecker createRecordChecker(QualityEncoding encoding) {
+        return new FastqRecordChecker(sequenceValidator, encoding, isStrict);
+    }
+}
@@ -0,0 +1,145 @@
+package org.intermine.biovalidator.validator.fastq;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.parser.ByteLine;
+import org.intermine.biovalidator.parser.ByteLineParser;
+import org.intermine.biovalidator.source.FileRangeChannel;
+import org.intermine.biovalidator.validator.ChunkedFileValidation;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Validates a FASTQ file in chunks on a fork/join pool, see {@link ChunkedFileValidation}.
+ * Chunks start at record boundaries, so that each chunk is validated on its own.
+ *
+ * A line starting with '@' is not always a header, as '@' is also a quality score. A chunk
+ * starts at a line which starts with '@' and is followed two lines later by a line starting
+ * with '+', both the sequence and the quality lines in between having the same length: a
+ * quality line starting with '@' is followed by a header and a sequence, which never starts
+ * with '+'. Counting lines of the chunks then confirms that each chunk starts at a record,
+ * i.e. at a line number 4n + 1. If a chunk does not (the file being invalid), the file is
+ * validated sequentially instead.
+ *
+ * @author deepak
+ */
+final class ParallelFastqValidation extends ChunkedFileValidation<ParallelFastqValidation.Chunk>
+{
+    private static final long MAX_SEARCH_SIZE = 16L * 1024 * 1024;
+    private static final int SEARCH_BUFFER_SIZE = 64 * 1024;
+    private static final int LINES_PER_RECORD = 4;
+
+    private final FastqValidator validator;
+    private final QualityEncoding encoding;
+
+    /**
+     * Construct a parallel validation
+     * @param validator validator creating the record checkers
+     * @param encoding encoding of quality scores, detected before if not given
+     * @param validationResult result where errors and warnings are added in file order
+     * @param stopAtFirstError whether to stop at the first error of the file
+     * @param path uncompressed FASTQ file
+     * @param parallelism number of threads
+     * @param minChunkSize minimum size of a chunk in bytes
+     */
+    ParallelFastqValidation(FastqValidator validator, QualityEncoding encoding,
+                            ValidationResult validationResult, boolean stopAtFirstError,
+                            Path path, int parallelism, long minChunkSize) {
+        super(validationResult, stopAtFirstError, path, parallelism, minChunkSize);
+        this.validator = validator;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Finds the first record starting after the line containing an offset
+     * @return offset of the record, or size if none is found in the next MAX_SEARCH_SIZE bytes
+     */
+    @Override
+    protected long nextChunkStart(FileChannel channel, long from, long size)
+            throws IOException {
+        // 4 lines of a record, and the next line which shows that the quality line is complete
+        int windowSize = LINES_PER_RECORD + 1;
+        long[] offsets = new long[windowSize];
+        int[] firstBytes = new int[windowSize];
+        int[] lengths = new int[windowSize];
+        long end = Math.min(size, from + MAX_SEARCH_SIZE);
+        try (ByteLineParser parser = new ByteLineParser(new FileRangeChannel(channel, from, end),
+                SEARCH_BUFFER_SIZE, from)) {
+            if (parser.parseNext() == null) { // rest of the line containing from
+                return size;
+            }
+            int count = 0;
+            for (ByteLine line = parser.parseNext(); line != null; line = parser.parseNext()) {
+                int slot = count % windowSize;
+                offsets[slot] = line.getByteOffset();
+                firstBytes[slot] = line.length() == 0 ? -1 : line.byteAt(0);
+                lengths[slot] = line.length();
+                count++;
+                if (count >= windowSize) {
+                    int header = (count - windowSize) % windowSize;
+                    if (firstBytes[header] == '@'
+                            && firstBytes[(header + 2) % windowSize] == '+'
+                            && lengths[(header + 1) % windowSize]
+                                == lengths[(header + 3) % windowSize]) {
+                        return offsets[header];
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    @Override
+    protected boolean isChunkStart(long lineCount) {
+        return lineCount % LINES_PER_RECORD == 0;
+    }
+
+    @Override
+    protected Chunk createChunk(int index, long start, MappedByteBuffer data) {
+        return new Chunk(index, start, data, validator.createRecordChecker(encoding));
+    }
+
+    @Override
+    protected String describeUnreadableStart(ParsingException e) {
+        return validator.describeUnreadableStart(e);
+    }
+
+    @Override
+    protected void validateLine(Chunk chunk, ByteLine line, long lineNumber) {
+        chunk.checker.checkLine(line, lineNumber, chunk.getMessages());
+    }
+
+    @Override
+    protected void endOfChunk(Chunk chunk, boolean isLastChunk) {
+        if (isLastChunk) {
+            chunk.checker.finish(chunk.getFirstLine() + chunk.getLineCount(),
+                    chunk.getMessages());
+        }
+    }
+
+    /**
+     * A chunk with the checker of its records
+     */
+    static final class Chunk extends ChunkedFileValidation.Chunk
+    {
+        private final FastqRecordChecker checker;
+
+        private Chunk(int index, long start, MappedByteBuffer data, FastqRecordChecker checker) {
+            super(index, start, data);
+            this.checker = checker;
+        }
+    }
+}
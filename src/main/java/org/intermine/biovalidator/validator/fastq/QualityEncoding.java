@@ -0,0 +1,98 @@
+package org.intermine.biovalidator.validator.fastq;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+/**
+ * Encoding of the quality scores of a FASTQ file, each score is stored as one printable ASCII
+ * character: score + offset.
+ *
+ * @author deepak
+ */
+public enum QualityEncoding
+{
+    /**
+     * Sanger and Illumina 1.8+, scores 0 to 93 as '!' to '~'
+     */
+    PHRED33("Phred+33", '!'),
+
+    /**
+     * Illumina 1.3 to 1.7, scores 0 to 62 as '@' to '~'
+     */
+    PHRED64("Phred+64", '@'),
+
+    /**
+     * Detected from the quality characters of the first records
+     */
+    AUTO("auto", '!');
+
+    /**
+     * highest quality character of all encodings
+     */
+    static final char MAX_QUALITY_CHAR = '~';
+
+    private final String name;
+    private final char minQualityChar;
+
+    /**
+     * Construct an encoding
+     * @param name verbose name
+     * @param minQualityChar character of the lowest score
+     */
+    QualityEncoding(String name, char minQualityChar) {
+        this.name = name;
+        this.minQualityChar = minQualityChar;
+    }
+
+    /**
+     * Gets an encoding from its name, case-insensitive and ignoring '+', e.g. phred33
+     * @param name name of the encoding
+     * @return encoding
+     * @throws IllegalArgumentException if name is not an encoding
+     */
+    public static QualityEncoding of(String name) {
+        for (QualityEncoding encoding : values()) {
+            if (encoding.name.replace("+", "").equalsIgnoreCase(name.replace("+", ""))) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unknown quality encoding " + name
+                + ", expected phred33, phred64 or auto");
+    }
+
+    /**
+     * Gets the character of the lowest score (0)
+     * @return lowest quality character
+     */
+    public char getMinQualityChar() {
+        return minQualityChar;
+    }
+
+    /**
+     * Gets the offset added to the scores, e.g. 33
+     * @return offset
+     */
+    public int getOffset() {
+        return minQualityChar;
+    }
+
+    /**
+     * Gets name of the encoding
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,85 @@
+package org.intermine.biovalidator.validator.fastq;
+
+/*
+ * Copyright (C) 2002-2019 FlyMine
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public Licence.  This should
+ * be distributed with the code.  See the LICENSE file for more
+ * information or http://www.gnu.org/copyleft/lesser.html.
+ *
+ */
+
+/**
+ * Detects the quality encoding of a FASTQ file from the quality lines of its first records.
+ * A character below '@' can only be Phred+33, it is found in the first records of almost any
+ * Phred+33 file. Otherwise Phred+64 is detected only if scores would be above 42 (the highest
+ * Illumina Phred+33 score, 'K'), as low scores are unlikely for a whole sample.
+ *
+ * @author deepak
+ */
+final class QualityEncodingDetector
+{
+    /**
+     * number of quality lines after which the encoding is decided
+     */
+    static final int SAMPLE_RECORDS = 10000;
+
+    private static final int MAX_PHRED33_ILLUMINA_CHAR = 'K';
+
+    private int records;
+    private int minQualityChar = Integer.MAX_VALUE;
+    private int maxQualityChar;
+
+    /**
+     * Adds a quality line
+     * @param buffer bytes of the line
+     * @param from index of the first quality character, inclusive
+     * @param to index after the last quality character, exclusive
+     */
+    void add(byte[] buffer, int from, int to) {
+        int min = minQualityChar;
+        int max = maxQualityChar;
+        for (int i = from; i < to; i++) {
+            int c = buffer[i] & 0xFF;
+            if (c < min) {
+                min = c;
+            }
+            if (c > max) {
+                max = c;
+            }
+        }
+        minQualityChar = min;
+        maxQualityChar = max;
+        records++;
+    }
+
+    /**
+     * Test whether enough quality lines were added to decide, more lines would not change
+     * the detected encoding
+     * @return true if sampled
+     */
+    boolean isSampled() {
+        return records >= SAMPLE_RECORDS || minQualityChar < QualityEncoding.PHRED64.getOffset();
+    }
+
+    /**
+     * Test whether any quality line was added
+     * @return true if there is at least one quality line
+     */
+    boolean hasSamples() {
+        return records > 0;
+    }
+
+    /**
+     * Detects the encoding from the quality lines added so far
+     * @return PHRED33 or PHRED64, PHRED33 if nothing was added
+     */
+    QualityEncoding detect() {
+        if (minQualityChar >= QualityEncoding.PHRED64.getOffset()
+                && maxQualityChar > MAX_PHRED33_ILLUMINA_CHAR) {
+            return QualityEncoding.PHRED64;
+        }
+        return QualityEncoding.PHRED33;
+    }
+}
@@ -15,7 +15,9 @@ import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.intermine.biovalidator.api.ErrorMessage;
 import org.intermine.biovalidator.api.Parser;
+import org.intermine.biovalidator.api.RecordBatch;
 import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
 import org.intermine.biovalidator.api.WarningMessage;
 import org.intermine.biovalidator.parser.Gff3FeatureParser;
 import org.intermine.biovalidator.validator.AbstractValidator;
@@ -31,12 +33,12 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -55,6 +57,7 @@ public class Gff3Validator extends AbstractValidator
             Pattern.compile("(\\d+\\.)?(\\d+\\.)?(\\*|\\d+)");
 
     private InputStreamReader inputStreamReader;
+    private ValidationSource source;
 
     private Set<String> sequenceOntologyFeatureTypes;
     private Set<String> uniqueIdAttributesSet;
@@ -69,7 +72,20 @@ public class Gff3Validator extends AbstractValidator
      * @param inputStreamReader input source
      */
     public Gff3Validator(InputStreamReader inputStreamReader) {
+        this();
         this.inputStreamReader = inputStreamReader;
+    }
+
+    /**
+     * Contruct a Gff3Validator with a validation source, lines are read as raw bytes
+     * @param source input source
+     */
+    public Gff3Validator(ValidationSource source) {
+        this();
+        this.source = source;
+    }
+
+    private Gff3Validator() {
         this.uniqueIdAttributesSet = new HashSet<>();
         this.uniqueNameAttributeSet = new HashSet<>();
 
@@ -92,37 +108,39 @@ public class Gff3Validator extends AbstractValidator
     @Nonnull
     @Override
     public ValidationResult validate() {
-        try (Parser<Optional<Gff3Line>> parser = new Gff3FeatureParser(inputStreamReader)) {
-            long currentLineNum = 1;
-            Optional<Gff3Line> lineOpt = parser.parseNext();
+        try (Parser<Gff3Line> parser = createFeatureParser()) {
+            RecordBatch<Gff3Line> batch = parser.createBatch(RecordBatch.DEFAULT_CAPACITY);
+            int batchSize = parser.parseBatch(batch);
 
             // first line must be a valid gff3 header line
-            if (!lineOpt.isPresent() || !isValidGff3HeaderLine(lineOpt.get())) {
+            if (batchSize == 0 || !isValidGff3HeaderLine(batch.get(0))) {
                 String msg = "Invalid Gff file! first line must be a header line"
                         + " and version version must be in the format 3.#.#";
                 validationResult.addError(ErrorMessage.of(msg));
             }
 
-            while (lineOpt.isPresent()) {
-                Gff3Line line = lineOpt.get();
+            while (batchSize > 0) {
+                for (int i = 0; i < batchSize; i++) {
+                    Gff3Line line = batch.get(i);
+                    long currentLineNum = batch.getLineNumber(i);
 
-                if (line instanceof Gff3DirectiveLine) { //if line a directive line
-                    Gff3DirectiveLine directive = (Gff3DirectiveLine) line;
-                    if (directive.getComment().startsWith(FASTA_DIRECTIVE)) { //End of GFF3 content
-                        return validationResult;
+                    if (line instanceof Gff3DirectiveLine) { //if line a directive line
+                        Gff3DirectiveLine directive = (Gff3DirectiveLine) line;
+                        if (directive.getComment().startsWith(FASTA_DIRECTIVE)) { //End of GFF3
+                            return validationResult;
+                        }
+                        processDirectiveLine(directive, currentLineNum);
+                    } else {
+                        FeatureLine feature = (FeatureLine) line;
+                        validateFeature(feature, currentLineNum);
                     }
-                    processDirectiveLine(directive, currentLineNum);
-                } else {
-                    FeatureLine feature = (FeatureLine) line;
-                    validateFeature(feature, currentLineNum);
-                }
 
-                if (!validationResult.isValid()
-                        && validationResultStrategy.shouldStopAtFirstError()) {
-                    return validationResult;
+                    if (!validationResult.isValid()
+                            && validationResultStrategy.shouldStopAtFirstError()) {
+                        return validationResult;
+                    }
                 }
-                lineOpt = parser.parseNext(); //next featureLine
-                currentLineNum++;
+                batchSize = parser.parseBatch(batch); //next featureLines
             }
             return validationResult;
         } catch (IOException e) {
@@ -131,6 +149,13 @@ public class Gff3Validator extends AbstractValidator
         }
     }
 
+    private Gff3FeatureParser createFeatureParser() throws IOException {
+        if (source != null) {
+            return new Gff3FeatureParser(createLineParser(source));
+        }
+        return new Gff3FeatureParser(inputStreamReader);
+    }
+
     /**
      * Create and returns a list of GFF3 rule validators which can be used to validate
      * a particular feature by iterating over this list and calling
@@ -277,7 +302,8 @@ public class Gff3Validator extends AbstractValidator
     private Set<String> parseSequenceOntologyTypes(String filename) throws IOException {
         Set<String> featureTypes = new HashSet<>();
         try (InputStream is = getClass().getResourceAsStream(filename);
-             BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(is, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 if (StringUtils.isNotBlank(line)) {
@@ -0,0 +1,206 @@
+package org.intermine.biovalidator.api;
+
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ArchiveValidatorTest {
+
+    private static final String GFF3 = "##gff-version 3\n"
+            + "ctg123\t.\tgene\t1000\t9000\t.\t+\t.\tID=gene00001\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Map<String, String> sampleEntries() {
+        StringBuilder bigFasta = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            bigFasta.append(">seq").append(i).append("\nACGTACGTACGTACGTACGTACGTACGTACGT\n");
+        }
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("dump/genome.fa", ">seq1\nACGT\n>seq2\nTTGA\n");
+        entries.put("dump/annotations.txt", GFF3);
+        entries.put("dump/samples.csv", "name,age\nbob,12\nalice,13\n");
+        entries.put("dump/README", "This archive contains\n\nsome data.\n");
+        entries.put("dump/broken.fa", ">seq1\nACGT1\n");
+        entries.put("dump/big/chromosomes.fa", bigFasta.toString());
+        return entries;
+    }
+
+    private static void writeTarHeader(ByteArrayOutputStream out, String name, long size,
+                                       char type) {
+        byte[] header = new byte[512];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 124, 12, size);
+        putOctal(header, 136, 12, 0);
+        header[156] = (byte) type;
+        System.arraycopy("ustar\0".getBytes(), 0, header, 257, 6);
+        header[263] = '0';
+        header[264] = '0';
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        putOctal(header, 148, 7, checksum);
+        out.write(header, 0, header.length);
+    }
+
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = String.format("%0" + (length - 1) + "o", value);
+        System.arraycopy(octal.getBytes(), 0, header, offset, length - 1);
+    }
+
+    private static byte[] tar(Map<String, String> entries) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTarHeader(out, "dump/", 0, '5');
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            byte[] data = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            writeTarHeader(out, entry.getKey(), data.length, '0');
+            out.write(data, 0, data.length);
+            out.write(new byte[(512 - data.length % 512) % 512], 0, (512 - data.length % 512) % 512);
+        }
+        out.write(new byte[1024], 0, 1024);
+        return out.toByteArray();
+    }
+
+    private static byte[] zip(Map<String, String> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            out.putNextEntry(new ZipEntry("dump/"));
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void assertSampleReport(ArchiveValidationReport report) {
+        List<ArchiveValidationReport.EntryReport> entries = report.getEntries();
+        assertEquals(6, entries.size());
+        assertFalse(report.isValid());
+
+        assertEquals("dump/genome.fa", entries.get(0).getName());
+        assertEquals(Optional.of(ValidatorType.FASTA), entries.get(0).getValidatorType());
+        assertTrue(entries.get(0).getResult().isValid());
+
+        assertEquals(Optional.of(ValidatorType.GFF3), entries.get(1).getValidatorType());
+        assertTrue(entries.get(1).getResult().isValid());
+
+        assertEquals(Optional.of(ValidatorType.CSV), entries.get(2).getValidatorType());
+        assertTrue(entries.get(2).getResult().isValid());
+
+        assertTrue(entries.get(3).isSkipped());
+
+        assertFalse(entries.get(4).getResult().isValid());
+        assertEquals("Invalid letter 1 at line number 2, column 5",
+                entries.get(4).getResult().getErrorMessage());
+
+        assertEquals("dump/big/chromosomes.fa", entries.get(5).getName());
+        assertTrue(entries.get(5).getResult().isValid());
+    }
+
+    private static ArchiveValidationReport validate(byte[] archive, String name) {
+        return new ArchiveValidator(ValidationSource.of(ByteBuffer.wrap(archive), name))
+                .withThreadCount(2)
+                .withInMemoryEntrySize(16 * 1024) // big entry is validated while streaming
+                .validate();
+    }
+
+    @Test
+    public void testTarArchive() {
+        assertSampleReport(validate(tar(sampleEntries()), "dump.tar"));
+    }
+
+    @Test
+    public void testCompressedTarArchive() throws IOException {
+        assertSampleReport(validate(gzip(tar(sampleEntries())), "dump.tar.gz"));
+    }
+
+    @Test
+    public void testZipArchive() throws IOException {
+        assertSampleReport(validate(zip(sampleEntries()), "dump.zip"));
+    }
+
+    @Test
+    public void testValidateArchiveFile() throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("a.gff3", GFF3);
+        entries.put("b.fasta", ">seq1\nACGT\n");
+        File file = folder.newFile("dump.tgz");
+        Files.write(file.toPath(), gzip(tar(entries)));
+        ArchiveValidationReport report = ValidatorHelper.validateArchive(file.getPath(), true);
+        assertEquals(2, report.getEntries().size());
+        assertTrue(report.isValid());
+    }
+
+    @Test
+    public void testPaxSizeOverridesHeaderSize() {
+        byte[] fasta = ">seq1\nACGT\n>seq2\nACGT1\n".getBytes(StandardCharsets.UTF_8);
+        String name = "dump/long/genome.fa";
+        String records = paxRecord("path", name) + paxRecord("size", fasta.length + "");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTarHeader(out, "PaxHeaders/genome.fa", records.length(), 'x');
+        out.write(records.getBytes(StandardCharsets.UTF_8), 0, records.length());
+        out.write(new byte[512 - records.length()], 0, 512 - records.length());
+        writeTarHeader(out, "genome.fa", 0, '0'); // as written for entries over 8 GiB
+        out.write(fasta, 0, fasta.length);
+        out.write(new byte[512 - fasta.length + 1024], 0, 512 - fasta.length + 1024);
+
+        ArchiveValidationReport report = validate(out.toByteArray(), "dump.tar");
+        assertEquals(1, report.getEntries().size());
+        assertEquals(name, report.getEntries().get(0).getName());
+        assertEquals("Invalid letter 1 at line number 4, column 5",
+                report.getEntries().get(0).getResult().getErrorMessage());
+    }
+
+    /**
+     * pax record '<length> <key>=<value>\n', length counting the whole record, short records
+     * only as the length is assumed to have two digits
+     */
+    private static String paxRecord(String key, String value) {
+        String record = " " + key + "=" + value + "\n";
+        return (record.length() + 2) + record;
+    }
+
+    @Test
+    public void testNotAnArchive() {
+        ArchiveValidationReport report = validate(GFF3.getBytes(), "plain.gff3");
+        assertFalse(report.isValid());
+        assertEquals("plain.gff3 is not a tar or zip archive",
+                report.getEntries().get(0).getResult().getErrorMessage());
+    }
+}
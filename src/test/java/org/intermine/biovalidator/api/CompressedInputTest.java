@@ -0,0 +1,75 @@
+package org.intermine.biovalidator.api;
+
+import org.intermine.biovalidator.BaseValidatorTest;
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedInputTest extends BaseValidatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] gzip(String data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data.getBytes());
+        }
+        return bytes.toByteArray();
+    }
+
+    private File writeFile(String name, byte[] content) throws IOException {
+        File file = folder.newFile(name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return file;
+    }
+
+    @Test
+    public void testGzipFastaFileWithGuessedType() throws IOException {
+        File file = writeFile("genome.fa.gz", gzip(">seq1\nACGT\n>seq2\nTTGA\n"));
+        ValidationResult result = ValidatorHelper.validate(file.getPath(), "", true);
+        assertTrue(result.isValid());
+    }
+
+    @Test
+    public void testGzipFastaReportsSameErrors() throws IOException {
+        File file = writeFile("genome.fa.gz", gzip(">seq1\nACGT\n>seq2\nTTGAJ\n"));
+        ValidationResult result = ValidatorHelper.validate(file.getPath(), ValidatorType.FASTA_DNA,
+                true);
+        assertFalse(result.isValid());
+        assertEquals("Invalid letter J at line number 4, column 5", result.getErrorMessage());
+    }
+
+    @Test
+    public void testConcatenatedGzipMembers() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(gzip("##gff-version 3\n"));
+        bytes.write(gzip("ctg123\t.\tgene\t1000\t9000\t.\t+\t.\tID=gene00001\n"));
+        ValidationSource source = ValidationSource.of(
+                new ByteArrayInputStream(bytes.toByteArray()), "stream.gff3.gz");
+        assertTrue(ValidatorHelper.validate(source, ValidatorType.GFF3, true).isValid());
+    }
+
+    @Test
+    public void testCompressionDetectedFromContentNotName() throws IOException {
+        File file = writeFile("data.csv", gzip("name,age\nbob,12\nalice,13\n"));
+        assertTrue(ValidatorHelper.validate(file.getPath(), ValidatorType.CSV, true).isValid());
+        File plain = writeFile("plain.fa.gz", ">seq1\nACGT\n".getBytes());
+        assertTrue(ValidatorHelper.validate(plain.getPath(), "", true).isValid());
+    }
+}
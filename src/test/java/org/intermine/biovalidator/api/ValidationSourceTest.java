@@ -0,0 +1,76 @@
+package org.intermine.biovalidator.api;
+
+import org.intermine.biovalidator.BaseValidatorTest;
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ValidationSourceTest extends BaseValidatorTest {
+
+    private static final String FASTA = ">seq1\nACGT\n>seq2\nTTGA\n";
+
+    @Test
+    public void testInputStreamSource() {
+        ValidationSource source = ValidationSource.of(
+                new ByteArrayInputStream(FASTA.getBytes()), "in-memory");
+        assertFalse(source.isSeekable());
+        assertTrue(ValidatorHelper.validate(source, ValidatorType.FASTA_DNA, true).isValid());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOneShotSourceCannotBeReopened() throws IOException {
+        ValidationSource source = ValidationSource.of(
+                new ByteArrayInputStream(FASTA.getBytes()), "in-memory");
+        source.openChannel().close();
+        source.openChannel();
+    }
+
+    @Test
+    public void testByteBufferSourceIsReusable() {
+        ValidationSource source = ValidationSource.of(ByteBuffer.wrap(FASTA.getBytes()), "buffer");
+        assertTrue(source.isSeekable());
+        assertTrue(ValidatorHelper.validate(source, ValidatorType.FASTA_DNA, true).isValid());
+        assertTrue(ValidatorHelper.validate(source, ValidatorType.FASTA_DNA, true).isValid());
+    }
+
+    @Test
+    public void testMappedFileSource() {
+        ValidationSource source = ValidationSource.ofMappedFile(
+                Paths.get(getFullPath("fasta/valid/dna_multiple.fa")));
+        assertTrue(ValidatorHelper.validate(source, ValidatorType.FASTA_DNA, true).isValid());
+
+        source = ValidationSource.ofMappedFile(
+                Paths.get(getFullPath("gff3/valid/valid-parent-of-relation.gff3")));
+        assertTrue(ValidatorHelper.validate(source, ValidatorType.GFF3, true).isValid());
+    }
+
+    @Test
+    public void testInvalidFastaFromStream() {
+        ValidationSource source = ValidationSource.of(
+                new ByteArrayInputStream(">seq1\nACGTZ\n".getBytes()), "in-memory");
+        ValidationResult result = ValidatorHelper.validate(source, ValidatorType.FASTA_DNA, true);
+        assertFalse(result.isValid());
+        assertEquals("Invalid letter Z at line number 2, column 5", result.getErrorMessage());
+    }
+
+    @Test
+    public void testCsvFromStreamMatchesFile() throws IOException {
+        String file = getFullPath("csv/cars.csv");
+        ValidationResult fileResult = ValidatorHelper.validateCsv(file, true);
+        ValidationSource source = ValidationSource.of(new FileInputStream(file), "cars");
+        ValidationResult streamResult = ValidatorBuilder.withSource(source, ValidatorType.CSV)
+                .enableWarnings().build().validate();
+        assertEquals(fileResult.isValid(), streamResult.isValid());
+        assertEquals(getErrorsListFromValidationResult(fileResult),
+                getErrorsListFromValidationResult(streamResult));
+    }
+}
@@ -41,7 +41,7 @@ public class ValidatorHelperTest {
                 "fastaQ", true);
         assertTrue(result.isNotValid());
         String errMsg = "Missing or Invalid Validator type! It must be one of ([FASTA, "
-                + "FASTA_DNA, FASTA_RNA, FASTA_PROTEIN, GFF, GFF3, CSV]), case-insensitive.";
+                + "FASTA_DNA, FASTA_RNA, FASTA_PROTEIN, FASTQ, GFF, GFF3, CSV]), case-insensitive.";
         assertEquals(errMsg, result.getErrorMessage());
     }
 }
@@ -0,0 +1,116 @@
+package org.intermine.biovalidator.parser;
+
+import org.intermine.biovalidator.api.RecordBatch;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ByteLineParserTest {
+
+    private ByteLineParser createParser(String data, int bufferSize) {
+        return new ByteLineParser(Channels.newChannel(
+                new ByteArrayInputStream(data.getBytes())), bufferSize);
+    }
+
+    private List<String> readAllLines(String data, int bufferSize) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (ByteLineParser parser = createParser(data, bufferSize)) {
+            ByteLine line;
+            while ((line = parser.parseNext()) != null) {
+                lines.add(line.toString());
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    public void testLineTerminators() throws IOException {
+        List<String> expected = Arrays.asList(">seq1", "ACGT", "", "TTGA", "last");
+        String data = ">seq1\nACGT\r\n\rTTGA\r\nlast";
+        assertEquals(expected, readAllLines(data, 64));
+        // CRLF split across buffer refills
+        assertEquals(expected, readAllLines(data, 2));
+    }
+
+    @Test
+    public void testLineLongerThanBuffer() throws IOException {
+        String longLine = "ACGTACGTACGTACGTACGTACGTACGTACGTACGT";
+        assertEquals(Arrays.asList(">id", longLine, ">id2"),
+                readAllLines(">id\n" + longLine + "\n>id2\n", 4));
+    }
+
+    @Test
+    public void testLineNumberAndByteOffset() throws IOException {
+        try (ByteLineParser parser = createParser(">a\r\nAC\nGT\n", 3)) {
+            ByteLine line = parser.parseNext();
+            assertEquals(1, line.getLineNumber());
+            assertEquals(0, line.getByteOffset());
+            line = parser.parseNext();
+            assertEquals("AC", line.toString());
+            assertEquals(2, line.getLineNumber());
+            assertEquals(4, line.getByteOffset());
+            line = parser.parseNext();
+            assertEquals('G', line.charAt(0));
+            assertEquals(3, line.getLineNumber());
+            assertEquals(7, line.getByteOffset());
+            assertNull(parser.parseNext());
+            assertEquals(10, parser.getBytePosition());
+        }
+    }
+
+    @Test
+    public void testEmptyInput() throws IOException {
+        assertEquals(0, readAllLines("", 16).size());
+    }
+
+    private List<String> readAllLinesInBatches(String data, int bufferSize, int batchCapacity)
+            throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (ByteLineParser parser = createParser(data, bufferSize)) {
+            RecordBatch<ByteLine> batch = parser.createBatch(batchCapacity);
+            long expectedLineNumber = 1;
+            while (parser.parseBatch(batch) > 0) {
+                for (int i = 0; i < batch.size(); i++) {
+                    assertEquals(expectedLineNumber++, batch.getLineNumber(i));
+                    lines.add(batch.get(i).toString());
+                }
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    public void testBatchesMatchLineByLine() throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            data.append(">seq").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+            data.append("ACGTACGTTTGA").append(i % 7 == 0 ? "\r" : "\n");
+        }
+        List<String> expected = readAllLines(data.toString(), 64);
+        assertEquals(expected, readAllLinesInBatches(data.toString(), 64, 5));
+        assertEquals(expected, readAllLinesInBatches(data.toString(), 7, 100));
+        assertEquals(expected, readAllLinesInBatches(data.toString(), 1 << 16, 4096));
+    }
+
+    @Test
+    public void testBatchRecyclesLineViews() throws IOException {
+        try (ByteLineParser parser = createParser("a\nb\nc\n", 64)) {
+            RecordBatch<ByteLine> batch = parser.createBatch(2);
+            assertEquals(2, parser.parseBatch(batch));
+            ByteLine first = batch.get(0);
+            assertEquals(1, parser.parseBatch(batch));
+            assertSame(first, batch.get(0));
+            assertEquals("c", first.toString());
+            assertEquals(0, parser.parseBatch(batch));
+        }
+    }
+}
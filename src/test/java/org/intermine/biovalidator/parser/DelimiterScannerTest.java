@@ -0,0 +1,61 @@
+package org.intermine.biovalidator.parser;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DelimiterScannerTest {
+
+    @Test
+    public void testIndexOf() {
+        DelimiterScanner scanner = new DelimiterScanner('\n', '\r');
+        byte[] data = "ACGTACGTACGTACGT\r\nAC".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(16, scanner.indexOf(data, 0, data.length));
+        assertEquals(17, scanner.indexOf(data, 17, data.length));
+        assertEquals(-1, scanner.indexOf(data, 18, data.length));
+        assertEquals(-1, scanner.indexOf(data, 0, 16));
+    }
+
+    @Test
+    public void testScanMatchesByteByByteComparison() {
+        DelimiterScanner scanner = new DelimiterScanner('\t', ';', '=');
+        Random random = new Random(42);
+        byte[] alphabet = "\t;=aZ\u0080\u00ff\u00bb".getBytes(StandardCharsets.ISO_8859_1);
+        for (int length = 0; length < 200; length++) {
+            byte[] data = new byte[length + 11];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            int from = random.nextInt(8);
+            int to = from + length;
+            long[] bitmap = new long[DelimiterScanner.bitmapLength(length)];
+            int count = scanner.scan(data, from, to, bitmap);
+
+            int expectedCount = 0;
+            int expectedFirst = -1;
+            int bit = DelimiterScanner.nextSetBit(bitmap, 0, length);
+            for (int i = from; i < to; i++) {
+                byte b = data[i];
+                if (b == '\t' || b == ';' || b == '=') {
+                    expectedCount++;
+                    if (expectedFirst < 0) {
+                        expectedFirst = i;
+                    }
+                    assertEquals(i - from, bit);
+                    bit = DelimiterScanner.nextSetBit(bitmap, bit + 1, length);
+                }
+            }
+            assertEquals(length, bit);
+            assertEquals(expectedCount, count);
+            assertEquals(expectedFirst, scanner.indexOf(data, from, to));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonAsciiDelimiterIsRejected() {
+        new DelimiterScanner('\u00e9');
+    }
+}
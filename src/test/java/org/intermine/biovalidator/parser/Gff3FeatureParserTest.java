@@ -0,0 +1,108 @@
+package org.intermine.biovalidator.parser;
+
+import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.RecordBatch;
+import org.intermine.biovalidator.validator.gff3.FeatureLine;
+import org.intermine.biovalidator.validator.gff3.Gff3DirectiveLine;
+import org.intermine.biovalidator.validator.gff3.Gff3Line;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class Gff3FeatureParserTest {
+
+    private static final String FEATURE = "ctg123\t.\tgene\t1000\t9000\t.\t+\t.\tID=gene";
+
+    private Gff3FeatureParser createParser(String data) {
+        return new Gff3FeatureParser(Channels.newChannel(new ByteArrayInputStream(data.getBytes())));
+    }
+
+    @Test
+    public void testParseBatch() throws IOException {
+        StringBuilder data = new StringBuilder("##gff-version 3\n");
+        for (int i = 1; i <= 10; i++) {
+            data.append(FEATURE).append(i).append('\n');
+        }
+        try (Gff3FeatureParser parser = createParser(data.toString())) {
+            RecordBatch<Gff3Line> batch = parser.createBatch(4);
+            assertEquals(4, parser.parseBatch(batch));
+            assertTrue(batch.get(0) instanceof Gff3DirectiveLine);
+            assertEquals("gene3", ((FeatureLine) batch.get(3)).getAttributesMapping().get("ID"));
+            assertEquals(4, batch.getLineNumber(3));
+            assertEquals(4, parser.parseBatch(batch));
+            assertEquals(3, parser.parseBatch(batch));
+            assertEquals(11, batch.getLineNumber(2));
+            assertEquals(0, parser.parseBatch(batch));
+        }
+    }
+
+    @Test
+    public void testLinesBeforeParsingErrorAreReturnedFirst() throws IOException {
+        String data = "##gff-version 3\n" + FEATURE + "1\nctg123\tonly three\tcolumns\n";
+        try (Gff3FeatureParser parser = createParser(data)) {
+            RecordBatch<Gff3Line> batch = parser.createBatch(RecordBatch.DEFAULT_CAPACITY);
+            assertEquals(2, parser.parseBatch(batch));
+            try {
+                parser.parseBatch(batch);
+                fail("expected parsing error");
+            } catch (ParsingException e) {
+                assertEquals("Unable to parse! a feature must have 9 columns at line 3",
+                        e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testByteLinesAreParsedLikeStrings() throws IOException {
+        String[] features = {
+                FEATURE,
+                "ctg123\t.\tgene\t 1000 \t9000 \t 0.5\t+\t.\t ID=g1 ; Name=a=b;;Note\t\t",
+                "chr\u00e9\tsrc\tmRNA\t1\t2\t.\t-\t0\tParent=g\u00e9ne;flag ;Alias=",
+                "ctg123\t.\tgene\t1\t2\t.\t+\t.\t\textra",
+        };
+        for (String feature : features) {
+            String data = "##gff-version 3\n" + feature + "\n";
+            byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+            try (Gff3FeatureParser byteParser = new Gff3FeatureParser(
+                    Channels.newChannel(new ByteArrayInputStream(bytes)));
+                 Gff3FeatureParser stringParser = new Gff3FeatureParser(new InputStreamReader(
+                         new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+                byteParser.parseNext();
+                stringParser.parseNext();
+                FeatureLine expected = (FeatureLine) stringParser.parseNext();
+                FeatureLine actual = (FeatureLine) byteParser.parseNext();
+                assertEquals(expected.getSeqId(), actual.getSeqId());
+                assertEquals(expected.getSoure(), actual.getSoure());
+                assertEquals(expected.getType(), actual.getType());
+                assertEquals(expected.getStartCord(), actual.getStartCord());
+                assertEquals(expected.getEndCord(), actual.getEndCord());
+                assertEquals(expected.getScore(), actual.getScore());
+                assertEquals(expected.getStrand(), actual.getStrand());
+                assertEquals(expected.getPhase(), actual.getPhase());
+                assertEquals(expected.getAttributes(), actual.getAttributes());
+                assertEquals(expected.getAttributesMapping(), actual.getAttributesMapping());
+            }
+        }
+    }
+
+    @Test
+    public void testTrailingEmptyColumnsAreNotCounted() throws IOException {
+        String data = "##gff-version 3\nctg123\t.\tgene\t1\t2\t.\t+\t.\t\t\n";
+        try (Gff3FeatureParser parser = createParser(data)) {
+            parser.parseNext();
+            parser.parseNext();
+            fail("expected parsing error");
+        } catch (ParsingException e) {
+            assertEquals("Unable to parse! a feature must have 9 columns at line 2",
+                    e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.intermine.biovalidator.parser;
+
+import org.intermine.biovalidator.api.ParsingException;
+import org.intermine.biovalidator.api.RecordBatch;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.api.ValidatorBuilder;
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class PipelinedLineParserTest {
+
+    private byte[] createFasta(int records) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < records; i++) {
+            sb.append(">seq").append(i).append(" description\r\n");
+            for (int j = 0; j < 5; j++) {
+                sb.append("ACGTACGTACGTACGTACGTACGTACGTACGTACGTACGTACGTACGTACGTACGTACGT\n");
+            }
+        }
+        return sb.toString().getBytes();
+    }
+
+    @Test
+    public void testSameLinesAsSequentialParser() throws IOException {
+        byte[] data = createFasta(20000);
+        try (ByteLineParser expected = new ByteLineParser(
+                Channels.newChannel(new ByteArrayInputStream(data)));
+             PipelinedLineParser actual = new PipelinedLineParser(
+                Channels.newChannel(new ByteArrayInputStream(data)))) {
+            ByteLine expectedLine;
+            while ((expectedLine = expected.parseNext()) != null) {
+                ByteLine actualLine = actual.parseNext();
+                assertEquals(expectedLine.toString(), actualLine.toString());
+                assertEquals(expectedLine.getLineNumber(), actualLine.getLineNumber());
+                assertEquals(expectedLine.getByteOffset(), actualLine.getByteOffset());
+            }
+            assertNull(actual.parseNext());
+        }
+    }
+
+    @Test
+    public void testSameBatchesAsSequentialParser() throws IOException {
+        byte[] data = createFasta(20000);
+        try (ByteLineParser expected = new ByteLineParser(
+                Channels.newChannel(new ByteArrayInputStream(data)));
+             PipelinedLineParser actual = new PipelinedLineParser(
+                Channels.newChannel(new ByteArrayInputStream(data)))) {
+            RecordBatch<ByteLine> batch = actual.createBatch(1000);
+            ByteLine expectedLine = expected.parseNext();
+            while (actual.parseBatch(batch) > 0) {
+                for (int i = 0; i < batch.size(); i++) {
+                    assertEquals(expectedLine.toString(), batch.get(i).toString());
+                    assertEquals(expectedLine.getLineNumber(), batch.getLineNumber(i));
+                    expectedLine = expected.parseNext();
+                }
+            }
+            assertNull(expectedLine);
+        }
+    }
+
+    @Test
+    public void testCloseBeforeEndOfInput() throws IOException {
+        byte[] data = createFasta(50000);
+        PipelinedLineParser parser = new PipelinedLineParser(
+                Channels.newChannel(new ByteArrayInputStream(data)));
+        assertEquals(">seq0 description", parser.parseNext().toString());
+        parser.close();
+        assertNull(parser.parseNext());
+    }
+
+    @Test(timeout = 10000)
+    public void testUncheckedFailureOfChannelIsRethrown() throws IOException {
+        try (PipelinedLineParser parser = new PipelinedLineParser(
+                failingChannel(new IllegalStateException("broken channel")))) {
+            while (parser.parseNext() != null) {
+                continue;
+            }
+            fail("failure of the channel must be rethrown");
+        } catch (IllegalStateException e) {
+            assertEquals("broken channel", e.getMessage());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testIOFailureOfChannelIsReported() throws IOException {
+        try (PipelinedLineParser parser = new PipelinedLineParser(
+                failingChannel(new IOException("disk error")))) {
+            while (parser.parseNext() != null) {
+                continue;
+            }
+            fail("failure of the channel must be reported");
+        } catch (ParsingException e) {
+            assertEquals("disk error", e.getMessage());
+        }
+    }
+
+    /**
+     * A channel returning some lines, then failing
+     */
+    private ReadableByteChannel failingChannel(Exception failure) {
+        ReadableByteChannel data = Channels.newChannel(new ByteArrayInputStream(createFasta(10)));
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                int read = data.read(dst);
+                if (read >= 0) {
+                    return read;
+                }
+                if (failure instanceof IOException) {
+                    throw (IOException) failure;
+                }
+                throw (RuntimeException) failure;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    public void testPipelinedValidationReportsSameError() {
+        byte[] data = createFasta(10000);
+        data[data.length - 10] = 'Z';
+        ValidationSource source = ValidationSource.of(ByteBuffer.wrap(data), "generated");
+        ValidationResult sequential = ValidatorBuilder.withSource(source, ValidatorType.FASTA_DNA)
+                .build().validate();
+        ValidationResult pipelined = ValidatorBuilder.withSource(source, ValidatorType.FASTA_DNA)
+                .enablePipelinedReading().build().validate();
+        assertFalse(pipelined.isValid());
+        assertEquals(sequential.getErrorMessage(), pipelined.getErrorMessage());
+    }
+}
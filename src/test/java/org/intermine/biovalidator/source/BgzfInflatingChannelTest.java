@@ -0,0 +1,161 @@
+package org.intermine.biovalidator.source;
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.api.ValidatorHelper;
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BgzfInflatingChannelTest {
+
+    private static byte[] bgzfBlock(byte[] data, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+        byte[] compressed = new byte[length + 1024];
+        int compressedLength = deflater.deflate(compressed);
+        deflater.end();
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+
+        ByteBuffer block = ByteBuffer.allocate(compressedLength + 26).order(ByteOrder.LITTLE_ENDIAN);
+        block.put(new byte[] {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff});
+        block.putShort((short) 6).put((byte) 'B').put((byte) 'C').putShort((short) 2);
+        block.putShort((short) (compressedLength + 25));
+        block.put(compressed, 0, compressedLength);
+        block.putInt((int) crc.getValue()).putInt(length);
+        return block.array();
+    }
+
+    /**
+     * Compress data into BGZF blocks of blockSize bytes, an empty EOF block is appended as
+     * bgzip does
+     */
+    private static byte[] bgzf(String text, int blockSize) {
+        byte[] data = text.getBytes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < data.length; i += blockSize) {
+            byte[] block = bgzfBlock(data, i, Math.min(blockSize, data.length - i));
+            out.write(block, 0, block.length);
+        }
+        byte[] eof = bgzfBlock(new byte[0], 0, 0);
+        out.write(eof, 0, eof.length);
+        return out.toByteArray();
+    }
+
+    private static String readAll(ReadableByteChannel channel) throws IOException {
+        try (InputStream in = Channels.newInputStream(channel)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[777];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString();
+        }
+    }
+
+    private static String sampleFasta(int sequences) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < sequences; i++) {
+            builder.append(">seq").append(i).append('\n');
+            builder.append("ACGTTGCAACGTNNACGTTGCAACGT\n");
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testInflatesBlocksInOrder() throws IOException {
+        String text = sampleFasta(5000);
+        byte[] compressed = bgzf(text, 1000);
+        ReadableByteChannel channel = new BgzfInflatingChannel(
+                Channels.newChannel(new ByteArrayInputStream(compressed)), 3);
+        assertEquals(text, readAll(channel));
+    }
+
+    @Test
+    public void testWorkersAreSharedByChannels() throws IOException {
+        String text = sampleFasta(500);
+        byte[] compressed = bgzf(text, 1000);
+        for (int i = 0; i < 20; i++) {
+            try (ReadableByteChannel channel = new BgzfInflatingChannel(
+                    Channels.newChannel(new ByteArrayInputStream(compressed)))) {
+                assertEquals(text, readAll(channel));
+            }
+        }
+        long workers = Thread.getAllStackTraces().keySet().stream()
+                .map(Thread::getName)
+                .filter(name -> name.startsWith("biovalidator-bgzf-") && !name.contains("reader"))
+                .count();
+        assertTrue(workers <= Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void testDetectsBgzfHeader() {
+        byte[] compressed = bgzf("ACGT", 10);
+        assertTrue(BgzfInflatingChannel.isBgzfHeader(ByteBuffer.wrap(compressed)));
+        byte[] plainGzipHeader = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 3, 1, 2, 3, 4, 5, 6,
+            7, 8};
+        assertFalse(BgzfInflatingChannel.isBgzfHeader(ByteBuffer.wrap(plainGzipHeader)));
+    }
+
+    @Test
+    public void testValidatesBgzfFasta() throws IOException {
+        String text = sampleFasta(2000);
+        ValidationSource source = ValidationSource.of(
+                new ByteArrayInputStream(bgzf(text, 4096)), "genome.fa.gz");
+        assertTrue(ValidatorHelper.validate(source, ValidatorType.FASTA_DNA, true).isValid());
+
+        String invalid = text + ">last\nACGTJ\n";
+        source = ValidationSource.of(
+                new ByteArrayInputStream(bgzf(invalid, 4096)), "genome.fa.gz");
+        ValidationResult result = ValidatorHelper.validate(source, ValidatorType.FASTA_DNA, true);
+        assertFalse(result.isValid());
+        assertEquals("Invalid letter J at line number 4002, column 5", result.getErrorMessage());
+    }
+
+    @Test
+    public void testCorruptedBlockIsReported() {
+        byte[] compressed = bgzf(sampleFasta(100), 500);
+        compressed[compressed.length / 2] ^= 0x55;
+        ReadableByteChannel channel = new BgzfInflatingChannel(
+                Channels.newChannel(new ByteArrayInputStream(compressed)), 2);
+        try {
+            readAll(channel);
+            fail("expected corrupted block to fail");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("BGZF"));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCorruptBlockSizeIsReported() {
+        byte[] compressed = bgzf(sampleFasta(10), 500);
+        compressed[16] = 4; // BSIZE + 1 smaller than the header itself
+        compressed[17] = 0;
+        ReadableByteChannel channel = new BgzfInflatingChannel(
+                Channels.newChannel(new ByteArrayInputStream(compressed)), 2);
+        try {
+            readAll(channel);
+            fail("expected corrupt block size to fail");
+        } catch (IOException e) {
+            assertEquals("Invalid BGZF block header at offset 0", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.intermine.biovalidator.source;
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.api.ValidatorHelper;
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EncodingCheckingChannelTest {
+
+    private static int firstInvalid(byte... bytes) {
+        return new Utf8Validator().validate(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static ValidationResult validate(byte[] data, ValidatorType type) {
+        ValidationSource source = ValidationSource.of(ByteBuffer.wrap(data), "data");
+        return ValidatorHelper.validate(source, type, true);
+    }
+
+    private static byte[] concat(byte[] first, String second) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(first, 0, first.length);
+        byte[] secondBytes = second.getBytes(StandardCharsets.UTF_8);
+        out.write(secondBytes, 0, secondBytes.length);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testValidUtf8() {
+        assertEquals(-1, firstInvalid("plain ascii text, longer than a word".getBytes()));
+        assertEquals(-1, firstInvalid("gène µ 日本 🧬".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testInvalidUtf8() {
+        assertEquals(8, firstInvalid(bytes('a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 0xFF)));
+        assertEquals(1, firstInvalid(bytes(0xC3, 'a'))); // missing continuation
+        assertEquals(0, firstInvalid(bytes(0xC0, 0xAF))); // overlong
+        assertEquals(1, firstInvalid(bytes(0xED, 0xA0, 0x80))); // surrogate
+        assertEquals(1, firstInvalid(bytes(0xF4, 0x90, 0x80, 0x80))); // above U+10FFFF
+        assertEquals(0, firstInvalid(bytes(0x80))); // lone continuation
+    }
+
+    @Test
+    public void testSequenceSpanningChunks() {
+        byte[] data = "ab日c".getBytes(StandardCharsets.UTF_8);
+        Utf8Validator validator = new Utf8Validator();
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        assertEquals(-1, validator.validate(buffer, 0, 3));
+        assertFalse(validator.isComplete());
+        assertEquals(-1, validator.validate(buffer, 3, data.length));
+        assertTrue(validator.isComplete());
+        assertFalse(validator.isAscii());
+    }
+
+    @Test
+    public void testReportsOffsetAcrossReads() throws IOException {
+        byte[] data = "0123456789".getBytes();
+        data[7] = (byte) 0xFE;
+        ReadableByteChannel channel = EncodingCheckingChannel.open(
+                Channels.newChannel(new ByteArrayInputStream(data)));
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        assertEquals(4, channel.read(buffer));
+        buffer.clear();
+        assertEquals(3, channel.read(buffer)); // valid bytes before the invalid one
+        buffer.clear();
+        try {
+            channel.read(buffer);
+            fail("expected invalid byte to be reported");
+        } catch (IOException e) {
+            assertEquals("Invalid UTF-8 byte 0xFE at byte offset 7", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInvalidByteInFasta() {
+        byte[] data = ">seq1 desc\nACGT\n>seq2 x\nACGT\n".getBytes();
+        data[21] = (byte) 0xE9; // latin-1 'é' in the second header
+        ValidationResult result = validate(data, ValidatorType.FASTA_DNA);
+        assertFalse(result.isValid());
+        assertEquals("Invalid UTF-8 byte 0xE9 at byte offset 21", result.getErrorMessage());
+    }
+
+    @Test
+    public void testInvalidByteInFirstLineIsNotReportedAsOtherFormat() {
+        byte[] data = ">seq1 desc\nACGT\n".getBytes();
+        data[7] = (byte) 0xE9; // first line cannot be read
+        ValidationResult result = validate(data, ValidatorType.FASTA_DNA);
+        assertEquals("Invalid UTF-8 byte 0xE9 at byte offset 7", result.getErrorMessage());
+
+        data = "@read1 desc\nACGT\n+\nIIII\n".getBytes();
+        data[8] = (byte) 0xE9;
+        result = validate(data, ValidatorType.FASTQ);
+        assertEquals("Invalid UTF-8 byte 0xE9 at byte offset 8", result.getErrorMessage());
+    }
+
+    @Test
+    public void testInvalidByteInCsv() {
+        byte[] data = "name,age\nbob,12\nalice,13\n".getBytes();
+        data[18] = (byte) 0xE9;
+        ValidationResult result = validate(data, ValidatorType.CSV);
+        assertFalse(result.isValid());
+        assertEquals("Invalid UTF-8 byte 0xE9 at byte offset 18", result.getErrorMessage());
+    }
+
+    @Test
+    public void testUtf8ByteOrderMarkIsSkipped() {
+        byte[] fasta = concat(bytes(0xEF, 0xBB, 0xBF), ">seq1\nACGT\n");
+        assertTrue(validate(fasta, ValidatorType.FASTA_DNA).isValid());
+        byte[] gff = concat(bytes(0xEF, 0xBB, 0xBF),
+                "##gff-version 3\nctg123\t.\tgene\t1000\t9000\t.\t+\t.\tID=gène1\n");
+        assertTrue(validate(gff, ValidatorType.GFF3).isValid());
+    }
+
+    @Test
+    public void testUtf16IsReported() {
+        byte[] data = concat(bytes(0xFF, 0xFE), ">\0s\0");
+        ValidationResult result = validate(data, ValidatorType.FASTA);
+        assertFalse(result.isValid());
+        assertEquals("Unsupported encoding UTF-16LE (byte order mark found), only ASCII and "
+                + "UTF-8 input is supported", result.getErrorMessage());
+    }
+}
@@ -73,4 +73,17 @@ public class BioValidatorUtilityTest {
         Optional<ValidatorType> opt = BioValidatorUtils.getOrGuessValidatorType(filename, validatorType);
         assertFalse(opt.isPresent());
     }
+
+    @Test
+    public void testValidatorTypeGuessedFromCompressedFilename() {
+        Optional<ValidatorType> opt = BioValidatorUtils.getOrGuessValidatorType("genome.fa.gz", null);
+        assertTrue(opt.isPresent());
+        assertEquals(ValidatorType.FASTA, opt.get());
+
+        opt = BioValidatorUtils.getOrGuessValidatorType("annotation.gff3.bgz", "");
+        assertTrue(opt.isPresent());
+        assertEquals(ValidatorType.GFF3, opt.get());
+
+        assertFalse(BioValidatorUtils.getOrGuessValidatorType("genome.gz", null).isPresent());
+    }
 }
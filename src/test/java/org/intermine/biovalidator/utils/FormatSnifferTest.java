@@ -0,0 +1,119 @@
+package org.intermine.biovalidator.utils;
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.api.ValidatorHelper;
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FormatSnifferTest {
+
+    private static final String GFF3 = "##gff-version 3\n"
+            + "ctg123\t.\tgene\t1000\t9000\t.\t+\t.\tID=gene00001\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<FormatSniffer.Candidate> sniff(String data, boolean isComplete) {
+        return FormatSniffer.sniff(ByteBuffer.wrap(data.getBytes()), isComplete);
+    }
+
+    private File writeFile(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content.getBytes());
+        return file;
+    }
+
+    @Test
+    public void testFasta() {
+        List<FormatSniffer.Candidate> candidates = sniff(">seq1 desc\nACGT\nTTGA\n>seq2\nMK*\n",
+                true);
+        assertEquals(ValidatorType.FASTA, candidates.get(0).getType());
+        assertTrue(candidates.get(0).isConclusive());
+    }
+
+    @Test
+    public void testFastq() {
+        List<FormatSniffer.Candidate> candidates =
+                sniff("@read1\nACGT\n+\n@II#\n@read2\nAC\n+\nII\n", true);
+        assertEquals(ValidatorType.FASTQ, candidates.get(0).getType());
+        assertTrue(candidates.get(0).isConclusive());
+    }
+
+    @Test
+    public void testGff3WithAndWithoutHeader() {
+        List<FormatSniffer.Candidate> candidates = sniff(GFF3, true);
+        assertEquals(ValidatorType.GFF3, candidates.get(0).getType());
+        assertTrue(candidates.get(0).isConclusive());
+
+        candidates = sniff("ctg123\t.\tgene\t1000\t9000\t.\t+\t.\tID=gene1\n"
+                + "ctg123\t.\tmRNA\t1050\t9000\t.\t+\t.\tID=mRNA1;Parent=gene1\n", true);
+        assertEquals(ValidatorType.GFF3, candidates.get(0).getType());
+        assertFalse(candidates.get(0).isConclusive());
+    }
+
+    @Test
+    public void testCsvDelimiterConsistency() {
+        List<FormatSniffer.Candidate> candidates = sniff(
+                "name;age;city\nbob;12;\"Paris; France\"\nalice;13;Delhi\n", true);
+        assertEquals(1, candidates.size());
+        assertEquals(ValidatorType.CSV, candidates.get(0).getType());
+
+        assertEquals(Collections.emptyList(), sniff("name,age\nbob\nalice,13,x\n", true));
+    }
+
+    @Test
+    public void testIncompleteLastLineIsIgnored() {
+        List<FormatSniffer.Candidate> candidates = sniff("a,b\nc,d\ne,f\ng", false);
+        assertEquals(ValidatorType.CSV, candidates.get(0).getType());
+    }
+
+    @Test
+    public void testContentWinsOverGenericExtension() throws IOException {
+        File file = writeFile("upload.txt", GFF3);
+        ValidationSource source = ValidationSource.of(file);
+        assertEquals(Arrays.asList(ValidatorType.GFF3, ValidatorType.CSV),
+                BioValidatorUtils.sniffValidatorTypes(source));
+        assertEquals(Optional.of(ValidatorType.GFF3),
+                BioValidatorUtils.getOrGuessValidatorType(source, null));
+        assertTrue(ValidatorHelper.validate(file.getPath(), "", true).isValid());
+
+        File fasta = writeFile("no_extension", ">seq1\nACGT\n");
+        ValidationResult result = ValidatorHelper.validate(fasta.getPath(), "", true);
+        assertTrue(result.isValid());
+    }
+
+    @Test
+    public void testExtensionWinsOverWeakContentMatch() throws IOException {
+        File file = writeFile("table.csv", "a\tb\n1\t2\n3\t4\n");
+        assertEquals(Optional.of(ValidatorType.CSV),
+                BioValidatorUtils.getOrGuessValidatorType(ValidationSource.of(file), ""));
+    }
+
+    @Test
+    public void testCompressedContentIsSniffed() throws IOException {
+        File file = folder.newFile("upload.txt.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file.toPath()))) {
+            out.write(">seq1\nACGT\n".getBytes());
+        }
+        assertEquals(Optional.of(ValidatorType.FASTA),
+                BioValidatorUtils.getOrGuessValidatorType(ValidationSource.of(file), null));
+    }
+}
@@ -0,0 +1,97 @@
+package org.intermine.biovalidator.validator;
+
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.Message;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares parallel validation of generated files with their sequential validation, chunks
+ * are made tiny so that small files are split in many chunks
+ */
+public abstract class BaseChunkedValidationTest
+{
+    protected static final long MIN_CHUNK_SIZE = 64;
+
+    private final String suffix;
+    protected Path file;
+
+    protected BaseChunkedValidationTest(String suffix) {
+        this.suffix = suffix;
+    }
+
+    @Before
+    public void setup() throws IOException {
+        file = Files.createTempFile("parallel", suffix);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testSameResultAsSequentialValidation() throws IOException {
+        Random random = new Random(7);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            Files.write(file, generate(random));
+            for (boolean stopAtFirstError : new boolean[] {true, false}) {
+                boolean strict = random.nextBoolean();
+                ValidationResult expected = validate(stopAtFirstError, 1, strict);
+                ValidationResult actual = validate(stopAtFirstError, 3, strict);
+                String info = "iteration " + iteration + " stop " + stopAtFirstError;
+                assertEquals(info, expected.isValid(), actual.isValid());
+                assertEquals(info, messages(expected.getErrorMessages()),
+                        messages(actual.getErrorMessages()));
+                assertEquals(info, messages(expected.getWarningMessages()),
+                        messages(actual.getWarningMessages()));
+            }
+        }
+    }
+
+    /**
+     * Creates a validator of the source, validating in chunks of at least MIN_CHUNK_SIZE bytes
+     * if threads is greater than 1
+     */
+    protected abstract AbstractValidator createValidator(ValidationSource source, int threads);
+
+    /**
+     * Generates a small file, valid or with a few errors
+     */
+    protected abstract byte[] generate(Random random);
+
+    protected ValidationResult validate(boolean stopAtFirstError, int threads, boolean strict) {
+        return validate(ValidationSource.of(file), stopAtFirstError, threads, strict);
+    }
+
+    protected ValidationResult validate(ValidationSource source, boolean stopAtFirstError,
+                                        int threads, boolean strict) {
+        AbstractValidator validator = createValidator(source, threads);
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.enableWarnings();
+        if (!stopAtFirstError) {
+            strategy.disableStopAtFirstError();
+        }
+        validator.applyValidationResultStrategy(strategy);
+        if (!strict) {
+            validator.disableStrictValidation();
+        }
+        return validator.validate();
+    }
+
+    protected static List<String> messages(List<Message> messages) {
+        return messages.stream().map(Message::getMessage).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,101 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.Message;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DuplicateSequenceDetectorTest {
+
+    private static final String FASTA = ">seq1\nACGTACGTACGTACGTAC\nGT\n"
+            + ">seq2\nACGT\n"
+            + ">seq3\nacgtacgt\r\nACGTACGTAC GT\r\n"
+            + ">seq4\nACGTACGTACGTACGTACGA\n"
+            + ">seq5\n>seq6\n\n"
+            + ">seq7\nACGT\n"
+            + ">seq8 same as seq1\nACGTACGTACGTACGTACGT\n";
+
+    @Test
+    public void testDuplicateGroups() {
+        DuplicateSequenceDetector detector = new DuplicateSequenceDetector();
+        validate(FASTA, detector);
+        assertEquals(Arrays.asList(Arrays.asList("seq1", "seq3", "seq8"),
+                Arrays.asList("seq2", "seq7")), detector.getDuplicateGroups());
+    }
+
+    @Test
+    public void testManyDistinctSequences() {
+        StringBuilder fasta = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            fasta.append(">seq").append(i).append('\n')
+                    .append(Integer.toBinaryString(i).replace('0', 'A').replace('1', 'C'))
+                    .append('\n');
+        }
+        fasta.append(">last\nCAAAAAAAAAAAC\n");
+        DuplicateSequenceDetector detector = new DuplicateSequenceDetector();
+        validate(fasta.toString(), detector);
+        assertEquals(Collections.singletonList(Arrays.asList("seq4097", "last")),
+                detector.getDuplicateGroups());
+    }
+
+    @Test
+    public void testReportedAsWarningOrError() {
+        ValidationResult result = check(false);
+        assertTrue(result.isValid());
+        assertEquals(Arrays.asList("Records 'seq1', 'seq3', 'seq8' have the same sequence",
+                "Records 'seq2', 'seq7' have the same sequence"),
+                messages(result.getWarningMessages()));
+
+        result = check(true);
+        assertFalse(result.isValid());
+        assertEquals("Records 'seq1', 'seq3', 'seq8' have the same sequence",
+                result.getErrorMessages().get(0).getMessage());
+    }
+
+    private static ValidationResult check(boolean isStrict) {
+        // empty records are errors on their own
+        String fasta = FASTA.replace(">seq5\n>seq6\n\n", "");
+        FastaValidator validator = new FastaValidator(source(fasta), SequenceType.DNA);
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.enableWarnings();
+        strategy.disableStopAtFirstError();
+        validator.applyValidationResultStrategy(strategy);
+        if (isStrict) {
+            validator.enableStrictValidation();
+        } else {
+            validator.disableStrictValidation();
+        }
+        validator.enableDuplicateSequenceCheck();
+        return validator.validate();
+    }
+
+    private static void validate(String fasta, DuplicateSequenceDetector detector) {
+        FastaValidator validator = new FastaValidator(source(fasta), SequenceType.DNA);
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.disableStopAtFirstError();
+        validator.applyValidationResultStrategy(strategy);
+        validator.addRecordListener(detector);
+        validator.validate();
+    }
+
+    private static ValidationSource source(String fasta) {
+        return ValidationSource.of(ByteBuffer.wrap(fasta.getBytes(StandardCharsets.US_ASCII)),
+                "test.fa");
+    }
+
+    private static List<String> messages(List<? extends Message> messages) {
+        return messages.stream().map(Message::getMessage).collect(Collectors.toList());
+    }
+}
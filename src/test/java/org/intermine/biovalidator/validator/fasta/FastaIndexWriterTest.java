@@ -0,0 +1,169 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FastaIndexWriterTest {
+
+    private Path file;
+    private Path indexFile;
+
+    @Before
+    public void setup() throws IOException {
+        file = Files.createTempFile("index", ".fa");
+        indexFile = Paths.get(file + ".fai");
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(indexFile);
+    }
+
+    @Test
+    public void testMultipleRecords() {
+        String fasta = ">chr1 first\nACGTA\nCGTAC\nGT\n>chr2\nAC\n>chr3\nACGTA\nCGTAC\n";
+        assertEquals("chr1\t12\t12\t5\t6\nchr2\t2\t33\t2\t3\nchr3\t10\t42\t5\t6\n",
+                index(fasta));
+    }
+
+    @Test
+    public void testCrLfLineTerminators() {
+        String fasta = ">chr1\r\nACGT\r\nAC\r\n>chr2\r\nAAA\r\n";
+        assertEquals("chr1\t6\t7\t4\t6\nchr2\t3\t24\t3\t5\n", index(fasta));
+    }
+
+    @Test
+    public void testLastLineWithoutTerminator() {
+        assertEquals("chr1\t7\t6\t4\t5\n", index(">chr1\nACGT\nACG"));
+        assertEquals("chr1\t4\t6\t4\t5\n", index(">chr1\nACGT"));
+    }
+
+    @Test
+    public void testEmptyLinesAtEndOfRecord() {
+        assertEquals("chr1\t6\t6\t4\t5\nchr2\t2\t22\t2\t3\n",
+                index(">chr1\nACGT\nAC\n\n\n>chr2\nAC\n"));
+    }
+
+    @Test
+    public void testOffsetsAfterByteOrderMark() {
+        assertEquals("chr1\t4\t9\t4\t5\n", index("\ufeff>chr1\nACGT\n"));
+    }
+
+    @Test
+    public void testSameRowsWithPipelinedReading() {
+        StringBuilder fasta = new StringBuilder();
+        for (int record = 0; record < 500; record++) {
+            fasta.append(">seq").append(record).append('\n');
+            for (int line = 0; line < 1 + record % 7; line++) {
+                fasta.append("ACGTACGTACGTACGTACGTACGTACGTACGTACGTACGT\n");
+            }
+            fasta.append("ACG\n");
+        }
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        assertTrue(validate(fasta.toString(), expected, false).isValid());
+        assertTrue(validate(fasta.toString(), actual, true).isValid());
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void testInconsistentLineLength() {
+        ValidationResult result = validate(">chr1\nACGT\nACG\nACGT\n",
+                new ByteArrayOutputStream(), false);
+        assertFalse(result.isValid());
+        assertEquals("Record 'chr1' has a line of different length at line 3, file cannot be "
+                + "indexed", result.getErrorMessages().get(0).getMessage());
+    }
+
+    @Test
+    public void testLongerLastLine() {
+        ValidationResult result = validate(">chr1\nACGT\nACGTA\n>chr2\nA\n",
+                new ByteArrayOutputStream(), false);
+        assertFalse(result.isValid());
+        assertEquals("Record 'chr1' has a last line longer than other lines at line 3, file "
+                + "cannot be indexed", result.getErrorMessages().get(0).getMessage());
+    }
+
+    @Test
+    public void testEmptyLineInsideSequence() {
+        ValidationResult result = validate(">chr1\nACGT\n\nACGT\n",
+                new ByteArrayOutputStream(), false);
+        assertFalse(result.isValid());
+        assertEquals("Record 'chr1' has an empty line inside the sequence at line 3, file "
+                + "cannot be indexed", result.getErrorMessages().get(0).getMessage());
+    }
+
+    @Test
+    public void testIndexFileWrittenNextToValidFile() throws IOException {
+        Files.write(file, ">chr1\nACGT\nAC\n".getBytes(StandardCharsets.US_ASCII));
+        FastaValidator validator = new FastaValidator(ValidationSource.of(file), SequenceType.DNA);
+        validator.enableFaiIndex();
+        assertTrue(validator.validate().isValid());
+        assertEquals("chr1\t6\t6\t4\t5\n",
+                new String(Files.readAllBytes(indexFile), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testNoIndexFileForInvalidFile() throws IOException {
+        Files.write(file, ">chr1\nACGT\nA\nACGT\n".getBytes(StandardCharsets.US_ASCII));
+        FastaValidator validator = new FastaValidator(ValidationSource.of(file), SequenceType.DNA);
+        validator.enableFaiIndex();
+        assertFalse(validator.validate().isValid());
+        assertFalse(Files.exists(indexFile));
+        String prefix = file.getFileName().toString();
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertFalse(files.map(path -> path.getFileName().toString())
+                    .anyMatch(name -> name.startsWith(prefix) && name.endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    public void testIndexFileNeedsFileOnDisk() {
+        ValidationSource source = ValidationSource.of(
+                ByteBuffer.wrap(">chr1\nACGT\n".getBytes(StandardCharsets.US_ASCII)), "a.fa");
+        FastaValidator validator = new FastaValidator(source, SequenceType.DNA);
+        validator.enableFaiIndex();
+        ValidationResult result = validator.validate();
+        assertFalse(result.isValid());
+        assertEquals("Fasta index can only be written for uncompressed files",
+                result.getErrorMessages().get(0).getMessage());
+    }
+
+    private String index(String fasta) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ValidationResult result = validate(fasta, out, false);
+        assertTrue(result.getErrorMessages().toString(), result.isValid());
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private ValidationResult validate(String fasta, ByteArrayOutputStream out,
+                                      boolean pipelined) {
+        ValidationSource source = ValidationSource.of(
+                ByteBuffer.wrap(fasta.getBytes(StandardCharsets.UTF_8)), "test.fa");
+        FastaValidator validator = new FastaValidator(source, SequenceType.DNA);
+        validator.applyValidationResultStrategy(new DefaultValidationResultStrategy());
+        validator.writeFaiIndex(out);
+        if (pipelined) {
+            validator.enablePipelinedReading();
+        }
+        return validator.validate();
+    }
+}
@@ -0,0 +1,90 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FastaStatisticsTest {
+
+    private static final String FASTA = ">chr1 first\nACGTNN\nNNacgt\n\n"
+            + ">chr2\nGGCCRYKM\nNNNNNNNNNN\nNA\n"
+            + ">chr3\nAT\n";
+
+    @Test
+    public void testRecordStatistics() {
+        FastaStatistics statistics = collect(FASTA);
+        assertEquals(3, statistics.getRecords().size());
+
+        FastaStatistics.RecordStatistics chr1 = statistics.getRecords().get(0);
+        assertEquals("chr1", chr1.getName());
+        assertEquals(12, chr1.getLength());
+        assertEquals(4, chr1.getGcCount());
+        assertEquals(0.5, chr1.getGcFraction(), 1e-9);
+        assertEquals(4, chr1.getNCount());
+        assertEquals(4, chr1.getLongestNRun());
+        assertEquals(4, chr1.getLowerCaseCount());
+        assertEquals(1 / 3.0, chr1.getSoftMaskedFraction(), 1e-9);
+        assertEquals(0, chr1.getAmbiguousCount());
+
+        FastaStatistics.RecordStatistics chr2 = statistics.getRecords().get(1);
+        assertEquals(20, chr2.getLength());
+        assertEquals(4, chr2.getGcCount());
+        assertEquals(11, chr2.getNCount());
+        assertEquals(11, chr2.getLongestNRun());
+        assertEquals(4, chr2.getAmbiguousCount());
+    }
+
+    @Test
+    public void testAssemblyStatistics() {
+        FastaStatistics statistics = collect(FASTA);
+        assertEquals(34, statistics.getTotalLength());
+        assertEquals(20, statistics.getN50());
+        assertEquals(1, statistics.getL50());
+        assertEquals(15, statistics.getNCount());
+        assertEquals(8 / 19.0, statistics.getGcFraction(), 1e-9);
+        assertArrayEquals(new long[] {1, 2}, statistics.getLengthHistogram());
+
+        FastaStatistics even = collect(">a\nAAAA\n>b\nAAAA\n>c\nAA\n>d\nAA\n");
+        assertEquals(4, even.getN50());
+        assertEquals(2, even.getL50());
+    }
+
+    @Test
+    public void testTsvAndJson() throws IOException {
+        FastaStatistics statistics = collect(">chr1\nACGT\n>chr\"2\nNNNNNNNNNNNN\n");
+        StringWriter tsv = new StringWriter();
+        statistics.writeTsv(tsv);
+        assertTrue(tsv.toString(), tsv.toString().contains("#n50\t12\n"));
+        assertTrue(tsv.toString(), tsv.toString().contains("#length_histogram\t10-99\t1\n"));
+        assertTrue(tsv.toString(), tsv.toString().endsWith(
+                "chr1\t4\t0.5000\t0\t0\t0.0000\t0\nchr\"2\t12\t0.0000\t12\t12\t0.0000\t0\n"));
+
+        StringWriter json = new StringWriter();
+        statistics.writeJson(json);
+        assertTrue(json.toString(), json.toString().startsWith("{\"summary\":{\"records\":2,"
+                + "\"total_length\":16,\"n50\":12,\"l50\":1,\"gc_fraction\":0.5000,"));
+        assertTrue(json.toString(), json.toString().contains("{\"name\":\"chr\\\"2\","
+                + "\"length\":12,"));
+    }
+
+    private static FastaStatistics collect(String fasta) {
+        ValidationSource source = ValidationSource.of(
+                ByteBuffer.wrap(fasta.getBytes(StandardCharsets.US_ASCII)), "test.fa");
+        FastaValidator validator = new FastaValidator(source, SequenceType.ALL);
+        validator.applyValidationResultStrategy(new DefaultValidationResultStrategy());
+        validator.disableStrictValidation();
+        FastaStatisticsCollector collector = new FastaStatisticsCollector();
+        validator.addRecordListener(collector);
+        assertTrue(validator.validate().isValid());
+        return collector.getStatistics();
+    }
+}
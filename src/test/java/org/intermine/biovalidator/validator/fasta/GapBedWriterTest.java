@@ -0,0 +1,54 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GapBedWriterTest {
+
+    @Test
+    public void testGapsSpanningLines() {
+        String fasta = ">chr1 first\nNNACGT\nACNNNN\nNNNNAC\nGTNN\n\n>chr2\nACGTNACGTN\n>chr3\nNN\n";
+        assertEquals("chr1\t0\t2\t2\nchr1\t8\t16\t8\nchr1\t20\t22\t2\n"
+                + "chr2\t4\t5\t1\nchr2\t9\t10\t1\nchr3\t0\t2\t2\n", gaps(fasta, 1));
+        assertEquals("chr1\t8\t16\t8\n", gaps(fasta, 3));
+    }
+
+    @Test
+    public void testSoftMaskedAndCrLf() {
+        assertEquals("chr1\t2\t6\t4\n", gaps(">chr1\r\nacnn\r\nNNgt\r\n", 1));
+    }
+
+    @Test
+    public void testSameGapsAsSingleLine() {
+        Random random = new Random(11);
+        StringBuilder sequence = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sequence.append(random.nextInt(4) == 0 ? 'N' : "ACGT".charAt(random.nextInt(4)));
+        }
+        StringBuilder wrapped = new StringBuilder(">chr1\n");
+        for (int i = 0; i < sequence.length(); i += 61) {
+            wrapped.append(sequence, i, Math.min(i + 61, sequence.length())).append('\n');
+        }
+        assertEquals(gaps(">chr1\n" + sequence + "\n", 2), gaps(wrapped.toString(), 2));
+    }
+
+    private static String gaps(String fasta, long minGapLength) {
+        ValidationSource source = ValidationSource.of(
+                ByteBuffer.wrap(fasta.getBytes(StandardCharsets.US_ASCII)), "test.fa");
+        FastaValidator validator = new FastaValidator(source, SequenceType.DNA);
+        validator.applyValidationResultStrategy(new DefaultValidationResultStrategy());
+        StringWriter bed = new StringWriter();
+        validator.addRecordListener(new GapBedWriter(bed, minGapLength));
+        assertTrue(validator.validate().isValid());
+        return bed.toString();
+    }
+}
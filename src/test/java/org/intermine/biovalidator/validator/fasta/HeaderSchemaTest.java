@@ -0,0 +1,137 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.Message;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HeaderSchemaTest {
+
+    @Test
+    public void testNcbi() {
+        HeaderFields fields = new HeaderFields(HeaderSchema.NCBI);
+        assertTrue(HeaderSchema.NCBI.match(">NM_000546.6 Homo sapiens tumor protein p53", fields));
+        assertEquals("NM_000546", fields.getString("accession"));
+        assertEquals("6", fields.getString("version"));
+        assertEquals("Homo sapiens tumor protein p53", fields.getString("description"));
+
+        assertTrue(HeaderSchema.NCBI.match(">NZ_AAAA01000001.1", fields));
+        assertEquals("NZ_AAAA01000001", fields.getString("accession"));
+        assertNull(fields.getString("description"));
+
+        assertEquals(-1, HeaderSchema.NCBI.indexOfMismatch(">AB000001.12 x"));
+        assertEquals(1, HeaderSchema.NCBI.indexOfMismatch(">chr1"));
+        assertEquals(10, HeaderSchema.NCBI.indexOfMismatch(">NM_000546"));
+        assertEquals(11, HeaderSchema.NCBI.indexOfMismatch(">NM_000546.x"));
+    }
+
+    @Test
+    public void testUniprot() {
+        HeaderFields fields = new HeaderFields(HeaderSchema.UNIPROT);
+        assertTrue(HeaderSchema.UNIPROT.match(">sp|P69905|HBA_HUMAN Hemoglobin subunit alpha "
+                + "OS=Homo sapiens OX=9606 GN=HBA1 PE=1 SV=2", fields));
+        assertEquals("sp", fields.getString("db"));
+        assertEquals("P69905", fields.getString("accession"));
+        assertEquals("HBA_HUMAN", fields.getString("entry"));
+        // fields followed by a key are told apart from it
+        assertEquals("Hemoglobin subunit alpha", fields.getString("protein"));
+        assertEquals("Homo sapiens", fields.getString("organism"));
+        assertEquals("9606", fields.getString("taxid"));
+        assertEquals("HBA1", fields.getString("gene"));
+        assertEquals("2", fields.getString("sequenceVersion"));
+
+        assertTrue(HeaderSchema.UNIPROT.match(">tr|Q9XYZ1-2|Q9XYZ1_DROME Uncharacterized "
+                + "protein OS=Drosophila melanogaster OX=7227", fields));
+        assertEquals("Q9XYZ1-2", fields.getString("accession"));
+        assertNull(fields.getString("gene"));
+        assertFalse(HeaderSchema.UNIPROT.match(">sp|P69905|HBA_HUMAN Hemoglobin", fields));
+    }
+
+    @Test
+    public void testEnsembl() {
+        HeaderFields fields = new HeaderFields(HeaderSchema.ENSEMBL);
+        assertTrue(HeaderSchema.ENSEMBL.match(">ENST00000632684.1 cdna "
+                + "chromosome:GRCh38:7:142786213:142786224:1 gene:ENSG00000282431.1 "
+                + "gene_biotype:TR_D_gene gene_symbol:TRBD1 "
+                + "description:T cell receptor beta diversity 1", fields));
+        assertEquals("ENST00000632684.1", fields.getString("id"));
+        assertEquals("cdna", fields.getString("type"));
+        assertEquals("chromosome:GRCh38:7:142786213:142786224:1", fields.getString("location"));
+        assertEquals("ENSG00000282431.1", fields.getString("gene"));
+        assertEquals("T cell receptor beta diversity 1", fields.getString("description"));
+        assertEquals(20, HeaderSchema.ENSEMBL.indexOfMismatch(">ENSP00000451515 pep"));
+    }
+
+    @Test
+    public void testCustomSchema() {
+        HeaderSchema schema = HeaderSchema.compile("test",
+                "{name:[a-z]+}(\\|{tag:[^|]*})*( {rest:.*})?");
+        assertEquals(Arrays.asList("name", "tag", "rest"), schema.getFieldNames());
+        HeaderFields fields = new HeaderFields(schema);
+        assertTrue(schema.match(">abc|x y|z", fields));
+        assertEquals("abc", fields.getString("name"));
+        assertEquals("x y|z", fields.getString("tag")); // first to last char of the field
+        assertEquals(5, fields.getStart(1));
+        assertEquals(10, fields.getEnd(1));
+        assertFalse(fields.isPresent(2));
+
+        assertEquals(-1, HeaderSchema.compile("empty", "").indexOfMismatch(">"));
+        assertEquals(1, HeaderSchema.compile("empty", "").indexOfMismatch(">a"));
+        assertEquals(-1, HeaderSchema.compile("escaped", "a\\.b(c|d)?").indexOfMismatch(">a.bd"));
+        assertEquals(2, HeaderSchema.compile("escaped", "a\\.b").indexOfMismatch(">axb"));
+        assertEquals(2, HeaderSchema.compile("byte", "a").indexOfMismatch(">a\u0100"));
+    }
+
+    @Test
+    public void testInvalidSchemas() {
+        for (String pattern : Arrays.asList("(ab", "a)", "[a-", "{a:{b:c}}", "{a:x}{a:y}", "*",
+                "{:a}", "[z-a]", "a\\")) {
+            try {
+                HeaderSchema.compile("invalid", pattern);
+                fail(pattern);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid header schema"));
+            }
+        }
+        try {
+            HeaderSchema.of("genbank");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown header schema genbank, expected ncbi, uniprot or ensembl",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void testValidatorChecksSchema() {
+        String fasta = ">NM_000546.6 TP53\nACGT\n>chr1\nACGT\n>NM_000547.1\nACGT\n";
+        FastaValidator validator = new FastaValidator(ValidationSource.of(
+                ByteBuffer.wrap(fasta.getBytes(StandardCharsets.US_ASCII)), "test.fa"),
+                SequenceType.DNA);
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.disableStopAtFirstError();
+        validator.applyValidationResultStrategy(strategy);
+        validator.setHeaderSchema(HeaderSchema.of("NCBI"));
+        ValidationResult result = validator.validate();
+        assertEquals(Arrays.asList("Header does not match ncbi schema at line 3, column 2"),
+                messages(result));
+    }
+
+    private static List<String> messages(ValidationResult result) {
+        return result.getErrorMessages().stream().map(Message::getMessage)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,88 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.validator.AbstractValidator;
+import org.intermine.biovalidator.validator.BaseChunkedValidationTest;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+public class ParallelFastaValidationTest extends BaseChunkedValidationTest {
+
+    public ParallelFastaValidationTest() {
+        super(".fa");
+    }
+
+    @Test
+    public void testValidFileSpanningManyChunks() throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int record = 0; record < 20; record++) {
+            data.append(">chr").append(record).append(" description\n");
+            for (int line = 0; line < 30; line++) {
+                data.append("ACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTN\n");
+            }
+        }
+        Files.write(file, data.toString().getBytes(StandardCharsets.US_ASCII));
+        ValidationResult result = validate(ValidationSource.ofMappedFile(file), true, 4, true);
+        assertTrue(result.isValid());
+    }
+
+    @Override
+    protected AbstractValidator createValidator(ValidationSource source, int threads) {
+        FastaValidator validator = new FastaValidator(source, SequenceType.DNA);
+        if (threads > 1) {
+            validator.enableParallelValidation(threads);
+            validator.setMinChunkSize(MIN_CHUNK_SIZE);
+        }
+        return validator;
+    }
+
+    @Override
+    protected byte[] generate(Random random) {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        String newLine = random.nextInt(4) == 0 ? "\r\n" : "\n";
+        if (random.nextInt(10) == 0) {
+            write(data, "\uFEFF");
+        }
+        int records = 1 + random.nextInt(6);
+        for (int record = 0; record < records; record++) {
+            int header = random.nextInt(12);
+            if (header == 0) {
+                write(data, ">" + newLine);
+            } else if (header == 1 && record > 0) {
+                write(data, ">seq0 duplicate" + newLine);
+            } else if (header != 2 || record > 0) {
+                write(data, ">seq" + record + " record " + record + newLine);
+            }
+            int lines = random.nextInt(5);
+            for (int line = 0; line < lines; line++) {
+                int length = random.nextInt(100);
+                StringBuilder sequence = new StringBuilder();
+                for (int i = 0; i < length; i++) {
+                    sequence.append("ACGTNacgtn".charAt(random.nextInt(10)));
+                }
+                if (length > 0 && random.nextInt(15) == 0) {
+                    sequence.setCharAt(random.nextInt(length), 'Z');
+                }
+                write(data, sequence + newLine);
+            }
+        }
+        byte[] bytes = data.toByteArray();
+        if (random.nextInt(20) == 0 && bytes.length > 0) {
+            bytes[random.nextInt(bytes.length)] = (byte) 0xE9;
+        }
+        return bytes;
+    }
+
+    private static void write(ByteArrayOutputStream data, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        data.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,142 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.Message;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RegionFastaValidationTest {
+
+    private static final String FASTA = ">chr1 first\nACGTA\nCGTAC\nGT\n\n"
+            + ">chr2\nACGTA\nACXTA\nACGTA\nAC\n"
+            + ">chr3\nACGTA\nAC\n";
+
+    private Path file;
+    private Path indexFile;
+
+    @Before
+    public void setup() throws IOException {
+        file = Files.createTempFile("regions", ".fa");
+        indexFile = FastaIndex.indexPathOf(file);
+        Files.write(file, FASTA.replace('X', 'G').getBytes(StandardCharsets.US_ASCII));
+        FastaValidator validator = new FastaValidator(ValidationSource.of(file), SequenceType.DNA);
+        validator.enableFaiIndex();
+        assertTrue(validator.validate().isValid());
+        Files.write(file, FASTA.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(indexFile);
+    }
+
+    @Test
+    public void testValidRecords() {
+        assertTrue(validate("chr1", "chr3").isValid());
+        assertTrue(validate("chr2:1-5", "chr2:11-17").isValid());
+    }
+
+    @Test
+    public void testSameMessagesAsWholeFile() {
+        ValidationResult expected = validate();
+        assertFalse(expected.isValid());
+        assertEquals(messages(expected), messages(validate("chr2")));
+        assertEquals(messages(expected), messages(validate("chr2:8-9")));
+        assertEquals(messages(expected), messages(validate("chr3", "chr2:4-12", "chr2")));
+    }
+
+    @Test
+    public void testMappedRecords() throws IOException {
+        StringBuilder fasta = new StringBuilder();
+        for (int record = 0; record < 3; record++) {
+            fasta.append(">chr").append(record).append(" big\n");
+            for (int line = 0; line < 20000; line++) {
+                fasta.append("ACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTN\n");
+            }
+        }
+        Files.write(file, fasta.toString().getBytes(StandardCharsets.US_ASCII));
+        FastaValidator validator = new FastaValidator(ValidationSource.of(file), SequenceType.DNA);
+        validator.enableFaiIndex();
+        assertTrue(validator.validate().isValid());
+        int invalid = fasta.length() - 1000;
+        fasta.setCharAt(invalid, 'X');
+        Files.write(file, fasta.toString().getBytes(StandardCharsets.US_ASCII));
+
+        ValidationResult expected = validate();
+        assertFalse(expected.isValid());
+        assertEquals(messages(expected), messages(validate("chr2", "chr0")));
+        assertEquals(messages(expected), messages(validate("chr2:1000000-1200000")));
+        assertTrue(validate("chr1", "chr2:1-10000").isValid());
+    }
+
+    @Test
+    public void testRegionNotFound() {
+        assertEquals(Collections.singletonList("Region 'chr4' not found in fasta index"),
+                messages(validate("chr4")));
+        assertEquals(Collections.singletonList("Region 'chr1:20-30' not found in fasta index"),
+                messages(validate("chr1:20-30")));
+    }
+
+    @Test
+    public void testIndexNotMatchingFile() throws IOException {
+        Files.write(file, FASTA.replace("GT\n\n", "GTA\n\n").getBytes(StandardCharsets.US_ASCII));
+        assertEquals(Collections.singletonList("Fasta index does not match file at record "
+                + "'chr1'"), messages(validate("chr3")));
+
+        Files.write(file, FASTA.replace(">chr3", ">chr4").getBytes(StandardCharsets.US_ASCII));
+        assertEquals(Collections.singletonList("Fasta index does not match file at record "
+                + "'chr3'"), messages(validate("chr1")));
+
+        Files.write(file, (FASTA + ">chr4\nAC\n").getBytes(StandardCharsets.US_ASCII));
+        assertEquals(Collections.singletonList("Fasta index does not match file, data at line "
+                + "14 is not indexed"), messages(validate("chr1")));
+
+        Files.write(file, FASTA.replace("CGTAC\n", "CGTAT\n").getBytes(StandardCharsets.US_ASCII));
+        assertTrue(validate("chr1").isValid());
+        Files.write(file, (FASTA + "GT").getBytes(StandardCharsets.US_ASCII));
+        assertEquals(Collections.singletonList("Fasta index does not match file, data at line "
+                + "14 is not indexed"), messages(validate("chr3:1-7")));
+        Files.write(file, (FASTA.substring(0, FASTA.length() - 1) + "GT\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        assertEquals(Collections.singletonList("Fasta index does not match file at record "
+                + "'chr3'"), messages(validate("chr1")));
+    }
+
+    @Test
+    public void testMissingIndex() throws IOException {
+        Files.delete(indexFile);
+        assertEquals(Collections.singletonList("Fasta index " + indexFile + " not found, "
+                + "regions cannot be validated"), messages(validate("chr1")));
+    }
+
+    private ValidationResult validate(String... regions) {
+        FastaValidator validator = new FastaValidator(ValidationSource.of(file), SequenceType.DNA);
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.disableStopAtFirstError();
+        validator.applyValidationResultStrategy(strategy);
+        validator.setRegions(Arrays.asList(regions));
+        return validator.validate();
+    }
+
+    private static List<String> messages(ValidationResult result) {
+        return result.getErrorMessages().stream().map(Message::getMessage)
+                .collect(Collectors.toList());
+    }
+}
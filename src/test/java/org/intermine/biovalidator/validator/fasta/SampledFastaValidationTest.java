@@ -0,0 +1,155 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.DefaultValidationResult;
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.Message;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.parser.ByteLineParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SampledFastaValidationTest {
+
+    private static final int RECORDS = 2000;
+
+    private Path file;
+    private StringBuilder fasta;
+
+    @Before
+    public void setup() throws IOException {
+        file = Files.createTempFile("sampled", ".fa");
+        fasta = new StringBuilder();
+        for (int record = 0; record < RECORDS; record++) {
+            fasta.append(">seq").append(record).append('\n')
+                    .append("ACGTNACGTNACGTNACGTN\nACGTA\n");
+        }
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testSmallFileIsFullyValidated() throws IOException {
+        fasta.append(">seq7\nACGT\n");
+        Files.write(file, fasta.toString().getBytes(StandardCharsets.US_ASCII));
+        FastaValidator validator = new FastaValidator(ValidationSource.of(file), SequenceType.DNA);
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.disableStopAtFirstError();
+        validator.applyValidationResultStrategy(strategy);
+        validator.enableQuickCheck();
+        ValidationResult result = validator.validate();
+
+        assertFalse(result.isValid());
+        assertEquals("Duplicate sequence-id at line " + (3 * RECORDS + 1),
+                result.getErrorMessages().get(0).getMessage());
+        QuickCheckReport report = validator.getQuickCheckReport().get();
+        assertTrue(report.isComplete());
+        assertEquals(RECORDS + 1, report.getValidatedRecords());
+        assertEquals(0, report.getMaxInvalidFraction(), 0);
+        assertEquals(Collections.singletonList(report.toString()), result.getInfoMessages()
+                .stream().map(Message::getMessage).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testValidSamples() throws IOException {
+        Files.write(file, fasta.toString().getBytes(StandardCharsets.US_ASCII));
+        ValidationResult result = createResult();
+        QuickCheckReport report = sampledValidation(result).validate(file);
+
+        assertTrue(result.isValid());
+        assertFalse(report.isComplete());
+        assertEquals(fasta.length(), report.getFileSize());
+        assertTrue(report.getValidatedRecords() < RECORDS);
+        assertEquals(20, report.getRandomRecords());
+        assertEquals(0, report.getInvalidRandomRecords());
+        assertTrue(report.getMaxInvalidFraction() > 0 && report.getMaxInvalidFraction() < 0.2);
+        assertEquals(RECORDS, report.getEstimatedRecords(), RECORDS / 10);
+        assertTrue(report.toString().startsWith("Quick check: result is sampled, not exhaustive, validated "));
+    }
+
+    @Test
+    public void testErrorInLastRecords() throws IOException {
+        fasta.setCharAt(fasta.length() - 3, 'X');
+        Files.write(file, fasta.toString().getBytes(StandardCharsets.US_ASCII));
+        ValidationResult result = createResult();
+        sampledValidation(result).validate(file);
+
+        // the last 5 records are validated from the start of the first of them
+        int tailStart = fasta.lastIndexOf(">seq" + (RECORDS - 5) + "\n");
+        assertEquals(Collections.singletonList("Sampled record at byte offset " + tailStart
+                + ": Invalid letter X at line number 15, column 4"), messages(result));
+    }
+
+    @Test
+    public void testErrorInFirstRecordsDoesNotStopSampling() throws IOException {
+        fasta.setCharAt(10, 'X');
+        Files.write(file, fasta.toString().getBytes(StandardCharsets.US_ASCII));
+        FastaValidator validator = new FastaValidator(ValidationSource.of(file), SequenceType.DNA);
+        validator.enableQuickCheck(5, 5, 20); // stops at the first error by default
+        ValidationResult result = validator.validate();
+
+        assertEquals(Collections.singletonList("Invalid letter X at line number 2, column 5"),
+                messages(result));
+        QuickCheckReport report = validator.getQuickCheckReport().get();
+        assertTrue(report.isComplete()); // small file
+        assertEquals(RECORDS, report.getValidatedRecords());
+
+        SampledFastaValidation validation = sampledValidation(result);
+        report = validation.validate(file);
+        assertEquals(10 + report.getRandomRecords(), report.getValidatedRecords());
+        assertEquals(20, report.getRandomRecords());
+    }
+
+    @Test
+    public void testStreamOnlyValidatesFirstRecords() throws IOException {
+        ValidationResult result = createResult();
+        byte[] bytes = fasta.toString().getBytes(StandardCharsets.US_ASCII);
+        QuickCheckReport report;
+        try (ByteLineParser parser = new ByteLineParser(Channels.newChannel(
+                new ByteArrayInputStream(bytes)))) {
+            report = sampledValidation(result).validateFirstRecords(parser);
+        }
+
+        assertTrue(result.isValid());
+        assertFalse(report.isComplete());
+        assertEquals(5, report.getValidatedRecords());
+        assertEquals(5 * ">seq0\nACGTNACGTNACGTNACGTN\nACGTA\n".length(),
+                report.getValidatedBytes());
+    }
+
+    private SampledFastaValidation sampledValidation(ValidationResult result) {
+        SampledFastaValidation validation = new SampledFastaValidation(
+                new FastaValidator(ValidationSource.of(file), SequenceType.DNA), result, 5, 5, 20);
+        validation.setMaxSampleSize(1024);
+        return validation;
+    }
+
+    private static ValidationResult createResult() {
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.disableStopAtFirstError();
+        return new DefaultValidationResult(strategy);
+    }
+
+    private static List<String> messages(ValidationResult result) {
+        return result.getErrorMessages().stream().map(Message::getMessage)
+                .collect(Collectors.toList());
+    }
+}
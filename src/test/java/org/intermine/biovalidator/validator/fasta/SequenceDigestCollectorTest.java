@@ -0,0 +1,109 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SequenceDigestCollectorTest {
+
+    @Test
+    public void testNormalizedDigests() {
+        List<SequenceDigestCollector.RecordDigest> digests =
+                collect(">seq1 first\nAC\r\ngt\n\n>seq2\nACGT\n");
+        assertEquals(2, digests.size());
+        for (SequenceDigestCollector.RecordDigest digest : digests) {
+            assertEquals(4, digest.getLength());
+            assertEquals("f1f8f4bf413b16ad135722aa4591043e", digest.getMd5());
+            assertEquals("aKF498dAxcJAqme6QYQ7EZ07-fiw8Kw2", digest.getSha512t24u());
+        }
+        assertEquals("seq1", digests.get(0).getName());
+    }
+
+    @Test
+    public void testRecordsSpanningManyBuffers() throws NoSuchAlgorithmException {
+        Random random = new Random(3);
+        StringBuilder fasta = new StringBuilder();
+        StringBuilder[] sequences = {new StringBuilder(), new StringBuilder()};
+        for (int record = 0; record < sequences.length; record++) {
+            StringBuilder sequence = sequences[record];
+            fasta.append(">seq").append(record).append('\n');
+            for (int line = 0; line < 50000; line++) {
+                for (int i = 0; i < 60; i++) {
+                    char letter = "ACGTNacgtn".charAt(random.nextInt(10));
+                    fasta.append(letter);
+                    sequence.append(Character.toUpperCase(letter));
+                }
+                fasta.append('\n');
+            }
+        }
+        List<SequenceDigestCollector.RecordDigest> digests = collect(fasta.toString());
+        for (int i = 0; i < sequences.length; i++) {
+            byte[] sequence = sequences[i].toString().getBytes(StandardCharsets.US_ASCII);
+            assertEquals(sequence.length, digests.get(i).getLength());
+            assertEquals(md5Hex(sequence), digests.get(i).getMd5());
+        }
+    }
+
+    @Test
+    public void testTsv() throws IOException {
+        SequenceDigestCollector collector = new SequenceDigestCollector();
+        validate(">chr1\nACGT\n", collector);
+        StringWriter tsv = new StringWriter();
+        collector.writeTsv(tsv);
+        assertEquals("name\tlength\tmd5\tsha512t24u\n"
+                + "chr1\t4\tf1f8f4bf413b16ad135722aa4591043e\taKF498dAxcJAqme6QYQ7EZ07-fiw8Kw2\n",
+                tsv.toString());
+    }
+
+    @Test(timeout = 10000)
+    public void testBuffersOfStoppedValidationsAreReleased() {
+        SequenceDigestCollector collector = new SequenceDigestCollector();
+        for (int i = 0; i < 20; i++) { // more validations than pooled buffers
+            ValidationSource source = ValidationSource.of(ByteBuffer.wrap(
+                    ">seq1\nACGE\n".getBytes(StandardCharsets.US_ASCII)), "test.fa");
+            FastaValidator validator = new FastaValidator(source, SequenceType.DNA);
+            validator.applyValidationResultStrategy(new DefaultValidationResultStrategy());
+            validator.addRecordListener(collector);
+            assertFalse(validator.validate().isValid());
+        }
+        validate(">chr1\nACGT\n", collector);
+        assertEquals(1, collector.getDigests().size());
+        assertEquals("f1f8f4bf413b16ad135722aa4591043e", collector.getDigests().get(0).getMd5());
+    }
+
+    private static String md5Hex(byte[] data) throws NoSuchAlgorithmException {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("MD5").digest(data)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static List<SequenceDigestCollector.RecordDigest> collect(String fasta) {
+        SequenceDigestCollector collector = new SequenceDigestCollector();
+        validate(fasta, collector);
+        return collector.getDigests();
+    }
+
+    private static void validate(String fasta, SequenceDigestCollector collector) {
+        ValidationSource source = ValidationSource.of(
+                ByteBuffer.wrap(fasta.getBytes(StandardCharsets.US_ASCII)), "test.fa");
+        FastaValidator validator = new FastaValidator(source, SequenceType.DNA);
+        validator.applyValidationResultStrategy(new DefaultValidationResultStrategy());
+        validator.addRecordListener(collector);
+        assertTrue(validator.validate().isValid());
+    }
+}
@@ -0,0 +1,132 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.Message;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SequenceIdSetTest {
+
+    @Test
+    public void testDuplicatesAreDetected() {
+        SequenceIdSet ids = new SequenceIdSet();
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(ids.add("read_" + i));
+        }
+        assertEquals(200_000, ids.size());
+        for (int i = 0; i < 200_000; i += 997) {
+            assertFalse(ids.add("read_" + i));
+        }
+        assertTrue(ids.add("read_200000"));
+        assertTrue(ids.getMemoryUsage() <= 200_001L * 24);
+    }
+
+    @Test
+    public void testSimilarIdsAreDistinct() {
+        SequenceIdSet ids = new SequenceIdSet();
+        assertTrue(ids.add("ab"));
+        assertTrue(ids.add("ba"));
+        assertTrue(ids.add("a"));
+        assertTrue(ids.add("a\u0000"));
+        assertTrue(ids.add(""));
+        assertFalse(ids.add("ab"));
+    }
+
+    @Test
+    public void testNonAsciiIdsAreDistinct() {
+        SequenceIdSet ids = new SequenceIdSet();
+        assertTrue(ids.add("seq\u00e9"));
+        assertTrue(ids.add("seq\u0169"));
+        assertTrue(ids.add("seq\u01e9"));
+        assertTrue(ids.add("seq\u00e9\u4e2d"));
+        assertFalse(ids.add("seq\u00e9"));
+        assertFalse(ids.add("seq\u0169"));
+        assertFalse(ids.add(">seq\u00e9\u4e2d desc", 1, 6));
+        assertEquals(4, ids.size());
+    }
+
+    @Test
+    public void testLongIdsAreDistinct() {
+        StringBuilder id = new StringBuilder();
+        while (id.length() < 10_000) {
+            id.append("ACGT");
+        }
+        SequenceIdSet ids = new SequenceIdSet();
+        assertTrue(ids.add(id));
+        assertTrue(ids.add(id + "A"));
+        assertFalse(ids.add(id.toString()));
+    }
+
+    @Test
+    public void testIdsAreNotCheckedOverBudget() {
+        SequenceIdSet ids = new SequenceIdSet(1024 * 12);
+        int i = 0;
+        while (!ids.isOverBudget()) {
+            assertTrue(ids.add("id" + i++));
+        }
+        assertEquals(768, ids.size()); // 1024 slots, 2048 would need 16KB
+        assertTrue(ids.add("id0"));
+    }
+
+    @Test
+    public void testInfoWhenBudgetIsExceeded() {
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 1000; i++) {
+            data.append(">seq").append(i).append("\nACGT\n");
+        }
+        data.append(">seq1\nACGT\n");
+        ValidationSource source = ValidationSource.of(
+                ByteBuffer.wrap(data.toString().getBytes(StandardCharsets.US_ASCII)), "seq.fa");
+        FastaValidator validator = new FastaValidator(source, SequenceType.DNA);
+        validator.setDuplicateIdMemoryBudget(1024 * 12);
+        ValidationResult result = validator.validate(); // warnings are disabled
+        assertTrue(result.isValid());
+        Message info = result.getInfoMessages().get(0);
+        assertEquals("Duplicate sequence-id check stopped at line 1537, memory budget of 12288"
+                + " bytes exceeded", info.getMessage());
+
+        validator = new FastaValidator(source, SequenceType.DNA);
+        result = validator.validate();
+        assertFalse(result.isValid());
+        assertEquals("Duplicate sequence-id at line 2001", result.getErrorMessage());
+    }
+
+    @Test
+    public void testDuplicatesAreConfirmedAtTheEnd() {
+        String data = ">a\nACGT\n>b\nACGT\n>a\nACGT\n>c\nAC1T\n>b desc\nACGT\n";
+        ValidationSource source = ValidationSource.of(
+                ByteBuffer.wrap(data.getBytes(StandardCharsets.US_ASCII)), "seq.fa");
+        FastaValidator validator = new FastaValidator(source, SequenceType.DNA);
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.disableStopAtFirstError();
+        validator.applyValidationResultStrategy(strategy);
+        ValidationResult result = validator.validate();
+
+        assertEquals(3, result.totalError());
+        assertTrue(result.getErrorMessages().get(0).getMessage().startsWith("Invalid letter 1"));
+        assertEquals("Duplicate sequence-id at line 5",
+                result.getErrorMessages().get(1).getMessage());
+        assertEquals("Duplicate sequence-id at line 9",
+                result.getErrorMessages().get(2).getMessage());
+    }
+
+    @Test
+    public void testDuplicatesInStreamsAreReported() {
+        String data = ">seq\u00e9\nACGT\n>seq\u00e8\nACGT\n>seq\u00e9\nACGT\n";
+        ValidationSource source = ValidationSource.of(
+                new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), "seq.fa");
+        ValidationResult result = new FastaValidator(source, SequenceType.DNA).validate();
+
+        assertFalse(result.isValid());
+        assertEquals("Duplicate sequence-id at line 5", result.getErrorMessage());
+    }
+}
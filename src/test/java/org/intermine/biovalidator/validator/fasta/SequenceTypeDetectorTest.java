@@ -0,0 +1,154 @@
+package org.intermine.biovalidator.validator.fasta;
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SequenceTypeDetectorTest {
+
+    @Test
+    public void testDetect() {
+        assertEquals(SequenceType.DNA, detect("ACGTNacgtn--RY", "GATTACAGATTACA"));
+        assertEquals(SequenceType.RNA, detect("ACGUNacgun", "GAUUACA"));
+        assertEquals(SequenceType.PROTEIN, detect("MKVLAAGIVG", "LLLAQ*"));
+        // nucleotide codes only, but not mostly ACGTN
+        assertEquals(SequenceType.PROTEIN, detect("MKVWSRRDHKKMW"));
+        assertEquals(SequenceType.ALL, detect("ACGT1"));
+        assertEquals(SequenceType.ALL, detect("", "--"));
+        assertEquals(SequenceType.DNA, detect("ACGT..ACGTN...", "..GATTACA"));
+    }
+
+    @Test
+    public void testDetectedProteinAllowsStopAndAmbiguityCodes() {
+        FastaValidator validator = detectingValidator(">p1\nMKVLAAGIVALLLA*\n>p2\nACGTACGTZZ\n"
+                + ">p3\nMBZJX*\n");
+        ValidationResult result = validator.validate();
+
+        assertTrue(result.isValid());
+        assertEquals(Optional.of(SequenceType.PROTEIN), validator.getDetectedSequenceType());
+    }
+
+    @Test
+    public void testDottedAlignmentIsDetectedAsDna() {
+        FastaValidator validator = detectingValidator(">a1\nACGT..ACGT--ACGT\n"
+                + ">a2\nAC....ACGTAAACGT\n");
+        validator.enableAlignmentGaps();
+        ValidationResult result = validator.validate();
+
+        assertTrue(result.isValid());
+        assertEquals(Optional.of(SequenceType.DNA), validator.getDetectedSequenceType());
+    }
+
+    @Test
+    public void testCharSequence() {
+        SequenceTypeDetector detector = new SequenceTypeDetector();
+        detector.add("acgu");
+        assertEquals(SequenceType.RNA, detector.detect());
+        detector.add("\u00e9");
+        assertEquals(SequenceType.ALL, detector.detect());
+    }
+
+    @Test
+    public void testDetectedTypeIsValidated() {
+        StringBuilder fasta = new StringBuilder(">seq1\n");
+        int lines = 0;
+        while (fasta.length() < 2 * SequenceTypeDetector.SAMPLE_SIZE) {
+            fasta.append("ACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTN\n");
+            lines++;
+        }
+        fasta.append(">seq2\nACGEN\n");
+        FastaValidator validator = new FastaValidator(ValidationSource.of(ByteBuffer.wrap(
+                fasta.toString().getBytes(StandardCharsets.US_ASCII)), "test.fa"),
+                SequenceType.AUTO);
+        ValidationResult result = validator.validate(); // warnings are disabled
+
+        assertFalse(result.isValid());
+        assertEquals("Invalid letter E at line number " + (lines + 3) + ", column 4",
+                result.getErrorMessages().get(0).getMessage());
+        assertEquals(Optional.of(SequenceType.DNA), validator.getDetectedSequenceType());
+        assertEquals("Detected sequence type: DNA",
+                result.getInfoMessages().get(0).getMessage());
+    }
+
+    @Test
+    public void testDetectedTypeUsesIupacAlphabet() {
+        StringBuilder fasta = new StringBuilder(">seq1\n");
+        while (fasta.length() < 2 * SequenceTypeDetector.SAMPLE_SIZE) {
+            fasta.append("ACGUNACGUNACGUNACGUNACGUNACGUNACGUNACGUNACGUNACGUNACGUNacgun\n");
+        }
+        fasta.append(">seq2\nACGTN\n"); // T is not an RNA letter
+        FastaValidator validator = new FastaValidator(ValidationSource.of(ByteBuffer.wrap(
+                fasta.toString().getBytes(StandardCharsets.US_ASCII)), "test.fa"),
+                SequenceType.AUTO);
+        ValidationResult result = validator.validate();
+
+        assertEquals(Optional.of(SequenceType.RNA), validator.getDetectedSequenceType());
+        assertTrue(result.getErrorMessages().get(0).getMessage().startsWith("Invalid letter T"));
+    }
+
+    @Test
+    public void testStreamIsSampledBeforeValidation() {
+        StringBuilder fasta = new StringBuilder("\ufeff>seq1\nACGTN-ACGT\n");
+        while (fasta.length() < 2 * SequenceTypeDetector.SAMPLE_SIZE) {
+            fasta.append("ACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTNACGTN\n");
+        }
+        byte[] bytes = fasta.toString().getBytes(StandardCharsets.UTF_8);
+        FastaValidator validator = new FastaValidator(ValidationSource.of(
+                new ByteArrayInputStream(bytes), "test.fa"), SequenceType.ALL);
+        validator.enableSequenceTypeDetection();
+        ValidationResult result = validator.validate();
+
+        assertFalse(result.isValid()); // same as for a file, '-' is not a nucleotide code
+        assertEquals("Invalid letter - at line number 2, column 6", result.getErrorMessage());
+        assertEquals(Optional.of(SequenceType.DNA), validator.getDetectedSequenceType());
+    }
+
+    @Test
+    public void testShortStreamIsDetected() {
+        FastaValidator validator = new FastaValidator(ValidationSource.of(
+                new ByteArrayInputStream(">seq1\nACGUN\n>seq2\nACGUUT".getBytes(
+                        StandardCharsets.US_ASCII)), "test.fa"), SequenceType.AUTO);
+        ValidationResult result = validator.validate();
+
+        assertFalse(result.isValid());
+        assertEquals("Invalid letter T at line number 4, column 6", result.getErrorMessage());
+        assertEquals(Optional.of(SequenceType.RNA), validator.getDetectedSequenceType());
+        assertEquals("Detected sequence type: RNA",
+                result.getInfoMessages().get(0).getMessage());
+    }
+
+    @Test
+    public void testShortReaderIsDetected() {
+        FastaValidator validator = new FastaValidator(new InputStreamReader(
+                new ByteArrayInputStream(">seq1\nMKVLA*\n".getBytes(StandardCharsets.US_ASCII)),
+                StandardCharsets.US_ASCII));
+        validator.enableSequenceTypeDetection();
+
+        assertTrue(validator.validate().isValid());
+        assertEquals(Optional.of(SequenceType.PROTEIN), validator.getDetectedSequenceType());
+    }
+
+    private static FastaValidator detectingValidator(String fasta) {
+        return new FastaValidator(ValidationSource.of(ByteBuffer.wrap(
+                fasta.getBytes(StandardCharsets.US_ASCII)), "test.fa"), SequenceType.AUTO);
+    }
+
+    private static SequenceType detect(String... lines) {
+        SequenceTypeDetector detector = new SequenceTypeDetector();
+        for (String line : lines) {
+            byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+            detector.add(bytes, 0, bytes.length);
+        }
+        return detector.detect();
+    }
+}
@@ -0,0 +1,88 @@
+package org.intermine.biovalidator.validator.fasta.sequencevalidator;
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.api.ValidatorBuilder;
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SequenceAlphabetTest {
+
+    @Test
+    public void testStrictNucleotides() {
+        SequenceValidator validator = new AlphabetSequenceValidator(SequenceAlphabet.ACGTN);
+        assertTrue(validator.isValid("ACGTNNNNACGT"));
+        assertFalse(validator.isValid("ACGTacgt"));
+        assertFalse(validator.isValid("ACGTR"));
+        assertFalse(validator.isValid("ACG T"));
+        assertFalse(validator.isValid("ACG-T"));
+    }
+
+    @Test
+    public void testSoftMaskedIupac() {
+        SequenceValidator validator =
+                new AlphabetSequenceValidator(SequenceAlphabet.IUPAC_NUCLEOTIDE);
+        assertTrue(validator.isValid("ACGTRYKMacgtrykm"));
+        assertFalse(validator.isValid("ACGTE"));
+        assertTrue(new AlphabetSequenceValidator(SequenceAlphabet.ACGTN.withSoftMasking())
+                .isValid("ACGTNacgtn"));
+    }
+
+    @Test
+    public void testRnaHasNoThymine() {
+        SequenceValidator validator = new AlphabetSequenceValidator(SequenceAlphabet.IUPAC_RNA);
+        assertTrue(validator.isValid("ACGUacgu"));
+        assertFalse(validator.isValid("ACGT"));
+    }
+
+    @Test
+    public void testProtein() {
+        SequenceValidator validator = new AlphabetSequenceValidator(SequenceAlphabet.PROTEIN);
+        assertTrue(validator.isValid("MDDHFKRSRLSQEESSKSDLLCCPLPHTRDGAENVUOX"));
+        assertFalse(validator.isValid("MDDBZ"));
+        assertFalse(validator.isValid("MDD*"));
+    }
+
+    @Test
+    public void testGapsOnlyInAlignmentMode() {
+        SequenceAlphabet alignment = SequenceAlphabet.ACGTN.withGaps();
+        assertTrue(new AlphabetSequenceValidator(alignment).isValid("AC--GT..N"));
+        assertFalse(new AlphabetSequenceValidator(SequenceAlphabet.ACGTN).isValid("AC--GT"));
+        assertSame(alignment, alignment.withGaps());
+    }
+
+    @Test
+    public void testParse() {
+        assertSame(SequenceAlphabet.PROTEIN, SequenceAlphabet.parse("Protein"));
+        assertSame(SequenceAlphabet.IUPAC_RNA, SequenceAlphabet.parse("rna"));
+        SequenceAlphabet custom = SequenceAlphabet.parse("ACGT");
+        assertTrue(custom.contains('T'));
+        assertFalse(custom.contains('N'));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWhitespaceIsNotALetter() {
+        SequenceAlphabet.of("AC GT");
+    }
+
+    @Test
+    public void testFastaWithAlphabet() {
+        String data = ">seq1\nACGTNacgtn\n";
+        ValidationSource source = ValidationSource.of(
+                ByteBuffer.wrap(data.getBytes(StandardCharsets.US_ASCII)), "seq.fa");
+        ValidationResult result = ValidatorBuilder.withSource(source, ValidatorType.FASTA_DNA)
+                .withSequenceAlphabet(SequenceAlphabet.ACGTN)
+                .build()
+                .validate();
+        assertFalse(result.isValid());
+        assertEquals("Invalid letter a at line number 2, column 6", result.getErrorMessage());
+    }
+}
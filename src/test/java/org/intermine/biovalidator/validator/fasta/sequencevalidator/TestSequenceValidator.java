@@ -1,9 +1,17 @@
 package org.intermine.biovalidator.validator.fasta.sequencevalidator;
 
+import org.intermine.biovalidator.api.DefaultValidationResult;
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.ValidationResult;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 public class TestSequenceValidator {
@@ -92,4 +100,65 @@ public class TestSequenceValidator {
         assertFalse(genericSequenceValidator.isValid("!"));
         assertFalse(genericSequenceValidator.isValid(";"));
     }
+
+    @Test
+    public void testResidueTableMatchesLetterValidation() {
+        SequenceValidator[] validators = {simpleNucleicValidator, proteinValidator,
+                genericSequenceValidator, nucleicValidator};
+        for (SequenceValidator validator : validators) {
+            ResidueTable table = ResidueTable.of(validator);
+            for (int i = 0; i < 256; i++) {
+                assertEquals(validator.isValidLetter((char) i), table.isValid((byte) i));
+            }
+        }
+    }
+
+    @Test
+    public void testValidateBytes() {
+        byte[] data = "  ACGTN-acgtZT".getBytes(StandardCharsets.US_ASCII);
+        ValidationResult result = new DefaultValidationResult(new DefaultValidationResultStrategy());
+        assertEquals(7, simpleNucleicValidator.validate(data, 2, 9, 3, result));
+        assertTrue(result.isValid());
+        assertEquals(11, simpleNucleicValidator.validate(data, 2, data.length, 3, result));
+        assertEquals("Invalid letter Z at line number 3, column 11",
+                result.getErrorMessages().get(0).getMessage());
+    }
+
+    @Test
+    public void testBulkValidationMatchesLetterValidation() {
+        SequenceValidator[] validators = {simpleNucleicValidator, proteinValidator,
+                genericSequenceValidator, nucleicValidator};
+        Random random = new Random(3);
+        byte[] common = "ACGTNacgtnACGTNacgtnACGTN".getBytes(StandardCharsets.US_ASCII);
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            byte[] data = new byte[random.nextInt(40)];
+            for (int i = 0; i < data.length; i++) {
+                // mostly nucleotides, sometimes any byte
+                data[i] = random.nextInt(30) == 0
+                        ? (byte) random.nextInt(256) : common[random.nextInt(common.length)];
+            }
+            int from = data.length == 0 ? 0 : random.nextInt(data.length);
+            ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data);
+            String chars = new String(data, StandardCharsets.ISO_8859_1);
+            for (SequenceValidator validator : validators) {
+                int expected = -1;
+                for (int i = from; i < data.length; i++) {
+                    if (!validator.isValidLetter((char) (data[i] & 0xFF))) {
+                        expected = i;
+                        break;
+                    }
+                }
+                assertEquals(expected, validator.indexOfInvalid(data, from, data.length));
+                assertEquals(expected, validator.indexOfInvalid(direct, from, data.length));
+                assertEquals(expected, validator.indexOfInvalid(chars, from, data.length));
+            }
+        }
+    }
+
+    @Test
+    public void testCharsBeyondByteRange() {
+        // em space is a whitespace, accepted by isValidLetter() of generic sequences
+        assertTrue(genericSequenceValidator.isValid("ACGT\u2003ACGT"));
+        assertEquals(4, genericSequenceValidator.indexOfInvalid("ACGT\u4e00ACGT", 0, 9));
+    }
 }
@@ -3,6 +3,7 @@ package org.intermine.biovalidator.validator.fasta.validator;
 import org.intermine.biovalidator.BaseValidatorTest;
 import org.intermine.biovalidator.api.ValidationFailureException;
 import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
 import org.intermine.biovalidator.api.Validator;
 import org.intermine.biovalidator.api.ValidatorBuilder;
 import org.intermine.biovalidator.api.ValidatorHelper;
@@ -17,6 +18,8 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static junit.framework.TestCase.assertEquals;
@@ -96,6 +99,26 @@ public class FastaValidatorRuleTest extends BaseValidatorTest {
         assertEquals("Invalid letter 7 at line number 2, column 1", errors.get(0));
     }
 
+    @Test
+    public void testInvalidCodeInRawBytes() {
+        String inputData = ">seq1 description\n" +
+                           "  ACGTACGTACGT \r\n" +
+                           "ACGTAC\u00e9GT\n";
+        ValidationSource source = ValidationSource.of(
+                ByteBuffer.wrap(inputData.getBytes(StandardCharsets.UTF_8)), "seq.fa");
+        ValidationResult result = new FastaValidator(source, SequenceType.DNA).validate();
+        assertFalse(result.isValid());
+
+        List<String> errors = getErrorsListFromValidationResult(result);
+        assertEquals("Invalid letter \u00e9 at line number 3, column 7", errors.get(0));
+
+        source = ValidationSource.of(ByteBuffer.wrap(">seq1\nACGT\u2014\n"
+                .getBytes(StandardCharsets.UTF_8)), "seq.fa");
+        result = new FastaValidator(source, SequenceType.DNA).validate();
+        errors = getErrorsListFromValidationResult(result);
+        assertEquals("Invalid letter \u2014 at line number 2, column 5", errors.get(0));
+    }
+
     @Test
     @Ignore //Validator should accept ValidationStrategy through constructor args
     public void testWarningOnExceedingDefinedSequenceLengthOnALine()
@@ -115,6 +138,22 @@ public class FastaValidatorRuleTest extends BaseValidatorTest {
         assertEquals("number of sequence length exceed 80 at line 3", warnings.get(1));
     }
 
+    @Test
+    public void testAlignmentGapsUseLettersOfSequenceType() {
+        String fasta = ">seq1\nMKV--LAAG.IVG\n";
+        ValidationSource source = ValidationSource.of(ByteBuffer.wrap(
+                fasta.getBytes(StandardCharsets.US_ASCII)), "seq.fa");
+        assertTrue(ValidatorBuilder.withSource(source, ValidatorType.FASTA_PROTEIN)
+                .enableAlignmentGaps().build().validate().isValid());
+
+        source = ValidationSource.of(ByteBuffer.wrap(
+                fasta.getBytes(StandardCharsets.US_ASCII)), "seq.fa");
+        ValidationResult result = ValidatorBuilder.withSource(source, ValidatorType.FASTA_DNA)
+                .enableAlignmentGaps().build().validate();
+        assertEquals("Invalid letter L at line number 2, column 6",
+                getErrorsListFromValidationResult(result).get(0));
+    }
+
     @Test
     public void testFileContainUniqueHeaderIdentifier () throws ValidationFailureException {
         String filename = "invalid/duplicate_headers.fa";
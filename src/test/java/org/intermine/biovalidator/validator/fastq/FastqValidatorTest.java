@@ -0,0 +1,137 @@
+package org.intermine.biovalidator.validator.fastq;
+
+import org.intermine.biovalidator.api.DefaultValidationResultStrategy;
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.api.Validator;
+import org.intermine.biovalidator.api.ValidatorBuilder;
+import org.intermine.biovalidator.validator.ValidatorType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FastqValidatorTest {
+
+    @Test
+    public void testValidRecords() {
+        String data = "@read1 sample=1\nACGTN\n+\nII#5!\n@read2\nacgt\n+read2\n~~~~\n";
+        ValidationResult result = validate(data, QualityEncoding.PHRED33, true);
+        assertTrue(result.getErrorMessage(), result.isValid());
+    }
+
+    @Test
+    public void testDetectedQualityEncodingIsReported() {
+        String phred64 = "@r1\nACGT\n+\nhhhB\n@r2\nACGT\n+\n@@@h\n";
+        FastqValidator validator = createValidator(phred64, QualityEncoding.AUTO, true);
+        ValidationResult result = validator.validate();
+        assertTrue(result.isValid());
+        assertEquals(Optional.of(QualityEncoding.PHRED64),
+                validator.getDetectedQualityEncoding());
+        assertEquals("Detected quality encoding: Phred+64",
+                result.getInfoMessages().get(0).getMessage());
+        assertTrue(result.getWarningMessages().isEmpty());
+
+        String phred33 = "@r1\nACGT\n+\nhhhh\n@r2\nACGT\n+\nhh5h\n";
+        validator = createValidator(phred33, QualityEncoding.AUTO, true);
+        assertTrue(validator.validate().isValid());
+        assertEquals(Optional.of(QualityEncoding.PHRED33),
+                validator.getDetectedQualityEncoding());
+    }
+
+    @Test
+    public void testQualityOutOfEncodingRange() {
+        String data = "@r1\nACGT\n+\nhhh5\n";
+        ValidationResult result = validate(data, QualityEncoding.PHRED64, true);
+        assertEquals("Invalid quality score '5' for Phred+64 encoding at line 4, column 4",
+                result.getErrorMessage());
+
+        result = validate("@r1\nACGT\n+\nII I\n", QualityEncoding.AUTO, true);
+        assertEquals("Invalid quality score ' ' at line 4, column 3", result.getErrorMessage());
+    }
+
+    @Test
+    public void testQualityLengthMustMatchSequenceLength() {
+        ValidationResult result = validate("@r1\nACGT\n+\nIII\n", QualityEncoding.AUTO, true);
+        assertEquals("Quality length 3 does not match sequence length 4 at line 4",
+                result.getErrorMessage());
+    }
+
+    @Test
+    public void testSequenceLettersAreValidated() {
+        ValidationResult result = validate("@r1\nACXT\n+\nIIII\n", QualityEncoding.AUTO, true);
+        assertEquals("Invalid letter X at line number 2, column 3", result.getErrorMessage());
+    }
+
+    @Test
+    public void testReadIdAfterSeparator() {
+        String data = "@r1 lane 1\nACGT\n+r2\nIIII\n";
+        ValidationResult result = validate(data, QualityEncoding.AUTO, true);
+        assertEquals("Read id after '+' at line 3 does not match the header at line 1",
+                result.getErrorMessage());
+
+        result = validate(data, QualityEncoding.AUTO, false);
+        assertTrue(result.isValid());
+        assertEquals("Read id after '+' at line 3 does not match the header at line 1",
+                result.getWarningMessages().get(0).getMessage());
+    }
+
+    @Test
+    public void testRecordStructure() {
+        assertEquals(FastqValidator.NOT_FASTQ_MESSAGE,
+                validate(">r1\nACGT\n", QualityEncoding.AUTO, true).getErrorMessage());
+        assertEquals(FastqValidator.NOT_FASTQ_MESSAGE,
+                validate("", QualityEncoding.AUTO, true).getErrorMessage());
+        assertEquals("Record header does not start with '@' at line 5",
+                validate("@r1\nA\n+\nI\nr2\nA\n+\nI\n", QualityEncoding.AUTO, true)
+                        .getErrorMessage());
+        assertEquals("Missing read id at line 1",
+                validate("@ r1\nA\n+\nI\n", QualityEncoding.AUTO, true).getErrorMessage());
+        assertEquals("Missing '+' separator line at line 3",
+                validate("@r1\nA\n-\nI\n", QualityEncoding.AUTO, true).getErrorMessage());
+        assertEquals("Incomplete record at line 5, a record must have 4 lines",
+                validate("@r1\nA\n+\nI\n@r2\nA\n", QualityEncoding.AUTO, true)
+                        .getErrorMessage());
+    }
+
+    @Test
+    public void testGzipStream() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write("@r1\nACGT\n+\nIIII\n@r2\nACGT\n+\nIII\n".getBytes(StandardCharsets.UTF_8));
+        }
+        ValidationSource source = ValidationSource.of(
+                new ByteArrayInputStream(compressed.toByteArray()), "reads.fq.gz");
+        Validator validator = ValidatorBuilder.withSource(source, ValidatorType.FASTQ).build();
+        ValidationResult result = validator.validate();
+        assertEquals("Quality length 3 does not match sequence length 4 at line 8",
+                result.getErrorMessage());
+    }
+
+    private static ValidationResult validate(String data, QualityEncoding encoding,
+                                             boolean strict) {
+        return createValidator(data, encoding, strict).validate();
+    }
+
+    private static FastqValidator createValidator(String data, QualityEncoding encoding,
+                                                  boolean strict) {
+        ByteBuffer buffer = ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8));
+        FastqValidator validator = new FastqValidator(ValidationSource.of(buffer, "reads.fq"),
+                encoding);
+        DefaultValidationResultStrategy strategy = new DefaultValidationResultStrategy();
+        strategy.enableWarnings();
+        validator.applyValidationResultStrategy(strategy);
+        if (!strict) {
+            validator.disableStrictValidation();
+        }
+        return validator;
+    }
+}
@@ -0,0 +1,94 @@
+package org.intermine.biovalidator.validator.fastq;
+
+import org.intermine.biovalidator.api.ValidationResult;
+import org.intermine.biovalidator.api.ValidationSource;
+import org.intermine.biovalidator.validator.AbstractValidator;
+import org.intermine.biovalidator.validator.BaseChunkedValidationTest;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelFastqValidationTest extends BaseChunkedValidationTest {
+
+    public ParallelFastqValidationTest() {
+        super(".fq");
+    }
+
+    @Test
+    public void testParallelValidationSplitsAtRecords() throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int record = 0; record < 500; record++) {
+            // quality lines starting with '@' and '+' must not be taken for record boundaries
+            data.append("@read").append(record).append('\n').append("ACGTACGTAC\n+\n")
+                    .append(record % 2 == 0 ? "@+IIIIIIII" : "+@IIIIIIII").append('\n');
+        }
+        Files.write(file, data.toString().getBytes(StandardCharsets.US_ASCII));
+        ValidationResult result = validate(true, 4, true);
+        assertTrue(result.getErrorMessage(), result.isValid());
+    }
+
+    @Test
+    public void testInvalidFileIsValidatedSequentially() throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int record = 0; record < 100; record++) {
+            data.append("@read").append(record).append("\nACGT\n+\nIIII\n");
+            if (record == 50) {
+                data.append("extra line\n"); // records after it are not at lines 4n + 1
+            }
+        }
+        Files.write(file, data.toString().getBytes(StandardCharsets.US_ASCII));
+        ValidationResult result = validate(true, 4, true);
+        assertEquals("Record header does not start with '@' at line 205",
+                result.getErrorMessage());
+    }
+
+    @Override
+    protected AbstractValidator createValidator(ValidationSource source, int threads) {
+        FastqValidator validator = new FastqValidator(source);
+        if (threads > 1) {
+            validator.enableParallelValidation(threads);
+            validator.setMinChunkSize(MIN_CHUNK_SIZE);
+        }
+        return validator;
+    }
+
+    @Override
+    protected byte[] generate(Random random) {
+        StringBuilder data = new StringBuilder();
+        String newLine = random.nextInt(4) == 0 ? "\r\n" : "\n";
+        // Phred+64 files have no quality below '@'
+        String qualities = random.nextBoolean() ? "@+!#5?I" : "@ABhi~";
+        int records = 1 + random.nextInt(12);
+        for (int record = 0; record < records; record++) {
+            int length = random.nextInt(30);
+            StringBuilder sequence = new StringBuilder();
+            StringBuilder quality = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                sequence.append("ACGTNacgtn".charAt(random.nextInt(10)));
+                quality.append(qualities.charAt(random.nextInt(qualities.length())));
+            }
+            int error = random.nextInt(40);
+            if (error == 0 && length > 0) {
+                sequence.setCharAt(random.nextInt(length), 'Z');
+            } else if (error == 1) {
+                quality.append('I');
+            } else if (error == 2 && length > 0) {
+                quality.setCharAt(random.nextInt(length), ' ');
+            }
+            data.append(error == 3 ? "read" : "@read").append(record).append(newLine)
+                    .append(sequence).append(newLine)
+                    .append(error == 4 ? "+other" : "+").append(newLine)
+                    .append(quality).append(newLine);
+        }
+        if (random.nextInt(10) == 0) {
+            data.append("@truncated").append(newLine).append("ACGT").append(newLine);
+        }
+        return data.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}